@@ -0,0 +1,57 @@
+package com.collabnotes.collabnotes.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.util.ByteUtils;
+
+/**
+ * Reads many entries of a {@link RedisCache} with one MGET, using the
+ * cache's own key prefix and value serializer so the result matches what
+ * {@link RedisCache#get(Object)} would return key by key. Other caches are
+ * read key by key.
+ */
+public class RedisMultiGet implements TwoTierCache.SharedMultiGet {
+
+    private final StringRedisTemplate redis;
+
+    public RedisMultiGet(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    @Override
+    public List<ValueWrapper> get(Cache shared, List<String> keys) {
+        if (!(shared instanceof RedisCache redisCache)) {
+            return keys.stream().map(shared::get).toList();
+        }
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String prefix = config.getKeyPrefixFor(redisCache.getName());
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            rawKeys[i] = ByteUtils.getBytes(config.getKeySerializationPair().write(prefix + keys.get(i)));
+        }
+        List<byte[]> raw = redis.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(rawKeys));
+
+        List<ValueWrapper> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] bytes = raw != null ? raw.get(i) : null;
+            if (bytes == null) {
+                values.add(null);
+                continue;
+            }
+            Object value = config.getValueSerializationPair().read(ByteBuffer.wrap(bytes));
+            values.add(new SimpleValueWrapper(value instanceof NullValue ? null : value));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,232 @@
+package com.collabnotes.collabnotes.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import com.collabnotes.collabnotes.metrics.MetricsService;
+
+/**
+ * A cache with an in-process L1 in front of a shared L2 (Redis).
+ *
+ * Reads try L1, then L2, and copy L2 hits into L1. Writes and evictions go
+ * to L2 first, then L1, and are announced through {@code onChange} so other
+ * nodes drop their L1 copy (a null key means the whole cache was cleared).
+ * An L1 fill is skipped if an invalidation arrived while L2 was being read,
+ * so a racing eviction cannot leave a stale entry behind; anything else is
+ * bounded by the L1 time-to-live.
+ *
+ * Filling a miss is not a write: {@link #putIfAbsent} and
+ * {@link #get(Object, Callable)} (used by {@code @Cacheable(sync = true)})
+ * only populate both tiers, keep any value another node stored first and
+ * announce nothing; a node still holding an older L1 copy of a key that
+ * expired from L2 drops it at its own L1 time-to-live.
+ *
+ * {@link #getAll} reads many keys with one L2 round trip when a
+ * {@link SharedMultiGet} is available (an MGET for Redis).
+ *
+ * Lookups are counted as {@code app.counter.cache.gets} tagged with cache,
+ * tier and result, and each tier's hit ratio is exposed as
+ * {@code app.gauge.cache.hit_ratio}.
+ */
+public class TwoTierCache implements Cache {
+
+    static final String L1 = "l1";
+    static final String L2 = "l2";
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> l1;
+    private final Cache l2;
+    private final Consumer<String> onChange;
+    private final SharedMultiGet sharedMultiGet;
+    private final MetricsService metricsService;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+
+    public TwoTierCache(com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> l1, Cache l2,
+            Consumer<String> onChange, MetricsService metricsService) {
+        this(l1, l2, onChange, metricsService, null);
+    }
+
+    public TwoTierCache(com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> l1, Cache l2,
+            Consumer<String> onChange, MetricsService metricsService, SharedMultiGet sharedMultiGet) {
+        this.name = l2.getName();
+        this.l1 = l1;
+        this.l2 = l2;
+        this.onChange = onChange;
+        this.sharedMultiGet = sharedMultiGet;
+        this.metricsService = metricsService;
+        metricsService.registerGauge("cache.hit_ratio", () -> ratio(l1Hits, l1Misses), "cache", name, "tier", L1);
+        metricsService.registerGauge("cache.hit_ratio", () -> ratio(l2Hits, l2Misses), "cache", name, "tier", L2);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String l1Key = String.valueOf(key);
+        ValueWrapper local = l1.getIfPresent(l1Key);
+        if (local != null) {
+            count(L1, true);
+            return local;
+        }
+        count(L1, false);
+        long seen = invalidations.get();
+        ValueWrapper shared = l2.get(key);
+        count(L2, shared != null);
+        if (shared != null && invalidations.get() == seen) {
+            l1.put(l1Key, new SimpleValueWrapper(shared.get()));
+        }
+        return shared;
+    }
+
+    /**
+     * Looks up every key, from L1 where possible and with a single L2 read
+     * for the rest. Keys missing from both tiers are absent from the result.
+     */
+    public Map<String, ValueWrapper> getAll(Collection<String> keys) {
+        Map<String, ValueWrapper> found = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String key : keys) {
+            ValueWrapper local = l1.getIfPresent(key);
+            count(L1, local != null);
+            if (local != null) {
+                found.put(key, local);
+            } else {
+                misses.add(key);
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+        long seen = invalidations.get();
+        List<ValueWrapper> shared = sharedMultiGet != null
+                ? sharedMultiGet.get(l2, misses)
+                : misses.stream().map(l2::get).toList();
+        boolean fill = invalidations.get() == seen;
+        for (int i = 0; i < misses.size(); i++) {
+            ValueWrapper value = shared.get(i);
+            count(L2, value != null);
+            if (value != null) {
+                found.put(misses.get(i), value);
+                if (fill) {
+                    l1.put(misses.get(i), new SimpleValueWrapper(value.get()));
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        ValueWrapper existing = putIfAbsent(key, value);
+        return existing != null ? (T) existing.get() : value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        invalidations.incrementAndGet();
+        l1.put(String.valueOf(key), new SimpleValueWrapper(value));
+        onChange.accept(String.valueOf(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        long seen = invalidations.get();
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        if (invalidations.get() == seen) {
+            l1.put(String.valueOf(key), new SimpleValueWrapper(existing != null ? existing.get() : value));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        invalidateLocal(String.valueOf(key));
+        onChange.accept(String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        invalidateLocal(null);
+        onChange.accept(null);
+    }
+
+    /** Drops the L1 copy of one key, or of every key when {@code key} is null; L2 is untouched. */
+    public void invalidateLocal(String key) {
+        invalidations.incrementAndGet();
+        if (key == null) {
+            l1.invalidateAll();
+        } else {
+            l1.invalidate(key);
+        }
+    }
+
+    private void count(String tier, boolean hit) {
+        if (L1.equals(tier)) {
+            (hit ? l1Hits : l1Misses).increment();
+        } else {
+            (hit ? l2Hits : l2Misses).increment();
+        }
+        metricsService.incrementCounter("cache.gets", "cache", name, "tier", tier, "result", hit ? "hit" : "miss");
+    }
+
+    /** Reads many keys from the shared tier in one round trip. */
+    @FunctionalInterface
+    public interface SharedMultiGet {
+
+        /** One entry per key, in order; null where the shared cache has no value. */
+        List<ValueWrapper> get(Cache shared, List<String> keys);
+    }
+
+    private static double ratio(LongAdder hits, LongAdder misses) {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+}
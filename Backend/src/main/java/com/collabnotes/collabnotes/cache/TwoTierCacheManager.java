@@ -0,0 +1,101 @@
+package com.collabnotes.collabnotes.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.collabnotes.collabnotes.metrics.MetricsService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Wraps every cache of a shared (Redis) {@link CacheManager} in a
+ * {@link TwoTierCache} with a bounded Caffeine L1 per cache. Caffeine's
+ * W-TinyLFU admission keeps one-off keys from pushing hot ones, such as
+ * access checks for an open note, out of L1.
+ *
+ * Local writes and evictions are published on {@link #INVALIDATION_CHANNEL}
+ * as {@code node \t cache [\t key]}; every other node drops its L1 copy when
+ * it receives one. Register this manager as a listener for that channel.
+ */
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache-invalidations";
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCacheManager.class);
+
+    private final CacheManager l2;
+    private final StringRedisTemplate redis;
+    private final MetricsService metricsService;
+    private final long maximumSize;
+    private final Duration ttl;
+    private final TwoTierCache.SharedMultiGet sharedMultiGet;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentHashMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager l2, StringRedisTemplate redis, MetricsService metricsService,
+            long maximumSize, Duration ttl) {
+        this(l2, redis, metricsService, maximumSize, ttl, null);
+    }
+
+    public TwoTierCacheManager(CacheManager l2, StringRedisTemplate redis, MetricsService metricsService,
+            long maximumSize, Duration ttl, TwoTierCache.SharedMultiGet sharedMultiGet) {
+        this.l2 = l2;
+        this.redis = redis;
+        this.metricsService = metricsService;
+        this.maximumSize = maximumSize;
+        this.ttl = ttl;
+        this.sharedMultiGet = sharedMultiGet;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache shared = l2.getCache(name);
+        if (shared == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new TwoTierCache(
+                Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).build(),
+                shared, changedKey -> publish(name, changedKey), metricsService, sharedMultiGet));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l2.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\t", 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts.length == 3 ? parts[2] : null);
+        }
+    }
+
+    private void publish(String cacheName, String key) {
+        String message = nodeId + "\t" + cacheName + (key != null ? "\t" + key : "");
+        try {
+            redis.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (RuntimeException e) {
+            // Other nodes keep their copy until the L1 TTL; the shared tier is already updated.
+            logger.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
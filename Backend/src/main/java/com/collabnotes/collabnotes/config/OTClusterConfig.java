@@ -0,0 +1,95 @@
+package com.collabnotes.collabnotes.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.collabnotes.collabnotes.service.ot.OTClusterRouter;
+import com.collabnotes.collabnotes.service.ot.OTClusterRouter.OTCommand;
+
+/**
+ * Pub/sub wiring for {@link OTClusterRouter}, only active when
+ * {@code app.ot.cluster.enabled=true}.
+ *
+ * Uses its own listener container with a single dispatch thread, so relayed
+ * OT messages reach local subscribers in the order the owner published them.
+ * Forwarded commands run on {@code app.ot.cluster.command-threads} threads of
+ * their own, so database work on the owner never stalls relay delivery. Each
+ * note hashes to one of those threads: its commands keep their order while a
+ * slow note only holds up the notes that share its thread.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.ot.cluster.enabled", havingValue = "true")
+public class OTClusterConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(OTClusterConfig.class);
+
+    @Value("${app.ot.cluster.command-threads:4}")
+    private int commandThreads;
+
+    @Bean(destroyMethod = "shutdown")
+    public CommandStripes otClusterCommandStripes() {
+        return new CommandStripes(commandThreads);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService otClusterRelayExecutor() {
+        return Executors.newSingleThreadExecutor(r -> new Thread(r, "ot-cluster-relay"));
+    }
+
+    @Bean
+    public RedisMessageListenerContainer otClusterListenerContainer(RedisConnectionFactory connectionFactory,
+            OTClusterRouter router) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(otClusterRelayExecutor());
+        container.addMessageListener(
+                (message, pattern) -> router.onRelayedMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(OTClusterRouter.RELAY_CHANNEL));
+        CommandStripes commands = otClusterCommandStripes();
+        container.addMessageListener((message, pattern) -> {
+            String json = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                OTCommand command = router.readCommand(json);
+                commands.execute(command.noteId(), () -> router.onForwardedCommand(command));
+            } catch (RuntimeException e) {
+                logger.error("Dropping unreadable forwarded OT command", e);
+            }
+        }, new ChannelTopic(OTClusterRouter.NODE_CHANNEL_PREFIX + router.nodeId()));
+        return container;
+    }
+
+    /** Single-thread executors that each note's commands are pinned to by hash. */
+    public static final class CommandStripes {
+
+        private final ExecutorService[] stripes;
+
+        CommandStripes(int threads) {
+            stripes = new ExecutorService[Math.max(1, threads)];
+            for (int i = 0; i < stripes.length; i++) {
+                String name = "ot-cluster-commands-" + i;
+                stripes[i] = Executors.newSingleThreadExecutor(r -> new Thread(r, name));
+            }
+        }
+
+        void execute(String noteId, Runnable task) {
+            stripes[Math.floorMod(noteId.hashCode(), stripes.length)].execute(task);
+        }
+
+        public void shutdown() {
+            for (ExecutorService stripe : stripes) {
+                stripe.shutdown();
+            }
+        }
+    }
+}
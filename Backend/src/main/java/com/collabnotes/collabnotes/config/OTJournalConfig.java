@@ -0,0 +1,50 @@
+package com.collabnotes.collabnotes.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.collabnotes.collabnotes.service.ot.JdbcStepJournal;
+import com.collabnotes.collabnotes.service.ot.MappedFileStepJournal;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService;
+import com.collabnotes.collabnotes.service.ot.OTLeaseFence;
+import com.collabnotes.collabnotes.service.ot.RedisStreamStepJournal;
+import com.collabnotes.collabnotes.service.ot.StepJournal;
+
+@Configuration
+public class OTJournalConfig {
+
+    @Value("${app.ot.journal.type:none}")
+    private String journalType;
+
+    @Value("${app.ot.journal.file.directory:./data/ot-journal}")
+    private String journalDirectory;
+
+    @Value("${app.ot.journal.file.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${app.ot.journal.file.max-segments:16}")
+    private int maxSegments;
+
+    @Value("${app.ot.journal.redis.ttl-hours:168}")
+    private long redisTtlHours;
+
+    @Bean
+    public StepJournal stepJournal(JdbcTemplate jdbcTemplate, StringRedisTemplate redisTemplate,
+            OTLeaseFence leaseFence) {
+        return switch (journalType.trim().toLowerCase()) {
+            case "file" -> new MappedFileStepJournal(Path.of(journalDirectory),
+                    segmentSizeMb * 1024L * 1024L, maxSegments, OTAuthorityService.MAX_STEP_HISTORY);
+            case "jdbc" -> new JdbcStepJournal(jdbcTemplate, OTAuthorityService.MAX_STEP_HISTORY, leaseFence);
+            case "redis" -> new RedisStreamStepJournal(redisTemplate, OTAuthorityService.MAX_STEP_HISTORY,
+                    Duration.ofHours(redisTtlHours), leaseFence);
+            case "none" -> StepJournal.none();
+            default -> throw new IllegalArgumentException("Unknown app.ot.journal.type: " + journalType);
+        };
+    }
+}
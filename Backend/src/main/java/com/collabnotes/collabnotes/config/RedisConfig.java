@@ -3,6 +3,7 @@ package com.collabnotes.collabnotes.config;
 import java.time.Duration;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,11 +13,17 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import com.collabnotes.collabnotes.cache.RedisMultiGet;
+import com.collabnotes.collabnotes.cache.TwoTierCacheManager;
+import com.collabnotes.collabnotes.metrics.MetricsService;
+import com.collabnotes.collabnotes.websocket.SessionAuthCache;
+
 @Configuration
 @EnableCaching
 public class RedisConfig {
@@ -44,8 +51,17 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Redis-backed caches, fronted by a per-node Caffeine tier unless
+     * {@code app.cache.l1.enabled=false}. The L1 TTL bounds how long a node
+     * can miss another node's invalidation.
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+            StringRedisTemplate stringRedisTemplate, MetricsService metricsService,
+            @Value("${app.cache.l1.enabled:true}") boolean l1Enabled,
+            @Value("${app.cache.l1.maximum-size:10000}") long l1MaximumSize,
+            @Value("${app.cache.l1.ttl-ms:30000}") long l1TtlMs) {
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofHours(1))
                 .serializeKeysWith(
@@ -55,19 +71,30 @@ public class RedisConfig {
                         RedisSerializationContext.SerializationPair.fromSerializer(
                                 org.springframework.data.redis.serializer.RedisSerializer.json()));
 
-        return RedisCacheManager.builder(redisConnectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
                 .cacheDefaults(cacheConfig)
                 .withCacheConfiguration("userCache",
                         cacheConfig.entryTtl(Duration.ofMinutes(30)))
                 .withCacheConfiguration("noteCache",
                         cacheConfig.entryTtl(Duration.ofMinutes(15)))
                 .build();
+        redisCacheManager.afterPropertiesSet();
+        if (!l1Enabled) {
+            return redisCacheManager;
+        }
+        return new TwoTierCacheManager(redisCacheManager, stringRedisTemplate, metricsService,
+                l1MaximumSize, Duration.ofMillis(l1TtlMs), new RedisMultiGet(stringRedisTemplate));
     }
 
     @Bean
-    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+            SessionAuthCache sessionAuthCache, CacheManager cacheManager) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(sessionAuthCache, noteUpdatesTopic());
+        if (cacheManager instanceof TwoTierCacheManager twoTier) {
+            container.addMessageListener(twoTier, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        }
         return container;
     }
 
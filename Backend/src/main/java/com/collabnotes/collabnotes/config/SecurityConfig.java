@@ -1,9 +1,5 @@
 package com.collabnotes.collabnotes.config;
 
-import java.nio.charset.StandardCharsets;
-
-import javax.crypto.SecretKey;
-
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,6 +11,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.web.BearerTokenAuthenticationEntryPoint;
@@ -23,7 +20,8 @@ import org.springframework.security.oauth2.server.resource.web.DefaultBearerToke
 import org.springframework.security.oauth2.server.resource.web.access.BearerTokenAccessDeniedHandler;
 import org.springframework.security.web.SecurityFilterChain;
 
-import io.jsonwebtoken.security.Keys;
+import com.collabnotes.collabnotes.util.JwtUtil;
+import com.collabnotes.collabnotes.util.VerifiedTokenCache;
 
 @Configuration
 @EnableWebSecurity
@@ -34,13 +32,27 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * Verifies REST bearer tokens with the key {@link JwtUtil} signs with,
+     * and skips the HMAC check for tokens verified within their lifetime.
+     */
     @Bean
-    JwtDecoder localJwtDecoder(
-            @Value("${app.auth.jwt.secret-key:defaultSecretKeyForDevelopmentOnlyMustBeAtLeast256BitsLong}") String secretKey) {
-        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
-        return NimbusJwtDecoder.withSecretKey(key)
+    JwtDecoder localJwtDecoder(JwtUtil jwtUtil,
+            @Value("${app.auth.jwt.verified-cache-size:10000}") int verifiedCacheSize) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(jwtUtil.signingKey())
                 .macAlgorithm(MacAlgorithm.HS256)
                 .build();
+        VerifiedTokenCache<Jwt> verified = new VerifiedTokenCache<>(verifiedCacheSize);
+        return token -> {
+            Jwt jwt = verified.get(token);
+            if (jwt == null) {
+                jwt = decoder.decode(token);
+                if (jwt.getExpiresAt() != null) {
+                    verified.put(token, jwt, jwt.getExpiresAt().toEpochMilli());
+                }
+            }
+            return jwt;
+        };
     }
 
     @Bean
@@ -13,10 +13,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.collabnotes.collabnotes.dto.InviteRequest;
+import com.collabnotes.collabnotes.dto.NoteChangesDTO;
 import com.collabnotes.collabnotes.dto.NoteDTO;
+import com.collabnotes.collabnotes.dto.NoteSummaryPage;
 import com.collabnotes.collabnotes.exception.ResourceNotFoundException;
 import com.collabnotes.collabnotes.exception.UnauthorizedException;
 import com.collabnotes.collabnotes.service.NoteService;
@@ -58,6 +61,32 @@ public class NoteController {
         return ResponseEntity.ok(notes);
     }
 
+    /**
+     * Notes created, changed, shared or unshared since the cursor from the
+     * previous call, plus ids of notes deleted or no longer shared. Without
+     * {@code since} it returns the full list and a first cursor.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<NoteChangesDTO> getNoteChanges(
+            @RequestParam(value = "since", required = false) String since,
+            Authentication authentication) {
+        String userId = getUserIdFromAuthenticationOrThrow(authentication);
+        return ResponseEntity.ok(noteService.getNoteChanges(userId, since));
+    }
+
+    /**
+     * Dashboard listing without note content, newest first, paged by an
+     * opaque keyset cursor.
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<NoteSummaryPage> getNoteSummaries(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            Authentication authentication) {
+        String userId = getUserIdFromAuthenticationOrThrow(authentication);
+        return ResponseEntity.ok(noteService.getNoteSummaries(userId, cursor, limit));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<NoteDTO> updateNote(
             @PathVariable("id") String id,
@@ -1,5 +1,7 @@
 package com.collabnotes.collabnotes.controller;
 
+import java.util.List;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -17,6 +19,7 @@ import com.collabnotes.collabnotes.dto.LoginRequest;
 import com.collabnotes.collabnotes.dto.RegisterRequest;
 import com.collabnotes.collabnotes.dto.UpdateProfileRequest;
 import com.collabnotes.collabnotes.dto.UserEmailRequest;
+import com.collabnotes.collabnotes.dto.UserIdsRequest;
 import com.collabnotes.collabnotes.dto.UserResponse;
 import com.collabnotes.collabnotes.service.UserService;
 
@@ -26,6 +29,8 @@ import jakarta.validation.Valid;
 @RequestMapping({ "/api/users" })
 public class UserController {
 
+    private static final int MAX_BATCH_LOOKUP = 200;
+
     private final UserService userService;
 
     public UserController(UserService userService) {
@@ -78,6 +83,32 @@ public class UserController {
         }
     }
 
+    @PostMapping("/lookup/batch")
+    public ResponseEntity<?> lookupUsersById(
+            Authentication authentication,
+            @RequestBody UserIdsRequest idsRequest) {
+
+        String callerUserId = getUserIdFromAuthentication(authentication);
+        if (callerUserId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized access");
+        }
+
+        List<String> userIds = idsRequest.getUserIds();
+        if (userIds == null || userIds.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        if (userIds.size() > MAX_BATCH_LOOKUP) {
+            return ResponseEntity.badRequest().body("At most " + MAX_BATCH_LOOKUP + " user ids per request");
+        }
+
+        try {
+            return ResponseEntity.ok(List.copyOf(userService.getUserInfos(userIds).values()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error looking up users: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(Authentication authentication) {
         String userId = getUserIdFromAuthentication(authentication);
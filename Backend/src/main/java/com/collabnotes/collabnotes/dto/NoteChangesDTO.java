@@ -0,0 +1,59 @@
+package com.collabnotes.collabnotes.dto;
+
+import java.util.List;
+
+/**
+ * Notes changed since a changes cursor: {@code upserted} holds notes created,
+ * edited or shared with the user, {@code removed} the ids of notes deleted or
+ * no longer shared. Pass {@code cursor} back as {@code since} next time. When
+ * {@code fullResync} is set, {@code upserted} is the whole list and replaces
+ * whatever the client had.
+ */
+public class NoteChangesDTO {
+    private List<NoteDTO> upserted;
+    private List<String> removed;
+    private String cursor;
+    private boolean fullResync;
+
+    public NoteChangesDTO() {
+    }
+
+    public NoteChangesDTO(List<NoteDTO> upserted, List<String> removed, String cursor, boolean fullResync) {
+        this.upserted = upserted;
+        this.removed = removed;
+        this.cursor = cursor;
+        this.fullResync = fullResync;
+    }
+
+    public List<NoteDTO> getUpserted() {
+        return upserted;
+    }
+
+    public void setUpserted(List<NoteDTO> upserted) {
+        this.upserted = upserted;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<String> removed) {
+        this.removed = removed;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isFullResync() {
+        return fullResync;
+    }
+
+    public void setFullResync(boolean fullResync) {
+        this.fullResync = fullResync;
+    }
+}
@@ -0,0 +1,75 @@
+package com.collabnotes.collabnotes.dto;
+
+import java.util.Date;
+
+/**
+ * Dashboard entry for a note: everything but its content
+ */
+public class NoteSummaryDTO {
+    private String id;
+    private String title;
+    private String ownerId;
+    private Date createdAt;
+    private Date updatedAt;
+    private Long version;
+
+    public NoteSummaryDTO() {
+    }
+
+    public NoteSummaryDTO(String id, String title, String ownerId, Date createdAt, Date updatedAt, Long version) {
+        this.id = id;
+        this.title = title;
+        this.ownerId = ownerId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
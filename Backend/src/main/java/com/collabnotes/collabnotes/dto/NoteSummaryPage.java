@@ -0,0 +1,36 @@
+package com.collabnotes.collabnotes.dto;
+
+import java.util.List;
+
+/**
+ * One page of note summaries, newest first. {@code nextCursor} is null on
+ * the last page; otherwise pass it back as {@code cursor} for the next one.
+ */
+public class NoteSummaryPage {
+    private List<NoteSummaryDTO> items;
+    private String nextCursor;
+
+    public NoteSummaryPage() {
+    }
+
+    public NoteSummaryPage(List<NoteSummaryDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<NoteSummaryDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<NoteSummaryDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
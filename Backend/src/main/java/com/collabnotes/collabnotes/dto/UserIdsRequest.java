@@ -0,0 +1,25 @@
+package com.collabnotes.collabnotes.dto;
+
+import java.util.List;
+
+/**
+ * DTO for batch user lookups by id
+ */
+public class UserIdsRequest {
+    private List<String> userIds;
+
+    public UserIdsRequest() {
+    }
+
+    public UserIdsRequest(List<String> userIds) {
+        this.userIds = userIds;
+    }
+
+    public List<String> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<String> userIds) {
+        this.userIds = userIds;
+    }
+}
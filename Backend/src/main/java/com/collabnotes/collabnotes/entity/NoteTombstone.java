@@ -0,0 +1,67 @@
+package com.collabnotes.collabnotes.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Records that a user lost a note, because it was deleted or their access
+ * was revoked, for the changes feed.
+ */
+@Entity
+@Table(name = "note_tombstones")
+public class NoteTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "note_id", nullable = false)
+    private String noteId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "removed_at", nullable = false)
+    private LocalDateTime removedAt;
+
+    public NoteTombstone() {
+    }
+
+    public NoteTombstone(String noteId, String userId, LocalDateTime removedAt) {
+        this.noteId = noteId;
+        this.userId = userId;
+        this.removedAt = removedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(String noteId) {
+        this.noteId = noteId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getRemovedAt() {
+        return removedAt;
+    }
+
+    public void setRemovedAt(LocalDateTime removedAt) {
+        this.removedAt = removedAt;
+    }
+}
@@ -32,11 +32,32 @@ public class MetricsService {
         meterRegistry.counter("app.counter." + name).increment();
     }
 
+    public void incrementCounter(String name, String... tags) {
+        meterRegistry.counter("app.counter." + name, tags).increment();
+    }
+
+    /** Records one observation (e.g. a size in bytes) in a distribution summary. */
+    public void recordDistribution(String name, double amount, String... tags) {
+        meterRegistry.summary("app.distribution." + name, tags).record(amount);
+    }
+
     public void recordGauge(String name, double value) {
         Gauge.builder("app.gauge." + name, () -> value)
                 .register(meterRegistry);
     }
 
+    /** Registers a gauge that samples {@code value} whenever it is scraped. */
+    public void registerGauge(String name, Supplier<Number> value) {
+        Gauge.builder("app.gauge." + name, value)
+                .register(meterRegistry);
+    }
+
+    public void registerGauge(String name, Supplier<Number> value, String... tags) {
+        Gauge.builder("app.gauge." + name, value)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
     public void recordUserActivity(String noteId, int activeUsers) {
         Gauge.builder("app.notes.active_users", () -> activeUsers)
                 .tag("noteId", noteId)
@@ -2,8 +2,11 @@ package com.collabnotes.collabnotes.repository;
 
 import com.collabnotes.collabnotes.entity.Collaborator;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +19,8 @@ public interface CollaboratorRepository extends JpaRepository<Collaborator, Long
     boolean existsByNoteIdAndUserId(String noteId, String userId);
     
     void deleteByNoteIdAndUserId(String noteId, String userId);
+
+    @Query("SELECT new com.collabnotes.collabnotes.repository.NoteCollaboratorId(c.note.id, c.user.id) "
+            + "FROM Collaborator c WHERE c.note.id IN :noteIds")
+    List<NoteCollaboratorId> findCollaboratorIdsByNoteIds(@Param("noteIds") Collection<String> noteIds);
 }
@@ -0,0 +1,8 @@
+package com.collabnotes.collabnotes.repository;
+
+/**
+ * One (note, collaborator) pair, read from the collaborators table's foreign
+ * keys without joining users.
+ */
+public record NoteCollaboratorId(String noteId, String userId) {
+}
@@ -0,0 +1,11 @@
+package com.collabnotes.collabnotes.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Note columns needed by the note list, read without loading the entity or
+ * its collaborators.
+ */
+public record NoteListing(String id, String title, String content, String ownerId,
+        LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
+}
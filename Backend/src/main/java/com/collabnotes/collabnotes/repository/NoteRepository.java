@@ -1,17 +1,112 @@
 package com.collabnotes.collabnotes.repository;
 
 import com.collabnotes.collabnotes.entity.Note;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, String> {
-    List<Note> findByOwnerId(String ownerId);
+    String ACCESSIBLE_BY_USER = "(n.ownerId = :userId "
+            + "OR EXISTS (SELECT 1 FROM Collaborator c WHERE c.note = n AND c.user.id = :userId))";
 
-    @Query("SELECT n FROM Note n JOIN n.collaborators c WHERE c.user.id = :userId")
-    List<Note> findByCollaboratorUserId(@Param("userId") String userId);
+    String SHARED_WITH_USER = "n.ownerId <> :userId "
+            + "AND EXISTS (SELECT 1 FROM Collaborator c WHERE c.note = n AND c.user.id = :userId)";
+
+    String NEWEST_FIRST = " ORDER BY n.updatedAt DESC, n.id DESC";
+
+    String AFTER_CURSOR = " AND (n.updatedAt, n.id) < (:updatedAt, :id)";
+
+    String LISTING = "SELECT new com.collabnotes.collabnotes.repository.NoteListing("
+            + "n.id, n.title, n.content, n.ownerId, n.createdAt, n.updatedAt, n.version) FROM Note n ";
+
+    String SUMMARY = "SELECT new com.collabnotes.collabnotes.repository.NoteSummary("
+            + "n.id, n.title, n.ownerId, n.createdAt, n.updatedAt, n.version) FROM Note n ";
+
+    /**
+     * Every note the user owns or collaborates on, as listing projections.
+     */
+    @Query(LISTING + "WHERE " + ACCESSIBLE_BY_USER)
+    List<NoteListing> findListingsAccessibleBy(@Param("userId") String userId);
+
+    /**
+     * Notes the user can access that were created or changed (including
+     * sharing changes) at or after {@code since}.
+     */
+    @Query(LISTING + "WHERE " + ACCESSIBLE_BY_USER + " AND n.updatedAt >= :since")
+    List<NoteListing> findListingsAccessibleByUpdatedSince(@Param("userId") String userId,
+            @Param("since") LocalDateTime since);
+
+    /**
+     * First page of summaries of the notes the user owns, newest first; an
+     * index range scan on {@code idx_notes_owner_updated_at_id} that stops at
+     * the limit.
+     */
+    @Query(SUMMARY + "WHERE n.ownerId = :userId" + NEWEST_FIRST)
+    List<NoteSummary> findOwnedSummaries(@Param("userId") String userId, Limit limit);
+
+    /**
+     * The owned summaries after the last one seen, {@code (updatedAt, id)}.
+     */
+    @Query(SUMMARY + "WHERE n.ownerId = :userId" + AFTER_CURSOR + NEWEST_FIRST)
+    List<NoteSummary> findOwnedSummariesAfter(@Param("userId") String userId,
+            @Param("updatedAt") LocalDateTime updatedAt, @Param("id") String id, Limit limit);
+
+    /**
+     * First page of summaries of notes others shared with the user, newest
+     * first. The notes are found through {@code idx_collaborators_user_id}
+     * and sorted, which stays cheap while a user's shared notes are few.
+     */
+    @Query(SUMMARY + "WHERE " + SHARED_WITH_USER + NEWEST_FIRST)
+    List<NoteSummary> findSharedSummaries(@Param("userId") String userId, Limit limit);
+
+    /**
+     * The shared summaries after the last one seen, {@code (updatedAt, id)}.
+     */
+    @Query(SUMMARY + "WHERE " + SHARED_WITH_USER + AFTER_CURSOR + NEWEST_FIRST)
+    List<NoteSummary> findSharedSummariesAfter(@Param("userId") String userId,
+            @Param("updatedAt") LocalDateTime updatedAt, @Param("id") String id, Limit limit);
+
+    /**
+     * Whether the user owns or collaborates on the note, in one query that
+     * never reads the note's content: a primary key probe and, for
+     * non-owners, one of {@code uk_note_user}.
+     */
+    @Query("SELECT COUNT(n) > 0 FROM Note n WHERE n.id = :noteId AND " + ACCESSIBLE_BY_USER)
+    boolean existsAccessibleBy(@Param("noteId") String noteId, @Param("userId") String userId);
+
+    @Query("SELECT n.content FROM Note n WHERE n.id = :id")
+    Optional<String> findContentById(@Param("id") String id);
+
+    /**
+     * Overwrites content without loading the entity. Bumps the optimistic-lock
+     * version so a REST save based on the old content is rejected.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Note n SET n.content = :content, n.updatedAt = :updatedAt, n.version = n.version + 1 "
+            + "WHERE n.id = :id")
+    int updateContent(@Param("id") String id, @Param("content") String content,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Like {@link #updateContent}, but only for the holder of OT lease
+     * {@code epoch} or newer; a write from a superseded owner matches no row.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE notes SET content = :content, updated_at = :updatedAt, version = version + 1, "
+            + "ot_epoch = :epoch WHERE id = :id AND ot_epoch <= :epoch", nativeQuery = true)
+    int updateContentFenced(@Param("id") String id, @Param("content") String content,
+            @Param("updatedAt") LocalDateTime updatedAt, @Param("epoch") long epoch);
+
+    /** Records that OT lease {@code epoch} now owns the note, unless a newer one already does. */
+    @Modifying
+    @Query(value = "UPDATE notes SET ot_epoch = :epoch WHERE id = :id AND ot_epoch < :epoch", nativeQuery = true)
+    int claimOtEpoch(@Param("id") String id, @Param("epoch") long epoch);
 }
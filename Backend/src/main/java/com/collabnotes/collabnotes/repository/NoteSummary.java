@@ -0,0 +1,10 @@
+package com.collabnotes.collabnotes.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Note columns shown on the dashboard. Never includes the content.
+ */
+public record NoteSummary(String id, String title, String ownerId, LocalDateTime createdAt,
+        LocalDateTime updatedAt, Long version) {
+}
@@ -0,0 +1,22 @@
+package com.collabnotes.collabnotes.repository;
+
+import com.collabnotes.collabnotes.entity.NoteTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NoteTombstoneRepository extends JpaRepository<NoteTombstone, Long> {
+
+    @Query("SELECT DISTINCT t.noteId FROM NoteTombstone t WHERE t.userId = :userId AND t.removedAt >= :since")
+    List<String> findNoteIdsRemovedSince(@Param("userId") String userId, @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM NoteTombstone t WHERE t.removedAt < :cutoff")
+    int deleteRemovedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
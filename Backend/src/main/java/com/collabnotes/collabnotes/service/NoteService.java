@@ -2,7 +2,9 @@ package com.collabnotes.collabnotes.service;
 
 import java.util.List;
 
+import com.collabnotes.collabnotes.dto.NoteChangesDTO;
 import com.collabnotes.collabnotes.dto.NoteDTO;
+import com.collabnotes.collabnotes.dto.NoteSummaryPage;
 
 public interface NoteService {
     NoteDTO createNote(NoteDTO noteDTO, String userId);
@@ -11,6 +13,10 @@ public interface NoteService {
 
     List<NoteDTO> getAllNotesByUser(String userId);
 
+    NoteChangesDTO getNoteChanges(String userId, String since);
+
+    NoteSummaryPage getNoteSummaries(String userId, String cursor, int limit);
+
     NoteDTO updateNote(String id, NoteDTO noteDTO, String userId);
 
     boolean deleteNote(String id, String userId);
@@ -1,48 +1,76 @@
 package com.collabnotes.collabnotes.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.collabnotes.collabnotes.dto.NoteChangesDTO;
 import com.collabnotes.collabnotes.dto.NoteDTO;
+import com.collabnotes.collabnotes.dto.NoteSummaryDTO;
+import com.collabnotes.collabnotes.dto.NoteSummaryPage;
 import com.collabnotes.collabnotes.entity.Collaborator;
 import com.collabnotes.collabnotes.entity.Note;
+import com.collabnotes.collabnotes.entity.NoteTombstone;
 import com.collabnotes.collabnotes.entity.User;
 import com.collabnotes.collabnotes.exception.ConflictException;
 import com.collabnotes.collabnotes.repository.CollaboratorRepository;
+import com.collabnotes.collabnotes.repository.NoteCollaboratorId;
+import com.collabnotes.collabnotes.repository.NoteListing;
 import com.collabnotes.collabnotes.repository.NoteRepository;
+import com.collabnotes.collabnotes.repository.NoteSummary;
+import com.collabnotes.collabnotes.repository.NoteTombstoneRepository;
 import com.collabnotes.collabnotes.repository.UserRepository;
 
 @Service
 public class NoteServiceImpl implements NoteService {
 
     private static final Logger logger = LoggerFactory.getLogger(NoteServiceImpl.class);
+    private static final int MAX_SUMMARY_PAGE = 200;
+    private static final Comparator<NoteSummary> NEWEST_FIRST = Comparator
+            .comparing(NoteSummary::updatedAt).thenComparing(NoteSummary::id).reversed();
+    // Changes feed windows start this far before the cursor, so a write whose
+    // transaction committed after the cursor was issued is still picked up.
+    private static final Duration CHANGES_OVERLAP = Duration.ofSeconds(5);
 
     private final NoteRepository noteRepository;
     private final UserRepository userRepository;
     private final CollaboratorRepository collaboratorRepository;
+    private final NoteTombstoneRepository noteTombstoneRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final NoteEventPublisher noteEventPublisher;
     private final NoteServiceImpl self;
     private final CacheManager cacheManager;
 
+    @Value("${app.notes.changes.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays = 30;
+
     public NoteServiceImpl(
             NoteRepository noteRepository,
             UserRepository userRepository,
             CollaboratorRepository collaboratorRepository,
+            NoteTombstoneRepository noteTombstoneRepository,
             SimpMessagingTemplate messagingTemplate,
             NoteEventPublisher noteEventPublisher,
             CacheManager cacheManager,
@@ -50,6 +78,7 @@ public class NoteServiceImpl implements NoteService {
         this.noteRepository = noteRepository;
         this.userRepository = userRepository;
         this.collaboratorRepository = collaboratorRepository;
+        this.noteTombstoneRepository = noteTombstoneRepository;
         this.messagingTemplate = messagingTemplate;
         this.noteEventPublisher = noteEventPublisher;
         this.cacheManager = cacheManager;
@@ -89,19 +118,141 @@ public class NoteServiceImpl implements NoteService {
     @Override
     @Transactional(readOnly = true)
     public List<NoteDTO> getAllNotesByUser(String userId) {
-        List<NoteDTO> notes = new ArrayList<>();
-
-        notes.addAll(noteRepository.findByOwnerId(userId).stream()
-                .map(this::convertToDTO)
-                .toList());
+        // Two queries whatever the note count: the listing projection, then every
+        // collaborator id of those notes, instead of one collaborator query per note.
+        List<NoteListing> listings = noteRepository.findListingsAccessibleBy(userId);
+        if (listings.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        notes.addAll(noteRepository.findByCollaboratorUserId(userId).stream()
-                .map(this::convertToDTO)
-                .toList());
+        Map<String, List<String>> collaboratorIds = findCollaboratorIds(listings);
 
+        // Owned notes first, then shared ones.
+        List<NoteDTO> notes = new ArrayList<>(listings.size());
+        for (NoteListing listing : listings) {
+            if (userId.equals(listing.ownerId())) {
+                notes.add(convertToDTO(listing, collaboratorIds.getOrDefault(listing.id(), List.of())));
+            }
+        }
+        for (NoteListing listing : listings) {
+            if (!userId.equals(listing.ownerId())) {
+                notes.add(convertToDTO(listing, collaboratorIds.getOrDefault(listing.id(), List.of())));
+            }
+        }
         return notes;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public NoteChangesDTO getNoteChanges(String userId, String since) {
+        LocalDateTime now = LocalDateTime.now();
+        String cursor = new ChangesCursor(now).encode();
+        LocalDateTime from = since == null || since.isBlank() ? null : ChangesCursor.decode(since).since();
+
+        // Without a cursor, or with one older than the tombstones we keep, removals
+        // cannot be listed reliably: send everything and let the client replace its list.
+        if (from == null || from.isBefore(now.minusDays(tombstoneRetentionDays))) {
+            return new NoteChangesDTO(getAllNotesByUser(userId), List.of(), cursor, true);
+        }
+
+        LocalDateTime windowStart = from.minus(CHANGES_OVERLAP);
+        List<NoteListing> listings = noteRepository.findListingsAccessibleByUpdatedSince(userId, windowStart);
+        Map<String, List<String>> collaboratorIds = findCollaboratorIds(listings);
+        List<NoteDTO> upserted = listings.stream()
+                .map(listing -> convertToDTO(listing, collaboratorIds.getOrDefault(listing.id(), List.of())))
+                .toList();
+
+        // A note unshared and then shared again inside the window is accessible, so it is an upsert.
+        Set<String> upsertedIds = listings.stream().map(NoteListing::id).collect(Collectors.toSet());
+        List<String> removed = noteTombstoneRepository.findNoteIdsRemovedSince(userId, windowStart).stream()
+                .filter(noteId -> !upsertedIds.contains(noteId))
+                .toList();
+        return new NoteChangesDTO(upserted, removed, cursor, false);
+    }
+
+    /** Opaque changes position: the server time the previous changes response was built. */
+    private record ChangesCursor(LocalDateTime since) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(since.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        static ChangesCursor decode(String cursor) {
+            try {
+                return new ChangesCursor(LocalDateTime.parse(
+                        new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+
+    /**
+     * Drops tombstones past the retention window; clients that have not synced
+     * since then get a full listing instead.
+     */
+    @Scheduled(fixedDelayString = "${app.notes.changes.tombstone-purge-ms:3600000}")
+    @Transactional
+    public void purgeTombstones() {
+        int purged = noteTombstoneRepository.deleteRemovedBefore(
+                LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        if (purged > 0) {
+            logger.info("Purged {} note tombstones older than {} days", purged, tombstoneRetentionDays);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public NoteSummaryPage getNoteSummaries(String userId, String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_SUMMARY_PAGE);
+        // One extra row tells whether another page follows.
+        Limit fetch = Limit.of(pageSize + 1);
+        // Owned and shared notes are paged separately, each on its own index,
+        // and merged; an OR of the two could not walk either index in order.
+        List<NoteSummary> rows = new ArrayList<>();
+        if (cursor == null || cursor.isBlank()) {
+            rows.addAll(noteRepository.findOwnedSummaries(userId, fetch));
+            rows.addAll(noteRepository.findSharedSummaries(userId, fetch));
+        } else {
+            SummaryCursor after = SummaryCursor.decode(cursor);
+            rows.addAll(noteRepository.findOwnedSummariesAfter(userId, after.updatedAt(), after.id(), fetch));
+            rows.addAll(noteRepository.findSharedSummariesAfter(userId, after.updatedAt(), after.id(), fetch));
+        }
+        rows.sort(NEWEST_FIRST);
+        if (rows.size() > fetch.max()) {
+            rows = rows.subList(0, fetch.max());
+        }
+
+        List<NoteSummary> page = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            NoteSummary last = page.get(page.size() - 1);
+            nextCursor = new SummaryCursor(last.updatedAt(), last.id()).encode();
+        }
+        return new NoteSummaryPage(page.stream().map(this::convertToSummaryDTO).toList(), nextCursor);
+    }
+
+    /** Opaque keyset position: the {@code (updatedAt, id)} of the last summary returned. */
+    private record SummaryCursor(LocalDateTime updatedAt, String id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((updatedAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static SummaryCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new SummaryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        raw.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+
     @Override
     @Transactional
     public NoteDTO updateNote(String id, NoteDTO noteDTO, String userId) {
@@ -164,7 +315,17 @@ public class NoteServiceImpl implements NoteService {
             return false;
         }
 
+        // Everyone who could see the note needs a tombstone for the changes feed.
+        LocalDateTime now = LocalDateTime.now();
+        List<NoteTombstone> tombstones = new ArrayList<>();
+        tombstones.add(new NoteTombstone(id, note.getOwnerId(), now));
+        for (NoteCollaboratorId pair : collaboratorRepository.findCollaboratorIdsByNoteIds(List.of(id))) {
+            tombstones.add(new NoteTombstone(id, pair.userId(), now));
+        }
+        noteTombstoneRepository.saveAll(tombstones);
+
         noteRepository.delete(note);
+        noteEventPublisher.publishNoteUpdate(id, userId, "delete");
         return true;
     }
 
@@ -244,6 +405,7 @@ public class NoteServiceImpl implements NoteService {
 
         if (collaboratorRepository.existsByNoteIdAndUserId(noteId, collaboratorId)) {
             collaboratorRepository.deleteByNoteIdAndUserId(noteId, collaboratorId);
+            noteTombstoneRepository.save(new NoteTombstone(noteId, collaboratorId, LocalDateTime.now()));
 
             note.setUpdatedAt(LocalDateTime.now());
             noteRepository.save(note);
@@ -288,16 +450,10 @@ public class NoteServiceImpl implements NoteService {
         return collaboratorIds;
     }
 
-    @Cacheable(value = "noteAccessCache", key = "#p0 + '-' + #p1")
+    @Cacheable(value = "noteAccessCache", key = "#p0 + '-' + #p1", sync = true)
     @Transactional(readOnly = true)
     public boolean hasNoteAccess(String noteId, String userId) {
-        Note note = noteRepository.findById(noteId).orElse(null);
-
-        if (note == null) {
-            return false;
-        }
-
-        return userId.equals(note.getOwnerId()) || isCollaborator(noteId, userId);
+        return noteRepository.existsAccessibleBy(noteId, userId);
     }
 
     private boolean isCollaborator(String noteId, String userId) {
@@ -318,6 +474,40 @@ public class NoteServiceImpl implements NoteService {
         }
     }
 
+    private Map<String, List<String>> findCollaboratorIds(List<NoteListing> listings) {
+        Map<String, List<String>> collaboratorIds = new HashMap<>();
+        if (listings.isEmpty()) {
+            return collaboratorIds;
+        }
+        List<String> noteIds = listings.stream().map(NoteListing::id).toList();
+        for (NoteCollaboratorId pair : collaboratorRepository.findCollaboratorIdsByNoteIds(noteIds)) {
+            collaboratorIds.computeIfAbsent(pair.noteId(), id -> new ArrayList<>()).add(pair.userId());
+        }
+        return collaboratorIds;
+    }
+
+    private NoteSummaryDTO convertToSummaryDTO(NoteSummary summary) {
+        return new NoteSummaryDTO(summary.id(), summary.title(), summary.ownerId(),
+                java.util.Date.from(summary.createdAt().atZone(java.time.ZoneId.systemDefault()).toInstant()),
+                java.util.Date.from(summary.updatedAt().atZone(java.time.ZoneId.systemDefault()).toInstant()),
+                summary.version());
+    }
+
+    private NoteDTO convertToDTO(NoteListing listing, List<String> collaboratorIds) {
+        NoteDTO dto = new NoteDTO();
+        dto.setId(listing.id());
+        dto.setTitle(listing.title());
+        dto.setContent(listing.content());
+        dto.setOwnerId(listing.ownerId());
+        dto.setVersion(listing.version());
+        dto.setCreatedAt(java.util.Date.from(listing.createdAt().atZone(java.time.ZoneId.systemDefault()).toInstant()));
+        dto.setUpdatedAt(listing.updatedAt() != null
+                ? java.util.Date.from(listing.updatedAt().atZone(java.time.ZoneId.systemDefault()).toInstant())
+                : null);
+        dto.setCollaboratorIds(collaboratorIds);
+        return dto;
+    }
+
     private NoteDTO convertToDTO(Note note) {
         NoteDTO dto = new NoteDTO();
         dto.setId(note.getId());
@@ -1,15 +1,24 @@
 package com.collabnotes.collabnotes.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.lang.NonNull;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.collabnotes.collabnotes.cache.TwoTierCache;
 import com.collabnotes.collabnotes.dto.AuthResponse;
 import com.collabnotes.collabnotes.dto.UserResponse;
 import com.collabnotes.collabnotes.entity.User;
@@ -20,35 +29,107 @@ import com.collabnotes.collabnotes.util.JwtUtil;
 public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    private static final String USER_CACHE = "userCache";
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final CacheManager cacheManager;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtUtil jwtUtil,
+            CacheManager cacheManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.cacheManager = cacheManager;
     }
 
-    @Cacheable(value = "userEmailCache", key = "#p0")
+    @Cacheable(value = "userEmailCache", key = "#p0", sync = true)
     public String findUserIdByEmail(String email) {
         return userRepository.findByEmail(email)
                 .map(User::getId)
                 .orElse(null);
     }
 
-    @Cacheable(value = "userCache", key = "#p0")
+    @Cacheable(value = "userCache", key = "#p0", sync = true)
     public UserResponse getUserInfo(@NonNull String userId) {
         return userRepository.findById(userId)
-                .map(user -> new UserResponse(
-                        user.getId(),
-                        user.getEmail(),
-                        user.getDisplayName(),
-                        user.getPhotoUrl()))
+                .map(UserService::toResponse)
                 .orElse(null);
     }
 
+    /**
+     * Bulk form of {@link #getUserInfo}, sharing its {@code userCache}
+     * entries: cached users are read in one multi-key cache lookup, the rest
+     * with a single {@code findAllById} and then cached. Unknown ids are
+     * left out of the result, which keeps the order of {@code userIds}.
+     */
+    public Map<String, UserResponse> getUserInfos(Collection<String> userIds) {
+        List<String> ids = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        Map<String, UserResponse> found = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return found;
+        }
+
+        Cache cache = cacheManager.getCache(USER_CACHE);
+        Map<String, Cache.ValueWrapper> cached = readCached(cache, ids);
+        List<String> misses = new ArrayList<>();
+        for (String id : ids) {
+            Cache.ValueWrapper wrapper = cached.get(id);
+            if (wrapper == null) {
+                misses.add(id);
+            } else if (wrapper.get() instanceof UserResponse user) {
+                found.put(id, user);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<String, UserResponse> loaded = new LinkedHashMap<>();
+            userRepository.findAllById(misses).forEach(user -> loaded.put(user.getId(), toResponse(user)));
+            for (String id : misses) {
+                UserResponse user = loaded.get(id);
+                if (cache != null) {
+                    cache.putIfAbsent(id, user);
+                }
+                if (user != null) {
+                    found.put(id, user);
+                }
+            }
+        }
+
+        Map<String, UserResponse> ordered = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (found.containsKey(id)) {
+                ordered.put(id, found.get(id));
+            }
+        }
+        return ordered;
+    }
+
+    private static Map<String, Cache.ValueWrapper> readCached(Cache cache, List<String> ids) {
+        if (cache instanceof TwoTierCache twoTier) {
+            return twoTier.getAll(ids);
+        }
+        Map<String, Cache.ValueWrapper> cached = new LinkedHashMap<>();
+        if (cache != null) {
+            for (String id : ids) {
+                Cache.ValueWrapper wrapper = cache.get(id);
+                if (wrapper != null) {
+                    cached.put(id, wrapper);
+                }
+            }
+        }
+        return cached;
+    }
+
+    private static UserResponse toResponse(User user) {
+        return new UserResponse(
+                user.getId(),
+                user.getEmail(),
+                user.getDisplayName(),
+                user.getPhotoUrl());
+    }
+
     public User findById(@NonNull String userId) {
         return userRepository.findById(userId).orElse(null);
     }
@@ -0,0 +1,38 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.DocumentSnapshot;
+
+/**
+ * Notified by {@link OTAuthorityService} each time accepted steps advance a
+ * note's server-side document. Called while the note's OT lock is held, so
+ * implementations must return quickly and must not call back into the
+ * authority service.
+ */
+@FunctionalInterface
+public interface DocumentChangeListener {
+
+    /**
+     * @param noteId     the note whose document changed
+     * @param snapshot   the document after the accepted batch
+     * @param stepCount  number of steps in the batch
+     */
+    void documentChanged(String noteId, DocumentSnapshot snapshot, int stepCount);
+
+    /**
+     * Called, under the note's lock, just before the authority evicts a note's
+     * in-memory state. Implementations persist anything still pending.
+     *
+     * @return true if the content of the last reported snapshot is now durable
+     */
+    default boolean noteEvicted(String noteId) {
+        return false;
+    }
+
+    /**
+     * Listener that ignores every change.
+     */
+    static DocumentChangeListener none() {
+        return (noteId, snapshot, stepCount) -> {
+        };
+    }
+}
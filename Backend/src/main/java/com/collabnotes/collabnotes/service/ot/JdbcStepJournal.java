@@ -0,0 +1,132 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+
+/**
+ * Step journal backed by the {@code ot_steps} Postgres table, with the newest
+ * checkpoint of each note in {@code ot_checkpoints}.
+ *
+ * Shared by every node, so it also works when notes move between instances.
+ * Rows older than {@code retainSteps} versions behind the head are pruned
+ * whenever a batch crosses a multiple of {@code retainSteps}, and rows a
+ * checkpoint covers are deleted when the authority truncates.
+ *
+ * While this node holds a note's OT lease, rows are inserted only if
+ * {@code notes.ot_epoch} is not newer than the lease epoch (see
+ * {@link OTLeaseFence}); the check takes a share lock on the note row, so a
+ * takeover's claim waits for in-flight inserts and rejects later ones.
+ */
+public class JdbcStepJournal implements StepJournal {
+
+    private static final String INSERT_SQL = "INSERT INTO ot_steps (note_id, version, client_id, step) "
+            + "VALUES (?, ?, ?, CAST(? AS jsonb)) ON CONFLICT (note_id, version) DO NOTHING";
+    private static final String FENCED_INSERT_SQL = "INSERT INTO ot_steps (note_id, version, client_id, step) "
+            + "SELECT ?, ?, ?, CAST(? AS jsonb) "
+            + "WHERE EXISTS (SELECT 1 FROM notes WHERE id = ? AND ot_epoch <= ? FOR SHARE) "
+            + "ON CONFLICT (note_id, version) DO NOTHING";
+    private static final String TAIL_SQL = "SELECT version, client_id, step FROM ot_steps "
+            + "WHERE note_id = ? ORDER BY version DESC LIMIT ?";
+    private static final String SINCE_SQL = "SELECT version, client_id, step FROM ot_steps "
+            + "WHERE note_id = ? AND version >= ? ORDER BY version LIMIT ?";
+    private static final String HEAD_SQL = "SELECT MAX(version) FROM ot_steps WHERE note_id = ?";
+    private static final String PRUNE_SQL = "DELETE FROM ot_steps WHERE note_id = ? AND version < ?";
+    private static final String SAVE_CHECKPOINT_SQL = "INSERT INTO ot_checkpoints (note_id, version, content) "
+            + "VALUES (?, ?, ?) ON CONFLICT (note_id) DO UPDATE "
+            + "SET version = EXCLUDED.version, content = EXCLUDED.content, created_at = CURRENT_TIMESTAMP "
+            + "WHERE ot_checkpoints.version < EXCLUDED.version";
+    private static final String CHECKPOINT_SQL = "SELECT version, content FROM ot_checkpoints WHERE note_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retainSteps;
+    private final OTLeaseFence leaseFence;
+
+    public JdbcStepJournal(JdbcTemplate jdbcTemplate, int retainSteps, OTLeaseFence leaseFence) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retainSteps = retainSteps;
+        this.leaseFence = leaseFence;
+    }
+
+    @Override
+    public void append(String noteId, List<StepEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long epoch = leaseFence.epochOf(noteId);
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (StepEntry entry : entries) {
+            rows.add(epoch == 0
+                    ? new Object[] { noteId, entry.stepVersion(), entry.clientId(), entry.stepJson() }
+                    : new Object[] { noteId, entry.stepVersion(), entry.clientId(), entry.stepJson(), noteId, epoch });
+        }
+        jdbcTemplate.batchUpdate(epoch == 0 ? INSERT_SQL : FENCED_INSERT_SQL, rows);
+
+        int first = entries.get(0).stepVersion();
+        int last = entries.get(entries.size() - 1).stepVersion();
+        if (first / retainSteps != (last + 1) / retainSteps) {
+            jdbcTemplate.update(PRUNE_SQL, noteId, last + 1 - retainSteps);
+        }
+    }
+
+    @Override
+    public List<StepEntry> readTail(String noteId, int limit) {
+        List<StepEntry> entries = jdbcTemplate.query(TAIL_SQL, this::mapEntry, noteId, limit);
+        List<StepEntry> oldestFirst = new ArrayList<>(entries);
+        Collections.reverse(oldestFirst);
+        return oldestFirst;
+    }
+
+    @Override
+    public Optional<List<StepEntry>> readSince(String noteId, int sinceVersion, int limit) {
+        List<StepEntry> entries = jdbcTemplate.query(SINCE_SQL, this::mapEntry, noteId, sinceVersion, limit + 1);
+        if (entries.isEmpty()) {
+            Integer head = jdbcTemplate.queryForObject(HEAD_SQL, Integer.class, noteId);
+            int next = head == null ? 0 : head + 1;
+            return next == sinceVersion ? Optional.of(List.of()) : Optional.empty();
+        }
+        if (entries.size() > limit || entries.get(0).stepVersion() != sinceVersion) {
+            return Optional.empty();
+        }
+        return Optional.of(entries);
+    }
+
+    @Override
+    public boolean storesCheckpoints() {
+        return true;
+    }
+
+    @Override
+    public void saveCheckpoint(String noteId, Checkpoint checkpoint) {
+        jdbcTemplate.update(SAVE_CHECKPOINT_SQL, noteId, checkpoint.version(), checkpoint.html());
+    }
+
+    @Override
+    public Optional<Checkpoint> latestCheckpoint(String noteId) {
+        return jdbcTemplate.query(CHECKPOINT_SQL,
+                (rs, rowNum) -> new Checkpoint(rs.getInt("version"), rs.getString("content")), noteId)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public void truncateBefore(String noteId, int version) {
+        if (version > 0) {
+            jdbcTemplate.update(PRUNE_SQL, noteId, version);
+        }
+    }
+
+    private StepEntry mapEntry(ResultSet rs, int rowNum) throws SQLException {
+        return new StepEntry(
+                rs.getInt("version"),
+                rs.getString("step"),
+                rs.getString("client_id"));
+    }
+}
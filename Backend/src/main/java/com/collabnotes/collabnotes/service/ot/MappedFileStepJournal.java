@@ -0,0 +1,432 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+
+/**
+ * Node-local step journal made of fixed-size, memory-mapped segment files.
+ *
+ * Records are appended to the newest segment; when it fills up a new segment
+ * is mapped and, beyond {@code maxSegments}, the oldest one is deleted. Each
+ * record is length-prefixed and CRC-checked so a torn write at the tail is
+ * detected and overwritten on the next start.
+ *
+ * <pre>
+ * segment: magic(int) | record* | 0
+ * record:  length(int) | crc32(int) | noteIdLen(short) noteId | version(int)
+ *          | clientIdLen(short) clientId | stepLen(int) stepJson
+ * </pre>
+ *
+ * Segments are scanned once, on the first read, to build a per-note index of
+ * the newest record positions. Step JSON is only decoded when a note is
+ * actually loaded.
+ *
+ * Checkpoints live in {@code checkpoints/}, one small file per note that is
+ * written to a temporary file and moved over the previous one:
+ *
+ * <pre>
+ * checkpoint: version(int) | crc32(int) | html
+ * </pre>
+ *
+ * Steps below a checkpoint are not truncated individually; they go when their
+ * segment is deleted.
+ */
+public class MappedFileStepJournal implements StepJournal, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedFileStepJournal.class);
+
+    private static final int MAGIC = 0x4F544A31; // "OTJ1"
+    private static final int HEADER_BYTES = Integer.BYTES;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{10})\\.log");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int indexDepth;
+
+    /** Guards segments and the index; a lock, not a monitor, so virtual-thread appenders can unmount. */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<Integer, MappedByteBuffer> segments = new TreeMap<>();
+    private final Map<String, ArrayDeque<Long>> index = new HashMap<>();
+    private boolean indexed;
+    private int activeSegment;
+    private int writePosition;
+
+    /**
+     * @param directory   directory holding this node's segment files
+     * @param segmentSize size of each mapped segment in bytes, below 2 GiB
+     * @param maxSegments number of segments kept before the oldest is deleted
+     * @param indexDepth  newest record positions remembered per note
+     */
+    public MappedFileStepJournal(Path directory, long segmentSize, int maxSegments, int indexDepth) {
+        if (segmentSize <= HEADER_BYTES || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("OT journal segment size must be between "
+                    + (HEADER_BYTES + 1) + " and " + Integer.MAX_VALUE + " bytes: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.indexDepth = indexDepth;
+        openSegments();
+    }
+
+    @Override
+    public void append(String noteId, List<StepEntry> entries) {
+        lock.lock();
+        try {
+            ensureIndexed();
+            byte[] noteIdBytes = noteId.getBytes(StandardCharsets.UTF_8);
+            for (StepEntry entry : entries) {
+                byte[] clientIdBytes = entry.clientId() != null
+                        ? entry.clientId().getBytes(StandardCharsets.UTF_8)
+                        : new byte[0];
+                byte[] stepBytes = entry.stepJson().getBytes(StandardCharsets.UTF_8);
+
+                int bodyLength = Short.BYTES + noteIdBytes.length + Integer.BYTES
+                        + Short.BYTES + clientIdBytes.length + Integer.BYTES + stepBytes.length;
+                int recordLength = Integer.BYTES + bodyLength;
+                if (Integer.BYTES + recordLength + Integer.BYTES > segmentSize - HEADER_BYTES) {
+                    throw new IllegalArgumentException("step of " + stepBytes.length
+                            + " bytes does not fit in a journal segment");
+                }
+                if (writePosition + Integer.BYTES + recordLength + Integer.BYTES > segmentSize) {
+                    rollSegment();
+                }
+
+                MappedByteBuffer segment = segments.get(activeSegment);
+                int recordStart = writePosition;
+                int p = recordStart + 2 * Integer.BYTES;
+                segment.putShort(p, (short) noteIdBytes.length);
+                p += Short.BYTES;
+                segment.put(p, noteIdBytes);
+                p += noteIdBytes.length;
+                segment.putInt(p, entry.stepVersion());
+                p += Integer.BYTES;
+                segment.putShort(p, (short) clientIdBytes.length);
+                p += Short.BYTES;
+                segment.put(p, clientIdBytes);
+                p += clientIdBytes.length;
+                segment.putInt(p, stepBytes.length);
+                p += Integer.BYTES;
+                segment.put(p, stepBytes);
+                p += stepBytes.length;
+
+                int bodyStart = recordStart + 2 * Integer.BYTES;
+                segment.putInt(recordStart + Integer.BYTES, crc(segment, bodyStart, bodyLength));
+                // End marker first, then the length, so a reader never sees a
+                // length pointing at unwritten bytes.
+                segment.putInt(p, 0);
+                segment.putInt(recordStart, recordLength);
+                writePosition = p;
+
+                remember(noteId, activeSegment, recordStart);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<StepEntry> readTail(String noteId, int limit) {
+        lock.lock();
+        try {
+            ensureIndexed();
+            ArrayDeque<Long> positions = index.get(noteId);
+            if (positions == null || positions.isEmpty()) {
+                return List.of();
+            }
+
+            List<StepEntry> entries = new ArrayList<>(Math.min(limit, positions.size()));
+            Iterator<Long> newestFirst = positions.descendingIterator();
+            while (newestFirst.hasNext() && entries.size() < limit) {
+                long position = newestFirst.next();
+                MappedByteBuffer segment = segments.get((int) (position >>> 32));
+                if (segment == null) {
+                    // Segment already deleted; everything older is gone too.
+                    break;
+                }
+                entries.add(decode(segment, (int) position));
+            }
+            Collections.reverse(entries);
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean storesCheckpoints() {
+        return true;
+    }
+
+    @Override
+    public void saveCheckpoint(String noteId, Checkpoint checkpoint) {
+        lock.lock();
+        try {
+            Optional<Checkpoint> current = latestCheckpoint(noteId);
+            if (current.isPresent() && current.get().version() >= checkpoint.version()) {
+                return;
+            }
+            byte[] html = checkpoint.html().getBytes(StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(html);
+            ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + html.length);
+            buffer.putInt(checkpoint.version()).putInt((int) crc.getValue()).put(html);
+
+            Path file = checkpointPath(noteId);
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(file.getParent());
+                Files.write(temp, buffer.array());
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write OT checkpoint for note " + noteId, e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Checkpoint> latestCheckpoint(String noteId) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(checkpointPath(noteId));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read OT checkpoint for note " + noteId, e);
+        }
+        if (bytes.length < 2 * Integer.BYTES) {
+            logger.warn("Ignoring truncated OT checkpoint for note {}", noteId);
+            return Optional.empty();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int version = buffer.getInt();
+        int expectedCrc = buffer.getInt();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            logger.warn("Ignoring corrupt OT checkpoint for note {}", noteId);
+            return Optional.empty();
+        }
+        return Optional.of(new Checkpoint(version,
+                new String(bytes, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Flushes dirty pages of every mapped segment to disk.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            for (MappedByteBuffer segment : segments.values()) {
+                segment.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Notes with at least one indexed record. */
+    int indexedNoteCount() {
+        lock.lock();
+        try {
+            ensureIndexed();
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ── Segments ────────────────────────────────────────────────────────────
+
+    private void openSegments() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(file -> {
+                    Matcher m = SEGMENT_NAME.matcher(file.getFileName().toString());
+                    if (m.matches()) {
+                        segments.put(Integer.parseInt(m.group(1)), map(file));
+                    }
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open OT journal at " + directory, e);
+        }
+
+        if (segments.isEmpty()) {
+            activeSegment = 1;
+            segments.put(activeSegment, createSegment(activeSegment));
+            writePosition = HEADER_BYTES;
+            indexed = true;
+        } else {
+            activeSegment = segments.lastKey();
+        }
+        logger.info("OT step journal opened at {} with {} segment(s)", directory, segments.size());
+    }
+
+    private void rollSegment() {
+        segments.get(activeSegment).force();
+        activeSegment++;
+        segments.put(activeSegment, createSegment(activeSegment));
+        writePosition = HEADER_BYTES;
+
+        while (segments.size() > maxSegments) {
+            int oldest = segments.firstKey();
+            segments.remove(oldest);
+            forgetSegment(oldest);
+            try {
+                Files.deleteIfExists(segmentPath(oldest));
+            } catch (IOException e) {
+                logger.warn("Failed to delete OT journal segment {}: {}", oldest, e.getMessage());
+            }
+        }
+    }
+
+    private MappedByteBuffer createSegment(int segmentId) {
+        MappedByteBuffer segment = map(segmentPath(segmentId));
+        segment.putInt(0, MAGIC);
+        segment.putInt(HEADER_BYTES, 0);
+        return segment;
+    }
+
+    private MappedByteBuffer map(Path file) {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map OT journal segment " + file, e);
+        }
+    }
+
+    private Path segmentPath(int segmentId) {
+        return directory.resolve(String.format("segment-%010d.log", segmentId));
+    }
+
+    private Path checkpointPath(String noteId) {
+        String name = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(noteId.getBytes(StandardCharsets.UTF_8));
+        return directory.resolve("checkpoints").resolve(name + ".ckpt");
+    }
+
+    // ── Index ───────────────────────────────────────────────────────────────
+
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int records = 0;
+        for (Map.Entry<Integer, MappedByteBuffer> e : segments.entrySet()) {
+            int segmentId = e.getKey();
+            MappedByteBuffer segment = e.getValue();
+            int p = HEADER_BYTES;
+            if (segment.getInt(0) == MAGIC) {
+                while (p + Integer.BYTES <= segmentSize) {
+                    int length = segment.getInt(p);
+                    if (length <= Integer.BYTES || p + Integer.BYTES + length > segmentSize
+                            || segment.getInt(p + Integer.BYTES) != crc(segment, p + 2 * Integer.BYTES,
+                                    length - Integer.BYTES)) {
+                        break;
+                    }
+                    int noteIdLength = segment.getShort(p + 2 * Integer.BYTES);
+                    byte[] noteId = new byte[noteIdLength];
+                    segment.get(p + 2 * Integer.BYTES + Short.BYTES, noteId);
+                    remember(new String(noteId, StandardCharsets.UTF_8), segmentId, p);
+                    records++;
+                    p += Integer.BYTES + length;
+                }
+            }
+            if (segmentId == activeSegment) {
+                // Anything after the last valid record is a torn write; overwrite it.
+                writePosition = Math.max(p, HEADER_BYTES);
+                if (writePosition + Integer.BYTES <= segmentSize) {
+                    segment.putInt(writePosition, 0);
+                }
+            }
+        }
+        indexed = true;
+        logger.info("Indexed {} OT journal record(s) for {} note(s) in {} ms",
+                records, index.size(), System.currentTimeMillis() - start);
+    }
+
+    private void remember(String noteId, int segmentId, int offset) {
+        ArrayDeque<Long> positions = index.computeIfAbsent(noteId, k -> new ArrayDeque<>());
+        positions.addLast(((long) segmentId << 32) | (offset & 0xFFFFFFFFL));
+        while (positions.size() > indexDepth) {
+            positions.removeFirst();
+        }
+    }
+
+    /** Drops index positions in a deleted segment, and notes left with none. */
+    private void forgetSegment(int segmentId) {
+        Iterator<ArrayDeque<Long>> notes = index.values().iterator();
+        while (notes.hasNext()) {
+            ArrayDeque<Long> positions = notes.next();
+            while (!positions.isEmpty() && (int) (positions.peekFirst() >>> 32) <= segmentId) {
+                positions.removeFirst();
+            }
+            if (positions.isEmpty()) {
+                notes.remove();
+            }
+        }
+    }
+
+    private StepEntry decode(MappedByteBuffer segment, int recordStart) {
+        int p = recordStart + 2 * Integer.BYTES;
+        int noteIdLength = segment.getShort(p);
+        p += Short.BYTES + noteIdLength;
+        int version = segment.getInt(p);
+        p += Integer.BYTES;
+        int clientIdLength = segment.getShort(p);
+        p += Short.BYTES;
+        byte[] clientId = new byte[clientIdLength];
+        segment.get(p, clientId);
+        p += clientIdLength;
+        int stepLength = segment.getInt(p);
+        p += Integer.BYTES;
+        byte[] step = new byte[stepLength];
+        segment.get(p, step);
+
+        return new StepEntry(version, new String(step, StandardCharsets.UTF_8),
+                clientIdLength > 0 ? new String(clientId, StandardCharsets.UTF_8) : null);
+    }
+
+    private static int crc(MappedByteBuffer segment, int from, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(segment.slice(from, length));
+        return (int) crc.getValue();
+    }
+}
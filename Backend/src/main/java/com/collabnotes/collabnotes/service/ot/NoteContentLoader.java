@@ -0,0 +1,23 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.util.Optional;
+
+/**
+ * Supplies the persisted HTML of a note so {@link OTAuthorityService} can seed
+ * its server-side document when a fresh OT session starts at version 0.
+ */
+@FunctionalInterface
+public interface NoteContentLoader {
+
+    /**
+     * Returns the stored content of the note, or empty if the note is unknown.
+     */
+    Optional<String> loadContent(String noteId);
+
+    /**
+     * Loader that knows no content; the service then tracks versions only.
+     */
+    static NoteContentLoader none() {
+        return noteId -> Optional.empty();
+    }
+}
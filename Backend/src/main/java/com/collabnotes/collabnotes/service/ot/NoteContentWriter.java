@@ -0,0 +1,15 @@
+package com.collabnotes.collabnotes.service.ot;
+
+/**
+ * Persists note content produced by the OT authority, outside the REST save path.
+ */
+@FunctionalInterface
+public interface NoteContentWriter {
+
+    /**
+     * Overwrites the stored content of a note.
+     *
+     * @return false if the note no longer exists or another node now owns its OT lease
+     */
+    boolean writeContent(String noteId, String content);
+}
@@ -0,0 +1,148 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.OTSubmitResult;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Submission;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs OT submissions either inline on the calling thread or, with
+ * {@code app.ot.mailbox.enabled=true}, through a per-note mailbox.
+ *
+ * In mailbox mode a submission is queued and the caller returns at once. The
+ * first submission to a quiet note starts a virtual thread that drains the
+ * mailbox; everything that queued up meanwhile (up to {@code max-batch}) is
+ * sequenced together by {@link OTAuthorityService#submitAll} and handed to
+ * the result handler as one batch. Only that drainer ever takes the note's
+ * lock, so inbound channel threads no longer wait on hot notes. The note and
+ * journal locks are {@code ReentrantLock}s, so a drainer that waits for one
+ * gives its carrier thread back. A mailbox is removed once it drains empty
+ * and is recreated by the note's next submission.
+ */
+@Component
+public class NoteSubmissionExecutor {
+
+    /** Receives the results of one drained batch, in submission order. */
+    @FunctionalInterface
+    public interface ResultHandler {
+        void handle(String noteId, List<Submission> submissions, List<OTSubmitResult> results);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteSubmissionExecutor.class);
+
+    private final OTAuthorityService authority;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final Executor executor;
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private volatile ResultHandler resultHandler = (noteId, submissions, results) -> {
+    };
+
+    @Autowired
+    public NoteSubmissionExecutor(OTAuthorityService authority,
+            @Value("${app.ot.mailbox.enabled:false}") boolean enabled,
+            @Value("${app.ot.mailbox.max-batch:64}") int maxBatch) {
+        this(authority, enabled, maxBatch, enabled ? Executors.newVirtualThreadPerTaskExecutor() : Runnable::run);
+    }
+
+    NoteSubmissionExecutor(OTAuthorityService authority, boolean enabled, int maxBatch, Executor executor) {
+        this.authority = authority;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.executor = executor;
+    }
+
+    /** Executor that submits inline on the caller's thread. */
+    public static NoteSubmissionExecutor inline(OTAuthorityService authority) {
+        return new NoteSubmissionExecutor(authority, false, 1, Runnable::run);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Registers the callback that publishes submission results. */
+    public void setResultHandler(ResultHandler resultHandler) {
+        this.resultHandler = resultHandler;
+    }
+
+    /**
+     * Sequences {@code submission}; results reach the handler before this
+     * returns in inline mode, or later on the note's drainer in mailbox mode.
+     */
+    public void submit(String noteId, Submission submission) {
+        if (!enabled) {
+            List<Submission> batch = List.of(submission);
+            resultHandler.handle(noteId, batch, authority.submitAll(noteId, batch));
+            return;
+        }
+        // Queue inside compute so a drainer retiring this mailbox sees the
+        // submission, or has already removed it and we get a fresh one.
+        Mailbox mailbox = mailboxes.compute(noteId, (id, current) -> {
+            Mailbox target = current != null ? current : new Mailbox();
+            target.queue.add(submission);
+            return target;
+        });
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> drain(noteId, mailbox));
+        }
+    }
+
+    private void drain(String noteId, Mailbox mailbox) {
+        while (true) {
+            List<Submission> batch = new ArrayList<>();
+            Submission next;
+            while (batch.size() < maxBatch && (next = mailbox.queue.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                mailbox.scheduled.set(false);
+                mailboxes.computeIfPresent(noteId,
+                        (id, current) -> current == mailbox && current.queue.isEmpty() ? null : current);
+                // A submitter may have queued after our last poll but seen the
+                // flag still set; pick its submission up instead of stranding it.
+                if (mailbox.queue.isEmpty() || !mailbox.scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                resultHandler.handle(noteId, batch, authority.submitAll(noteId, batch));
+            } catch (RuntimeException e) {
+                logger.error("Failed to process {} OT submission(s) for note {}", batch.size(), noteId, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    int mailboxCount() {
+        return mailboxes.size();
+    }
+
+    private static final class Mailbox {
+        final Queue<Submission> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+}
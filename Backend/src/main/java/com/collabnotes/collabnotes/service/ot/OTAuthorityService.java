@@ -2,12 +2,31 @@ package com.collabnotes.collabnotes.service.ot;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.collabnotes.collabnotes.service.ot.StepJournal.Checkpoint;
+import com.collabnotes.collabnotes.service.ot.model.PmHtml;
+import com.collabnotes.collabnotes.service.ot.model.PmNode;
+import com.collabnotes.collabnotes.service.ot.model.PmSteps;
+
+import tools.jackson.databind.ObjectMapper;
+
 /**
  * In-memory authority service for prosemirror-collab step sequencing.
  *
@@ -16,20 +35,130 @@ import org.springframework.stereotype.Service;
  * advances by the number of steps. When the client is behind, the missing
  * steps are returned so the client can rebase.
  *
- * This service intentionally does NOT apply or interpret ProseMirror steps —
- * it treats them as opaque JSON blobs. The authoritative document lives in the
- * database (written by the debounced REST save path) and in each connected
- * client's in-memory ProseMirror state.
+ * A fresh session (version 0, nothing journaled) is seeded with the note's
+ * stored HTML, and every accepted step is applied to a server-side
+ * {@link PmNode} document, so {@link #snapshot} can return content that
+ * matches the version exactly. If a step cannot be applied, or the session
+ * was restored from the journal without a matching base document, the
+ * document is dropped and sequencing carries on with steps treated as opaque.
+ * Each document change is reported to a {@link DocumentChangeListener}, which
+ * persists it write-behind.
+ *
+ * Accepted steps are also appended to a {@link StepJournal}, after the note's
+ * lock is released so editors never wait on journal I/O: batches are queued
+ * in version order under the lock and written by whichever submitter finds
+ * the queue free, one writer per note at a time. When a note is
+ * first touched after a restart its version and recent history are reloaded
+ * from the journal, so reconnecting clients can catch up with steps instead of
+ * all re-bootstrapping from the REST snapshot at once. With the default no-op
+ * journal, state is session-scoped and a restart clears it.
+ *
+ * Journals that store checkpoints also get the document with its version
+ * every so often ({@link #checkpoint}, driven by {@link OTCheckpointer}) and
+ * whenever a note is evicted. A restore then starts from the newest checkpoint
+ * and replays only the steps after it, so the document is known again and
+ * reconnecting clients catch up from it and a short tail instead of the REST
+ * snapshot. Journaled steps a checkpoint covers are truncated, less the
+ * {@link #MIN_RETAINED_STEPS} slack.
+ *
+ * Steps are serialized once, when accepted, and kept as their JSON text from
+ * then on: history, journals, broadcasts and catch-up messages all reuse that
+ * string instead of holding and re-serializing a map tree per step.
  *
- * State is session-scoped. A server restart clears all OT state; clients
- * re-initialise via the REST snapshot on reconnect.
+ * With {@code app.ot.rebase.enabled=true}, a submission based on an older
+ * version is rebased onto the current one instead of bounced back as a
+ * catch-up: its steps are mapped through the position maps of the steps
+ * accepted since (as prosemirror-collab's {@code rebaseSteps} would do on the
+ * client) and accepted if they all still have a target and apply cleanly to
+ * the server document. The submitter receives the other steps through their
+ * earlier broadcasts, rebases its unconfirmed steps the same way, and treats
+ * the broadcast of its rebased steps as the ack. If it resends those steps
+ * before that broadcast arrives, the resubmission is recognised by its session
+ * and base version and not accepted a second time. Anything that does not map,
+ * or a session without a server document to check against, falls back to
+ * catch-up.
+ *
+ * Catch-up ships whichever is smaller: the missing steps, or the current
+ * document as HTML (a {@link SnapshotCatchUp}). Gaps below
+ * {@link #SNAPSHOT_MIN_STEP_BYTES} always go out as steps, and a gap the step
+ * history no longer covers is answered with the document when it is known.
+ *
+ * How much step history is kept follows what clients report having applied
+ * ({@link #acknowledge}, also implied by every submission): steps below the
+ * lowest version acknowledged by a connected session, minus a
+ * {@link #MIN_RETAINED_STEPS} slack for quick reconnects, are dropped. When
+ * the last session leaves only the slack is kept. {@link #MAX_STEP_HISTORY}
+ * caps each note regardless, and the journal still serves older versions.
+ * History every connected session has passed can also be compacted in the
+ * background ({@link #compactHistory}, opt-in through {@link OTMemoryManager}):
+ * runs of typed characters collapse into one step each, so the slack served to
+ * reconnecting clients that negotiated {@code span} stays small.
+ *
+ * Each note's resident size is estimated as it grows so {@link OTMemoryManager}
+ * can keep the total under budget with {@link #evict}. An evicted note leaves a
+ * small tombstone with its version, so without a journal a later session
+ * resumes at that version instead of going back to 0 under connected clients.
  */
 @Service
 public class OTAuthorityService {
 
-    private static final int MAX_STEP_HISTORY = 2000;
+    /** Upper bound on each note's in-memory history, however far behind a client is. */
+    public static final int MAX_STEP_HISTORY = 10_000;
+    /** Steps kept below the lowest acknowledged version, for clients that drop and reconnect. */
+    static final int MIN_RETAINED_STEPS = 100;
+    /** Journals may keep more than memory does (the JDBC journal up to twice as much). */
+    static final int MAX_JOURNAL_CATCH_UP = MAX_STEP_HISTORY * 2;
+
+    /** Rough per-step cost on top of the JSON text: record, String and array headers. */
+    static final int STEP_OVERHEAD_BYTES = 64;
+    /** Rough cost of the parsed document per character of its HTML. */
+    static final int DOCUMENT_BYTES_PER_CHAR = 2;
+    private static final int MAX_TOMBSTONES = 100_000;
+    /** Missing steps smaller than this are sent as-is without serializing the document to compare. */
+    static final int SNAPSHOT_MIN_STEP_BYTES = 8 * 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(OTAuthorityService.class);
 
     private final ConcurrentHashMap<String, NoteOTState> noteStates = new ConcurrentHashMap<>();
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final Map<String, Tombstone> tombstones = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Tombstone> eldest) {
+                    return size() > MAX_TOMBSTONES;
+                }
+            });
+    private final StepJournal journal;
+    private final NoteContentLoader contentLoader;
+    private final DocumentChangeListener changeListener;
+    private final ObjectMapper objectMapper;
+    private final StepCompactor compactor;
+    private final boolean rebaseStaleSteps;
+    private final LongSupplier clock;
+
+    public OTAuthorityService(StepJournal journal, NoteContentLoader contentLoader,
+            DocumentChangeListener changeListener, ObjectMapper objectMapper) {
+        this(journal, contentLoader, changeListener, objectMapper, false);
+    }
+
+    @Autowired
+    public OTAuthorityService(StepJournal journal, NoteContentLoader contentLoader,
+            DocumentChangeListener changeListener, ObjectMapper objectMapper,
+            @Value("${app.ot.rebase.enabled:false}") boolean rebaseStaleSteps) {
+        this(journal, contentLoader, changeListener, objectMapper, rebaseStaleSteps, System::currentTimeMillis);
+    }
+
+    OTAuthorityService(StepJournal journal, NoteContentLoader contentLoader,
+            DocumentChangeListener changeListener, ObjectMapper objectMapper, boolean rebaseStaleSteps,
+            LongSupplier clock) {
+        this.journal = journal;
+        this.contentLoader = contentLoader;
+        this.changeListener = changeListener;
+        this.objectMapper = objectMapper;
+        this.compactor = new StepCompactor(objectMapper);
+        this.rebaseStaleSteps = rebaseStaleSteps;
+        this.clock = clock;
+    }
 
     // ── Public API ──────────────────────────────────────────────────────────
 
@@ -51,85 +180,855 @@ public class OTAuthorityService {
      */
     public OTSubmitResult submitSteps(String noteId, int clientVersion,
             List<Map<String, Object>> steps, String clientId) {
+        return submitAll(noteId, List.of(new Submission(clientVersion, steps, clientId))).get(0);
+    }
 
+    /**
+     * Sequences several submissions for one note in arrival order under a
+     * single lock acquisition, with one journal append and one document change
+     * notification for everything accepted.
+     *
+     * @return one result per submission, in the same order
+     */
+    public List<OTSubmitResult> submitAll(String noteId, List<Submission> submissions) {
+        while (true) {
+            NoteOTState state = stateFor(noteId);
+            List<OTSubmitResult> results;
+            state.lock.lock();
+            try {
+                if (state.evicted) {
+                    continue;
+                }
+                state.lastAccessAt = clock.getAsLong();
+                results = submitAllLocked(noteId, state, submissions);
+            } finally {
+                state.lock.unlock();
+            }
+            drainJournal(noteId, state);
+            return results;
+        }
+    }
+
+    private List<OTSubmitResult> submitAllLocked(String noteId, NoteOTState state, List<Submission> submissions) {
+        List<OTSubmitResult> results = new ArrayList<>(submissions.size());
+        List<StepEntry> accepted = new ArrayList<>();
+        long bytesBefore = state.bytes;
+        for (Submission submission : submissions) {
+            results.add(submitLocked(noteId, state, submission, accepted));
+        }
+        residentBytes.addAndGet(state.bytes - bytesBefore);
+        if (!accepted.isEmpty()) {
+            state.unjournaled.add(accepted);
+            if (state.document != null) {
+                changeListener.documentChanged(noteId,
+                        new DocumentSnapshot(state.version, state.document), accepted.size());
+            }
+        }
+        return results;
+    }
+
+    private OTSubmitResult submitLocked(String noteId, NoteOTState state, Submission submission,
+            List<StepEntry> accepted) {
+        List<Map<String, Object>> steps = submission.steps();
+        int clientVersion = submission.clientVersion();
         if (steps == null || steps.isEmpty()) {
             return OTSubmitResult.error("steps must not be empty");
         }
 
-        NoteOTState state = stateFor(noteId);
+        if (clientVersion <= state.version) {
+            // The client has applied everything below the version it built on.
+            state.acknowledge(submission.ackKey(), clientVersion);
+        }
+
+        RebasedBatch rebasedEarlier = state.rebased.get(submission.ackKey());
+        if (rebasedEarlier != null) {
+            if (clientVersion > rebasedEarlier.fromVersion()) {
+                // Built on top of its rebased steps, so the client has seen them accepted.
+                state.rebased.remove(submission.ackKey());
+            } else if (steps.size() >= rebasedEarlier.count()) {
+                // Sent before the broadcast of its rebased steps reached the client: the
+                // first count() steps are those steps again, rebased client-side this time.
+                if (steps.size() == rebasedEarlier.count()) {
+                    return OTSubmitResult.resubmitted(state.version);
+                }
+                // Newer steps follow them. The catch-up carries the accepted copies under
+                // this client's id, which confirms them before it rebases the rest.
+                return catchUpLocked(state, state.stepsSince(clientVersion), submission.capabilities());
+            }
+        }
+
+        if (clientVersion == state.version) {
+            state.apply(noteId, steps);
+            return accept(state, steps, submission.clientId(), accepted);
+        }
+
+        if (clientVersion < state.version) {
+            List<StepEntry> missing = state.stepsSince(clientVersion);
+            if (rebaseStaleSteps && !missing.isEmpty()) {
+                List<Map<String, Object>> rebased = rebase(noteId, state, steps, missing);
+                if (rebased != null) {
+                    state.rebased.put(submission.ackKey(), new RebasedBatch(state.version, rebased.size()));
+                    return accept(state, rebased, submission.clientId(), accepted);
+                }
+            }
+            return catchUpLocked(state, missing, submission.capabilities());
+        }
+
+        return OTSubmitResult.error("client version " + clientVersion
+                + " is ahead of server version " + state.version);
+    }
+
+    /** Records steps already applied to the document (if any) at the head of the history. */
+    private OTSubmitResult accept(NoteOTState state, List<Map<String, Object>> steps, String clientId,
+            List<StepEntry> accepted) {
+        int newVersion = state.version + steps.size();
+        List<String> stepJson = new ArrayList<>(steps.size());
+        for (Map<String, Object> step : steps) {
+            stepJson.add(objectMapper.writeValueAsString(step));
+        }
+        accepted.addAll(state.addBatch(state.version, stepJson, clientId));
+        state.version = newVersion;
+        return OTSubmitResult.accepted(newVersion, stepJson, clientId);
+    }
+
+    /**
+     * Rebases stale steps over {@code missing} and applies them to the
+     * document. Returns null, leaving the document untouched, if there is no
+     * document to check against or any step does not map or apply.
+     */
+    private List<Map<String, Object>> rebase(String noteId, NoteOTState state, List<Map<String, Object>> steps,
+            List<StepEntry> missing) {
+        if (state.document == null) {
+            return null;
+        }
+        try {
+            List<Map<String, Object>> over = new ArrayList<>(missing.size());
+            for (StepEntry entry : missing) {
+                over.add(parseStep(entry.stepJson()));
+            }
+            List<Map<String, Object>> rebased = PmSteps.rebase(steps, over);
+            if (rebased == null) {
+                return null;
+            }
+            PmNode doc = state.document;
+            for (Map<String, Object> step : rebased) {
+                doc = PmSteps.apply(doc, step);
+            }
+            state.document = doc;
+            return rebased;
+        } catch (RuntimeException e) {
+            // Conflicting edit (or a step the server cannot model): let the
+            // client rebase it against the catch-up instead.
+            logger.debug("Could not rebase {} step(s) for note {} over {}: {}",
+                    steps.size(), noteId, missing.size(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Picks the cheaper way to bring a client from a stale version to the
+     * current one: the missing steps, or the document when the steps would
+     * be larger or are no longer held. Only clients that negotiated
+     * {@link OTCapabilities#snapshot()} are sent the document. Call under the
+     * state's lock.
+     */
+    private OTSubmitResult catchUpLocked(NoteOTState state, List<StepEntry> missing, OTCapabilities capabilities) {
+        missing = servable(missing, capabilities);
+        if (!capabilities.snapshot()) {
+            return OTSubmitResult.catchUp(state.version, missing);
+        }
+        long stepBytes = 0;
+        for (StepEntry entry : missing) {
+            stepBytes += entry.stepJson().length();
+        }
+        if (state.document != null && (missing.isEmpty() || stepBytes >= SNAPSHOT_MIN_STEP_BYTES)) {
+            String html = PmHtml.serialize(state.document);
+            if (missing.isEmpty() || html.length() < stepBytes) {
+                return OTSubmitResult.snapshot(state.version, html);
+            }
+        }
+        return OTSubmitResult.catchUp(state.version, missing);
+    }
+
+    /**
+     * {@code missing}, or nothing when it holds compacted runs and the client
+     * did not negotiate {@link OTCapabilities#span()} to apply them.
+     */
+    private static List<StepEntry> servable(List<StepEntry> missing, OTCapabilities capabilities) {
+        if (!capabilities.span()) {
+            for (StepEntry entry : missing) {
+                if (entry.span() > 1) {
+                    return List.of();
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Catch-up for a client at {@code sinceVersion} that negotiated no
+     * optional capabilities.
+     */
+    public OTSubmitResult catchUp(String noteId, int sinceVersion) {
+        return catchUp(noteId, sinceVersion, OTCapabilities.NONE);
+    }
 
-        synchronized (state) {
-            if (clientVersion == state.version) {
-                int newVersion = state.version + steps.size();
-                state.addBatch(clientVersion, steps, clientId);
-                state.version = newVersion;
-                return OTSubmitResult.accepted(newVersion, steps, clientId);
+    /**
+     * Catch-up for a client at {@code sinceVersion}: a {@link CatchUp} with
+     * the missing steps, or, if the client negotiated
+     * {@link OTCapabilities#snapshot()}, a {@link SnapshotCatchUp} when the
+     * document is smaller or the steps were trimmed from memory. Trimmed
+     * steps are otherwise read from the journal; an empty {@link CatchUp}
+     * below the server version means neither is available and the client
+     * should re-bootstrap from the REST snapshot.
+     */
+    public OTSubmitResult catchUp(String noteId, int sinceVersion, OTCapabilities capabilities) {
+        int head = -1;
+        while (head < 0) {
+            NoteOTState state = stateFor(noteId);
+            state.lock.lock();
+            try {
+                if (state.evicted) {
+                    continue;
+                }
+                state.lastAccessAt = clock.getAsLong();
+                if (sinceVersion >= state.version) {
+                    return OTSubmitResult.catchUp(state.version, List.of());
+                }
+                List<StepEntry> missing = servable(state.stepsSince(sinceVersion), capabilities);
+                if (!missing.isEmpty() || (state.document != null && capabilities.snapshot())) {
+                    return catchUpLocked(state, missing, capabilities);
+                }
+                head = state.version;
+            } finally {
+                state.lock.unlock();
             }
+        }
+        int journalHead = head;
+        List<StepEntry> journaled = journaledStepsSince(noteId, sinceVersion)
+                .filter(steps -> sinceVersion + steps.size() >= journalHead)
+                .orElse(List.of());
+        return OTSubmitResult.catchUp(journaled.isEmpty() ? head : sinceVersion + journaled.size(), journaled);
+    }
 
-            if (clientVersion < state.version) {
-                List<StepEntry> missing = state.stepsSince(clientVersion);
-                return OTSubmitResult.catchUp(state.version, missing);
+    /**
+     * Records that {@code sessionId} (one STOMP connection, so each tab of a
+     * user counts separately) has applied every step below {@code version},
+     * and drops history no connected session needs.
+     * Notes that are not resident on this node are ignored.
+     */
+    public void acknowledge(String noteId, String sessionId, int version) {
+        NoteOTState state = noteStates.get(noteId);
+        if (state == null || sessionId == null) {
+            return;
+        }
+        state.lock.lock();
+        try {
+            if (state.evicted || version < 0 || version > state.version) {
+                return;
             }
+            long bytesBefore = state.bytes;
+            state.acknowledge(sessionId, version);
+            residentBytes.addAndGet(state.bytes - bytesBefore);
+        } finally {
+            state.lock.unlock();
+        }
+    }
 
-            return OTSubmitResult.error("client version " + clientVersion
-                    + " is ahead of server version " + state.version);
+    /** Forgets a session that left the note, so it no longer holds history back. */
+    public void releaseSession(String noteId, String sessionId) {
+        NoteOTState state = noteStates.get(noteId);
+        if (state == null) {
+            return;
+        }
+        state.lock.lock();
+        try {
+            if (state.evicted) {
+                return;
+            }
+            long bytesBefore = state.bytes;
+            state.release(sessionId);
+            residentBytes.addAndGet(state.bytes - bytesBefore);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Compacts the note's history below the lowest version every connected
+     * session has acknowledged (see {@link StepCompactor}); nothing while no
+     * session is connected. Catch-up from a version inside a merged run, or
+     * for a client that did not negotiate {@link OTCapabilities#span()}, is no
+     * longer possible from memory and falls back to a snapshot or the journal.
+     *
+     * @return how many history entries were saved
+     */
+    public int compactHistory(String noteId) {
+        NoteOTState state = noteStates.get(noteId);
+        if (state == null) {
+            return 0;
+        }
+        state.lock.lock();
+        try {
+            if (state.evicted) {
+                return 0;
+            }
+            long bytesBefore = state.bytes;
+            int saved = state.compact(compactor);
+            residentBytes.addAndGet(state.bytes - bytesBefore);
+            return saved;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a checkpoint of the note's document to the journal if at least
+     * {@code everySteps} steps were accepted since the last one, or any were
+     * and {@code intervalMs} has passed, then truncates the journaled steps it
+     * covers. Does nothing for notes without a known document or when the
+     * journal does not store checkpoints.
+     *
+     * @return true if a checkpoint was written
+     */
+    public boolean checkpoint(String noteId, int everySteps, long intervalMs) {
+        if (!journal.storesCheckpoints()) {
+            return false;
+        }
+        NoteOTState state = noteStates.get(noteId);
+        if (state == null) {
+            return false;
+        }
+        DocumentSnapshot snapshot;
+        state.lock.lock();
+        try {
+            long now = clock.getAsLong();
+            int pending = state.version - state.checkpointVersion;
+            if (state.evicted || state.document == null || pending <= 0
+                    || (pending < everySteps && now - state.checkpointAt < intervalMs)) {
+                return false;
+            }
+            snapshot = new DocumentSnapshot(state.version, state.document);
+            state.checkpointVersion = state.version;
+            state.checkpointAt = now;
+        } finally {
+            state.lock.unlock();
         }
+        // Serialize and write outside the lock; the document is immutable.
+        return writeCheckpoint(noteId, snapshot);
     }
 
     /**
      * Returns all steps since the given version so a reconnecting client can
      * replay them. If there are no recorded steps at that version (e.g. after a
-     * server restart) an empty list is returned and the client should re-bootstrap
-     * from the REST snapshot at the current version.
+     * server restart, or the version has been trimmed from the bounded history)
+     * an empty list is returned and the client should re-bootstrap from the REST
+     * snapshot at the current version. Versions trimmed from memory are read
+     * from the journal when it still holds them.
      */
     public List<StepEntry> stepsSince(String noteId, int sinceVersion) {
-        NoteOTState state = noteStates.get(noteId);
-        if (state == null) return Collections.emptyList();
-        synchronized (state) {
-            return state.stepsSince(sinceVersion);
+        int head = -1;
+        while (head < 0) {
+            NoteOTState state = stateFor(noteId);
+            state.lock.lock();
+            try {
+                if (state.evicted) {
+                    continue;
+                }
+                state.lastAccessAt = clock.getAsLong();
+                List<StepEntry> missing = state.stepsSince(sinceVersion);
+                if (!missing.isEmpty() || sinceVersion >= state.version) {
+                    return missing;
+                }
+                head = state.version;
+            } finally {
+                state.lock.unlock();
+            }
         }
+        int journalHead = head;
+        return journaledStepsSince(noteId, sinceVersion)
+                .filter(steps -> sinceVersion + steps.size() >= journalHead)
+                .orElse(List.of());
     }
 
     /**
-     * Removes OT state for a note. Call when the last subscriber leaves so
-     * memory is not leaked between editing sessions.
+     * Reads the steps since {@code sinceVersion} straight from the journal,
+     * without touching in-memory state. Lets a node that does not sequence
+     * the note answer catch-up from a shared journal; empty if the journal
+     * cannot prove the range is complete.
+     */
+    public Optional<List<StepEntry>> journaledStepsSince(String noteId, int sinceVersion) {
+        try {
+            return journal.readSince(noteId, sinceVersion, MAX_JOURNAL_CATCH_UP);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read OT steps since {} for note {} from journal", sinceVersion, noteId, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the server-side document together with the version it is at, or
+     * empty when the document for this session is not known.
+     */
+    public Optional<DocumentSnapshot> snapshot(String noteId) {
+        while (true) {
+            NoteOTState state = stateFor(noteId);
+            state.lock.lock();
+            try {
+                if (state.evicted) {
+                    continue;
+                }
+                state.lastAccessAt = clock.getAsLong();
+                return state.document != null
+                        ? Optional.of(new DocumentSnapshot(state.version, state.document))
+                        : Optional.empty();
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drops OT state for a note that another node now sequences. Nothing is
+     * flushed or remembered: the new owner is authoritative.
      */
     public void clearNote(String noteId) {
-        noteStates.remove(noteId);
+        NoteOTState state = noteStates.get(noteId);
+        if (state != null) {
+            state.lock.lock();
+            try {
+                remove(noteId, state);
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Evicts a note's in-memory state to free memory. Pending content is
+     * persisted first (under the note lock, so no step can slip in between),
+     * along with a checkpoint when the journal stores them, and the version is
+     * remembered for the next session. The next access restores the note from
+     * the journal or the stored content.
+     *
+     * @return true if the note was resident and has been evicted
+     */
+    public boolean evict(String noteId) {
+        NoteOTState state = noteStates.get(noteId);
+        if (state == null) {
+            return false;
+        }
+        state.lock.lock();
+        try {
+            if (state.evicted) {
+                return false;
+            }
+            // The next session restores from the journal, so it must hold every accepted step.
+            flushJournal(noteId, state);
+            boolean persisted = changeListener.noteEvicted(noteId) && state.document != null;
+            if (journal.storesCheckpoints() && state.document != null && state.version > state.checkpointVersion) {
+                writeCheckpoint(noteId, new DocumentSnapshot(state.version, state.document));
+            }
+            if (state.version > 0) {
+                tombstones.put(noteId, new Tombstone(state.version, persisted));
+            }
+            remove(noteId, state);
+        } finally {
+            state.lock.unlock();
+        }
+        logger.debug("Evicted OT state for note {}", noteId);
+        return true;
+    }
+
+    /** Size and recency of every resident note, for eviction decisions. */
+    public List<ResidentNote> residentNotes() {
+        List<ResidentNote> notes = new ArrayList<>(noteStates.size());
+        noteStates.forEach((noteId, state) -> notes.add(new ResidentNote(noteId, state.bytes, state.lastAccessAt)));
+        return notes;
+    }
+
+    public int residentNoteCount() {
+        return noteStates.size();
+    }
+
+    /** Estimated heap held by all resident notes. */
+    public long residentBytes() {
+        return residentBytes.get();
     }
 
     // ── Internal ────────────────────────────────────────────────────────────
 
     private NoteOTState stateFor(String noteId) {
-        return noteStates.computeIfAbsent(noteId, k -> new NoteOTState());
+        NoteOTState state = noteStates.get(noteId);
+        if (state != null) {
+            return state;
+        }
+        // Load outside computeIfAbsent so journal I/O never holds a map bin lock.
+        // Concurrent loaders read the same journal tail; the first one wins.
+        NoteOTState loaded = restore(noteId);
+        NoteOTState existing = noteStates.putIfAbsent(noteId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        residentBytes.addAndGet(loaded.bytes);
+        return loaded;
+    }
+
+    /** Call under the state's lock. */
+    private void remove(String noteId, NoteOTState state) {
+        state.evicted = true;
+        if (noteStates.remove(noteId, state)) {
+            residentBytes.addAndGet(-state.bytes);
+        }
+    }
+
+    private NoteOTState restore(String noteId) {
+        NoteOTState state = new NoteOTState();
+        state.lastAccessAt = clock.getAsLong();
+        state.checkpointAt = state.lastAccessAt;
+        Tombstone tombstone = tombstones.remove(noteId);
+        Optional<Checkpoint> checkpoint;
+        List<StepEntry> tail;
+        try {
+            checkpoint = journal.latestCheckpoint(noteId);
+            tail = journal.readTail(noteId, MAX_STEP_HISTORY);
+        } catch (RuntimeException e) {
+            logger.error("Failed to restore OT state for note {} from journal", noteId, e);
+            return state;
+        }
+        if (checkpoint.isPresent() && (tombstone == null || checkpoint.get().version() >= tombstone.version())) {
+            restoreFromCheckpoint(noteId, state, checkpoint.get(), contiguousRun(tail));
+            return state;
+        }
+        if (tail.isEmpty() && tombstone != null) {
+            // Evicted without a journal: keep counting from where clients are.
+            state.version = tombstone.version();
+            state.checkpointVersion = state.version;
+            if (tombstone.contentPersisted()) {
+                loadDocument(noteId, state);
+            }
+            return state;
+        }
+        if (tail.isEmpty()) {
+            loadDocument(noteId, state);
+            return state;
+        }
+
+        for (StepEntry entry : contiguousRun(tail)) {
+            state.append(entry);
+        }
+        state.version = tail.get(tail.size() - 1).stepVersion() + 1;
+        state.checkpointVersion = state.version;
+        logger.info("Restored OT state for note {} at version {} ({} step(s))",
+                noteId, state.version, state.history.size());
+        return state;
+    }
+
+    /**
+     * The contiguous run of a journal tail ending at the newest step; an
+     * earlier gap (e.g. a failed append) must not be served as catch-up history.
+     */
+    private static List<StepEntry> contiguousRun(List<StepEntry> tail) {
+        int start = tail.size() - 1;
+        while (start > 0 && tail.get(start - 1).stepVersion() == tail.get(start).stepVersion() - 1) {
+            start--;
+        }
+        return tail.subList(Math.max(start, 0), tail.size());
+    }
+
+    /**
+     * Restores from a checkpoint and the journaled steps after it. Steps from
+     * before the checkpoint stay as history when they reach it; if the steps
+     * after it do not start at or below it, the document is unknown.
+     */
+    private void restoreFromCheckpoint(String noteId, NoteOTState state, Checkpoint checkpoint,
+            List<StepEntry> run) {
+        int runEnd = run.isEmpty() ? -1 : run.get(run.size() - 1).stepVersion() + 1;
+        if (runEnd < checkpoint.version()) {
+            // Nothing after the checkpoint, and whatever is older does not reach it.
+            run = List.of();
+            runEnd = checkpoint.version();
+        }
+        for (StepEntry entry : run) {
+            state.append(entry);
+        }
+        state.version = runEnd;
+        state.checkpointVersion = checkpoint.version();
+
+        if (run.isEmpty() || run.get(0).stepVersion() <= checkpoint.version()) {
+            try {
+                PmNode document = PmHtml.parse(checkpoint.html());
+                for (StepEntry entry : run) {
+                    if (entry.stepVersion() >= checkpoint.version()) {
+                        document = PmSteps.apply(document, parseStep(entry.stepJson()));
+                    }
+                }
+                state.document = document;
+                state.bytes += (long) checkpoint.html().length() * DOCUMENT_BYTES_PER_CHAR;
+            } catch (RuntimeException e) {
+                logger.warn("Restoring note {} without a document: checkpoint at version {} does not replay: {}",
+                        noteId, checkpoint.version(), e.getMessage());
+            }
+        }
+        logger.info("Restored OT state for note {} at version {} from checkpoint {} ({} step(s))",
+                noteId, state.version, checkpoint.version(), state.history.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> parseStep(String stepJson) {
+        return objectMapper.readValue(stepJson, Map.class);
+    }
+
+    private boolean writeCheckpoint(String noteId, DocumentSnapshot snapshot) {
+        try {
+            journal.saveCheckpoint(noteId, new Checkpoint(snapshot.version(), snapshot.html()));
+            journal.truncateBefore(noteId, snapshot.version() - MIN_RETAINED_STEPS);
+            return true;
+        } catch (RuntimeException e) {
+            // Restores fall back to an older checkpoint or to the steps alone.
+            logger.error("Failed to write OT checkpoint for note {} at version {}", noteId, snapshot.version(), e);
+            return false;
+        }
+    }
+
+    private void loadDocument(String noteId, NoteOTState state) {
+        try {
+            Optional<String> html = contentLoader.loadContent(noteId);
+            if (html.isPresent()) {
+                state.document = PmHtml.parse(html.get());
+                state.bytes += (long) html.get().length() * DOCUMENT_BYTES_PER_CHAR;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to load base document for note {}", noteId, e);
+        }
+    }
+
+    /**
+     * Appends the note's queued batches unless another thread is already
+     * doing so (it picks them up before letting go). Never called under the
+     * note's lock.
+     */
+    private void drainJournal(String noteId, NoteOTState state) {
+        while (!state.unjournaled.isEmpty() && state.journalLock.tryLock()) {
+            try {
+                appendQueued(noteId, state);
+            } finally {
+                state.journalLock.unlock();
+            }
+        }
+    }
+
+    /** Appends everything queued, waiting for a writer already running. Eviction only. */
+    private void flushJournal(String noteId, NoteOTState state) {
+        state.journalLock.lock();
+        try {
+            appendQueued(noteId, state);
+        } finally {
+            state.journalLock.unlock();
+        }
+    }
+
+    /** Call holding the state's journal lock. */
+    private void appendQueued(String noteId, NoteOTState state) {
+        List<StepEntry> pending = new ArrayList<>();
+        List<StepEntry> batch;
+        while ((batch = state.unjournaled.poll()) != null) {
+            pending.addAll(batch);
+        }
+        if (!pending.isEmpty()) {
+            journal(noteId, pending);
+        }
+    }
+
+    private void journal(String noteId, List<StepEntry> entries) {
+        try {
+            journal.append(noteId, entries);
+        } catch (RuntimeException e) {
+            // The in-memory state stays authoritative; a missed append only
+            // shortens the history available after the next restart.
+            logger.error("Failed to journal {} OT step(s) for note {}", entries.size(), noteId, e);
+        }
     }
 
     // ── Inner types ─────────────────────────────────────────────────────────
 
     private static final class NoteOTState {
+        /**
+         * The note lock. A {@link ReentrantLock} rather than a monitor, so
+         * virtual-thread mailbox drainers waiting on a hot note, or holding
+         * it through restore and eviction I/O, unmount from their carrier.
+         */
+        final ReentrantLock lock = new ReentrantLock();
         volatile int version = 0;
-        final List<StepEntry> history = new ArrayList<>();
+        final StepRingBuffer history = new StepRingBuffer(MAX_STEP_HISTORY);
+        /** Document at {@link #version}; null when unknown. */
+        PmNode document;
+        /** Estimated heap held by this note; written under the lock. */
+        volatile long bytes;
+        volatile long lastAccessAt;
+        /** Set once removed from the map; holders of a stale reference must look again. */
+        boolean evicted;
+        /** Highest version each connected session has reported applying. */
+        final Map<String, Integer> acks = new HashMap<>();
+        /**
+         * Per session, the steps last accepted for it by rebasing, until it
+         * submits on top of them; see {@link #submitLocked}.
+         */
+        final Map<String, RebasedBatch> rebased = new HashMap<>();
+        /**
+         * Compacted entries directly below {@link #history}, oldest first and
+         * contiguous by version; an entry may span several versions.
+         */
+        final List<StepEntry> compacted = new ArrayList<>();
+        /** Accepted batches not yet journaled, in version order; added to under the lock. */
+        final Queue<List<StepEntry>> unjournaled = new ConcurrentLinkedQueue<>();
+        /** Held while appending {@link #unjournaled}; its holder never takes the note lock. */
+        final ReentrantLock journalLock = new ReentrantLock();
+        /** Version of the newest checkpoint written (or restored) for this note. */
+        int checkpointVersion;
+        long checkpointAt;
 
-        void addBatch(int fromVersion, List<Map<String, Object>> steps, String clientId) {
+        List<StepEntry> addBatch(int fromVersion, List<String> steps, String clientId) {
+            List<StepEntry> entries = new ArrayList<>(steps.size());
             int v = fromVersion;
-            for (Map<String, Object> step : steps) {
-                history.add(new StepEntry(v, step, clientId));
+            for (String step : steps) {
+                StepEntry entry = new StepEntry(v, step, clientId);
+                append(entry);
+                entries.add(entry);
                 v++;
             }
-            // Trim oldest entries to cap memory usage.
-            while (history.size() > MAX_STEP_HISTORY) {
-                history.remove(0);
+            return entries;
+        }
+
+        void append(StepEntry entry) {
+            StepEntry overwritten = history.append(entry);
+            bytes += sizeOf(entry) - (overwritten != null ? sizeOf(overwritten) : 0);
+            if (overwritten != null && !compacted.isEmpty()) {
+                // The compacted prefix no longer adjoins the history.
+                dropCompacted(compacted.size());
+            }
+        }
+
+        int compact(StepCompactor compactor) {
+            if (acks.isEmpty()) {
+                // Nobody connected has passed anything; the slack is for reconnects.
+                return 0;
+            }
+            List<StepEntry> passed = history.trimBefore(lowestAck());
+            if (passed.isEmpty()) {
+                return 0;
+            }
+            List<StepEntry> input = new ArrayList<>(passed.size() + 1);
+            if (!compacted.isEmpty()) {
+                // Let a run continue across the previous pass's boundary.
+                input.add(compacted.remove(compacted.size() - 1));
+            }
+            input.addAll(passed);
+            List<StepEntry> output = compactor.compact(input);
+            for (StepEntry entry : input) {
+                bytes -= sizeOf(entry);
+            }
+            for (StepEntry entry : output) {
+                bytes += sizeOf(entry);
             }
+            compacted.addAll(output);
+            return input.size() - output.size();
+        }
+
+        private int lowestAck() {
+            int floor = version;
+            for (int acked : acks.values()) {
+                floor = Math.min(floor, acked);
+            }
+            return floor;
+        }
+
+        private void dropCompacted(int count) {
+            List<StepEntry> dropped = compacted.subList(0, count);
+            for (StepEntry entry : dropped) {
+                bytes -= sizeOf(entry);
+            }
+            dropped.clear();
+        }
+
+        void acknowledge(String sessionId, int ackedVersion) {
+            Integer previous = acks.put(sessionId, ackedVersion);
+            if (previous == null || previous < ackedVersion) {
+                trimToAcks();
+            }
+        }
+
+        void release(String sessionId) {
+            rebased.remove(sessionId);
+            if (acks.remove(sessionId) != null) {
+                trimToAcks();
+            }
+        }
+
+        /** Drops history below the lowest acknowledged version, less the reconnect slack. */
+        private void trimToAcks() {
+            int keepFrom = lowestAck() - MIN_RETAINED_STEPS;
+            int whollyBelow = 0;
+            while (whollyBelow < compacted.size()) {
+                StepEntry entry = compacted.get(whollyBelow);
+                if (entry.stepVersion() + entry.span() > keepFrom) {
+                    break;
+                }
+                whollyBelow++;
+            }
+            dropCompacted(whollyBelow);
+            for (StepEntry dropped : history.trimBefore(keepFrom)) {
+                bytes -= sizeOf(dropped);
+            }
+        }
+
+        private static long sizeOf(StepEntry entry) {
+            return STEP_OVERHEAD_BYTES + entry.stepJson().length();
         }
 
         List<StepEntry> stepsSince(int sinceVersion) {
-            List<StepEntry> result = new ArrayList<>();
-            for (StepEntry entry : history) {
-                if (entry.stepVersion() >= sinceVersion) {
-                    result.add(entry);
+            int historyStart = history.size() > 0 ? history.firstVersion() : version;
+            if (compacted.isEmpty() || sinceVersion >= historyStart) {
+                return history.since(sinceVersion);
+            }
+            int low = 0;
+            int high = compacted.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midVersion = compacted.get(mid).stepVersion();
+                if (midVersion < sinceVersion) {
+                    low = mid + 1;
+                } else if (midVersion > sinceVersion) {
+                    high = mid - 1;
+                } else {
+                    List<StepEntry> steps = new ArrayList<>(compacted.subList(mid, compacted.size()));
+                    steps.addAll(history.since(historyStart));
+                    return steps;
                 }
             }
-            return Collections.unmodifiableList(result);
+            // Before the compacted prefix, or inside a merged run.
+            return List.of();
+        }
+
+        /** Applies steps to the document, if there is one; drops it if they do not fit. */
+        void apply(String noteId, List<Map<String, Object>> steps) {
+            if (document == null) {
+                return;
+            }
+            try {
+                PmNode doc = document;
+                for (Map<String, Object> step : steps) {
+                    doc = PmSteps.apply(doc, step);
+                }
+                document = doc;
+            } catch (RuntimeException e) {
+                // Clients validated these steps against their schema, so a
+                // failure means the server document has drifted (or the step is
+                // malformed); stop serving it rather than reject the edit.
+                logger.warn("Dropping server document for note {} at version {}: {}",
+                        noteId, version, e.getMessage());
+                document = null;
+            }
         }
     }
 
@@ -137,10 +1036,78 @@ public class OTAuthorityService {
      * A single step stored in the authority history.
      *
      * @param stepVersion  the version index of this step (0-based)
-     * @param step         opaque ProseMirror Step JSON
+     * @param stepJson     the ProseMirror Step, serialized to JSON text
      * @param clientId     ID of the user who submitted this step
+     * @param span         versions the step accounts for: 1, or more for a compacted run
+     */
+    public record StepEntry(int stepVersion, String stepJson, String clientId, int span) {
+
+        public StepEntry(int stepVersion, String stepJson, String clientId) {
+            this(stepVersion, stepJson, clientId, 1);
+        }
+    }
+
+    /**
+     * Resident size and last use of a note's OT state.
+     *
+     * @param bytes         estimated heap held by the note
+     * @param lastAccessAt  epoch millis of the last submit, catch-up or snapshot
+     */
+    public record ResidentNote(String noteId, long bytes, long lastAccessAt) {}
+
+    /** {@code count} rebased steps accepted for a session, starting at {@code fromVersion}. */
+    private record RebasedBatch(int fromVersion, int count) {}
+
+    /** What an evicted note leaves behind for its next session. */
+    private record Tombstone(int version, boolean contentPersisted) {}
+
+    /**
+     * One client's step submission, as queued for {@link #submitAll}.
+     *
+     * @param clientVersion the version the client's steps are based on
+     * @param steps         opaque ProseMirror step JSON objects
+     * @param clientId      ID of the submitting user
+     * @param sessionId     the submitting connection, which the submission
+     *                      acknowledges for; null to acknowledge as {@code clientId}
+     * @param capabilities  what the submitting connection negotiated, which
+     *                      decides how a stale submission is caught up
      */
-    public record StepEntry(int stepVersion, Map<String, Object> step, String clientId) {}
+    public record Submission(int clientVersion, List<Map<String, Object>> steps, String clientId,
+            String sessionId, OTCapabilities capabilities) {
+
+        public Submission {
+            if (capabilities == null) {
+                capabilities = OTCapabilities.NONE;
+            }
+        }
+
+        public Submission(int clientVersion, List<Map<String, Object>> steps, String clientId) {
+            this(clientVersion, steps, clientId, null, OTCapabilities.NONE);
+        }
+
+        public Submission(int clientVersion, List<Map<String, Object>> steps, String clientId, String sessionId) {
+            this(clientVersion, steps, clientId, sessionId, OTCapabilities.NONE);
+        }
+
+        /** The key this submission's implied acknowledgement is recorded under. */
+        String ackKey() {
+            return sessionId != null ? sessionId : clientId;
+        }
+    }
+
+    /**
+     * The server-side document at a given OT version.
+     *
+     * @param version   the OT version the document corresponds to
+     * @param document  the document after applying every step below {@code version}
+     */
+    public record DocumentSnapshot(int version, PmNode document) {
+
+        /** The document serialised the way the editor's {@code getHTML()} does. */
+        public String html() {
+            return PmHtml.serialize(document);
+        }
+    }
 
     /**
      * Result of a {@link #submitSteps} call.
@@ -148,9 +1115,11 @@ public class OTAuthorityService {
     public sealed interface OTSubmitResult
             permits OTAuthorityService.Accepted,
                     OTAuthorityService.CatchUp,
+                    OTAuthorityService.SnapshotCatchUp,
+                    OTAuthorityService.Resubmitted,
                     OTAuthorityService.SubmitError {
 
-        static OTSubmitResult accepted(int newVersion, List<Map<String, Object>> steps, String clientId) {
+        static OTSubmitResult accepted(int newVersion, List<String> steps, String clientId) {
             return new Accepted(newVersion, steps, clientId);
         }
 
@@ -158,17 +1127,42 @@ public class OTAuthorityService {
             return new CatchUp(serverVersion, missing);
         }
 
+        static OTSubmitResult snapshot(int serverVersion, String html) {
+            return new SnapshotCatchUp(serverVersion, html);
+        }
+
+        static OTSubmitResult resubmitted(int serverVersion) {
+            return new Resubmitted(serverVersion);
+        }
+
         static OTSubmitResult error(String reason) {
             return new SubmitError(reason);
         }
     }
 
-    public record Accepted(int newVersion, List<Map<String, Object>> steps, String clientId)
+    /** @param steps the accepted steps, serialized to JSON text */
+    public record Accepted(int newVersion, List<String> steps, String clientId)
             implements OTSubmitResult {}
 
     public record CatchUp(int serverVersion, List<StepEntry> missing)
             implements OTSubmitResult {}
 
+    /**
+     * Catch-up by replacing the client's document instead of replaying steps.
+     *
+     * @param html the document at {@code serverVersion}, as the editor's {@code getHTML()} would produce it
+     */
+    public record SnapshotCatchUp(int serverVersion, String html)
+            implements OTSubmitResult {}
+
+    /**
+     * A client resent steps that were already accepted for it by rebasing.
+     * Nothing is sent back: the broadcast of the accepted copies, already on
+     * its way, confirms them.
+     */
+    public record Resubmitted(int serverVersion)
+            implements OTSubmitResult {}
+
     public record SubmitError(String reason)
             implements OTSubmitResult {}
 }
@@ -0,0 +1,51 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.util.Locale;
+
+/**
+ * Optional OT protocol features a client opted into on CONNECT, with a
+ * comma-separated {@code ot-capabilities} header (for example
+ * {@code ot-capabilities: snapshot,span}). Unknown names are ignored, and a
+ * client that sends nothing gets the original protocol.
+ *
+ * @param snapshot  handles {@code /queue/notes/{id}/ot-snapshot}: catch-up may
+ *                  replace its document instead of replaying steps
+ * @param span      handles catch-up entries whose {@code span} covers several
+ *                  versions (compacted history)
+ * @param groups    handles coalesced broadcasts that carry {@code groups}
+ *                  from several submitters
+ */
+public record OTCapabilities(boolean snapshot, boolean span, boolean groups) {
+
+    public static final String HEADER = "ot-capabilities";
+    public static final String SESSION_ATTRIBUTE = "otCapabilities";
+
+    public static final OTCapabilities NONE = new OTCapabilities(false, false, false);
+    public static final OTCapabilities ALL = new OTCapabilities(true, true, true);
+
+    /** Parses an {@code ot-capabilities} header; null or blank means none. */
+    public static OTCapabilities parse(String header) {
+        if (header == null || header.isBlank()) {
+            return NONE;
+        }
+        boolean snapshot = false;
+        boolean span = false;
+        boolean groups = false;
+        for (String name : header.split(",")) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "snapshot" -> snapshot = true;
+                case "span" -> span = true;
+                case "groups" -> groups = true;
+                default -> {
+                }
+            }
+        }
+        return new OTCapabilities(snapshot, span, groups);
+    }
+
+    /** The capabilities stored on a STOMP session, or none. */
+    public static OTCapabilities of(java.util.Map<String, Object> sessionAttributes) {
+        Object value = sessionAttributes != null ? sessionAttributes.get(SESSION_ATTRIBUTE) : null;
+        return value instanceof OTCapabilities capabilities ? capabilities : NONE;
+    }
+}
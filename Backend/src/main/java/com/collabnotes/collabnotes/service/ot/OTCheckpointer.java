@@ -0,0 +1,57 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.collabnotes.collabnotes.metrics.MetricsService;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.ResidentNote;
+
+/**
+ * Periodically checkpoints resident notes into the step journal.
+ *
+ * A note is checkpointed once {@code every-steps} steps were accepted since
+ * its last checkpoint, or {@code interval-ms} after it when fewer were (see
+ * {@link OTAuthorityService#checkpoint}). Does nothing for journals that do
+ * not store checkpoints. Written checkpoints are counted as
+ * {@code app.counter.ot.checkpoints}.
+ */
+@Component
+public class OTCheckpointer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OTCheckpointer.class);
+
+    private final OTAuthorityService authority;
+    private final MetricsService metricsService;
+    private final int everySteps;
+    private final long intervalMs;
+
+    public OTCheckpointer(OTAuthorityService authority, MetricsService metricsService,
+            @Value("${app.ot.checkpoint.every-steps:500}") int everySteps,
+            @Value("${app.ot.checkpoint.interval-ms:60000}") long intervalMs) {
+        this.authority = authority;
+        this.metricsService = metricsService;
+        this.everySteps = everySteps;
+        this.intervalMs = intervalMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ot.checkpoint.tick-ms:2000}")
+    public void tick() {
+        int written = 0;
+        for (ResidentNote note : authority.residentNotes()) {
+            try {
+                if (authority.checkpoint(note.noteId(), everySteps, intervalMs)) {
+                    metricsService.incrementCounter("ot.checkpoints");
+                    written++;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to checkpoint OT state for note {}", note.noteId(), e);
+            }
+        }
+        if (written > 0) {
+            logger.debug("Wrote {} OT checkpoint(s)", written);
+        }
+    }
+}
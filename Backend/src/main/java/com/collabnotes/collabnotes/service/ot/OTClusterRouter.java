@@ -0,0 +1,395 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Per-note OT ownership across application nodes.
+ *
+ * Each note is sequenced by exactly one node: the holder of a Redis lease
+ * ({@code ot:owner:<noteId>}, set with NX and a TTL, renewed while the note is
+ * active). Other nodes forward OT commands to the owner over the owner's
+ * pub/sub channel, and every OT message the owner emits is relayed through
+ * {@code ot:relay} so subscribers on all nodes receive it from their local
+ * simple broker, in publish order. Relayed payloads are serialized once on
+ * the owner and handed to the local broker as those bytes, so step JSON the
+ * authority kept as text is never re-parsed on the way.
+ *
+ * Each lease take-over also returns a fencing epoch that {@link OTLeaseFence}
+ * claims for the note; content and journal writes carry it, so a node that
+ * still believes it owns a note after its lease expired is refused by storage.
+ *
+ * When a node acquires a lease that another node held last, it drops its own
+ * in-memory state for the note so the next access reloads from the step
+ * journal; use a shared journal ({@code app.ot.journal.type=jdbc} or
+ * {@code redis}) when clustering. With {@code app.ot.cluster.enabled=false} (the default) every
+ * note is local and messages go straight to the broker.
+ */
+@Component
+public class OTClusterRouter {
+
+    public static final String RELAY_CHANNEL = "ot:relay";
+    public static final String NODE_CHANNEL_PREFIX = "ot:node:";
+
+    private static final Logger logger = LoggerFactory.getLogger(OTClusterRouter.class);
+    private static final String OWNER_KEY_PREFIX = "ot:owner:";
+    private static final String LAST_OWNER_KEY_PREFIX = "ot:last-owner:";
+    private static final Duration LAST_OWNER_TTL = Duration.ofDays(1);
+    private static final int MAX_HOPS = 2;
+
+    /**
+     * Renews the lease if we hold it, otherwise takes it if free. Returns "="
+     * when this node kept ownership, "+" when it took over from another node,
+     * either followed by the lease epoch, or "@" followed by the current
+     * owner's id. Every fresh take increments the epoch; a missing epoch key
+     * is seeded from the Redis clock so epochs keep growing even after the
+     * key expires.
+     */
+    private static final RedisScript<String> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local cur = redis.call('get', KEYS[1])
+            if cur == ARGV[1] then
+              redis.call('pexpire', KEYS[1], ARGV[2])
+              redis.call('pexpire', KEYS[3], ARGV[3])
+              return '=' .. (redis.call('get', KEYS[3]) or '0')
+            end
+            if cur then
+              return '@' .. cur
+            end
+            redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            local prev = redis.call('getset', KEYS[2], ARGV[1])
+            redis.call('pexpire', KEYS[2], ARGV[3])
+            if redis.call('exists', KEYS[3]) == 0 then
+              redis.call('set', KEYS[3], redis.call('time')[1])
+            end
+            local epoch = redis.call('incr', KEYS[3])
+            redis.call('pexpire', KEYS[3], ARGV[3])
+            if prev == ARGV[1] then
+              return '=' .. epoch
+            end
+            return '+' .. epoch
+            """, String.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+              return redis.call('del', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final OTAuthorityService authority;
+    private final OTLeaseFence leaseFence;
+    private final boolean enabled;
+    private final long leaseMs;
+    private final long idleReleaseMs;
+    private final String nodeId;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Lease> owned = new ConcurrentHashMap<>();
+    /**
+     * Owners of notes held elsewhere, trusted for a fifth of the lease TTL so
+     * forwarding a frame costs one Redis round trip (the relay) instead of two.
+     */
+    private final ConcurrentHashMap<String, RemoteOwner> remoteOwners = new ConcurrentHashMap<>();
+    private volatile Consumer<OTCommand> commandHandler = command -> {
+    };
+
+    @Autowired
+    public OTClusterRouter(StringRedisTemplate redis, ObjectMapper objectMapper,
+            SimpMessagingTemplate messagingTemplate, OTAuthorityService authority, OTLeaseFence leaseFence,
+            @Value("${app.ot.cluster.enabled:false}") boolean enabled,
+            @Value("${app.ot.cluster.lease-ms:10000}") long leaseMs,
+            @Value("${app.ot.cluster.idle-release-ms:60000}") long idleReleaseMs,
+            @Value("${app.ot.cluster.node-id:}") String nodeId) {
+        this(redis, objectMapper, messagingTemplate, authority, leaseFence, enabled, leaseMs, idleReleaseMs,
+                nodeId, System::currentTimeMillis);
+    }
+
+    OTClusterRouter(StringRedisTemplate redis, ObjectMapper objectMapper,
+            SimpMessagingTemplate messagingTemplate, OTAuthorityService authority, OTLeaseFence leaseFence,
+            boolean enabled, long leaseMs, long idleReleaseMs, String nodeId, LongSupplier clock) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.messagingTemplate = messagingTemplate;
+        this.authority = authority;
+        this.leaseFence = leaseFence;
+        this.enabled = enabled;
+        this.leaseMs = leaseMs;
+        this.idleReleaseMs = idleReleaseMs;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * Router for a single node: every note is local and nothing touches Redis.
+     */
+    public static OTClusterRouter local(SimpMessagingTemplate messagingTemplate) {
+        return new OTClusterRouter(null, null, messagingTemplate, null, null, false, 0, 0, "local",
+                System::currentTimeMillis);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /** Registers the callback that executes commands forwarded to this node. */
+    public void setCommandHandler(Consumer<OTCommand> commandHandler) {
+        this.commandHandler = commandHandler;
+    }
+
+    // ── Routing ─────────────────────────────────────────────────────────────
+
+    /**
+     * Sends {@code command} to the owning node if that is not this node.
+     *
+     * @return true if the command was forwarded and must not be handled here
+     */
+    public boolean forwardIfRemote(OTCommand command) {
+        if (!enabled) {
+            return false;
+        }
+        String owner = ownerOf(command.noteId());
+        if (owner == null) {
+            return false;
+        }
+        if (command.hops() >= MAX_HOPS) {
+            logger.warn("Dropping OT {} for note {}: ownership kept moving", command.type(), command.noteId());
+            return true;
+        }
+        redis.convertAndSend(NODE_CHANNEL_PREFIX + owner,
+                objectMapper.writeValueAsString(command.forwarded()));
+        logger.debug("Forwarded OT {} for note {} to node {}", command.type(), command.noteId(), owner);
+        return true;
+    }
+
+    /** True if this node sequences {@code noteId}, taking the lease if it is free. */
+    public boolean isLocal(String noteId) {
+        return !enabled || ownerOf(noteId) == null;
+    }
+
+    /** Broadcasts an OT message to the note's subscribers on every node. */
+    public void convertAndSend(String destination, Object payload) {
+        if (!enabled) {
+            messagingTemplate.convertAndSend(destination, payload);
+            return;
+        }
+        relay(destination, null, payload);
+    }
+
+    /** Sends an OT message to a user on whichever node holds their session. */
+    public void convertAndSendToUser(String userId, String destination, Object payload) {
+        if (!enabled) {
+            messagingTemplate.convertAndSendToUser(userId, destination, payload);
+            return;
+        }
+        relay(destination, userId, payload);
+    }
+
+    // ── Pub/sub entry points ────────────────────────────────────────────────
+
+    /** Parses a command another node forwarded to this node's channel. */
+    public OTCommand readCommand(String json) {
+        return objectMapper.readValue(json, OTCommand.class);
+    }
+
+    /**
+     * Handles a command another node forwarded to this node's channel. Callers
+     * run a note's commands one at a time, in arrival order.
+     */
+    public void onForwardedCommand(OTCommand command) {
+        try {
+            // The sender thinks this node owns the note; whatever owner we cached is not to be trusted.
+            remoteOwners.remove(command.noteId());
+            if (!forwardIfRemote(command)) {
+                commandHandler.accept(command);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to handle forwarded OT {} for note {}", command.type(), command.noteId(), e);
+        }
+    }
+
+    /**
+     * Delivers a relayed OT message to this node's local subscribers. The
+     * frame is {@code destination \n userId \n payload-json}; the payload
+     * goes to the broker as-is, the way the JSON converter would have
+     * written it.
+     */
+    public void onRelayedMessage(String frame) {
+        int first = frame.indexOf('\n');
+        int second = frame.indexOf('\n', first + 1);
+        if (first < 0 || second < 0) {
+            logger.warn("Dropping malformed OT relay frame");
+            return;
+        }
+        String destination = frame.substring(0, first);
+        String userId = frame.substring(first + 1, second);
+        if (!userId.isEmpty()) {
+            destination = messagingTemplate.getUserDestinationPrefix()
+                    + userId.replace("/", "%2F") + destination;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        byte[] payload = frame.substring(second + 1).getBytes(StandardCharsets.UTF_8);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+
+    // ── Leases ──────────────────────────────────────────────────────────────
+
+    /**
+     * Keeps leases of recently used notes alive and releases idle ones so
+     * ownership can move to wherever the editors are now.
+     */
+    @Scheduled(fixedDelayString = "${app.ot.cluster.renew-ms:3000}")
+    public void renewLeases() {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.getAsLong();
+        remoteOwners.values().removeIf(remote -> now >= remote.validUntil());
+        for (Map.Entry<String, Lease> entry : owned.entrySet()) {
+            String noteId = entry.getKey();
+            if (now - entry.getValue().lastUsedAt >= idleReleaseMs) {
+                owned.remove(noteId);
+                // The fence keeps this lease's epoch: writes still in flight must present
+                // it, so storage refuses them once another node has taken the note.
+                redis.execute(RELEASE_SCRIPT, List.of(OWNER_KEY_PREFIX + noteId), nodeId);
+                continue;
+            }
+            try {
+                acquire(noteId, now);
+            } catch (RuntimeException e) {
+                logger.error("Failed to renew OT lease for note {}", noteId, e);
+            }
+        }
+    }
+
+    /** Returns the owning node if it is not this one, or null if this node owns the note. */
+    private String ownerOf(String noteId) {
+        long now = clock.getAsLong();
+        Lease lease = owned.get(noteId);
+        if (lease != null && now < lease.validUntil) {
+            lease.lastUsedAt = now;
+            return null;
+        }
+        RemoteOwner remote = remoteOwners.get(noteId);
+        if (remote != null && now < remote.validUntil()) {
+            return remote.nodeId();
+        }
+        return acquire(noteId, now);
+    }
+
+    private String acquire(String noteId, long now) {
+        String result = redis.execute(ACQUIRE_SCRIPT,
+                List.of(OWNER_KEY_PREFIX + noteId, LAST_OWNER_KEY_PREFIX + noteId,
+                        OTLeaseFence.EPOCH_KEY_PREFIX + noteId),
+                nodeId, Long.toString(leaseMs), Long.toString(LAST_OWNER_TTL.toMillis()));
+        if (result != null && result.startsWith("@")) {
+            String owner = result.substring(1);
+            if (owned.remove(noteId) != null) {
+                logger.warn("Lost OT ownership of note {} to node {}", noteId, owner);
+                authority.clearNote(noteId);
+            }
+            remoteOwners.put(noteId, new RemoteOwner(owner, now + leaseMs / 5));
+            return owner;
+        }
+        remoteOwners.remove(noteId);
+        if (result != null && result.startsWith("+")) {
+            // Another node sequenced this note since we last did; reload from the journal.
+            authority.clearNote(noteId);
+            logger.info("Node {} took OT ownership of note {}", nodeId, noteId);
+        }
+        Lease lease = owned.computeIfAbsent(noteId, id -> new Lease());
+        long epoch = result == null || result.length() < 2 ? 0 : Long.parseLong(result.substring(1));
+        if (epoch > lease.epoch) {
+            // Claim before sequencing anything, so older holders' writes are refused from here on.
+            leaseFence.claim(noteId, epoch);
+            lease.epoch = epoch;
+        }
+        // Treat the lease as ours for two thirds of its TTL to absorb clock drift;
+        // storage fencing covers the case where the drift is larger than that.
+        lease.validUntil = now + leaseMs * 2 / 3;
+        lease.lastUsedAt = Math.max(lease.lastUsedAt, now);
+        return null;
+    }
+
+    private void relay(String destination, String userId, Object payload) {
+        String frame = destination + "\n" + (userId == null ? "" : userId) + "\n"
+                + objectMapper.writeValueAsString(payload);
+        redis.convertAndSend(RELAY_CHANNEL, frame);
+    }
+
+    private record RemoteOwner(String nodeId, long validUntil) {
+    }
+
+    private static final class Lease {
+        volatile long validUntil;
+        volatile long lastUsedAt;
+        volatile long epoch;
+    }
+
+    /**
+     * An OT request that may be executed on another node.
+     *
+     * @param type       {@code submit}, {@code resync}, {@code state}, {@code ack}
+     *                   or {@code release}
+     * @param noteId     the note the request targets
+     * @param userId     the already-authenticated requesting user
+     * @param sessionId  the requesting STOMP session, which acks are kept per
+     * @param version    the client's OT version (submit/resync/ack)
+     * @param steps      submitted steps (submit only)
+     * @param capabilities  what the requesting connection negotiated; null
+     *                   (from a node that predates it) means none
+     * @param hops       how many times the command has been forwarded
+     */
+    public record OTCommand(String type, String noteId, String userId, String sessionId, int version,
+            List<Map<String, Object>> steps, OTCapabilities capabilities, int hops) {
+
+        public static OTCommand of(String type, String noteId, String userId, String sessionId, int version,
+                List<Map<String, Object>> steps) {
+            return of(type, noteId, userId, sessionId, version, steps, OTCapabilities.NONE);
+        }
+
+        public static OTCommand of(String type, String noteId, String userId, String sessionId, int version,
+                List<Map<String, Object>> steps, OTCapabilities capabilities) {
+            return new OTCommand(type, noteId, userId, sessionId, version, steps, capabilities, 0);
+        }
+
+        /** The requesting connection's capabilities, never null. */
+        public OTCapabilities negotiated() {
+            return capabilities != null ? capabilities : OTCapabilities.NONE;
+        }
+
+        OTCommand forwarded() {
+            return new OTCommand(type, noteId, userId, sessionId, version, steps, capabilities, hops + 1);
+        }
+    }
+}
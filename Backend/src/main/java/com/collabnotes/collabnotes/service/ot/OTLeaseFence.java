@@ -0,0 +1,60 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.collabnotes.collabnotes.repository.NoteRepository;
+
+/**
+ * Fencing tokens for OT leases.
+ *
+ * Every time a node takes a note's lease, {@link OTClusterRouter} gets a new,
+ * larger epoch from Redis ({@code ot:epoch:<noteId>}) and claims it here,
+ * which also raises {@code notes.ot_epoch}. Writers that outlive a lease
+ * (content write-behind, the shared step journals) pass the epoch they hold
+ * to storage, and storage refuses writes from an epoch older than the newest
+ * claim, so a node that stalled past its lease cannot overwrite the new
+ * owner's work however wrong its clock is.
+ *
+ * An epoch is kept after its lease is released or lost, so a write that
+ * outlives the lease still presents it and is refused once another node has
+ * claimed a newer one; it is never dropped back to unfenced. That is one
+ * entry per note this node ever leased. {@link #epochOf} returns 0 only for
+ * notes this node never leased, including every note when clustering is off;
+ * writers treat 0 as unfenced.
+ */
+@Component
+public class OTLeaseFence {
+
+    public static final String EPOCH_KEY_PREFIX = "ot:epoch:";
+
+    private final NoteRepository noteRepository;
+    private final ConcurrentHashMap<String, Long> epochs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OTLeaseFence(NoteRepository noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    /** Fence that keeps epochs in memory only, for single-node setups and tests. */
+    public static OTLeaseFence local() {
+        return new OTLeaseFence(null);
+    }
+
+    /** The lease epoch this node holds for {@code noteId}, or 0 if it never held one. */
+    public long epochOf(String noteId) {
+        return epochs.getOrDefault(noteId, 0L);
+    }
+
+    /** Records a newly taken lease epoch and raises the note's epoch in the database. */
+    @Transactional
+    public void claim(String noteId, long epoch) {
+        epochs.merge(noteId, epoch, Math::max);
+        if (noteRepository != null) {
+            noteRepository.claimOtEpoch(noteId, epoch);
+        }
+    }
+}
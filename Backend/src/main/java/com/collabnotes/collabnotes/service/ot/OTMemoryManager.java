@@ -0,0 +1,142 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.collabnotes.collabnotes.metrics.MetricsService;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.ResidentNote;
+
+/**
+ * Keeps the OT authority's in-memory state within a byte budget.
+ *
+ * A periodic sweep evicts, in this order: notes whose last subscriber left
+ * more than {@code release-grace-ms} ago and that saw no OT traffic since,
+ * notes untouched for {@code idle-evict-ms}, and then least recently used
+ * notes until the estimated total is under {@code max-bytes}. With
+ * {@code compact-history} on, the notes that stay then have their
+ * acknowledged history compacted. Resident note
+ * count and bytes are exported as {@code app.gauge.ot.resident_notes} and
+ * {@code app.gauge.ot.resident_bytes}.
+ */
+@Component
+public class OTMemoryManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(OTMemoryManager.class);
+
+    private final OTAuthorityService authority;
+    private final MetricsService metricsService;
+    private final long maxBytes;
+    private final long idleEvictMs;
+    private final long releaseGraceMs;
+    private final boolean compactHistory;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Long> releasedAt = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OTMemoryManager(OTAuthorityService authority, MetricsService metricsService,
+            @Value("${app.ot.memory.max-bytes:268435456}") long maxBytes,
+            @Value("${app.ot.memory.idle-evict-ms:1800000}") long idleEvictMs,
+            @Value("${app.ot.memory.release-grace-ms:30000}") long releaseGraceMs,
+            @Value("${app.ot.memory.compact-history:false}") boolean compactHistory) {
+        this(authority, metricsService, maxBytes, idleEvictMs, releaseGraceMs, compactHistory,
+                System::currentTimeMillis);
+    }
+
+    OTMemoryManager(OTAuthorityService authority, MetricsService metricsService, long maxBytes,
+            long idleEvictMs, long releaseGraceMs, boolean compactHistory, LongSupplier clock) {
+        this.authority = authority;
+        this.metricsService = metricsService;
+        this.maxBytes = maxBytes;
+        this.idleEvictMs = idleEvictMs;
+        this.releaseGraceMs = releaseGraceMs;
+        this.compactHistory = compactHistory;
+        this.clock = clock;
+        metricsService.registerGauge("ot.resident_notes", authority::residentNoteCount);
+        metricsService.registerGauge("ot.resident_bytes", authority::residentBytes);
+    }
+
+    /**
+     * Marks a note whose last subscriber has left. It is evicted after the
+     * grace period unless someone edits it again in the meantime.
+     */
+    public void noteReleased(String noteId) {
+        releasedAt.put(noteId, clock.getAsLong());
+    }
+
+    @Scheduled(fixedDelayString = "${app.ot.memory.sweep-ms:5000}")
+    public void sweep() {
+        long now = clock.getAsLong();
+        List<ResidentNote> resident = authority.residentNotes();
+        int evicted = 0;
+
+        for (ResidentNote note : resident) {
+            Long released = releasedAt.get(note.noteId());
+            boolean abandoned = released != null && now - released >= releaseGraceMs
+                    && note.lastAccessAt() <= released;
+            if ((abandoned || now - note.lastAccessAt() >= idleEvictMs) && evict(note.noteId())) {
+                evicted++;
+            }
+        }
+        for (Map.Entry<String, Long> entry : releasedAt.entrySet()) {
+            if (now - entry.getValue() >= releaseGraceMs) {
+                releasedAt.remove(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (authority.residentBytes() > maxBytes) {
+            List<ResidentNote> lru = authority.residentNotes().stream()
+                    .sorted(Comparator.comparingLong(ResidentNote::lastAccessAt))
+                    .toList();
+            for (ResidentNote note : lru) {
+                if (authority.residentBytes() <= maxBytes) {
+                    break;
+                }
+                if (evict(note.noteId())) {
+                    evicted++;
+                }
+            }
+        }
+
+        if (evicted > 0) {
+            logger.info("Evicted OT state for {} note(s); {} resident, ~{} bytes",
+                    evicted, authority.residentNoteCount(), authority.residentBytes());
+        }
+
+        if (!compactHistory) {
+            return;
+        }
+        int compacted = 0;
+        for (ResidentNote note : authority.residentNotes()) {
+            try {
+                compacted += authority.compactHistory(note.noteId());
+            } catch (RuntimeException e) {
+                logger.error("Failed to compact OT history for note {}", note.noteId(), e);
+            }
+        }
+        if (compacted > 0) {
+            logger.debug("Compacted {} OT history entr(ies)", compacted);
+        }
+    }
+
+    private boolean evict(String noteId) {
+        try {
+            if (authority.evict(noteId)) {
+                metricsService.incrementCounter("ot.evictions");
+                return true;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to evict OT state for note {}", noteId, e);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,225 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+
+/**
+ * Step journal backed by one capped Redis Stream per note
+ * ({@code ot:steps:<noteId>}).
+ *
+ * Entry ids are {@code <version>-1}, so a version maps straight to a stream
+ * entry and a catch-up read is a single {@code XRANGE <since> +}. Shared by
+ * every node: the sequencing node keeps its hot state in memory and appends
+ * here, and any other node answers resync requests from the stream instead of
+ * forwarding them. Streams are trimmed to roughly {@code retainSteps} entries
+ * and expire after {@code ttl} without writes.
+ *
+ * The newest checkpoint of a note is a hash next to its stream
+ * ({@code ot:checkpoint:<noteId>}, fields {@code v} and {@code h}) with the
+ * same expiry; truncating below it is an {@code XTRIM MINID}.
+ *
+ * While this node holds a note's OT lease, appends carry the lease epoch and
+ * are refused if {@code ot:epoch:<noteId>} has moved past it (see
+ * {@link OTLeaseFence}).
+ */
+public class RedisStreamStepJournal implements StepJournal {
+
+    static final String KEY_PREFIX = "ot:steps:";
+    static final String CHECKPOINT_KEY_PREFIX = "ot:checkpoint:";
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisStreamStepJournal.class);
+
+    /**
+     * Appends (version, clientId, step) triples. Re-appending a version the
+     * stream already holds fails XADD's monotonic id check and is skipped, the
+     * same way the JDBC journal ignores duplicate rows. Returns -1 without
+     * appending when ARGV[3] is a lease epoch older than the note's current one.
+     */
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>("""
+            local fence = tonumber(ARGV[3])
+            if fence > 0 and tonumber(redis.call('GET', KEYS[2]) or '0') > fence then
+              return -1
+            end
+            local added = 0
+            for i = 4, #ARGV, 3 do
+              local ok = pcall(redis.call, 'XADD', KEYS[1], 'MAXLEN', '~', ARGV[1],
+                ARGV[i] .. '-1', 'c', ARGV[i + 1], 's', ARGV[i + 2])
+              if ok then
+                added = added + 1
+              end
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return added
+            """, Long.class);
+
+    /** Returns the newest {@code limit} entries, newest first, flattened to (id, c, s) triples. */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAIL_SCRIPT = new DefaultRedisScript<>("""
+            local out = {}
+            for _, e in ipairs(redis.call('XREVRANGE', KEYS[1], '+', '-', 'COUNT', ARGV[1])) do
+              local f = {}
+              for j = 1, #e[2], 2 do f[e[2][j]] = e[2][j + 1] end
+              out[#out + 1] = e[1]; out[#out + 1] = f['c'] or ''; out[#out + 1] = f['s'] or 'null'
+            end
+            return out
+            """, List.class);
+
+    /**
+     * Returns the id of the newest entry ('' if none) followed by up to
+     * {@code limit} (id, c, s) triples starting at version {@code since}.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SINCE_SCRIPT = new DefaultRedisScript<>("""
+            local head = redis.call('XREVRANGE', KEYS[1], '+', '-', 'COUNT', 1)
+            local out = { head[1] and head[1][1] or '' }
+            for _, e in ipairs(redis.call('XRANGE', KEYS[1], ARGV[1], '+', 'COUNT', ARGV[2])) do
+              local f = {}
+              for j = 1, #e[2], 2 do f[e[2][j]] = e[2][j + 1] end
+              out[#out + 1] = e[1]; out[#out + 1] = f['c'] or ''; out[#out + 1] = f['s'] or 'null'
+            end
+            return out
+            """, List.class);
+
+    /** Stores (version, html) unless the stored checkpoint is at least as new. */
+    private static final RedisScript<Long> SAVE_CHECKPOINT_SCRIPT = new DefaultRedisScript<>("""
+            local current = tonumber(redis.call('HGET', KEYS[1], 'v') or '-1')
+            if current >= tonumber(ARGV[1]) then
+              return 0
+            end
+            redis.call('HSET', KEYS[1], 'v', ARGV[1], 'h', ARGV[2])
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    /** Returns (version, html), or nothing when there is no checkpoint. */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CHECKPOINT_SCRIPT = new DefaultRedisScript<>("""
+            local f = redis.call('HMGET', KEYS[1], 'v', 'h')
+            if not f[1] or not f[2] then
+              return {}
+            end
+            return f
+            """, List.class);
+
+    private static final RedisScript<Long> TRUNCATE_SCRIPT = new DefaultRedisScript<>(
+            "return redis.call('XTRIM', KEYS[1], 'MINID', ARGV[1])", Long.class);
+
+    private final StringRedisTemplate redis;
+    private final int retainSteps;
+    private final Duration ttl;
+    private final OTLeaseFence leaseFence;
+
+    public RedisStreamStepJournal(StringRedisTemplate redis, int retainSteps, Duration ttl,
+            OTLeaseFence leaseFence) {
+        this.redis = redis;
+        this.retainSteps = retainSteps;
+        this.ttl = ttl;
+        this.leaseFence = leaseFence;
+    }
+
+    @Override
+    public void append(String noteId, List<StepEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(3 + entries.size() * 3);
+        args.add(Integer.toString(retainSteps));
+        args.add(Long.toString(ttl.toMillis()));
+        args.add(Long.toString(leaseFence.epochOf(noteId)));
+        for (StepEntry entry : entries) {
+            args.add(Integer.toString(entry.stepVersion()));
+            args.add(entry.clientId() == null ? "" : entry.clientId());
+            args.add(entry.stepJson());
+        }
+        Long added = redis.execute(APPEND_SCRIPT,
+                List.of(KEY_PREFIX + noteId, OTLeaseFence.EPOCH_KEY_PREFIX + noteId), args.toArray());
+        if (added != null && added < 0) {
+            logger.warn("Refused OT journal append for note {}: its lease moved to another node", noteId);
+        }
+    }
+
+    @Override
+    public List<StepEntry> readTail(String noteId, int limit) {
+        List<?> raw = redis.execute(TAIL_SCRIPT, List.of(KEY_PREFIX + noteId), Integer.toString(limit));
+        List<StepEntry> entries = decode(raw, 0);
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    @Override
+    public Optional<List<StepEntry>> readSince(String noteId, int sinceVersion, int limit) {
+        List<?> raw = redis.execute(SINCE_SCRIPT, List.of(KEY_PREFIX + noteId),
+                Integer.toString(sinceVersion), Integer.toString(limit + 1));
+        if (raw == null || raw.isEmpty()) {
+            return Optional.empty();
+        }
+        String headId = String.valueOf(raw.get(0));
+        int next = headId.isEmpty() ? 0 : versionOf(headId) + 1;
+        List<StepEntry> entries = decode(raw, 1);
+        if (entries.size() > limit || entries.size() != next - sinceVersion
+                || (!entries.isEmpty() && entries.get(0).stepVersion() != sinceVersion)) {
+            return Optional.empty();
+        }
+        return Optional.of(entries);
+    }
+
+    @Override
+    public boolean storesCheckpoints() {
+        return true;
+    }
+
+    @Override
+    public void saveCheckpoint(String noteId, Checkpoint checkpoint) {
+        redis.execute(SAVE_CHECKPOINT_SCRIPT, List.of(CHECKPOINT_KEY_PREFIX + noteId),
+                Integer.toString(checkpoint.version()), checkpoint.html(), Long.toString(ttl.toMillis()));
+    }
+
+    @Override
+    public Optional<Checkpoint> latestCheckpoint(String noteId) {
+        List<?> raw = redis.execute(CHECKPOINT_SCRIPT, List.of(CHECKPOINT_KEY_PREFIX + noteId));
+        if (raw == null || raw.size() < 2) {
+            return Optional.empty();
+        }
+        return Optional.of(new Checkpoint(
+                Integer.parseInt(String.valueOf(raw.get(0))),
+                String.valueOf(raw.get(1))));
+    }
+
+    @Override
+    public void truncateBefore(String noteId, int version) {
+        if (version > 0) {
+            redis.execute(TRUNCATE_SCRIPT, List.of(KEY_PREFIX + noteId), version + "-0");
+        }
+    }
+
+    private List<StepEntry> decode(List<?> raw, int offset) {
+        if (raw == null) {
+            return new ArrayList<>();
+        }
+        List<StepEntry> entries = new ArrayList<>((raw.size() - offset) / 3);
+        for (int i = offset; i + 2 < raw.size(); i += 3) {
+            String clientId = String.valueOf(raw.get(i + 1));
+            entries.add(new StepEntry(
+                    versionOf(String.valueOf(raw.get(i))),
+                    String.valueOf(raw.get(i + 2)),
+                    clientId.isEmpty() ? null : clientId));
+        }
+        return entries;
+    }
+
+    private static int versionOf(String entryId) {
+        int dash = entryId.indexOf('-');
+        return Integer.parseInt(dash < 0 ? entryId : entryId.substring(0, dash));
+    }
+}
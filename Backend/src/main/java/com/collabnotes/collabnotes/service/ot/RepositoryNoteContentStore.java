@@ -0,0 +1,43 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.collabnotes.collabnotes.repository.NoteRepository;
+
+/**
+ * Reads and writes note content straight from the database, bypassing the
+ * access-checked {@code NoteService} path: callers have already authorised
+ * the user. Content writes carry this node's lease epoch from
+ * {@link OTLeaseFence}, so a superseded owner's write-behind is dropped.
+ */
+@Component
+public class RepositoryNoteContentStore implements NoteContentLoader, NoteContentWriter {
+
+    private final NoteRepository noteRepository;
+    private final OTLeaseFence leaseFence;
+
+    public RepositoryNoteContentStore(NoteRepository noteRepository, OTLeaseFence leaseFence) {
+        this.noteRepository = noteRepository;
+        this.leaseFence = leaseFence;
+    }
+
+    @Override
+    public Optional<String> loadContent(String noteId) {
+        // A null column is an empty note, which the editor shows as one empty paragraph.
+        return Optional.of(noteRepository.findContentById(noteId).orElse(""));
+    }
+
+    @Override
+    @Transactional
+    public boolean writeContent(String noteId, String content) {
+        long epoch = leaseFence.epochOf(noteId);
+        if (epoch == 0) {
+            return noteRepository.updateContent(noteId, content, LocalDateTime.now()) > 0;
+        }
+        return noteRepository.updateContentFenced(noteId, content, LocalDateTime.now(), epoch) > 0;
+    }
+}
@@ -0,0 +1,126 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Merges runs of typing in step history into single steps.
+ *
+ * A run is a sequence of {@code replace} steps from one client that each
+ * insert a single text node (same marks) at the position right after the
+ * previous insertion, with nothing deleted. The merged entry inserts the
+ * concatenated text and covers the versions of every step it replaced
+ * ({@link StepEntry#span}). Anything else is passed through unchanged.
+ */
+final class StepCompactor {
+
+    private final ObjectMapper objectMapper;
+
+    StepCompactor(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** Compacts contiguous entries, oldest first. */
+    List<StepEntry> compact(List<StepEntry> entries) {
+        List<StepEntry> out = new ArrayList<>(entries.size());
+        Run run = null;
+        for (StepEntry entry : entries) {
+            Insertion insertion = Insertion.parse(objectMapper, entry);
+            if (run != null && run.accepts(entry, insertion)) {
+                run.add(entry, insertion);
+                continue;
+            }
+            if (run != null) {
+                out.add(run.toEntry(objectMapper));
+                run = null;
+            }
+            if (insertion != null) {
+                run = new Run(entry, insertion);
+            } else {
+                out.add(entry);
+            }
+        }
+        if (run != null) {
+            out.add(run.toEntry(objectMapper));
+        }
+        return out;
+    }
+
+    /** A pure single-text-node insertion, as typed. */
+    private record Insertion(Map<String, Object> step, Map<String, Object> textNode, int pos, String text,
+            Object marks) {
+
+        @SuppressWarnings("unchecked")
+        static Insertion parse(ObjectMapper objectMapper, StepEntry entry) {
+            // Cheap pre-check before parsing: typing steps are small replace steps.
+            if (!entry.stepJson().contains("\"replace\"") || !entry.stepJson().contains("\"text\"")) {
+                return null;
+            }
+            Map<String, Object> step;
+            try {
+                step = objectMapper.readValue(entry.stepJson(), Map.class);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            if (!"replace".equals(step.get("stepType")) || Boolean.TRUE.equals(step.get("structure"))
+                    || !(step.get("from") instanceof Number from) || !(step.get("to") instanceof Number to)
+                    || from.intValue() != to.intValue()
+                    || !(step.get("slice") instanceof Map<?, ?> slice)
+                    || intOrZero(slice.get("openStart")) != 0 || intOrZero(slice.get("openEnd")) != 0
+                    || !(slice.get("content") instanceof List<?> content) || content.size() != 1
+                    || !(content.get(0) instanceof Map<?, ?> node)
+                    || !"text".equals(node.get("type")) || !(node.get("text") instanceof String text)) {
+                return null;
+            }
+            return new Insertion(step, (Map<String, Object>) node, from.intValue(), text, node.get("marks"));
+        }
+
+        private static int intOrZero(Object value) {
+            return value instanceof Number n ? n.intValue() : 0;
+        }
+    }
+
+    private static final class Run {
+        private final StepEntry first;
+        private final Insertion insertion;
+        private final StringBuilder text;
+        private int span;
+
+        Run(StepEntry first, Insertion insertion) {
+            this.first = first;
+            this.insertion = insertion;
+            this.text = new StringBuilder(insertion.text());
+            this.span = first.span();
+        }
+
+        boolean accepts(StepEntry entry, Insertion next) {
+            return next != null
+                    && Objects.equals(first.clientId(), entry.clientId())
+                    && next.pos() == insertion.pos() + text.length()
+                    && Objects.equals(insertion.marks(), next.marks());
+        }
+
+        void add(StepEntry entry, Insertion next) {
+            text.append(next.text());
+            span += entry.span();
+        }
+
+        StepEntry toEntry(ObjectMapper objectMapper) {
+            if (span == first.span()) {
+                return first;
+            }
+            Map<String, Object> node = new LinkedHashMap<>(insertion.textNode());
+            node.put("text", text.toString());
+            Map<String, Object> step = new LinkedHashMap<>(insertion.step());
+            step.put("slice", Map.of("content", List.of(node)));
+            return new StepEntry(first.stepVersion(), objectMapper.writeValueAsString(step), first.clientId(), span);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+
+/**
+ * Durable append-only log of accepted OT steps.
+ *
+ * {@link OTAuthorityService} appends every accepted batch and, the first time a
+ * note is touched after a restart, reloads the newest steps so version numbers
+ * and catch-up history survive deploys. Implementations are selected with
+ * {@code app.ot.journal.type}.
+ *
+ * Journals that {@link #storesCheckpoints() store checkpoints} also keep the
+ * newest document of each note together with its version, so a restore can
+ * start from that checkpoint and replay only the steps after it, and steps
+ * well below it can be truncated.
+ */
+public interface StepJournal {
+
+    /**
+     * Appends steps for a note. Entries are contiguous and in version order.
+     */
+    void append(String noteId, List<StepEntry> entries);
+
+    /**
+     * Returns up to {@code limit} of the newest journaled steps for a note,
+     * oldest first. An empty list means nothing was journaled.
+     */
+    List<StepEntry> readTail(String noteId, int limit);
+
+    /**
+     * Returns every journaled step from {@code sinceVersion} up to the newest
+     * one, oldest first, if the journal can prove the list is complete (the
+     * first step is {@code sinceVersion}, or there is nothing newer and the
+     * head is exactly {@code sinceVersion}), no longer than {@code limit}.
+     * Empty when the range was trimmed or this journal cannot serve ranges;
+     * shared journals use this to answer catch-up on any node.
+     */
+    default Optional<List<StepEntry>> readSince(String noteId, int sinceVersion, int limit) {
+        return Optional.empty();
+    }
+
+    /**
+     * Whether {@link #saveCheckpoint} keeps anything; the authority skips
+     * serializing documents for journals that do not.
+     */
+    default boolean storesCheckpoints() {
+        return false;
+    }
+
+    /**
+     * Stores a checkpoint for a note, replacing an older one. A checkpoint
+     * older than the stored one is ignored.
+     */
+    default void saveCheckpoint(String noteId, Checkpoint checkpoint) {
+    }
+
+    /**
+     * Returns the newest checkpoint stored for a note.
+     */
+    default Optional<Checkpoint> latestCheckpoint(String noteId) {
+        return Optional.empty();
+    }
+
+    /**
+     * Drops journaled steps below {@code version}, which a checkpoint now
+     * covers. Journals that cannot drop single notes' steps ignore this.
+     */
+    default void truncateBefore(String noteId, int version) {
+    }
+
+    /**
+     * A note's document at a known OT version.
+     *
+     * @param version the OT version the content corresponds to
+     * @param html    the document serialised as HTML
+     */
+    record Checkpoint(int version, String html) {
+    }
+
+    /**
+     * Journal that keeps nothing, restoring the old session-scoped behaviour.
+     */
+    static StepJournal none() {
+        return NoOpStepJournal.INSTANCE;
+    }
+
+    final class NoOpStepJournal implements StepJournal {
+        private static final NoOpStepJournal INSTANCE = new NoOpStepJournal();
+
+        private NoOpStepJournal() {
+        }
+
+        @Override
+        public void append(String noteId, List<StepEntry> entries) {
+        }
+
+        @Override
+        public List<StepEntry> readTail(String noteId, int limit) {
+            return Collections.emptyList();
+        }
+    }
+}
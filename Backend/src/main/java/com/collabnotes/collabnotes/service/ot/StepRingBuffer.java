@@ -0,0 +1,149 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+
+/**
+ * Fixed-capacity circular log of accepted steps for a single note.
+ *
+ * Steps are stored contiguously by version, so the slot holding a given
+ * version is found by arithmetic instead of a scan: appending is O(1) and a
+ * catch-up slice of {@code k} steps is copied out in O(k). Once the buffer is
+ * full the oldest step is overwritten.
+ *
+ * The backing array starts small and doubles up to {@code capacity}, so quiet
+ * notes do not pay for a full-size history. Steps no client needs any more
+ * can be dropped from the front with {@link #trimBefore}, which also shrinks
+ * the array again once it is mostly empty.
+ *
+ * Not thread-safe — callers hold the owning note's lock.
+ */
+final class StepRingBuffer {
+
+    private static final int INITIAL_SLOTS = 16;
+
+    private final int capacity;
+    private StepEntry[] slots;
+    /** Physical index of the oldest retained step. */
+    private int head;
+    private int size;
+    /** Version of the oldest retained step (meaningful only when size > 0). */
+    private int firstVersion;
+
+    StepRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new StepEntry[Math.min(INITIAL_SLOTS, capacity)];
+    }
+
+    /**
+     * Appends a step. Its {@code stepVersion} must directly follow the newest
+     * retained step; on an empty buffer any version is accepted as the start.
+     *
+     * @return the oldest step if it was overwritten to make room, else null
+     */
+    StepEntry append(StepEntry entry) {
+        if (size > 0 && entry.stepVersion() != endVersion()) {
+            throw new IllegalStateException("non-contiguous step version " + entry.stepVersion()
+                    + ", expected " + endVersion());
+        }
+        if (size == 0) {
+            head = 0;
+            firstVersion = entry.stepVersion();
+        }
+        if (size == slots.length && slots.length < capacity) {
+            grow();
+        }
+        if (size == slots.length) {
+            // Full at capacity: overwrite the oldest slot.
+            StepEntry overwritten = slots[head];
+            slots[head] = entry;
+            head = (head + 1) % slots.length;
+            firstVersion++;
+            return overwritten;
+        }
+        slots[(head + size) % slots.length] = entry;
+        size++;
+        return null;
+    }
+
+    /**
+     * Returns the retained steps with {@code stepVersion >= sinceVersion}.
+     *
+     * If {@code sinceVersion} precedes the oldest retained step the gap cannot
+     * be filled, so an empty list is returned and the caller should fall back
+     * to a snapshot. The same applies when {@code sinceVersion} is at or past
+     * the newest step.
+     */
+    List<StepEntry> since(int sinceVersion) {
+        if (size == 0 || sinceVersion < firstVersion || sinceVersion >= endVersion()) {
+            return Collections.emptyList();
+        }
+        int offset = sinceVersion - firstVersion;
+        int count = size - offset;
+        StepEntry[] out = new StepEntry[count];
+        int start = (head + offset) % slots.length;
+        int firstChunk = Math.min(count, slots.length - start);
+        System.arraycopy(slots, start, out, 0, firstChunk);
+        if (firstChunk < count) {
+            System.arraycopy(slots, 0, out, firstChunk, count - firstChunk);
+        }
+        return Collections.unmodifiableList(Arrays.asList(out));
+    }
+
+    /**
+     * Drops the retained steps with {@code stepVersion < version}.
+     *
+     * @return the dropped steps, oldest first
+     */
+    List<StepEntry> trimBefore(int version) {
+        int count = Math.min(size, version - firstVersion);
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        List<StepEntry> dropped = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            dropped.add(slots[head]);
+            slots[head] = null;
+            head = (head + 1) % slots.length;
+        }
+        size -= count;
+        firstVersion += count;
+        if (slots.length > INITIAL_SLOTS && size <= slots.length / 4) {
+            resize(Math.max(INITIAL_SLOTS, slots.length / 2));
+        }
+        return dropped;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int firstVersion() {
+        return firstVersion;
+    }
+
+    /** Version one past the newest retained step. */
+    int endVersion() {
+        return firstVersion + size;
+    }
+
+    private void grow() {
+        resize(Math.min(slots.length * 2, capacity));
+    }
+
+    private void resize(int length) {
+        StepEntry[] resized = new StepEntry[length];
+        int firstChunk = Math.min(size, slots.length - head);
+        System.arraycopy(slots, head, resized, 0, firstChunk);
+        System.arraycopy(slots, 0, resized, firstChunk, size - firstChunk);
+        slots = resized;
+        head = 0;
+    }
+}
@@ -0,0 +1,181 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.DocumentSnapshot;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind persistence of the OT-authoritative document.
+ *
+ * Accepted batches only replace the pending snapshot for a note; a scheduled
+ * tick writes the latest content once the note has been dirty for
+ * {@code interval-ms}, has gathered {@code max-steps} steps, or has been idle
+ * for {@code idle-ms}. Whatever is still pending is written on shutdown. With
+ * N editors this turns N debounced full-content REST saves into one write per
+ * interval.
+ */
+@Component
+public class WriteBehindFlusher implements DocumentChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindFlusher.class);
+
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+    private final NoteContentWriter writer;
+    private final boolean enabled;
+    private final long intervalMs;
+    private final int maxSteps;
+    private final long idleMs;
+    private final LongSupplier clock;
+    /**
+     * Per-note locks serialising a note's writes, so an older snapshot can
+     * never land after a newer one; other notes flush concurrently.
+     */
+    private final ConcurrentHashMap<String, FlushLock> flushLocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WriteBehindFlusher(NoteContentWriter writer,
+            @Value("${app.ot.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.ot.write-behind.interval-ms:5000}") long intervalMs,
+            @Value("${app.ot.write-behind.max-steps:200}") int maxSteps,
+            @Value("${app.ot.write-behind.idle-ms:1000}") long idleMs) {
+        this(writer, enabled, intervalMs, maxSteps, idleMs, System::currentTimeMillis);
+    }
+
+    WriteBehindFlusher(NoteContentWriter writer, boolean enabled, long intervalMs, int maxSteps, long idleMs,
+            LongSupplier clock) {
+        this.writer = writer;
+        this.enabled = enabled;
+        this.intervalMs = intervalMs;
+        this.maxSteps = maxSteps;
+        this.idleMs = idleMs;
+        this.clock = clock;
+    }
+
+    /** True when the server, not the editors, is responsible for saving content. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void documentChanged(String noteId, DocumentSnapshot snapshot, int stepCount) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.getAsLong();
+        pending.compute(noteId, (id, current) -> {
+            if (current == null) {
+                return new Pending(snapshot, stepCount, now, now);
+            }
+            if (snapshot.version() > current.snapshot.version()) {
+                current.snapshot = snapshot;
+            }
+            current.steps += stepCount;
+            current.lastChangeAt = now;
+            return current;
+        });
+    }
+
+    @Override
+    public boolean noteEvicted(String noteId) {
+        if (!enabled) {
+            return false;
+        }
+        flush(noteId);
+        return !pending.containsKey(noteId);
+    }
+
+    /**
+     * Writes every note whose interval, step or idle threshold has been reached.
+     */
+    @Scheduled(fixedDelayString = "${app.ot.write-behind.tick-ms:250}")
+    public void flushDue() {
+        long now = clock.getAsLong();
+        for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+            Pending p = entry.getValue();
+            if (p.steps >= maxSteps || now - p.firstDirtyAt >= intervalMs || now - p.lastChangeAt >= idleMs) {
+                flush(entry.getKey());
+            }
+        }
+    }
+
+    /** Writes the pending content of one note, if any. */
+    public void flush(String noteId) {
+        FlushLock flushLock = flushLocks.compute(noteId, (id, current) -> {
+            FlushLock held = current != null ? current : new FlushLock();
+            held.holders++;
+            return held;
+        });
+        flushLock.lock.lock();
+        try {
+            write(noteId);
+        } finally {
+            flushLock.lock.unlock();
+            flushLocks.computeIfPresent(noteId, (id, current) -> --current.holders == 0 ? null : current);
+        }
+    }
+
+    private void write(String noteId) {
+        Pending p = pending.remove(noteId);
+        if (p == null) {
+            return;
+        }
+        try {
+            if (!writer.writeContent(noteId, p.snapshot.html())) {
+                logger.debug("Skipped write-behind for note {}: deleted, or its OT lease moved to another node", noteId);
+                return;
+            }
+            logger.debug("Persisted note {} at OT version {} ({} step(s) coalesced)",
+                    noteId, p.snapshot.version(), p.steps);
+        } catch (RuntimeException e) {
+            logger.error("Write-behind failed for note {}; will retry", noteId, e);
+            // Put the batch back as freshly idle, so the retry waits idle-ms
+            // instead of hammering the database, unless a newer snapshot
+            // arrived meanwhile.
+            long now = clock.getAsLong();
+            pending.putIfAbsent(noteId, new Pending(p.snapshot, 0, now, now));
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        for (String noteId : pending.keySet()) {
+            flush(noteId);
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    /** A note's flush lock and how many flushes hold or wait on it; changed only in map compute calls. */
+    private static final class FlushLock {
+        final ReentrantLock lock = new ReentrantLock();
+        int holders;
+    }
+
+    private static final class Pending {
+        volatile DocumentSnapshot snapshot;
+        volatile int steps;
+        final long firstDirtyAt;
+        volatile long lastChangeAt;
+
+        Pending(DocumentSnapshot snapshot, int steps, long firstDirtyAt, long lastChangeAt) {
+            this.snapshot = snapshot;
+            this.steps = steps;
+            this.firstDirtyAt = firstDirtyAt;
+            this.lastChangeAt = lastChangeAt;
+        }
+    }
+}
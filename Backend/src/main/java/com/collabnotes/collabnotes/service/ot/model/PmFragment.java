@@ -0,0 +1,171 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable sequence of child nodes, mirroring prosemirror-model's Fragment.
+ */
+public final class PmFragment {
+
+    public static final PmFragment EMPTY = new PmFragment(List.of(), 0);
+
+    private final List<PmNode> content;
+    private final int size;
+
+    private PmFragment(List<PmNode> content, int size) {
+        this.content = content;
+        this.size = size;
+    }
+
+    /** Builds a fragment, joining adjacent text nodes that share marks. */
+    public static PmFragment fromList(List<PmNode> nodes) {
+        if (nodes.isEmpty()) {
+            return EMPTY;
+        }
+        List<PmNode> joined = new ArrayList<>(nodes.size());
+        int size = 0;
+        for (PmNode node : nodes) {
+            size += node.nodeSize();
+            int last = joined.size() - 1;
+            if (last >= 0 && node.isText() && joined.get(last).isText()
+                    && joined.get(last).sameMarkup(node)) {
+                joined.set(last, node.withText(joined.get(last).text() + node.text()));
+            } else {
+                joined.add(node);
+            }
+        }
+        return new PmFragment(Collections.unmodifiableList(joined), size);
+    }
+
+    public static PmFragment of(PmNode node) {
+        return new PmFragment(List.of(node), node.nodeSize());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int childCount() {
+        return content.size();
+    }
+
+    public PmNode child(int index) {
+        return content.get(index);
+    }
+
+    public PmNode maybeChild(int index) {
+        return index >= 0 && index < content.size() ? content.get(index) : null;
+    }
+
+    public PmNode firstChild() {
+        return content.isEmpty() ? null : content.get(0);
+    }
+
+    public PmNode lastChild() {
+        return content.isEmpty() ? null : content.get(content.size() - 1);
+    }
+
+    public List<PmNode> children() {
+        return content;
+    }
+
+    /**
+     * Finds the child containing {@code pos}. Returns {@code [index, offset]}
+     * where offset is the start position of that child.
+     */
+    int[] findIndex(int pos) {
+        if (pos == 0) {
+            return new int[] { 0, 0 };
+        }
+        if (pos == size) {
+            return new int[] { content.size(), pos };
+        }
+        if (pos > size || pos < 0) {
+            throw new StepApplyException("position " + pos + " outside of fragment of size " + size);
+        }
+        for (int i = 0, curPos = 0;; i++) {
+            int end = curPos + content.get(i).nodeSize();
+            if (end >= pos) {
+                return end == pos ? new int[] { i + 1, end } : new int[] { i, curPos };
+            }
+            curPos = end;
+        }
+    }
+
+    public PmFragment cut(int from) {
+        return cut(from, size);
+    }
+
+    public PmFragment cut(int from, int to) {
+        if (from == 0 && to == size) {
+            return this;
+        }
+        List<PmNode> result = new ArrayList<>();
+        int resultSize = 0;
+        if (to > from) {
+            for (int i = 0, pos = 0; pos < to; i++) {
+                PmNode child = content.get(i);
+                int end = pos + child.nodeSize();
+                if (end > from) {
+                    if (pos < from || end > to) {
+                        if (child.isText()) {
+                            child = child.cut(Math.max(0, from - pos), Math.min(child.text().length(), to - pos));
+                        } else {
+                            child = child.cut(Math.max(0, from - pos - 1),
+                                    Math.min(child.content().size(), to - pos - 1));
+                        }
+                    }
+                    result.add(child);
+                    resultSize += child.nodeSize();
+                }
+                pos = end;
+            }
+        }
+        return new PmFragment(Collections.unmodifiableList(result), resultSize);
+    }
+
+    /** Concatenates two fragments, joining text at the seam when marks match. */
+    public PmFragment append(PmFragment other) {
+        if (other.size == 0) {
+            return this;
+        }
+        if (size == 0) {
+            return other;
+        }
+        PmNode last = lastChild();
+        PmNode first = other.firstChild();
+        List<PmNode> joined = new ArrayList<>(content);
+        int i = 0;
+        if (last.isText() && first.isText() && last.sameMarkup(first)) {
+            joined.set(joined.size() - 1, last.withText(last.text() + first.text()));
+            i = 1;
+        }
+        for (; i < other.content.size(); i++) {
+            joined.add(other.content.get(i));
+        }
+        return new PmFragment(Collections.unmodifiableList(joined), size + other.size);
+    }
+
+    public PmFragment replaceChild(int index, PmNode node) {
+        PmNode current = content.get(index);
+        if (current == node) {
+            return this;
+        }
+        List<PmNode> copy = new ArrayList<>(content);
+        copy.set(index, node);
+        return new PmFragment(Collections.unmodifiableList(copy),
+                size + node.nodeSize() - current.nodeSize());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PmFragment other && size == other.size && content.equals(other.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return content.hashCode();
+    }
+}
@@ -0,0 +1,439 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts between note HTML (as produced by TipTap's {@code getHTML()}) and
+ * {@link PmNode} documents for the StarterKit schema.
+ *
+ * Parsing follows prosemirror-model's DOMParser closely enough that the
+ * resulting document has the same positions as the one the editor builds
+ * from the same HTML: whitespace is collapsed the same way, stray inline
+ * content is wrapped in paragraphs and unknown tags are treated as
+ * transparent wrappers.
+ */
+public final class PmHtml {
+
+    private static final Set<String> VOID_TAGS = Set.of("br", "hr", "img", "input", "meta", "link", "wbr");
+    private static final Set<String> BLOCK_CONTAINERS = Set.of("doc", "blockquote", "listItem");
+    private static final Map<String, String> MARK_TAGS = Map.of(
+            "strong", "bold", "b", "bold",
+            "em", "italic", "i", "italic",
+            "s", "strike", "strike", "strike", "del", "strike",
+            "code", "code");
+    private static final Map<String, String> MARK_OPEN = Map.of(
+            "bold", "<strong>", "italic", "<em>", "strike", "<s>", "code", "<code>");
+    private static final Map<String, String> MARK_CLOSE = Map.of(
+            "bold", "</strong>", "italic", "</em>", "strike", "</s>", "code", "</code>");
+
+    private static final Pattern TAG = Pattern.compile(
+            "<(/?)([a-zA-Z][a-zA-Z0-9]*)((?:\\s+[^\\s/>=]+(?:\\s*=\\s*(?:\"[^\"]*\"|'[^']*'|[^\\s>]+))?)*)\\s*(/?)>"
+                    + "|<!--.*?-->|<![^>]*>",
+            Pattern.DOTALL);
+    private static final Pattern ATTR = Pattern.compile(
+            "([^\\s/>=]+)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]+)))?");
+    private static final Pattern WS = Pattern.compile("[ \\t\\r\\n\\f]+");
+
+    private PmHtml() {
+    }
+
+    // ── Parsing ─────────────────────────────────────────────────────────────
+
+    /** Parses note HTML into a document; blank input yields an empty paragraph. */
+    public static PmNode parse(String html) {
+        Element root = parseDom(html == null ? "" : html);
+        Builder doc = new Builder("doc", Map.of(), false);
+        addChildren(root, doc, List.of());
+        return doc.finish();
+    }
+
+    /** Minimal DOM: element name, attributes and children (Element or String). */
+    private record Element(String name, Map<String, String> attrs, List<Object> children) {
+    }
+
+    private static Element parseDom(String html) {
+        Element root = new Element("#root", Map.of(), new ArrayList<>());
+        Deque<Element> stack = new ArrayDeque<>();
+        stack.push(root);
+        Matcher m = TAG.matcher(html);
+        int last = 0;
+        while (m.find()) {
+            if (m.start() > last) {
+                stack.peek().children().add(decode(html.substring(last, m.start())));
+            }
+            last = m.end();
+            if (m.group(2) == null) {
+                continue; // comment or doctype
+            }
+            String name = m.group(2).toLowerCase();
+            if (m.group(1).isEmpty()) {
+                Element el = new Element(name, parseAttrs(m.group(3)), new ArrayList<>());
+                stack.peek().children().add(el);
+                if (!VOID_TAGS.contains(name) && m.group(4).isEmpty()) {
+                    stack.push(el);
+                }
+            } else if (stack.stream().anyMatch(e -> e.name().equals(name))) {
+                while (!stack.pop().name().equals(name)) {
+                    // close unterminated children
+                }
+            }
+        }
+        if (last < html.length()) {
+            stack.peek().children().add(decode(html.substring(last)));
+        }
+        return root;
+    }
+
+    private static Map<String, String> parseAttrs(String source) {
+        Map<String, String> attrs = new LinkedHashMap<>();
+        Matcher m = ATTR.matcher(source);
+        while (m.find()) {
+            String value = m.group(2) != null ? m.group(2) : m.group(3) != null ? m.group(3) : m.group(4);
+            attrs.put(m.group(1).toLowerCase(), value == null ? "" : decode(value));
+        }
+        return attrs;
+    }
+
+    private static void addChildren(Element el, Builder target, List<PmMark> marks) {
+        for (int i = 0; i < el.children().size(); i++) {
+            Object child = el.children().get(i);
+            if (child instanceof String text) {
+                boolean afterBreak = i > 0 && el.children().get(i - 1) instanceof Element prev
+                        && prev.name().equals("br");
+                target.addText(text, marks, afterBreak);
+            } else {
+                addElement((Element) child, target, marks);
+            }
+        }
+    }
+
+    private static void addElement(Element el, Builder target, List<PmMark> marks) {
+        String markType = MARK_TAGS.get(el.name());
+        if (markType != null && !target.code) {
+            addChildren(el, target, PmMark.of(markType).addToSet(marks));
+            return;
+        }
+        switch (el.name()) {
+            case "br" -> {
+                if (target.code) {
+                    target.addText("\n", List.of(), false);
+                } else {
+                    target.addInline(PmNode.node("hardBreak", Map.of(), PmFragment.EMPTY).mark(marks));
+                }
+            }
+            case "hr" -> target.addBlock(PmNode.node("horizontalRule", Map.of(), PmFragment.EMPTY));
+            case "p" -> addBlock(el, target, "paragraph", Map.of(), marks);
+            case "h1", "h2", "h3", "h4", "h5", "h6" ->
+                    addBlock(el, target, "heading", Map.of("level", el.name().charAt(1) - '0'), marks);
+            case "blockquote" -> addBlock(el, target, "blockquote", Map.of(), marks);
+            case "ul" -> addBlock(el, target, "bulletList", Map.of(), marks);
+            case "ol" -> addBlock(el, target, "orderedList", Map.of("start", parseStart(el)), marks);
+            case "li" -> addBlock(el, target, "listItem", Map.of(), marks);
+            case "pre" -> {
+                Map<String, Object> attrs = new LinkedHashMap<>();
+                attrs.put("language", codeLanguage(el));
+                addBlock(el, target, "codeBlock", attrs, List.of());
+            }
+            default -> addChildren(el, target, marks);
+        }
+    }
+
+    private static void addBlock(Element el, Builder target, String type, Map<String, Object> attrs,
+            List<PmMark> marks) {
+        if (!target.acceptsBlocks()) {
+            // Block markup inside inline content: keep its text, drop the wrapper.
+            addChildren(el, target, marks);
+            return;
+        }
+        Builder inner = new Builder(type, attrs, "codeBlock".equals(type));
+        addChildren(el, inner, "codeBlock".equals(type) ? List.of() : marks);
+        target.addBlock(inner.finish());
+    }
+
+    private static int parseStart(Element el) {
+        String start = el.attrs().get("start");
+        try {
+            return start == null ? 1 : Integer.parseInt(start.trim());
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private static String codeLanguage(Element pre) {
+        for (Object child : pre.children()) {
+            if (child instanceof Element el) {
+                String cls = el.attrs().get("class");
+                if (cls != null) {
+                    for (String c : cls.split("\\s+")) {
+                        if (c.startsWith("language-")) {
+                            return c.substring("language-".length());
+                        }
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /** Accumulates the children of one node while parsing. */
+    private static final class Builder {
+        final String type;
+        final Map<String, Object> attrs;
+        final boolean code;
+        final List<PmNode> content = new ArrayList<>();
+        /** Open paragraph collecting stray inline content in a block container. */
+        Builder wrapper;
+
+        Builder(String type, Map<String, Object> attrs, boolean code) {
+            this.type = type;
+            this.attrs = attrs;
+            this.code = code;
+        }
+
+        boolean acceptsBlocks() {
+            return BLOCK_CONTAINERS.contains(type) || type.endsWith("List");
+        }
+
+        void addText(String text, List<PmMark> marks, boolean afterBreak) {
+            if (acceptsBlocks()) {
+                if (wrapper == null) {
+                    if (WS.matcher(text).matches() || text.isEmpty()) {
+                        return; // formatting whitespace between blocks
+                    }
+                    wrapper = new Builder("paragraph", Map.of(), false);
+                }
+                wrapper.addText(text, marks, afterBreak);
+                return;
+            }
+            if (!code) {
+                text = WS.matcher(text).replaceAll(" ");
+                if (text.startsWith(" ")) {
+                    PmNode before = content.isEmpty() ? null : content.get(content.size() - 1);
+                    if (before == null || afterBreak || (before.isText() && before.text().endsWith(" "))) {
+                        text = text.substring(1);
+                    }
+                }
+            }
+            if (!text.isEmpty()) {
+                addInline(PmNode.text(text, code ? List.of() : marks));
+            }
+        }
+
+        void addInline(PmNode node) {
+            if (acceptsBlocks()) {
+                if (wrapper == null) {
+                    wrapper = new Builder("paragraph", Map.of(), false);
+                }
+                wrapper.addInline(node);
+                return;
+            }
+            content.add(node);
+        }
+
+        void addBlock(PmNode node) {
+            closeWrapper();
+            content.add(node);
+        }
+
+        private void closeWrapper() {
+            if (wrapper != null) {
+                content.add(wrapper.finish());
+                wrapper = null;
+            }
+        }
+
+        PmNode finish() {
+            closeWrapper();
+            if (!code && !content.isEmpty()) {
+                PmNode last = content.get(content.size() - 1);
+                if (last.isText()) {
+                    String trimmed = last.text().replaceAll("[ \\t\\r\\n\\f]+$", "");
+                    if (trimmed.isEmpty()) {
+                        content.remove(content.size() - 1);
+                    } else {
+                        content.set(content.size() - 1, last.withText(trimmed));
+                    }
+                }
+            }
+            List<PmNode> children = new ArrayList<>(content);
+            PmNode emptyParagraph = PmNode.node("paragraph", Map.of(), PmFragment.EMPTY);
+            switch (type) {
+                case "doc", "blockquote" -> {
+                    if (children.isEmpty()) {
+                        children.add(emptyParagraph);
+                    }
+                }
+                case "listItem" -> {
+                    if (children.isEmpty() || !"paragraph".equals(children.get(0).type())) {
+                        children.add(0, emptyParagraph);
+                    }
+                }
+                case "bulletList", "orderedList" -> {
+                    for (int i = 0; i < children.size(); i++) {
+                        PmNode child = children.get(i);
+                        if (!"listItem".equals(child.type())) {
+                            List<PmNode> itemContent = "paragraph".equals(child.type())
+                                    ? List.of(child) : List.of(emptyParagraph, child);
+                            children.set(i, PmNode.node("listItem", Map.of(), itemContent));
+                        }
+                    }
+                    if (children.isEmpty()) {
+                        children.add(PmNode.node("listItem", Map.of(), List.of(emptyParagraph)));
+                    }
+                }
+                default -> {
+                }
+            }
+            return PmNode.node(type, attrs, children);
+        }
+    }
+
+    private static String decode(String s) {
+        if (s.indexOf('&') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            int semi = c == '&' ? s.indexOf(';', i) : -1;
+            if (semi > i && semi - i <= 10) {
+                String entity = s.substring(i + 1, semi);
+                String decoded = switch (entity) {
+                    case "amp" -> "&";
+                    case "lt" -> "<";
+                    case "gt" -> ">";
+                    case "quot" -> "\"";
+                    case "apos" -> "'";
+                    case "nbsp" -> "\u00a0";
+                    default -> decodeNumeric(entity);
+                };
+                if (decoded != null) {
+                    sb.append(decoded);
+                    i = semi + 1;
+                    continue;
+                }
+            }
+            sb.append(c);
+            i++;
+        }
+        return sb.toString();
+    }
+
+    private static String decodeNumeric(String entity) {
+        try {
+            if (entity.startsWith("#x") || entity.startsWith("#X")) {
+                return Character.toString(Integer.parseInt(entity.substring(2), 16));
+            }
+            if (entity.startsWith("#")) {
+                return Character.toString(Integer.parseInt(entity.substring(1)));
+            }
+        } catch (IllegalArgumentException e) {
+            // not a valid code point; keep the literal text
+        }
+        return null;
+    }
+
+    // ── Serialisation ───────────────────────────────────────────────────────
+
+    /** Serialises a document the way TipTap's {@code getHTML()} does. */
+    public static String serialize(PmNode doc) {
+        StringBuilder sb = new StringBuilder();
+        writeFragment(doc.content(), sb);
+        return sb.toString();
+    }
+
+    private static void writeFragment(PmFragment fragment, StringBuilder sb) {
+        List<PmMark> active = new ArrayList<>();
+        for (PmNode node : fragment.children()) {
+            if (node.isInline()) {
+                int keep = 0;
+                while (keep < active.size() && keep < node.marks().size()
+                        && active.get(keep).equals(node.marks().get(keep))) {
+                    keep++;
+                }
+                while (active.size() > keep) {
+                    sb.append(MARK_CLOSE.getOrDefault(active.remove(active.size() - 1).type(), "</span>"));
+                }
+                for (int i = keep; i < node.marks().size(); i++) {
+                    PmMark mark = node.marks().get(i);
+                    sb.append(MARK_OPEN.getOrDefault(mark.type(), "<span>"));
+                    active.add(mark);
+                }
+            } else {
+                closeMarks(active, sb);
+            }
+            writeNode(node, sb);
+        }
+        closeMarks(active, sb);
+    }
+
+    private static void closeMarks(List<PmMark> active, StringBuilder sb) {
+        while (!active.isEmpty()) {
+            sb.append(MARK_CLOSE.getOrDefault(active.remove(active.size() - 1).type(), "</span>"));
+        }
+    }
+
+    private static void writeNode(PmNode node, StringBuilder sb) {
+        switch (node.type()) {
+            case "text" -> escape(node.text(), false, sb);
+            case "hardBreak" -> sb.append("<br>");
+            case "horizontalRule" -> sb.append("<hr>");
+            case "paragraph" -> wrap("p", "", node, sb);
+            case "heading" -> {
+                Object level = node.attrs().get("level");
+                wrap("h" + (level instanceof Number n ? n.intValue() : 1), "", node, sb);
+            }
+            case "blockquote" -> wrap("blockquote", "", node, sb);
+            case "bulletList" -> wrap("ul", "", node, sb);
+            case "orderedList" -> {
+                Object start = node.attrs().get("start");
+                int n = start instanceof Number num ? num.intValue() : 1;
+                wrap("ol", n == 1 ? "" : " start=\"" + n + "\"", node, sb);
+            }
+            case "listItem" -> wrap("li", "", node, sb);
+            case "codeBlock" -> {
+                Object language = node.attrs().get("language");
+                sb.append("<pre><code");
+                if (language instanceof String lang && !lang.isEmpty()) {
+                    sb.append(" class=\"");
+                    escape("language-" + lang, true, sb);
+                    sb.append('"');
+                }
+                sb.append('>');
+                writeFragment(node.content(), sb);
+                sb.append("</code></pre>");
+            }
+            default -> writeFragment(node.content(), sb);
+        }
+    }
+
+    private static void wrap(String tag, String attrs, PmNode node, StringBuilder sb) {
+        sb.append('<').append(tag).append(attrs).append('>');
+        writeFragment(node.content(), sb);
+        sb.append("</").append(tag).append('>');
+    }
+
+    private static void escape(String text, boolean attribute, StringBuilder sb) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> sb.append("&amp;");
+                case '\u00a0' -> sb.append("&nbsp;");
+                case '<' -> sb.append(attribute ? "<" : "&lt;");
+                case '>' -> sb.append(attribute ? ">" : "&gt;");
+                case '"' -> sb.append(attribute ? "&quot;" : "\"");
+                default -> sb.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pipeline of step maps, mirroring prosemirror-transform's Mapping.
+ *
+ * Maps can be marked as mirrors of each other (a step's inverse and the same
+ * step re-applied after rebasing), which lets positions inside content one
+ * of them deleted be recovered by the other instead of collapsing.
+ */
+public final class PmMapping {
+
+    private final List<PmStepMap> maps;
+    private final List<int[]> mirrors;
+    private final int from;
+    private final int to;
+
+    public PmMapping() {
+        this(new ArrayList<>(), new ArrayList<>(), 0, -1);
+    }
+
+    private PmMapping(List<PmStepMap> maps, List<int[]> mirrors, int from, int to) {
+        this.maps = maps;
+        this.mirrors = mirrors;
+        this.from = from;
+        this.to = to;
+    }
+
+    public int size() {
+        return maps.size();
+    }
+
+    /** Appends a map; {@code mirror} is the index of its mirror, or -1. */
+    public void appendMap(PmStepMap map, int mirror) {
+        maps.add(map);
+        if (mirror >= 0) {
+            setMirror(maps.size() - 1, mirror);
+        }
+    }
+
+    public void setMirror(int n, int m) {
+        mirrors.add(new int[] { n, m });
+    }
+
+    /** A view of the maps from {@code start} to the current end, sharing mirror information. */
+    public PmMapping slice(int start) {
+        return new PmMapping(maps, mirrors, start, maps.size());
+    }
+
+    public PmStepMap.Result mapResult(int pos, int assoc) {
+        int delInfo = 0;
+        int end = to < 0 ? maps.size() : to;
+        for (int i = from; i < end; i++) {
+            PmStepMap.Result result = maps.get(i).mapResult(pos, assoc);
+            if (result.recover() >= 0) {
+                int corr = mirrorOf(i);
+                if (corr > i && corr < end) {
+                    i = corr;
+                    pos = maps.get(corr).recover(result.recover());
+                    continue;
+                }
+            }
+            delInfo |= result.delInfo();
+            pos = result.pos();
+        }
+        return new PmStepMap.Result(pos, delInfo, -1);
+    }
+
+    public int map(int pos, int assoc) {
+        return mapResult(pos, assoc).pos();
+    }
+
+    private int mirrorOf(int n) {
+        for (int[] pair : mirrors) {
+            if (pair[0] == n) {
+                return pair[1];
+            }
+            if (pair[1] == n) {
+                return pair[0];
+            }
+        }
+        return -1;
+    }
+}
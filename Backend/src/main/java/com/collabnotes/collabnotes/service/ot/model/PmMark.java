@@ -0,0 +1,117 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An inline mark (bold, italic, …) as serialised by prosemirror-model.
+ *
+ * Mark sets are kept in the same order the client schema uses (its mark
+ * rank), so two text nodes with equal marks compare equal and adjacent text
+ * is joined exactly as ProseMirror would.
+ */
+public record PmMark(String type, Map<String, Object> attrs) {
+
+    /** Mark order of the TipTap StarterKit schema; unknown marks sort after. */
+    private static final List<String> RANK = List.of("bold", "code", "italic", "strike");
+
+    public PmMark {
+        attrs = attrs == null ? Map.of() : attrs;
+    }
+
+    public static PmMark of(String type) {
+        return new PmMark(type, Map.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static PmMark fromJson(Map<String, Object> json) {
+        Object type = json.get("type");
+        if (!(type instanceof String typeName)) {
+            throw new StepApplyException("mark without type");
+        }
+        Object attrs = json.get("attrs");
+        return new PmMark(typeName, attrs instanceof Map<?, ?> m ? (Map<String, Object>) m : Map.of());
+    }
+
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("type", type);
+        if (!attrs.isEmpty()) {
+            json.put("attrs", attrs);
+        }
+        return json;
+    }
+
+    /** Adds this mark to a set, honouring rank order and exclusion. */
+    public List<PmMark> addToSet(List<PmMark> set) {
+        List<PmMark> copy = null;
+        boolean placed = false;
+        for (int i = 0; i < set.size(); i++) {
+            PmMark other = set.get(i);
+            if (equals(other)) {
+                return set;
+            }
+            if (excludes(this, other)) {
+                if (copy == null) {
+                    copy = new ArrayList<>(set.subList(0, i));
+                }
+            } else if (excludes(other, this)) {
+                return set;
+            } else {
+                if (!placed && rank(other.type) > rank(type)) {
+                    if (copy == null) {
+                        copy = new ArrayList<>(set.subList(0, i));
+                    }
+                    copy.add(this);
+                    placed = true;
+                }
+                if (copy != null) {
+                    copy.add(other);
+                }
+            }
+        }
+        if (copy == null) {
+            copy = new ArrayList<>(set);
+        }
+        if (!placed) {
+            copy.add(this);
+        }
+        return List.copyOf(copy);
+    }
+
+    /** Removes this mark (same type and attrs) from a set. */
+    public List<PmMark> removeFromSet(List<PmMark> set) {
+        for (int i = 0; i < set.size(); i++) {
+            if (equals(set.get(i))) {
+                List<PmMark> copy = new ArrayList<>(set);
+                copy.remove(i);
+                return List.copyOf(copy);
+            }
+        }
+        return set;
+    }
+
+    public boolean isInSet(List<PmMark> set) {
+        return set.contains(this);
+    }
+
+    static boolean sameSet(List<PmMark> a, List<PmMark> b) {
+        return Objects.equals(a, b);
+    }
+
+    private static int rank(String type) {
+        int rank = RANK.indexOf(type);
+        return rank >= 0 ? rank : RANK.size();
+    }
+
+    /**
+     * A mark excludes others of its own type; TipTap's inline {@code code}
+     * mark excludes every other mark.
+     */
+    private static boolean excludes(PmMark a, PmMark b) {
+        return a.type.equals(b.type) || "code".equals(a.type);
+    }
+}
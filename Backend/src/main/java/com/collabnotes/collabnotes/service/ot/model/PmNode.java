@@ -0,0 +1,296 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable ProseMirror document node.
+ *
+ * There is no client schema on the server, so node kinds that matter for
+ * position arithmetic (leaf and inline nodes) are listed explicitly for the
+ * TipTap StarterKit; any other node type is treated as a block container.
+ */
+public final class PmNode {
+
+    private static final Set<String> LEAF_TYPES = Set.of("text", "hardBreak", "horizontalRule", "image");
+    private static final Set<String> INLINE_TYPES = Set.of("text", "hardBreak", "image");
+    /** Node types whose content may not carry marks. */
+    private static final Set<String> NO_MARKS_TYPES = Set.of("codeBlock");
+    /**
+     * Node types grouped by content expression; nodes in the same group can be
+     * joined (prosemirror's {@code compatibleContent}).
+     */
+    private static final Map<String, String> CONTENT_GROUPS = Map.of(
+            "paragraph", "inline", "heading", "inline", "codeBlock", "inline",
+            "doc", "blocks", "blockquote", "blocks", "listItem", "blocks",
+            "bulletList", "items", "orderedList", "items");
+
+    private final String type;
+    private final Map<String, Object> attrs;
+    private final PmFragment content;
+    private final List<PmMark> marks;
+    private final String text;
+
+    private PmNode(String type, Map<String, Object> attrs, PmFragment content, List<PmMark> marks, String text) {
+        this.type = type;
+        this.attrs = attrs == null ? Map.of() : attrs;
+        this.content = content == null ? PmFragment.EMPTY : content;
+        this.marks = marks == null ? List.of() : marks;
+        this.text = text;
+    }
+
+    public static PmNode node(String type, Map<String, Object> attrs, PmFragment content) {
+        return new PmNode(type, attrs, content, List.of(), null);
+    }
+
+    public static PmNode node(String type, Map<String, Object> attrs, List<PmNode> content) {
+        return node(type, attrs, PmFragment.fromList(content));
+    }
+
+    public static PmNode text(String text, List<PmMark> marks) {
+        if (text == null || text.isEmpty()) {
+            throw new StepApplyException("empty text nodes are not allowed");
+        }
+        return new PmNode("text", Map.of(), PmFragment.EMPTY, marks, text);
+    }
+
+    // ── Accessors ───────────────────────────────────────────────────────────
+
+    public String type() {
+        return type;
+    }
+
+    public Map<String, Object> attrs() {
+        return attrs;
+    }
+
+    public PmFragment content() {
+        return content;
+    }
+
+    public List<PmMark> marks() {
+        return marks;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public boolean isText() {
+        return text != null;
+    }
+
+    public boolean isLeaf() {
+        return LEAF_TYPES.contains(type);
+    }
+
+    public boolean isInline() {
+        return INLINE_TYPES.contains(type);
+    }
+
+    public boolean allowsMarks() {
+        return !NO_MARKS_TYPES.contains(type);
+    }
+
+    public boolean compatibleContent(PmNode other) {
+        if (type.equals(other.type)) {
+            return true;
+        }
+        String group = CONTENT_GROUPS.get(type);
+        return group != null && group.equals(CONTENT_GROUPS.get(other.type));
+    }
+
+    public int nodeSize() {
+        if (isText()) {
+            return text.length();
+        }
+        return isLeaf() ? 1 : 2 + content.size();
+    }
+
+    public int childCount() {
+        return content.childCount();
+    }
+
+    public PmNode child(int index) {
+        return content.child(index);
+    }
+
+    public PmNode maybeChild(int index) {
+        return content.maybeChild(index);
+    }
+
+    /** Concatenated text of this node and its descendants. */
+    public String textContent() {
+        if (isText()) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (PmNode child : content.children()) {
+            sb.append(child.textContent());
+        }
+        return sb.toString();
+    }
+
+    // ── Copies ──────────────────────────────────────────────────────────────
+
+    public PmNode copy(PmFragment newContent) {
+        if (newContent == content) {
+            return this;
+        }
+        return new PmNode(type, attrs, newContent, marks, text);
+    }
+
+    public PmNode withText(String newText) {
+        if (Objects.equals(newText, text)) {
+            return this;
+        }
+        return new PmNode(type, attrs, content, marks, newText);
+    }
+
+    public PmNode mark(List<PmMark> newMarks) {
+        if (PmMark.sameSet(newMarks, marks)) {
+            return this;
+        }
+        return new PmNode(type, attrs, content, newMarks, text);
+    }
+
+    public PmNode withAttrs(Map<String, Object> newAttrs) {
+        return new PmNode(type, newAttrs, content, marks, text);
+    }
+
+    public PmNode cut(int from, int to) {
+        if (isText()) {
+            if (from == 0 && to == text.length()) {
+                return this;
+            }
+            return withText(text.substring(from, to));
+        }
+        if (from == 0 && to == content.size()) {
+            return this;
+        }
+        return copy(content.cut(from, to));
+    }
+
+    public boolean sameMarkup(PmNode other) {
+        return type.equals(other.type) && attrs.equals(other.attrs) && PmMark.sameSet(marks, other.marks);
+    }
+
+    // ── Positions ───────────────────────────────────────────────────────────
+
+    public ResolvedPos resolve(int pos) {
+        return ResolvedPos.resolve(this, pos);
+    }
+
+    /** Returns the node directly after {@code pos}, or null. */
+    public PmNode nodeAt(int pos) {
+        PmNode node = this;
+        for (;;) {
+            int[] found = node.content.findIndex(pos);
+            PmNode child = node.maybeChild(found[0]);
+            if (child == null) {
+                return null;
+            }
+            if (found[1] == pos || child.isText()) {
+                return child;
+            }
+            pos -= found[1] + 1;
+            node = child;
+        }
+    }
+
+    public PmSlice slice(int from, int to) {
+        if (from == to) {
+            return PmSlice.EMPTY;
+        }
+        ResolvedPos $from = resolve(from);
+        ResolvedPos $to = resolve(to);
+        int depth = $from.sharedDepth(to);
+        int start = $from.start(depth);
+        PmNode node = $from.node(depth);
+        PmFragment cut = node.content.cut($from.pos() - start, $to.pos() - start);
+        return new PmSlice(cut, $from.depth() - depth, $to.depth() - depth);
+    }
+
+    public PmNode replace(int from, int to, PmSlice slice) {
+        return Replace.replace(resolve(from), resolve(to), slice);
+    }
+
+    // ── JSON ────────────────────────────────────────────────────────────────
+
+    @SuppressWarnings("unchecked")
+    public static PmNode fromJson(Map<String, Object> json) {
+        if (json == null || !(json.get("type") instanceof String type)) {
+            throw new StepApplyException("node without type");
+        }
+        List<PmMark> marks = List.of();
+        if (json.get("marks") instanceof List<?> markList) {
+            List<PmMark> parsed = new ArrayList<>(markList.size());
+            for (Object m : markList) {
+                parsed.add(PmMark.fromJson((Map<String, Object>) m));
+            }
+            marks = List.copyOf(parsed);
+        }
+        if ("text".equals(type)) {
+            if (!(json.get("text") instanceof String text)) {
+                throw new StepApplyException("text node without text");
+            }
+            return text(text, marks);
+        }
+        Map<String, Object> attrs = json.get("attrs") instanceof Map<?, ?> a ? (Map<String, Object>) a : Map.of();
+        return new PmNode(type, attrs, fragmentFromJson(json.get("content")), marks, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    static PmFragment fragmentFromJson(Object json) {
+        if (!(json instanceof List<?> list) || list.isEmpty()) {
+            return PmFragment.EMPTY;
+        }
+        List<PmNode> nodes = new ArrayList<>(list.size());
+        for (Object child : list) {
+            nodes.add(fromJson((Map<String, Object>) child));
+        }
+        return PmFragment.fromList(nodes);
+    }
+
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("type", type);
+        if (!attrs.isEmpty()) {
+            json.put("attrs", attrs);
+        }
+        if (content.size() > 0 || content.childCount() > 0) {
+            List<Object> children = new ArrayList<>(content.childCount());
+            for (PmNode child : content.children()) {
+                children.add(child.toJson());
+            }
+            json.put("content", children);
+        }
+        if (!marks.isEmpty()) {
+            json.put("marks", marks.stream().map(PmMark::toJson).toList());
+        }
+        if (isText()) {
+            json.put("text", text);
+        }
+        return json;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PmNode other && sameMarkup(other) && Objects.equals(text, other.text)
+                && content.equals(other.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, text, content);
+    }
+
+    @Override
+    public String toString() {
+        return isText() ? "\"" + text + "\"" : type + "(" + content.children() + ")";
+    }
+}
@@ -0,0 +1,49 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import java.util.Map;
+
+/**
+ * A piece of document cut out of its surroundings, with the depth to which
+ * each side is "open" (mirrors prosemirror-model's Slice).
+ */
+public record PmSlice(PmFragment content, int openStart, int openEnd) {
+
+    public static final PmSlice EMPTY = new PmSlice(PmFragment.EMPTY, 0, 0);
+
+    public int size() {
+        return content.size() - openStart - openEnd;
+    }
+
+    public static PmSlice fromJson(Object json) {
+        if (!(json instanceof Map<?, ?> map)) {
+            return EMPTY;
+        }
+        PmFragment content = PmNode.fragmentFromJson(map.get("content"));
+        return new PmSlice(content, intOrZero(map.get("openStart")), intOrZero(map.get("openEnd")));
+    }
+
+    /**
+     * Inserts {@code fragment} at {@code pos} (relative to the slice's open
+     * start), returning null when the position cannot hold it.
+     */
+    public PmSlice insertAt(int pos, PmFragment fragment) {
+        PmFragment inserted = insertInto(content, pos + openStart, fragment);
+        return inserted != null ? new PmSlice(inserted, openStart, openEnd) : null;
+    }
+
+    private static PmFragment insertInto(PmFragment content, int dist, PmFragment insert) {
+        int[] found = content.findIndex(dist);
+        int index = found[0];
+        int offset = found[1];
+        PmNode child = content.maybeChild(index);
+        if (offset == dist || child.isText()) {
+            return content.cut(0, dist).append(insert).append(content.cut(dist));
+        }
+        PmFragment inner = insertInto(child.content(), dist - offset - 1, insert);
+        return inner != null ? content.replaceChild(index, child.copy(inner)) : null;
+    }
+
+    private static int intOrZero(Object value) {
+        return value instanceof Number n ? n.intValue() : 0;
+    }
+}
@@ -0,0 +1,95 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+/**
+ * The position changes made by one step, mirroring prosemirror-transform's
+ * StepMap: a flat list of (start, oldSize, newSize) triples.
+ */
+public final class PmStepMap {
+
+    public static final PmStepMap EMPTY = new PmStepMap(new int[0], false);
+
+    static final int DEL_BEFORE = 1;
+    static final int DEL_AFTER = 2;
+    static final int DEL_ACROSS = 4;
+    static final int DEL_SIDE = 8;
+
+    private static final long FACTOR_16 = 1L << 16;
+
+    private final int[] ranges;
+    private final boolean inverted;
+
+    public PmStepMap(int[] ranges, boolean inverted) {
+        this.ranges = ranges;
+        this.inverted = inverted;
+    }
+
+    /** Map that undoes this one. */
+    public PmStepMap invert() {
+        return new PmStepMap(ranges, !inverted);
+    }
+
+    /**
+     * Maps {@code pos}; {@code assoc} picks the side when content was inserted
+     * exactly there (negative: stay before it, positive: move after it).
+     */
+    public Result mapResult(int pos, int assoc) {
+        int diff = 0;
+        int oldIndex = inverted ? 2 : 1;
+        int newIndex = inverted ? 1 : 2;
+        for (int i = 0; i < ranges.length; i += 3) {
+            int start = ranges[i] - (inverted ? diff : 0);
+            if (start > pos) {
+                break;
+            }
+            int oldSize = ranges[i + oldIndex];
+            int newSize = ranges[i + newIndex];
+            int end = start + oldSize;
+            if (pos <= end) {
+                int side = oldSize == 0 ? assoc : pos == start ? -1 : pos == end ? 1 : assoc;
+                int result = start + diff + (side < 0 ? 0 : newSize);
+                long recover = pos == (assoc < 0 ? start : end) ? -1 : i / 3 + (pos - start) * FACTOR_16;
+                int del = pos == start ? DEL_AFTER : pos == end ? DEL_BEFORE : DEL_ACROSS;
+                if (assoc < 0 ? pos != start : pos != end) {
+                    del |= DEL_SIDE;
+                }
+                return new Result(result, del, recover);
+            }
+            diff += newSize - oldSize;
+        }
+        return new Result(pos + diff, 0, -1);
+    }
+
+    /** Recovers a position inside a range this map deleted, for its mirror. */
+    int recover(long value) {
+        int diff = 0;
+        int index = (int) (value & (FACTOR_16 - 1));
+        if (!inverted) {
+            for (int i = 0; i < index; i++) {
+                diff += ranges[i * 3 + 2] - ranges[i * 3 + 1];
+            }
+        }
+        return ranges[index * 3] + diff + (int) (value / FACTOR_16);
+    }
+
+    /**
+     * A mapped position and what happened around it.
+     *
+     * @param recover token for {@link #recover}, or -1 when not inside a deleted range
+     */
+    public record Result(int pos, int delInfo, long recover) {
+
+        /** The content on the side {@code assoc} points at was deleted. */
+        public boolean deleted() {
+            return (delInfo & DEL_SIDE) > 0;
+        }
+
+        public boolean deletedAfter() {
+            return (delInfo & (DEL_AFTER | DEL_ACROSS)) > 0;
+        }
+
+        /** The position itself sat inside a deleted range. */
+        public boolean deletedAcross() {
+            return (delInfo & DEL_ACROSS) > 0;
+        }
+    }
+}
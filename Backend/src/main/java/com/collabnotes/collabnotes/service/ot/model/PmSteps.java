@@ -0,0 +1,280 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Applies prosemirror-transform step JSON to a {@link PmNode} document.
+ *
+ * Supports the step types emitted by the TipTap StarterKit: {@code replace},
+ * {@code replaceAround}, {@code addMark}, {@code removeMark},
+ * {@code addNodeMark}, {@code removeNodeMark}, {@code attr} and
+ * {@code docAttr}. Each method mirrors the corresponding {@code Step.apply}
+ * in prosemirror-transform.
+ */
+public final class PmSteps {
+
+    private PmSteps() {
+    }
+
+    /**
+     * Returns the document after applying {@code step}.
+     *
+     * @throws StepApplyException if the step is unknown or does not fit the document
+     */
+    @SuppressWarnings("unchecked")
+    public static PmNode apply(PmNode doc, Map<String, Object> step) {
+        Object stepType = step.get("stepType");
+        if (!(stepType instanceof String type)) {
+            throw new StepApplyException("step without stepType");
+        }
+        return switch (type) {
+            case "replace" -> replace(doc, integer(step, "from"), integer(step, "to"),
+                    PmSlice.fromJson(step.get("slice")), Boolean.TRUE.equals(step.get("structure")));
+            case "replaceAround" -> replaceAround(doc, step);
+            case "addMark" -> addMark(doc, integer(step, "from"), integer(step, "to"),
+                    PmMark.fromJson((Map<String, Object>) step.get("mark")));
+            case "removeMark" -> removeMark(doc, integer(step, "from"), integer(step, "to"),
+                    PmMark.fromJson((Map<String, Object>) step.get("mark")));
+            case "addNodeMark" -> updateNodeMarks(doc, integer(step, "pos"),
+                    PmMark.fromJson((Map<String, Object>) step.get("mark")), true);
+            case "removeNodeMark" -> updateNodeMarks(doc, integer(step, "pos"),
+                    PmMark.fromJson((Map<String, Object>) step.get("mark")), false);
+            case "attr" -> attr(doc, integer(step, "pos"), (String) step.get("attr"), step.get("value"));
+            case "docAttr" -> {
+                Map<String, Object> attrs = new LinkedHashMap<>(doc.attrs());
+                attrs.put((String) step.get("attr"), step.get("value"));
+                yield doc.withAttrs(attrs);
+            }
+            default -> throw new StepApplyException("unsupported step type " + type);
+        };
+    }
+
+    /** The position changes {@code step} makes, like {@code Step.getMap}. */
+    public static PmStepMap getMap(Map<String, Object> step) {
+        Object stepType = step.get("stepType");
+        if ("replace".equals(stepType)) {
+            int from = integer(step, "from");
+            return new PmStepMap(new int[] { from, integer(step, "to") - from,
+                    PmSlice.fromJson(step.get("slice")).size() }, false);
+        }
+        if ("replaceAround".equals(stepType)) {
+            int from = integer(step, "from");
+            int gapFrom = integer(step, "gapFrom");
+            int gapTo = integer(step, "gapTo");
+            int insert = integer(step, "insert");
+            return new PmStepMap(new int[] { from, gapFrom - from, insert,
+                    gapTo, integer(step, "to") - gapTo, PmSlice.fromJson(step.get("slice")).size() - insert }, false);
+        }
+        return PmStepMap.EMPTY;
+    }
+
+    /**
+     * Maps {@code step} through {@code mapping}, like {@code Step.map}.
+     *
+     * @return the mapped step JSON, or null when the content it targeted was deleted
+     */
+    public static Map<String, Object> map(Map<String, Object> step, PmMapping mapping) {
+        Object stepType = step.get("stepType");
+        if (!(stepType instanceof String type)) {
+            throw new StepApplyException("step without stepType");
+        }
+        Map<String, Object> mapped = new LinkedHashMap<>(step);
+        switch (type) {
+            case "replace" -> {
+                PmStepMap.Result from = mapping.mapResult(integer(step, "from"), 1);
+                PmStepMap.Result to = mapping.mapResult(integer(step, "to"), -1);
+                if (from.deletedAcross() && to.deletedAcross()) {
+                    return null;
+                }
+                mapped.put("from", from.pos());
+                mapped.put("to", Math.max(from.pos(), to.pos()));
+            }
+            case "replaceAround" -> {
+                int oldFrom = integer(step, "from");
+                int oldTo = integer(step, "to");
+                int oldGapFrom = integer(step, "gapFrom");
+                int oldGapTo = integer(step, "gapTo");
+                PmStepMap.Result from = mapping.mapResult(oldFrom, 1);
+                PmStepMap.Result to = mapping.mapResult(oldTo, -1);
+                int gapFrom = oldFrom == oldGapFrom ? from.pos() : mapping.map(oldGapFrom, -1);
+                int gapTo = oldTo == oldGapTo ? to.pos() : mapping.map(oldGapTo, 1);
+                if ((from.deletedAcross() && to.deletedAcross()) || gapFrom < from.pos() || gapTo > to.pos()) {
+                    return null;
+                }
+                mapped.put("from", from.pos());
+                mapped.put("to", to.pos());
+                mapped.put("gapFrom", gapFrom);
+                mapped.put("gapTo", gapTo);
+            }
+            case "addMark", "removeMark" -> {
+                PmStepMap.Result from = mapping.mapResult(integer(step, "from"), 1);
+                PmStepMap.Result to = mapping.mapResult(integer(step, "to"), -1);
+                if ((from.deleted() && to.deleted()) || from.pos() >= to.pos()) {
+                    return null;
+                }
+                mapped.put("from", from.pos());
+                mapped.put("to", to.pos());
+            }
+            case "addNodeMark", "removeNodeMark", "attr" -> {
+                PmStepMap.Result pos = mapping.mapResult(integer(step, "pos"), 1);
+                if (pos.deletedAfter()) {
+                    return null;
+                }
+                mapped.put("pos", pos.pos());
+            }
+            case "docAttr" -> {
+                // Not positional.
+            }
+            default -> throw new StepApplyException("unsupported step type " + type);
+        }
+        return mapped;
+    }
+
+    /**
+     * Rebases {@code steps}, written against an older document, over the
+     * {@code over} steps accepted since, the way prosemirror-collab's
+     * {@code rebaseSteps} does: each step is mapped back through the inverse
+     * of the client's earlier steps, forward through {@code over}, then
+     * through the earlier steps' rebased versions.
+     *
+     * @return the rebased steps, or null if any of them no longer has a target
+     */
+    public static List<Map<String, Object>> rebase(List<Map<String, Object>> steps,
+            List<Map<String, Object>> over) {
+        PmMapping mapping = new PmMapping();
+        for (int i = steps.size() - 1; i >= 0; i--) {
+            mapping.appendMap(getMap(steps.get(i)).invert(), -1);
+        }
+        for (Map<String, Object> step : over) {
+            mapping.appendMap(getMap(step), -1);
+        }
+        List<Map<String, Object>> rebased = new ArrayList<>(steps.size());
+        int mapFrom = steps.size();
+        for (Map<String, Object> step : steps) {
+            Map<String, Object> mapped = map(step, mapping.slice(mapFrom));
+            mapFrom--;
+            if (mapped == null) {
+                return null;
+            }
+            mapping.appendMap(getMap(mapped), mapFrom);
+            rebased.add(mapped);
+        }
+        return rebased;
+    }
+
+    private static PmNode replace(PmNode doc, int from, int to, PmSlice slice, boolean structure) {
+        if (structure && contentBetween(doc, from, to)) {
+            throw new StepApplyException("Structure replace would overwrite content");
+        }
+        return doc.replace(from, to, slice);
+    }
+
+    private static PmNode replaceAround(PmNode doc, Map<String, Object> step) {
+        int from = integer(step, "from");
+        int to = integer(step, "to");
+        int gapFrom = integer(step, "gapFrom");
+        int gapTo = integer(step, "gapTo");
+        if (Boolean.TRUE.equals(step.get("structure"))
+                && (contentBetween(doc, from, gapFrom) || contentBetween(doc, gapTo, to))) {
+            throw new StepApplyException("Structure gap-replace would overwrite content");
+        }
+        PmSlice gap = doc.slice(gapFrom, gapTo);
+        if (gap.openStart() != 0 || gap.openEnd() != 0) {
+            throw new StepApplyException("Gap is not a flat range");
+        }
+        PmSlice inserted = PmSlice.fromJson(step.get("slice")).insertAt(integer(step, "insert"), gap.content());
+        if (inserted == null) {
+            throw new StepApplyException("Content does not fit in gap");
+        }
+        return doc.replace(from, to, inserted);
+    }
+
+    private static PmNode addMark(PmNode doc, int from, int to, PmMark mark) {
+        PmSlice oldSlice = doc.slice(from, to);
+        ResolvedPos $from = doc.resolve(from);
+        PmNode parent = $from.node($from.sharedDepth(to));
+        PmFragment content = mapFragment(oldSlice.content(), (node, nodeParent) -> {
+            if (!node.isLeaf() || !nodeParent.allowsMarks()) {
+                return node;
+            }
+            return node.mark(mark.addToSet(node.marks()));
+        }, parent);
+        return doc.replace(from, to, new PmSlice(content, oldSlice.openStart(), oldSlice.openEnd()));
+    }
+
+    private static PmNode removeMark(PmNode doc, int from, int to, PmMark mark) {
+        PmSlice oldSlice = doc.slice(from, to);
+        PmFragment content = mapFragment(oldSlice.content(),
+                (node, nodeParent) -> node.mark(mark.removeFromSet(node.marks())), doc);
+        return doc.replace(from, to, new PmSlice(content, oldSlice.openStart(), oldSlice.openEnd()));
+    }
+
+    private static PmNode updateNodeMarks(PmNode doc, int pos, PmMark mark, boolean add) {
+        PmNode node = doc.nodeAt(pos);
+        if (node == null) {
+            throw new StepApplyException("No node at mark step's position");
+        }
+        List<PmMark> marks = add ? mark.addToSet(node.marks()) : mark.removeFromSet(node.marks());
+        PmNode updated = PmNode.node(node.type(), node.attrs(), PmFragment.EMPTY).mark(marks);
+        return doc.replace(pos, pos + 1, new PmSlice(PmFragment.of(updated), 0, node.isLeaf() ? 0 : 1));
+    }
+
+    private static PmNode attr(PmNode doc, int pos, String name, Object value) {
+        PmNode node = doc.nodeAt(pos);
+        if (node == null) {
+            throw new StepApplyException("No node at attribute step's position");
+        }
+        Map<String, Object> attrs = new LinkedHashMap<>(node.attrs());
+        attrs.put(name, value);
+        PmNode updated = PmNode.node(node.type(), attrs, PmFragment.EMPTY).mark(node.marks());
+        return doc.replace(pos, pos + 1, new PmSlice(PmFragment.of(updated), 0, node.isLeaf() ? 0 : 1));
+    }
+
+    private static PmFragment mapFragment(PmFragment fragment, BiFunction<PmNode, PmNode, PmNode> f,
+            PmNode parent) {
+        List<PmNode> mapped = new ArrayList<>(fragment.childCount());
+        for (PmNode child : fragment.children()) {
+            if (child.content().size() > 0) {
+                child = child.copy(mapFragment(child.content(), f, child));
+            }
+            if (child.isInline()) {
+                child = f.apply(child, parent);
+            }
+            mapped.add(child);
+        }
+        return PmFragment.fromList(mapped);
+    }
+
+    /** True if replacing {@code from..to} would delete more than node boundaries. */
+    private static boolean contentBetween(PmNode doc, int from, int to) {
+        ResolvedPos $from = doc.resolve(from);
+        int dist = to - from;
+        int depth = $from.depth();
+        while (dist > 0 && depth > 0 && $from.indexAfter(depth) == $from.node(depth).childCount()) {
+            depth--;
+            dist--;
+        }
+        if (dist > 0) {
+            PmNode next = $from.node(depth).maybeChild($from.indexAfter(depth));
+            while (dist > 0) {
+                if (next == null || next.isLeaf()) {
+                    return true;
+                }
+                next = next.content().firstChild();
+                dist--;
+            }
+        }
+        return false;
+    }
+
+    private static int integer(Map<String, Object> step, String field) {
+        if (!(step.get(field) instanceof Number n)) {
+            throw new StepApplyException("step is missing numeric " + field);
+        }
+        return n.intValue();
+    }
+}
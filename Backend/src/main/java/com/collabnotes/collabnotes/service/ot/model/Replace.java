@@ -0,0 +1,138 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Port of prosemirror-model's replace algorithm.
+ *
+ * Replaces the range between two resolved positions with a slice, joining
+ * open nodes on either side. Schema content checks are skipped: the steps
+ * were produced by a client that already validated them against the schema,
+ * and the server only needs the resulting structure.
+ */
+final class Replace {
+
+    private Replace() {
+    }
+
+    static PmNode replace(ResolvedPos $from, ResolvedPos $to, PmSlice slice) {
+        if (slice.openStart() > $from.depth()) {
+            throw new StepApplyException("Inserted content deeper than insertion position");
+        }
+        if ($from.depth() - slice.openStart() != $to.depth() - slice.openEnd()) {
+            throw new StepApplyException("Inconsistent open depths");
+        }
+        return replaceOuter($from, $to, slice, 0);
+    }
+
+    private static PmNode replaceOuter(ResolvedPos $from, ResolvedPos $to, PmSlice slice, int depth) {
+        int index = $from.index(depth);
+        PmNode node = $from.node(depth);
+        if (index == $to.index(depth) && depth < $from.depth() - slice.openStart()) {
+            PmNode inner = replaceOuter($from, $to, slice, depth + 1);
+            return node.copy(node.content().replaceChild(index, inner));
+        } else if (slice.content().size() == 0) {
+            return node.copy(replaceTwoWay($from, $to, depth));
+        } else if (slice.openStart() == 0 && slice.openEnd() == 0
+                && $from.depth() == depth && $to.depth() == depth) {
+            PmNode parent = $from.parent();
+            PmFragment content = parent.content();
+            return parent.copy(content.cut(0, $from.parentOffset())
+                    .append(slice.content())
+                    .append(content.cut($to.parentOffset())));
+        } else {
+            ResolvedPos[] prepared = prepareSliceForReplace(slice, $from);
+            return node.copy(replaceThreeWay($from, prepared[0], prepared[1], $to, depth));
+        }
+    }
+
+    private static PmNode joinable(ResolvedPos $before, ResolvedPos $after, int depth) {
+        PmNode node = $before.node(depth);
+        checkJoin(node, $after.node(depth));
+        return node;
+    }
+
+    private static void checkJoin(PmNode main, PmNode sub) {
+        if (!main.compatibleContent(sub)) {
+            throw new StepApplyException("Cannot join " + sub.type() + " onto " + main.type());
+        }
+    }
+
+    private static void addNode(PmNode child, List<PmNode> target) {
+        int last = target.size() - 1;
+        if (last >= 0 && child.isText() && target.get(last).isText() && child.sameMarkup(target.get(last))) {
+            target.set(last, child.withText(target.get(last).text() + child.text()));
+        } else {
+            target.add(child);
+        }
+    }
+
+    private static void addRange(ResolvedPos $start, ResolvedPos $end, int depth, List<PmNode> target) {
+        PmNode node = ($end != null ? $end : $start).node(depth);
+        int startIndex = 0;
+        int endIndex = $end != null ? $end.index(depth) : node.childCount();
+        if ($start != null) {
+            startIndex = $start.index(depth);
+            if ($start.depth() > depth) {
+                startIndex++;
+            } else if ($start.textOffset() != 0) {
+                addNode($start.nodeAfter(), target);
+                startIndex++;
+            }
+        }
+        for (int i = startIndex; i < endIndex; i++) {
+            addNode(node.child(i), target);
+        }
+        if ($end != null && $end.depth() == depth && $end.textOffset() != 0) {
+            addNode($end.nodeBefore(), target);
+        }
+    }
+
+    private static PmFragment replaceThreeWay(ResolvedPos $from, ResolvedPos $start, ResolvedPos $end,
+            ResolvedPos $to, int depth) {
+        PmNode openStart = $from.depth() > depth ? joinable($from, $start, depth + 1) : null;
+        PmNode openEnd = $to.depth() > depth ? joinable($end, $to, depth + 1) : null;
+
+        List<PmNode> content = new ArrayList<>();
+        addRange(null, $from, depth, content);
+        if (openStart != null && openEnd != null && $start.index(depth) == $end.index(depth)) {
+            checkJoin(openStart, openEnd);
+            addNode(openStart.copy(replaceThreeWay($from, $start, $end, $to, depth + 1)), content);
+        } else {
+            if (openStart != null) {
+                addNode(openStart.copy(replaceTwoWay($from, $start, depth + 1)), content);
+            }
+            addRange($start, $end, depth, content);
+            if (openEnd != null) {
+                addNode(openEnd.copy(replaceTwoWay($end, $to, depth + 1)), content);
+            }
+        }
+        addRange($to, null, depth, content);
+        return PmFragment.fromList(content);
+    }
+
+    private static PmFragment replaceTwoWay(ResolvedPos $from, ResolvedPos $to, int depth) {
+        List<PmNode> content = new ArrayList<>();
+        addRange(null, $from, depth, content);
+        if ($from.depth() > depth) {
+            PmNode type = joinable($from, $to, depth + 1);
+            addNode(type.copy(replaceTwoWay($from, $to, depth + 1)), content);
+        }
+        addRange($to, null, depth, content);
+        return PmFragment.fromList(content);
+    }
+
+    private static ResolvedPos[] prepareSliceForReplace(PmSlice slice, ResolvedPos $along) {
+        int extra = $along.depth() - slice.openStart();
+        PmNode parent = $along.node(extra);
+        PmNode node = parent.copy(slice.content());
+        for (int i = extra - 1; i >= 0; i--) {
+            node = $along.node(i).copy(PmFragment.of(node));
+        }
+        return new ResolvedPos[] {
+                node.resolve(slice.openStart() + extra),
+                node.resolve(node.content().size() - slice.openEnd() - extra)
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A document position resolved into its ancestor path, mirroring
+ * prosemirror-model's ResolvedPos.
+ */
+public final class ResolvedPos {
+
+    private final int pos;
+    /** Per depth: ancestor node, index into it, and absolute start offset of that child. */
+    private final List<PmNode> nodes;
+    private final int[] indices;
+    private final int[] offsets;
+    private final int depth;
+    private final int parentOffset;
+
+    private ResolvedPos(int pos, List<PmNode> nodes, int[] indices, int[] offsets, int parentOffset) {
+        this.pos = pos;
+        this.nodes = nodes;
+        this.indices = indices;
+        this.offsets = offsets;
+        this.depth = nodes.size() - 1;
+        this.parentOffset = parentOffset;
+    }
+
+    static ResolvedPos resolve(PmNode doc, int pos) {
+        if (pos < 0 || pos > doc.content().size()) {
+            throw new StepApplyException("position " + pos + " out of range");
+        }
+        List<PmNode> nodes = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        int start = 0;
+        int parentOffset = pos;
+        for (PmNode node = doc;;) {
+            int[] found = node.content().findIndex(parentOffset);
+            int index = found[0];
+            int offset = found[1];
+            int rem = parentOffset - offset;
+            nodes.add(node);
+            indices.add(index);
+            offsets.add(start + offset);
+            if (rem == 0) {
+                break;
+            }
+            node = node.child(index);
+            if (node.isText()) {
+                break;
+            }
+            parentOffset = rem - 1;
+            start += offset + 1;
+        }
+        return new ResolvedPos(pos, nodes,
+                indices.stream().mapToInt(Integer::intValue).toArray(),
+                offsets.stream().mapToInt(Integer::intValue).toArray(),
+                parentOffset);
+    }
+
+    public int pos() {
+        return pos;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int parentOffset() {
+        return parentOffset;
+    }
+
+    public PmNode parent() {
+        return nodes.get(depth);
+    }
+
+    public PmNode node(int d) {
+        return nodes.get(d);
+    }
+
+    public int index(int d) {
+        return indices[d];
+    }
+
+    public int indexAfter(int d) {
+        return indices[d] + (d == depth && textOffset() == 0 ? 0 : 1);
+    }
+
+    /** Absolute position at the start of the content of the ancestor at depth {@code d}. */
+    public int start(int d) {
+        return d == 0 ? 0 : offsets[d - 1] + 1;
+    }
+
+    public int end(int d) {
+        return start(d) + node(d).content().size();
+    }
+
+    public int textOffset() {
+        return pos - offsets[depth];
+    }
+
+    public PmNode nodeAfter() {
+        PmNode parent = parent();
+        int index = indices[depth];
+        if (index == parent.childCount()) {
+            return null;
+        }
+        int dOff = pos - offsets[depth];
+        PmNode child = parent.child(index);
+        return dOff != 0 ? child.cut(dOff, child.text().length()) : child;
+    }
+
+    public PmNode nodeBefore() {
+        int index = indices[depth];
+        int dOff = pos - offsets[depth];
+        if (dOff != 0) {
+            return parent().child(index).cut(0, dOff);
+        }
+        return index == 0 ? null : parent().child(index - 1);
+    }
+
+    public int sharedDepth(int otherPos) {
+        for (int d = depth; d > 0; d--) {
+            if (start(d) <= otherPos && end(d) >= otherPos) {
+                return d;
+            }
+        }
+        return 0;
+    }
+}
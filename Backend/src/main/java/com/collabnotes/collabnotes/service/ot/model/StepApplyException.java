@@ -0,0 +1,11 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+/**
+ * Thrown when a step cannot be applied to the server-side document, e.g.
+ * because its positions are out of range or its slice does not fit.
+ */
+public class StepApplyException extends RuntimeException {
+    public StepApplyException(String message) {
+        super(message);
+    }
+}
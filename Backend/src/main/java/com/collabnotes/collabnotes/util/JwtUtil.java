@@ -1,6 +1,7 @@
 package com.collabnotes.collabnotes.util;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Map;
 import java.util.Optional;
@@ -13,6 +14,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -28,12 +30,37 @@ public class JwtUtil {
     @Value("${app.auth.jwt.expiration-ms:86400000}")
     private long expirationInMs;
 
+    @Value("${app.auth.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize = 10000;
+
+    private volatile Verifier verifier;
+
+    /**
+     * The HMAC key and parser for the configured secret, built once and
+     * shared by every call (and by the REST {@code JwtDecoder}), together
+     * with the claims of tokens already verified with them.
+     */
+    private Verifier verifier() {
+        Verifier current = verifier;
+        if (current == null || !current.secret().equals(secretKey)) {
+            SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+            current = new Verifier(secretKey, key, Jwts.parserBuilder().setSigningKey(key).build(),
+                    new VerifiedTokenCache<>(verifiedCacheSize));
+            verifier = current;
+        }
+        return current;
+    }
+
+    public SecretKey signingKey() {
+        return verifier().key();
+    }
+
     public String generateToken(String userId, String email) {
         return generateToken(userId, email, null);
     }
 
     public String generateToken(String userId, String email, String displayName) {
-        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        SecretKey key = signingKey();
         Date issuedAt = new Date();
 
         io.jsonwebtoken.JwtBuilder builder = Jwts.builder()
@@ -60,6 +87,16 @@ public class JwtUtil {
         }
     }
 
+    /** The token's expiry in epoch milliseconds, or null if it is invalid or has no {@code exp}. */
+    public Long extractExpiration(String token) {
+        try {
+            return parseClaims(token).map(Claims::getExpiration).map(Date::getTime).orElse(null);
+        } catch (Exception e) {
+            logger.error("Failed to extract expiration from token: {}", e.getMessage());
+            return null;
+        }
+    }
+
     public String extractEmail(String token) {
         try {
             return parseClaims(token)
@@ -72,7 +109,8 @@ public class JwtUtil {
     }
 
     public Map<String, Object> extractClaims(String token) {
-        return parseClaims(token).map(claims -> (Map<String, Object>) claims).orElse(Map.of());
+        return parseClaims(token).map(claims -> Collections.unmodifiableMap((Map<String, Object>) claims))
+                .orElse(Map.of());
     }
 
     public boolean validateToken(String token) {
@@ -97,13 +135,18 @@ public class JwtUtil {
             return Optional.empty();
         }
 
-        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Verifier current = verifier();
+        Claims claims = current.verified().get(token);
+        if (claims == null) {
+            claims = current.parser().parseClaimsJws(token).getBody();
+            if (claims.getExpiration() != null) {
+                current.verified().put(token, claims, claims.getExpiration().getTime());
+            }
+        }
 
         return Optional.of(claims);
     }
+
+    private record Verifier(String secret, SecretKey key, JwtParser parser, VerifiedTokenCache<Claims> verified) {
+    }
 }
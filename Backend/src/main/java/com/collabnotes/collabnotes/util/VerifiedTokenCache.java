@@ -0,0 +1,90 @@
+package com.collabnotes.collabnotes.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Bounded cache of tokens that already passed signature verification, keyed
+ * by the token's signature segment so raw bearer tokens are never held in
+ * memory and a lookup costs no hashing.
+ *
+ * The signature is an HMAC over the header and payload, so it identifies the
+ * token it was verified with; a token carrying a reused signature over other
+ * claims still gets back the claims that were verified, never its own. An
+ * entry is served only until the token's own expiry, after which the caller
+ * verifies again (and rejects it). A capacity of 0 disables caching.
+ */
+public class VerifiedTokenCache<T> {
+
+    private final LongSupplier clock;
+    private final Cache<String, Entry<T>> entries;
+
+    public VerifiedTokenCache(int capacity) {
+        this(capacity, System::currentTimeMillis);
+    }
+
+    VerifiedTokenCache(int capacity, LongSupplier clock) {
+        this.clock = clock;
+        this.entries = capacity <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(capacity)
+                .expireAfter(new UntilTokenExpiry<T>())
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()))
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /** The verified value for the token, or null if absent or expired. */
+    public T get(String token) {
+        if (entries == null) {
+            return null;
+        }
+        Entry<T> entry = entries.getIfPresent(signatureOf(token));
+        return entry != null ? entry.value() : null;
+    }
+
+    /** Remembers a verified token until {@code expiresAtMs}; tokens without an expiry are not cached. */
+    public void put(String token, T value, long expiresAtMs) {
+        if (entries == null || expiresAtMs <= clock.getAsLong()) {
+            return;
+        }
+        entries.put(signatureOf(token), new Entry<>(value, expiresAtMs));
+    }
+
+    public long size() {
+        if (entries == null) {
+            return 0;
+        }
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    private static String signatureOf(String token) {
+        return token.substring(token.lastIndexOf('.') + 1);
+    }
+
+    private record Entry<T>(T value, long expiresAtMs) {
+    }
+
+    /** Expires each entry at its token's expiry; the ticker reads the same clock in nanoseconds. */
+    private static final class UntilTokenExpiry<T> implements Expiry<String, Entry<T>> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry<T> entry, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(entry.expiresAtMs()) - currentTime;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry<T> entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry<T> entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
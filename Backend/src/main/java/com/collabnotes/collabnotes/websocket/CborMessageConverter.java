@@ -0,0 +1,42 @@
+package com.collabnotes.collabnotes.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeType;
+
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * Decodes STOMP SEND bodies sent with {@code content-type: application/cbor}
+ * into {@code @Payload} arguments, so clients using {@link OTBinaryFraming}
+ * can submit steps as CBOR as well. Only engages on that content type; JSON
+ * frames go to the default converters, and outbound frames are always
+ * written as JSON first.
+ */
+public class CborMessageConverter extends AbstractMessageConverter {
+
+    public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+
+    private final CBORMapper cborMapper = CBORMapper.builder().build();
+
+    public CborMessageConverter() {
+        super(APPLICATION_CBOR);
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        return message.getPayload() instanceof byte[] bytes ? cborMapper.readValue(bytes, targetClass) : null;
+    }
+
+    @Override
+    protected boolean canConvertTo(Object payload, MessageHeaders headers) {
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.collabnotes.collabnotes.websocket;
+
+import java.util.List;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+/**
+ * Handshake handler that lets {@code app.ws.compression.enabled} switch off
+ * permessage-deflate, which the servlet container otherwise accepts whenever
+ * a client offers it.
+ */
+public class CompressionHandshakeHandler extends DefaultHandshakeHandler {
+
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final boolean compressionEnabled;
+
+    public CompressionHandshakeHandler(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+            List<WebSocketExtension> requestedExtensions, List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> accepted = super.filterRequestedExtensions(
+                request, requestedExtensions, supportedExtensions);
+        if (compressionEnabled) {
+            return accepted;
+        }
+        return accepted.stream()
+                .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                .toList();
+    }
+}
@@ -1,5 +1,6 @@
 package com.collabnotes.collabnotes.websocket;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,7 +13,6 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 import com.collabnotes.collabnotes.dto.NoteDTO;
@@ -21,13 +21,25 @@ import com.collabnotes.collabnotes.metrics.MetricsService;
 import com.collabnotes.collabnotes.service.NoteService;
 import com.collabnotes.collabnotes.service.NoteSessionService;
 import com.collabnotes.collabnotes.service.UserService;
+import com.collabnotes.collabnotes.service.ot.NoteSubmissionExecutor;
 import com.collabnotes.collabnotes.service.ot.OTAuthorityService;
 import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Accepted;
 import com.collabnotes.collabnotes.service.ot.OTAuthorityService.CatchUp;
-import com.collabnotes.collabnotes.util.JwtUtil;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.OTSubmitResult;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Resubmitted;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.SnapshotCatchUp;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Submission;
+import com.collabnotes.collabnotes.service.ot.OTCapabilities;
+import com.collabnotes.collabnotes.service.ot.OTClusterRouter;
+import com.collabnotes.collabnotes.service.ot.OTClusterRouter.OTCommand;
+import com.collabnotes.collabnotes.service.ot.OTMemoryManager;
+import com.collabnotes.collabnotes.service.ot.WriteBehindFlusher;
 import com.collabnotes.collabnotes.websocket.message.ErrorMessage;
 import com.collabnotes.collabnotes.websocket.message.NoteStateMessage;
+import com.collabnotes.collabnotes.websocket.message.OTAckMessage;
 import com.collabnotes.collabnotes.websocket.message.OTCatchUpMessage;
+import com.collabnotes.collabnotes.websocket.message.OTSnapshotMessage;
 import com.collabnotes.collabnotes.websocket.message.OTStepsBroadcastMessage;
 import com.collabnotes.collabnotes.websocket.message.OTSubmitStepsMessage;
 import com.collabnotes.collabnotes.websocket.message.TypingIndicatorMessage;
@@ -43,32 +55,47 @@ public class NoteWebSocketController {
     private final NoteService noteService;
     private final UserService userService;
     private final NoteSessionService sessionService;
-    private final SimpMessagingTemplate messagingTemplate;
     private final MetricsService metricsService;
-    private final JwtUtil jwtUtil;
+    private final SessionAuthCache authCache;
     private final OTAuthorityService otAuthorityService;
+    private final WriteBehindFlusher writeBehindFlusher;
+    private final OTClusterRouter clusterRouter;
+    private final NoteSubmissionExecutor submissionExecutor;
+    private final OTMemoryManager otMemoryManager;
+    private final OTBroadcastCoalescer broadcastCoalescer;
 
     public NoteWebSocketController(NoteService noteService, UserService userService,
-            NoteSessionService noteSessionService, SimpMessagingTemplate simpMessagingTemplate,
-            MetricsService metricsService, JwtUtil jwtUtil, OTAuthorityService otAuthorityService) {
+            NoteSessionService noteSessionService, MetricsService metricsService, SessionAuthCache authCache,
+            OTAuthorityService otAuthorityService, WriteBehindFlusher writeBehindFlusher,
+            OTClusterRouter clusterRouter, NoteSubmissionExecutor submissionExecutor,
+            OTMemoryManager otMemoryManager, OTBroadcastCoalescer broadcastCoalescer) {
         this.noteService = noteService;
         this.userService = userService;
         this.sessionService = noteSessionService;
-        this.messagingTemplate = simpMessagingTemplate;
         this.metricsService = metricsService;
-        this.jwtUtil = jwtUtil;
+        this.authCache = authCache;
         this.otAuthorityService = otAuthorityService;
+        this.writeBehindFlusher = writeBehindFlusher;
+        this.clusterRouter = clusterRouter;
+        this.submissionExecutor = submissionExecutor;
+        this.otMemoryManager = otMemoryManager;
+        this.broadcastCoalescer = broadcastCoalescer;
+        clusterRouter.setCommandHandler(this::handleForwardedCommand);
+        submissionExecutor.setResultHandler(this::publishSubmitResults);
+        broadcastCoalescer.setPublisher(this::broadcastSteps);
     }
 
-    private void assertHasAccess(String noteId, String userId) {
-        if (!noteService.hasNoteAccess(noteId, userId)) {
+    private void assertHasAccess(String noteId, String userId, SimpMessageHeaderAccessor headerAccessor) {
+        Map<String, Object> sessionAttributes = headerAccessor != null ? headerAccessor.getSessionAttributes() : null;
+        if (!authCache.hasNoteAccess(sessionAttributes, noteId, userId)) {
             logger.warn("User {} attempted unauthorized access to note {}", userId, noteId);
             throw new IllegalArgumentException("Unauthorized to access this note");
         }
     }
 
     private String resolveUserId(String token, SimpMessageHeaderAccessor headerAccessor) {
-        String userId = jwtUtil.extractUserId(token);
+        String userId = authCache.resolveUserId(
+                headerAccessor != null ? headerAccessor.getSessionAttributes() : null, token);
         if (userId != null) {
             return userId;
         }
@@ -83,6 +110,14 @@ public class NoteWebSocketController {
         return null;
     }
 
+    private static String sessionIdOf(SimpMessageHeaderAccessor headerAccessor) {
+        return headerAccessor != null ? headerAccessor.getSessionId() : null;
+    }
+
+    private static OTCapabilities capabilitiesOf(SimpMessageHeaderAccessor headerAccessor) {
+        return OTCapabilities.of(headerAccessor != null ? headerAccessor.getSessionAttributes() : null);
+    }
+
     @MessageMapping("/notes/{noteId}/presence")
     @SendTo("/topic/notes/{noteId}/presence")
     public UserPresenceMessage updatePresence(@DestinationVariable String noteId,
@@ -96,7 +131,7 @@ public class NoteWebSocketController {
             throw new IllegalArgumentException("Authorization token is required");
         }
 
-        assertHasAccess(noteId, userId);
+        assertHasAccess(noteId, userId, headerAccessor);
 
         logger.debug("User {} is updating presence in note {}: {}", userId, noteId,
                 message.isJoining() ? "joining" : "leaving");
@@ -108,8 +143,12 @@ public class NoteWebSocketController {
             sessionService.addUserToNote(noteId, userId);
             UserResponse user = userService.getUserInfo(userId);
             message.setUserName(user != null ? user.getEmail() : "Unknown");
+            if (message.getOtVersion() != null) {
+                acknowledge(noteId, userId, sessionIdOf(headerAccessor), message.getOtVersion());
+            }
         } else {
             sessionService.removeUserFromNote(noteId, userId);
+            releaseSession(noteId, userId, sessionIdOf(headerAccessor));
         }
 
         return message;
@@ -128,7 +167,7 @@ public class NoteWebSocketController {
             throw new IllegalArgumentException("Authorization token is required");
         }
 
-        assertHasAccess(noteId, userId);
+        assertHasAccess(noteId, userId, headerAccessor);
 
         logger.debug("User {} is updating typing status in note {}", userId, noteId);
 
@@ -151,12 +190,25 @@ public class NoteWebSocketController {
 
         logger.debug("User {} is requesting initial state for note {}", userId, noteId);
 
+        String sessionId = sessionIdOf(headerAccessor);
+        if (clusterRouter.forwardIfRemote(OTCommand.of("state", noteId, userId, sessionId, 0, null))) {
+            return;
+        }
+        sendNoteState(noteId, userId, sessionId);
+    }
+
+    /**
+     * Sends the note's state to the user and registers {@code sessionId} at
+     * the OT version it carries, so history the session may still need is
+     * kept even if it only ever reads.
+     */
+    private void sendNoteState(String noteId, String userId, String sessionId) {
         NoteDTO note = noteService.getNoteById(noteId, userId);
         if (note == null) {
             ErrorMessage error = new ErrorMessage();
             error.setErrorCode("PERMISSION_DENIED");
             error.setErrorMessage("You don't have permission to access this note");
-            messagingTemplate.convertAndSendToUser(userId, USER_ERRORS_QUEUE, error);
+            clusterRouter.convertAndSendToUser(userId, USER_ERRORS_QUEUE, error);
             return;
         }
 
@@ -168,58 +220,65 @@ public class NoteWebSocketController {
         Set<String> activeUserIds = sessionService.getUsersViewingNote(noteId);
         logger.info("Active users for note {}: {}", noteId, activeUserIds);
 
+        List<String> collaboratorIds = new java.util.ArrayList<>(noteService.getNoteCollaborators(noteId, userId));
+        if (!collaboratorIds.contains(note.getOwnerId())) {
+            collaboratorIds.add(note.getOwnerId());
+        }
+
+        // One batched lookup for everyone in the payload instead of one per user.
+        Set<String> profileIds = new java.util.LinkedHashSet<>(activeUserIds);
+        profileIds.addAll(collaboratorIds);
+        Map<String, UserResponse> profiles;
+        try {
+            profiles = userService.getUserInfos(profileIds);
+        } catch (Exception e) {
+            logger.error("Failed to get user info for note {}", noteId, e);
+            profiles = Map.of();
+        }
+
         Map<String, NoteStateMessage.UserInfo> activeUsers = new HashMap<>();
         for (String activeUserId : activeUserIds) {
-            try {
-                UserResponse userResponse = userService.getUserInfo(activeUserId);
-                NoteStateMessage.UserInfo userInfo = new NoteStateMessage.UserInfo();
-                userInfo.setUserId(activeUserId);
-                userInfo.setEmail(userResponse != null ? userResponse.getEmail() : null);
-                userInfo.setDisplayName(userResponse != null ? userResponse.getDisplayName() : null);
-                activeUsers.put(activeUserId, userInfo);
-            } catch (Exception e) {
-                logger.error("Failed to get user info for {}", activeUserId, e);
-            }
+            activeUsers.put(activeUserId, toUserInfo(activeUserId, profiles.get(activeUserId)));
         }
 
         NoteStateMessage stateMessage = new NoteStateMessage();
         stateMessage.setNoteId(noteId);
         stateMessage.setTitle(note.getTitle());
-        stateMessage.setContent(note.getContent());
         stateMessage.setVersionNumber(note.getVersion() != null ? note.getVersion() : 0);
-        stateMessage.setOtVersion(otAuthorityService.getVersion(noteId));
+        // Prefer the server-side document so content and otVersion always match;
+        // fall back to the saved content when the OT session has no document.
+        otAuthorityService.snapshot(noteId).ifPresentOrElse(snapshot -> {
+            stateMessage.setContent(snapshot.html());
+            stateMessage.setOtVersion(snapshot.version());
+            stateMessage.setServerPersisted(writeBehindFlusher.isEnabled());
+        }, () -> {
+            stateMessage.setContent(note.getContent());
+            stateMessage.setOtVersion(otAuthorityService.getVersion(noteId));
+        });
         stateMessage.setActiveUsers(activeUsers);
+        otAuthorityService.acknowledge(noteId, sessionId, stateMessage.getOtVersion());
 
-        List<String> collaboratorIds = new java.util.ArrayList<>(noteService.getNoteCollaborators(noteId, userId));
-        if (!collaboratorIds.contains(note.getOwnerId())) {
-            collaboratorIds.add(note.getOwnerId());
-        }
         Map<String, NoteStateMessage.UserInfo> collaborators = new HashMap<>();
         for (String collabId : collaboratorIds) {
-            if (activeUsers.containsKey(collabId)) {
-                collaborators.put(collabId, activeUsers.get(collabId));
-                continue;
-            }
-
-            try {
-                UserResponse userResponse = userService.getUserInfo(collabId);
-                NoteStateMessage.UserInfo userInfo = new NoteStateMessage.UserInfo();
-                userInfo.setUserId(collabId);
-                userInfo.setEmail(userResponse != null ? userResponse.getEmail() : null);
-                userInfo.setDisplayName(userResponse != null ? userResponse.getDisplayName() : null);
-                collaborators.put(collabId, userInfo);
-            } catch (Exception e) {
-                logger.error("Failed to get collaborator info for {}", collabId, e);
-            }
+            NoteStateMessage.UserInfo active = activeUsers.get(collabId);
+            collaborators.put(collabId, active != null ? active : toUserInfo(collabId, profiles.get(collabId)));
         }
         stateMessage.setCollaborators(collaborators);
 
-        messagingTemplate.convertAndSendToUser(userId,
+        clusterRouter.convertAndSendToUser(userId,
                 USER_NOTE_QUEUE_PREFIX + noteId + "/state", stateMessage);
         logger.debug("Sent initial state for note {} to user {} (otVersion={})",
                 noteId, userId, stateMessage.getOtVersion());
     }
 
+    private static NoteStateMessage.UserInfo toUserInfo(String userId, UserResponse userResponse) {
+        NoteStateMessage.UserInfo userInfo = new NoteStateMessage.UserInfo();
+        userInfo.setUserId(userId);
+        userInfo.setEmail(userResponse != null ? userResponse.getEmail() : null);
+        userInfo.setDisplayName(userResponse != null ? userResponse.getDisplayName() : null);
+        return userInfo;
+    }
+
     /**
      * OT step submission endpoint (prosemirror-collab protocol).
      *
@@ -227,7 +286,9 @@ public class NoteWebSocketController {
      * client can advance their local document via {@code receiveTransaction}.
      *
      * On catch-up: sends the missing steps only to the submitting user so the
-     * client can rebase its pending steps and retry.
+     * client can rebase its pending steps and retry, or the current document
+     * when that is the smaller payload and the connection negotiated the
+     * {@code snapshot} capability.
      */
     @MessageMapping("/notes/{noteId}/ot-submit")
     public void submitOTSteps(@DestinationVariable String noteId,
@@ -241,44 +302,151 @@ public class NoteWebSocketController {
             return;
         }
 
-        assertHasAccess(noteId, userId);
+        assertHasAccess(noteId, userId, headerAccessor);
 
         // Always use the server-resolved userId, never trust the client body.
-        var result = otAuthorityService.submitSteps(
-                noteId, message.getVersion(), message.getSteps(), userId);
-
-        switch (result) {
-            case Accepted(int newVersion, var steps, var ignoredClientId) -> {
-                OTStepsBroadcastMessage broadcast = new OTStepsBroadcastMessage();
-                broadcast.setVersion(newVersion);
-                broadcast.setSteps(steps);
-                broadcast.setClientId(userId);
-                messagingTemplate.convertAndSend("/topic/notes/" + noteId + "/ot", broadcast);
-                logger.debug("OT accepted {} step(s) for note {} → version {}",
-                        steps.size(), noteId, newVersion);
-            }
-            case CatchUp(int serverVersion, var missing) -> {
-                OTCatchUpMessage catchUpMsg = new OTCatchUpMessage();
-                catchUpMsg.setVersion(serverVersion);
-                catchUpMsg.setSteps(missing.stream()
-                        .map(e -> new OTCatchUpMessage.StepWithClient(e.step(), e.clientId()))
-                        .toList());
-                messagingTemplate.convertAndSendToUser(
-                        userId, USER_NOTE_QUEUE_PREFIX + noteId + "/ot-catchup", catchUpMsg);
-                logger.debug("OT catch-up sent to user {} for note {} ({} missing steps)",
-                        userId, noteId, missing.size());
+        String sessionId = sessionIdOf(headerAccessor);
+        OTCapabilities capabilities = capabilitiesOf(headerAccessor);
+        if (clusterRouter.forwardIfRemote(OTCommand.of("submit", noteId, userId, sessionId,
+                message.getVersion(), message.getSteps(), capabilities))) {
+            return;
+        }
+        applySubmittedSteps(noteId, userId, sessionId, capabilities, message.getVersion(), message.getSteps());
+    }
+
+    private void applySubmittedSteps(String noteId, String userId, String sessionId, OTCapabilities capabilities,
+            int version, List<Map<String, Object>> submittedSteps) {
+        submissionExecutor.submit(noteId, new Submission(version, submittedSteps, userId, sessionId, capabilities));
+    }
+
+    /**
+     * OT acknowledgement endpoint: the client reports the version it has
+     * applied, so history it no longer needs can be dropped. Editors ack with
+     * every submission; viewers that never submit send this after applying
+     * broadcasts instead.
+     */
+    @MessageMapping("/notes/{noteId}/ot-ack")
+    public void acknowledgeOTVersion(@DestinationVariable String noteId,
+            OTAckMessage message,
+            @Header(value = "Authorization", required = false) String token,
+            SimpMessageHeaderAccessor headerAccessor) {
+
+        String userId = resolveUserId(token, headerAccessor);
+        if (userId == null)
+            return;
+
+        assertHasAccess(noteId, userId, headerAccessor);
+
+        acknowledge(noteId, userId, sessionIdOf(headerAccessor), message.getVersion());
+    }
+
+    /** Records a session's applied version on whichever node sequences the note. */
+    private void acknowledge(String noteId, String userId, String sessionId, int version) {
+        if (!clusterRouter.forwardIfRemote(OTCommand.of("ack", noteId, userId, sessionId, version, null))) {
+            otAuthorityService.acknowledge(noteId, sessionId, version);
+        }
+    }
+
+    /** Forgets a session that left the note, on whichever node sequences it. */
+    private void releaseSession(String noteId, String userId, String sessionId) {
+        if (!clusterRouter.forwardIfRemote(OTCommand.of("release", noteId, userId, sessionId, 0, null))) {
+            releaseOwnedSession(noteId, sessionId);
+        }
+    }
+
+    /**
+     * Forgets a session on the node that sequences the note and, once nobody
+     * is left viewing it, hands the note's OT state to the memory manager so
+     * the resident copy is the one that gets evicted.
+     */
+    private void releaseOwnedSession(String noteId, String sessionId) {
+        otAuthorityService.releaseSession(noteId, sessionId);
+        if (sessionService.getActiveUserCount(noteId) == 0) {
+            otMemoryManager.noteReleased(noteId);
+        }
+    }
+
+    /**
+     * Publishes the results of one batch of submissions. Consecutive accepted
+     * submissions from the same user go out as a single broadcast, so a burst
+     * drained from the note's mailbox costs one message instead of one each;
+     * the coalescer may further merge them with other batches in its window.
+     */
+    private void publishSubmitResults(String noteId, List<Submission> submissions, List<OTSubmitResult> results) {
+        OTStepsBroadcastMessage pending = null;
+        List<String> pendingSteps = null;
+        for (int i = 0; i < results.size(); i++) {
+            String userId = submissions.get(i).clientId();
+            switch (results.get(i)) {
+                case Accepted(int newVersion, var steps, var ignoredClientId) -> {
+                    if (pending != null && !userId.equals(pending.getClientId())) {
+                        broadcastCoalescer.publish(noteId, pending);
+                        pending = null;
+                    }
+                    if (pending == null) {
+                        pending = new OTStepsBroadcastMessage();
+                        pending.setClientId(userId);
+                        pendingSteps = new ArrayList<>();
+                        pending.setSteps(pendingSteps);
+                    }
+                    pending.setVersion(newVersion);
+                    pendingSteps.addAll(steps);
+                }
+                case CatchUp(int serverVersion, var missing) -> {
+                    flushBroadcasts(noteId, pending);
+                    pending = null;
+                    sendCatchUp(noteId, userId, serverVersion, missing);
+                    logger.debug("OT catch-up sent to user {} for note {} ({} missing steps)",
+                            userId, noteId, missing.size());
+                }
+                case SnapshotCatchUp snapshot -> {
+                    flushBroadcasts(noteId, pending);
+                    pending = null;
+                    sendSnapshot(noteId, userId, snapshot);
+                }
+                case Resubmitted(int serverVersion) -> logger.debug(
+                        "Ignored resubmission of rebased steps from user {} for note {} at version {}",
+                        userId, noteId, serverVersion);
+                default -> logger.warn("OT submit error for note {} user {}: {}", noteId, userId, results.get(i));
             }
-            default -> logger.warn("OT submit error for note {} user {}: {}", noteId, userId, result);
         }
+        if (pending != null) {
+            broadcastCoalescer.publish(noteId, pending);
+        }
+    }
+
+    /**
+     * Sends every accepted step not yet broadcast, so that a catch-up about to
+     * go out is not followed by a broadcast of steps it already carries.
+     */
+    private void flushBroadcasts(String noteId, OTStepsBroadcastMessage pending) {
+        if (pending != null) {
+            broadcastCoalescer.publish(noteId, pending);
+        }
+        broadcastCoalescer.flush(noteId);
+    }
 
+    private void broadcastSteps(String noteId, OTStepsBroadcastMessage broadcast, boolean grouped) {
+        clusterRouter.convertAndSend("/topic/notes/" + noteId + "/ot"
+                + (grouped ? OTBroadcastCoalescer.GROUPED_SUFFIX : ""), broadcast);
+        logger.debug("OT accepted {} step(s) for note {} → version {}",
+                broadcast.stepCount(), noteId, broadcast.getVersion());
     }
 
     /**
      * OT resync endpoint: client requests full step history since a given version.
      *
      * Used when reconnecting or when the catch-up path returns no steps (server
-     * restarted and lost in-memory history). An empty step list in the response
-     * signals the client to re-bootstrap from the REST snapshot.
+     * restarted and lost in-memory history). If the connection negotiated the
+     * {@code snapshot} capability, the owner answers with an
+     * {@link OTSnapshotMessage} instead when the document is smaller than the
+     * missing steps. An empty step list in the response signals the client to
+     * re-bootstrap from the REST snapshot.
+     *
+     * A node that does not own the note answers from the shared step journal
+     * when it can, and only forwards to the owner otherwise. With broadcast
+     * coalescing on it always forwards: the journal may hold steps still in
+     * the owner's open window, which would then reach the client twice.
      */
     @MessageMapping("/notes/{noteId}/ot-resync")
     public void resyncOTSteps(@DestinationVariable String noteId,
@@ -290,15 +458,71 @@ public class NoteWebSocketController {
         if (userId == null)
             return;
 
-        assertHasAccess(noteId, userId);
+        assertHasAccess(noteId, userId, headerAccessor);
 
-        var missing = otAuthorityService.stepsSince(noteId, message.getVersion());
+        int sinceVersion = message.getVersion();
+        if (!clusterRouter.isLocal(noteId) && !broadcastCoalescer.isEnabled()) {
+            var journaled = otAuthorityService.journaledStepsSince(noteId, sinceVersion);
+            if (journaled.isPresent()) {
+                sendCatchUp(noteId, userId, sinceVersion + journaled.get().size(), journaled.get());
+                return;
+            }
+        }
+        String sessionId = sessionIdOf(headerAccessor);
+        OTCapabilities capabilities = capabilitiesOf(headerAccessor);
+        if (clusterRouter.forwardIfRemote(
+                OTCommand.of("resync", noteId, userId, sessionId, sinceVersion, null, capabilities))) {
+            return;
+        }
+        sendCatchUp(noteId, userId, sessionId, capabilities, sinceVersion);
+    }
+
+    private void sendCatchUp(String noteId, String userId, String sessionId, OTCapabilities capabilities,
+            int sinceVersion) {
+        broadcastCoalescer.flush(noteId);
+        otAuthorityService.acknowledge(noteId, sessionId, sinceVersion);
+        switch (otAuthorityService.catchUp(noteId, sinceVersion, capabilities)) {
+            case CatchUp(int serverVersion, var missing) -> sendCatchUp(noteId, userId, serverVersion, missing);
+            case SnapshotCatchUp snapshot -> sendSnapshot(noteId, userId, snapshot);
+            default -> {
+            }
+        }
+    }
+
+    private void sendSnapshot(String noteId, String userId, SnapshotCatchUp snapshot) {
+        OTSnapshotMessage snapshotMsg = new OTSnapshotMessage();
+        snapshotMsg.setVersion(snapshot.serverVersion());
+        snapshotMsg.setContent(snapshot.html());
+        clusterRouter.convertAndSendToUser(
+                userId, USER_NOTE_QUEUE_PREFIX + noteId + "/ot-snapshot", snapshotMsg);
+        logger.debug("OT snapshot catch-up sent to user {} for note {} at version {}",
+                userId, noteId, snapshot.serverVersion());
+    }
+
+    private void sendCatchUp(String noteId, String userId, int serverVersion, List<StepEntry> missing) {
         OTCatchUpMessage catchUpMsg = new OTCatchUpMessage();
-        catchUpMsg.setVersion(otAuthorityService.getVersion(noteId));
+        catchUpMsg.setVersion(serverVersion);
         catchUpMsg.setSteps(missing.stream()
-                .map(e -> new OTCatchUpMessage.StepWithClient(e.step(), e.clientId()))
+                .map(e -> new OTCatchUpMessage.StepWithClient(e.stepJson(), e.clientId(), e.span()))
                 .toList());
-        messagingTemplate.convertAndSendToUser(
+        clusterRouter.convertAndSendToUser(
                 userId, USER_NOTE_QUEUE_PREFIX + noteId + "/ot-catchup", catchUpMsg);
     }
+
+    /**
+     * Executes an OT request another node forwarded because this node owns the
+     * note. Authentication and access checks already ran on the receiving node.
+     */
+    private void handleForwardedCommand(OTCommand command) {
+        switch (command.type()) {
+            case "submit" -> applySubmittedSteps(command.noteId(), command.userId(), command.sessionId(),
+                    command.negotiated(), command.version(), command.steps());
+            case "resync" -> sendCatchUp(command.noteId(), command.userId(), command.sessionId(),
+                    command.negotiated(), command.version());
+            case "state" -> sendNoteState(command.noteId(), command.userId(), command.sessionId());
+            case "ack" -> otAuthorityService.acknowledge(command.noteId(), command.sessionId(), command.version());
+            case "release" -> releaseOwnedSession(command.noteId(), command.sessionId());
+            default -> logger.warn("Ignoring unknown forwarded OT command {}", command.type());
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package com.collabnotes.collabnotes.websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * Opt-in CBOR framing for OT traffic on {@code /ws-notes}.
+ *
+ * A client that sends {@code ot-format: cbor} on CONNECT receives the OT
+ * frames ({@code /topic/notes/{id}/ot} or {@code ot-grouped}, and its
+ * {@code ot-catchup} and {@code ot-snapshot} queues) as binary WebSocket frames with a CBOR body.
+ * They carry {@code content-type: application/octet-stream}, the only type
+ * Spring's STOMP handler sends as a binary frame, and {@code ot-format: cbor}.
+ * Every other frame, and every client that did not opt in, stays JSON.
+ *
+ * Frames are re-encoded per session on the outbound channel by copying the
+ * JSON tokens into CBOR, so step JSON kept as text by the authority becomes
+ * structured CBOR rather than an embedded string. The broker hands every
+ * subscriber the same payload, so the last conversion is reused across a
+ * fan-out. Clients may also send OT submissions as CBOR with
+ * {@code content-type: application/cbor}; see {@link CborMessageConverter}.
+ */
+@Component
+public class OTBinaryFraming implements ChannelInterceptor {
+
+    public static final String FORMAT_HEADER = "ot-format";
+    public static final String CBOR = "cbor";
+
+    private static final Logger logger = LoggerFactory.getLogger(OTBinaryFraming.class);
+    private static final Pattern OT_DESTINATION = Pattern.compile(".*/notes/[^/]+/ot(-grouped|-catchup|-snapshot)?");
+
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = CBORMapper.builder().build();
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+    private volatile Encoded last = new Encoded(null, null);
+
+    public OTBinaryFraming(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isCbor(String sessionId) {
+        return sessionId != null && cborSessions.contains(sessionId);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        SimpMessageType type = accessor.getMessageType();
+        String sessionId = accessor.getSessionId();
+        if (type == SimpMessageType.CONNECT) {
+            if (sessionId != null && CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(FORMAT_HEADER))) {
+                cborSessions.add(sessionId);
+            }
+            return message;
+        }
+        if (type == SimpMessageType.DISCONNECT) {
+            if (sessionId != null) {
+                cborSessions.remove(sessionId);
+            }
+            return message;
+        }
+        if (type != SimpMessageType.MESSAGE || !isCbor(sessionId)
+                || !(message.getPayload() instanceof byte[] json) || !isOTDestination(accessor)) {
+            return message;
+        }
+        try {
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            accessor.setNativeHeader(FORMAT_HEADER, CBOR);
+            return MessageBuilder.createMessage(toCbor(json), accessor.getMessageHeaders());
+        } catch (RuntimeException e) {
+            logger.warn("Sending JSON OT frame to session {}: CBOR encoding failed: {}", sessionId, e.getMessage());
+            return message;
+        }
+    }
+
+    private static boolean isOTDestination(SimpMessageHeaderAccessor accessor) {
+        // User queues arrive under their resolved, per-session name; match the one the client subscribed to.
+        Object original = accessor.getHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        String destination = original instanceof String s ? s : accessor.getDestination();
+        return destination != null && OT_DESTINATION.matcher(destination).matches();
+    }
+
+    byte[] toCbor(byte[] json) {
+        Encoded cached = last;
+        if (cached.json() == json) {
+            return cached.cbor();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = objectMapper.createParser(json);
+                JsonGenerator generator = cborMapper.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        byte[] cbor = out.toByteArray();
+        last = new Encoded(json, cbor);
+        return cbor;
+    }
+
+    private record Encoded(byte[] json, byte[] cbor) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.collabnotes.collabnotes.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.collabnotes.collabnotes.websocket.message.OTStepsBroadcastMessage;
+import com.collabnotes.collabnotes.websocket.message.OTStepsBroadcastMessage.StepGroup;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends accepted-step broadcasts either straight away or, with
+ * {@code app.ot.broadcast.coalesce-ms > 0}, coalesced per note.
+ *
+ * In coalescing mode the first broadcast for a quiet note opens a window of
+ * {@code coalesce-ms}; everything accepted for that note until it closes goes
+ * out together. Plain subscribers get one frame per run of a single
+ * submitter's steps, in the original {@code steps}/{@code clientId} shape.
+ * Connections that negotiated the {@code groups} capability are subscribed to
+ * the grouped destination instead (see {@link WebSocketConfig}) and get the
+ * whole window as one frame, which carries {@code groups} when it spans
+ * several submitters. Windows close on a single timer thread, so a note's
+ * frames still leave in version order.
+ */
+@Component
+public class OTBroadcastCoalescer {
+
+    /** Delivers one broadcast frame for a note, to its plain or its grouped destination. */
+    @FunctionalInterface
+    public interface Publisher {
+        void publish(String noteId, OTStepsBroadcastMessage message, boolean grouped);
+    }
+
+    /** Appended to {@code /topic/notes/{id}/ot} for subscribers that take grouped frames. */
+    public static final String GROUPED_SUFFIX = "-grouped";
+
+    private static final Logger logger = LoggerFactory.getLogger(OTBroadcastCoalescer.class);
+
+    private final long windowMs;
+    private final Consumer<Runnable> timer;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private volatile Publisher publisher = (noteId, message, grouped) -> {
+    };
+
+    @Autowired
+    public OTBroadcastCoalescer(@Value("${app.ot.broadcast.coalesce-ms:0}") long windowMs) {
+        this(windowMs, windowMs > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ot-broadcast-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null);
+    }
+
+    private OTBroadcastCoalescer(long windowMs, ScheduledExecutorService scheduler) {
+        this.windowMs = windowMs;
+        this.scheduler = scheduler;
+        this.timer = scheduler == null ? Runnable::run
+                : task -> scheduler.schedule(task, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    OTBroadcastCoalescer(long windowMs, Consumer<Runnable> timer) {
+        this.windowMs = windowMs;
+        this.scheduler = null;
+        this.timer = timer;
+    }
+
+    /** Coalescer that publishes every broadcast immediately. */
+    public static OTBroadcastCoalescer immediate() {
+        return new OTBroadcastCoalescer(0, Runnable::run);
+    }
+
+    public boolean isEnabled() {
+        return windowMs > 0;
+    }
+
+    /** Registers the callback that delivers frames. */
+    public void setPublisher(Publisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Publishes a single-submitter broadcast, or adds it to the note's open
+     * window when coalescing is enabled.
+     */
+    public void publish(String noteId, OTStepsBroadcastMessage message) {
+        if (!isEnabled()) {
+            publisher.publish(noteId, message, false);
+            return;
+        }
+        boolean[] opened = new boolean[1];
+        windows.compute(noteId, (id, window) -> {
+            if (window == null) {
+                window = new Window();
+                opened[0] = true;
+            }
+            window.add(message);
+            return window;
+        });
+        if (opened[0]) {
+            timer.accept(() -> flush(noteId));
+        }
+    }
+
+    /**
+     * Closes the note's window, if one is open, and publishes its frames.
+     * Called ahead of a catch-up, so steps it carries are not broadcast again
+     * after it.
+     */
+    public void flush(String noteId) {
+        Window window = windows.remove(noteId);
+        if (window == null) {
+            return;
+        }
+        try {
+            for (OTStepsBroadcastMessage message : window.toMessages()) {
+                publisher.publish(noteId, message, false);
+            }
+            publisher.publish(noteId, window.toGroupedMessage(), true);
+        } catch (RuntimeException e) {
+            logger.error("Failed to publish coalesced OT broadcast for note {}", noteId, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (String noteId : List.copyOf(windows.keySet())) {
+            flush(noteId);
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private static final class Window {
+        private final List<StepGroup> groups = new ArrayList<>();
+        /** The version each group ends at. */
+        private final List<Integer> versions = new ArrayList<>();
+        private int version;
+
+        void add(OTStepsBroadcastMessage message) {
+            StepGroup last = groups.isEmpty() ? null : groups.get(groups.size() - 1);
+            if (last != null && last.getClientId().equals(message.getClientId())) {
+                last.stepList().addAll(message.stepList());
+                versions.set(versions.size() - 1, message.getVersion());
+            } else {
+                groups.add(new StepGroup(message.getClientId(), new ArrayList<>(message.stepList())));
+                versions.add(message.getVersion());
+            }
+            version = message.getVersion();
+        }
+
+        /** One plain frame per group. */
+        List<OTStepsBroadcastMessage> toMessages() {
+            List<OTStepsBroadcastMessage> messages = new ArrayList<>(groups.size());
+            for (int i = 0; i < groups.size(); i++) {
+                OTStepsBroadcastMessage message = new OTStepsBroadcastMessage();
+                message.setVersion(versions.get(i));
+                message.setClientId(groups.get(i).getClientId());
+                message.setSteps(groups.get(i).stepList());
+                messages.add(message);
+            }
+            return messages;
+        }
+
+        /** The whole window as one frame, with {@code groups} if it has several. */
+        OTStepsBroadcastMessage toGroupedMessage() {
+            OTStepsBroadcastMessage message = new OTStepsBroadcastMessage();
+            message.setVersion(version);
+            if (groups.size() == 1) {
+                message.setClientId(groups.get(0).getClientId());
+                message.setSteps(groups.get(0).stepList());
+            } else {
+                message.setGroups(groups);
+            }
+            return message;
+        }
+    }
+}
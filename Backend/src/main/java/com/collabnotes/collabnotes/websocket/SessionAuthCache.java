@@ -0,0 +1,154 @@
+package com.collabnotes.collabnotes.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import com.collabnotes.collabnotes.service.NoteService;
+import com.collabnotes.collabnotes.util.JwtUtil;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Per-STOMP-session authorization context, kept in the session attributes.
+ *
+ * The token is parsed once, at CONNECT or the first frame that carries it;
+ * later frames with the same token reuse the user id without verifying the
+ * signature again, until the token's {@code exp} passes and it is verified
+ * (and rejected) anew. Each session also remembers its per-note access
+ * decisions for {@code app.ws.auth.access-ttl-ms}, so a stream of OT frames
+ * costs no JWT parsing and no {@code hasNoteAccess} round trip. Collaborator
+ * changes and note deletions, published on the {@code note-updates} Redis
+ * channel by every node, bump the note's generation and so invalidate every
+ * cached decision for it at once.
+ */
+@Component
+public class SessionAuthCache implements MessageListener {
+
+    static final String CONTEXT_ATTRIBUTE = "authContext";
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionAuthCache.class);
+
+    private final JwtUtil jwtUtil;
+    private final NoteService noteService;
+    private final ObjectMapper objectMapper;
+    private final long accessTtlMs;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Long> noteGenerations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SessionAuthCache(JwtUtil jwtUtil, @Lazy NoteService noteService, ObjectMapper objectMapper,
+            @Value("${app.ws.auth.access-ttl-ms:60000}") long accessTtlMs) {
+        this(jwtUtil, noteService, objectMapper, accessTtlMs, System::currentTimeMillis);
+    }
+
+    SessionAuthCache(JwtUtil jwtUtil, NoteService noteService, ObjectMapper objectMapper, long accessTtlMs,
+            LongSupplier clock) {
+        this.jwtUtil = jwtUtil;
+        this.noteService = noteService;
+        this.objectMapper = objectMapper;
+        this.accessTtlMs = accessTtlMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the user the token belongs to, parsing it only if this session
+     * has not seen it yet. Null for a missing or invalid token; callers fall
+     * back to the user stored on the session, as before.
+     */
+    public String resolveUserId(Map<String, Object> sessionAttributes, String token) {
+        Context context = context(sessionAttributes);
+        if (context == null) {
+            return jwtUtil.extractUserId(token);
+        }
+        if (token != null && token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        Identity identity = context.identity;
+        if (identity != null && identity.token().equals(token) && clock.getAsLong() < identity.expiresAt()) {
+            return identity.userId();
+        }
+        String userId = jwtUtil.extractUserId(token);
+        if (userId != null) {
+            Long expiresAt = jwtUtil.extractExpiration(token);
+            context.identity = new Identity(token, userId, expiresAt != null ? expiresAt : Long.MAX_VALUE);
+        } else if (identity != null && identity.token().equals(token)) {
+            context.identity = null;
+        }
+        return userId;
+    }
+
+    /**
+     * Whether the user may access the note, from the session's cached
+     * decision while it is fresh and the note's collaborators have not
+     * changed since.
+     */
+    public boolean hasNoteAccess(Map<String, Object> sessionAttributes, String noteId, String userId) {
+        Context context = context(sessionAttributes);
+        if (context == null) {
+            return noteService.hasNoteAccess(noteId, userId);
+        }
+        long now = clock.getAsLong();
+        // Read before the check, so an invalidation racing it leaves the stored decision stale.
+        long generation = noteGenerations.getOrDefault(noteId, 0L);
+        Decision cached = context.access.get(noteId);
+        if (cached != null && cached.userId().equals(userId) && cached.generation() == generation
+                && now < cached.expiresAt()) {
+            return cached.allowed();
+        }
+        boolean allowed = noteService.hasNoteAccess(noteId, userId);
+        context.access.put(noteId, new Decision(userId, allowed, now + accessTtlMs, generation));
+        return allowed;
+    }
+
+    /** Drops every session's cached access decision for the note. */
+    public void invalidateNote(String noteId) {
+        noteGenerations.merge(noteId, 1L, Long::sum);
+    }
+
+    /** Handles {@code note-updates} events published by {@code NoteEventPublisher}. */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String json = new String(message.getBody(), StandardCharsets.UTF_8);
+            Map<?, ?> event = objectMapper.readValue(json, Map.class);
+            if (event.get("noteId") instanceof String noteId && event.get("action") instanceof String action
+                    && (action.startsWith("collaborator_") || action.equals("delete"))) {
+                invalidateNote(noteId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring unreadable note update event: {}", e.getMessage());
+        }
+    }
+
+    private static Context context(Map<String, Object> sessionAttributes) {
+        if (sessionAttributes == null) {
+            return null;
+        }
+        return (Context) sessionAttributes.computeIfAbsent(CONTEXT_ATTRIBUTE, key -> new Context());
+    }
+
+    private static final class Context {
+        volatile Identity identity;
+        final ConcurrentHashMap<String, Decision> access = new ConcurrentHashMap<>();
+    }
+
+    private record Identity(String token, String userId, long expiresAt) {
+    }
+
+    private record Decision(String userId, boolean allowed, long expiresAt, long generation) {
+    }
+}
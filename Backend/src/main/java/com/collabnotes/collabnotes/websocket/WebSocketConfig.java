@@ -1,9 +1,13 @@
 package com.collabnotes.collabnotes.websocket;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.messaging.simp.stomp.StompCommand;
@@ -13,20 +17,44 @@ import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 
-import com.collabnotes.collabnotes.service.NoteService;
-import com.collabnotes.collabnotes.util.JwtUtil;
+import com.collabnotes.collabnotes.service.ot.OTCapabilities;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
-    private final JwtUtil jwtUtil;
-    private final NoteService noteService;
+    private final SessionAuthCache authCache;
+    private final OTBinaryFraming binaryFraming;
+    private final WebSocketFrameMetrics frameMetrics;
+    private final OTBroadcastCoalescer broadcastCoalescer;
+
+    @Value("${app.ws.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${app.ws.transport.message-size-limit:262144}")
+    private int messageSizeLimit;
+
+    @Value("${app.ws.transport.send-buffer-size-limit:1048576}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.ws.transport.send-time-limit-ms:15000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.ws.transport.max-text-buffer-bytes:262144}")
+    private int maxTextBufferBytes;
+
+    @Value("${app.ws.transport.max-binary-buffer-bytes:262144}")
+    private int maxBinaryBufferBytes;
 
-    public WebSocketConfig(JwtUtil jwtUtil, @Lazy NoteService noteService) {
-        this.jwtUtil = jwtUtil;
-        this.noteService = noteService;
+    public WebSocketConfig(SessionAuthCache authCache, OTBinaryFraming binaryFraming,
+            WebSocketFrameMetrics frameMetrics, OTBroadcastCoalescer broadcastCoalescer) {
+        this.authCache = authCache;
+        this.binaryFraming = binaryFraming;
+        this.frameMetrics = frameMetrics;
+        this.broadcastCoalescer = broadcastCoalescer;
     }
 
     @Override
@@ -38,26 +66,61 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws-notes")
+                .setHandshakeHandler(new CompressionHandshakeHandler(compressionEnabled))
                 .setAllowedOriginPatterns("*");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Inbound STOMP messages may span several WebSocket frames up to this size.
+        registration.setMessageSizeLimit(messageSizeLimit);
+        // A slow client is disconnected once this much is queued, or a send takes this long.
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit);
+        registration.setSendTimeLimit(sendTimeLimitMs);
+    }
+
+    /** Container buffers; a whole inbound message has to fit, or the container closes the session. */
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxTextBufferBytes);
+        container.setMaxBinaryMessageBufferSize(maxBinaryBufferBytes);
+        return container;
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // CBOR submissions from clients that opted into binary OT framing; JSON defaults still apply.
+        messageConverters.add(new CborMessageConverter());
+        return true;
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Measure after re-encoding so sizes are what actually goes out.
+        registration.interceptors(binaryFraming, frameMetrics);
+    }
+
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(binaryFraming);
         registration.interceptors(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
                 StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
                 if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
-                    String token = accessor.getFirstNativeHeader("Authorization");
-                    if (token != null && token.startsWith("Bearer ")) {
-                        token = token.substring(7);
-                    }
-                    String userId = jwtUtil.extractUserId(token);
+                    // Validated once here; later frames with the same token reuse the result.
+                    String userId = authCache.resolveUserId(accessor.getSessionAttributes(),
+                            accessor.getFirstNativeHeader("Authorization"));
                     if (userId != null && accessor.getSessionAttributes() != null) {
                         final String principalName = userId;
                         accessor.getSessionAttributes().put("userId", userId);
                         accessor.setUser(() -> principalName);
                     }
+                    if (accessor.getSessionAttributes() != null) {
+                        accessor.getSessionAttributes().put(OTCapabilities.SESSION_ATTRIBUTE,
+                                OTCapabilities.parse(accessor.getFirstNativeHeader(OTCapabilities.HEADER)));
+                    }
                 }
 
                 if (accessor != null && StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
@@ -73,8 +136,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                             if (token == null) {
                                 throw new IllegalArgumentException("Missing or invalid authorization for subscription");
                             }
-                            String userId = jwtUtil.extractUserId(token);
-                            if (userId == null || !noteService.hasNoteAccess(noteId, userId)) {
+                            String userId = authCache.resolveUserId(accessor.getSessionAttributes(), token);
+                            if (userId == null
+                                    || !authCache.hasNoteAccess(accessor.getSessionAttributes(), noteId, userId)) {
                                 throw new IllegalArgumentException("Unauthorized to subscribe to this note");
                             }
                             if (accessor.getSessionAttributes() != null) {
@@ -89,6 +153,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                                 }
                                 noteIds.add(noteId);
                             }
+                            if (broadcastCoalescer.isEnabled() && parts.length == 5 && "ot".equals(parts[4])
+                                    && OTCapabilities.of(accessor.getSessionAttributes()).groups()) {
+                                // Coalesced windows reach this connection as one frame with groups.
+                                accessor.setDestination(destination + OTBroadcastCoalescer.GROUPED_SUFFIX);
+                            }
                         }
                     }
                 }
@@ -99,12 +168,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                         String[] parts = destination.split("/");
                         if (parts.length >= 4) {
                             String noteId = parts[3];
-                            String token = accessor.getFirstNativeHeader("Authorization");
-                            if (token != null && token.startsWith("Bearer ")) {
-                                token = token.substring(7);
-                            }
-
-                            String userId = jwtUtil.extractUserId(token);
+                            String userId = authCache.resolveUserId(accessor.getSessionAttributes(),
+                                    accessor.getFirstNativeHeader("Authorization"));
                             if (userId == null && accessor.getSessionAttributes() != null) {
                                 Object sessionUserId = accessor.getSessionAttributes().get("userId");
                                 if (sessionUserId instanceof String sessionUserIdStr && !sessionUserIdStr.isBlank()) {
@@ -112,7 +177,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                                 }
                             }
 
-                            if (userId == null || !noteService.hasNoteAccess(noteId, userId)) {
+                            if (userId == null
+                                    || !authCache.hasNoteAccess(accessor.getSessionAttributes(), noteId, userId)) {
                                 throw new IllegalArgumentException("Unauthorized to send updates to this note");
                             }
 
@@ -14,6 +14,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
 import com.collabnotes.collabnotes.service.NoteSessionService;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService;
+import com.collabnotes.collabnotes.service.ot.OTClusterRouter;
+import com.collabnotes.collabnotes.service.ot.OTClusterRouter.OTCommand;
+import com.collabnotes.collabnotes.service.ot.OTMemoryManager;
 import com.collabnotes.collabnotes.websocket.message.UserPresenceMessage;
 
 @Component
@@ -21,10 +25,17 @@ public class WebSocketEventListener {
     private static final Logger logger = LoggerFactory.getLogger(WebSocketEventListener.class);
     private final NoteSessionService sessionService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final OTMemoryManager otMemoryManager;
+    private final OTAuthorityService otAuthorityService;
+    private final OTClusterRouter clusterRouter;
 
-    public WebSocketEventListener(NoteSessionService sessionService, SimpMessagingTemplate messagingTemplate) {
+    public WebSocketEventListener(NoteSessionService sessionService, SimpMessagingTemplate messagingTemplate,
+            OTMemoryManager otMemoryManager, OTAuthorityService otAuthorityService, OTClusterRouter clusterRouter) {
         this.sessionService = sessionService;
         this.messagingTemplate = messagingTemplate;
+        this.otMemoryManager = otMemoryManager;
+        this.otAuthorityService = otAuthorityService;
+        this.clusterRouter = clusterRouter;
     }
 
     @EventListener
@@ -43,6 +54,15 @@ public class WebSocketEventListener {
             for (String noteId : noteIds) {
                 // Remove from session tracking
                 sessionService.removeUserFromNote(noteId, userId);
+                // Acks and the OT state itself live on the node that sequences
+                // the note; when that is another node it releases both there.
+                if (!clusterRouter.forwardIfRemote(
+                        OTCommand.of("release", noteId, userId, event.getSessionId(), 0, null))) {
+                    otAuthorityService.releaseSession(noteId, event.getSessionId());
+                    if (sessionService.getActiveUserCount(noteId) == 0) {
+                        otMemoryManager.noteReleased(noteId);
+                    }
+                }
                 
                 // Broadcast departure
                 UserPresenceMessage presenceMessage = new UserPresenceMessage();
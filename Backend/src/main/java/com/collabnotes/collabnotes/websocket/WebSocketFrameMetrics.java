@@ -0,0 +1,79 @@
+package com.collabnotes.collabnotes.websocket;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import com.collabnotes.collabnotes.metrics.MetricsService;
+
+/**
+ * Records the size of every outbound STOMP message body on {@code /ws-notes}
+ * as {@code app.distribution.ws.frame.bytes}, tagged with the destination
+ * kind (its last path segment, e.g. {@code ot}, {@code state},
+ * {@code presence}) so note ids do not become tags.
+ *
+ * permessage-deflate runs inside the servlet container, out of sight of the
+ * application, so the compression ratio ({@code ws.frame.compression_ratio},
+ * uncompressed over compressed) is estimated by deflating one body in every
+ * {@code compression-sample-every} with the same raw-deflate settings.
+ */
+@Component
+public class WebSocketFrameMetrics implements ChannelInterceptor {
+
+    private final MetricsService metricsService;
+    private final int sampleEvery;
+    private final AtomicLong frames = new AtomicLong();
+
+    public WebSocketFrameMetrics(MetricsService metricsService,
+            @Value("${app.ws.metrics.compression-sample-every:50}") int sampleEvery) {
+        this.metricsService = metricsService;
+        this.sampleEvery = sampleEvery;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || !(message.getPayload() instanceof byte[] body)) {
+            return message;
+        }
+        String kind = destinationKind(accessor);
+        metricsService.recordDistribution("ws.frame.bytes", body.length, "destination", kind);
+        if (sampleEvery > 0 && body.length > 0 && frames.incrementAndGet() % sampleEvery == 0) {
+            metricsService.recordDistribution("ws.frame.compression_ratio",
+                    (double) body.length / deflatedSize(body), "destination", kind);
+        }
+        return message;
+    }
+
+    static String destinationKind(SimpMessageHeaderAccessor accessor) {
+        Object original = accessor.getHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        String destination = original instanceof String s ? s : accessor.getDestination();
+        if (destination == null) {
+            return "none";
+        }
+        return destination.substring(destination.lastIndexOf('/') + 1);
+    }
+
+    static int deflatedSize(byte[] body) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, body.length / 4)];
+            int size = 0;
+            while (!deflater.finished()) {
+                size += deflater.deflate(buffer);
+            }
+            return Math.max(1, size);
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -12,6 +12,11 @@ public class NoteStateMessage extends BaseWebSocketMessage {
     private long versionNumber;
     /** Current OT step version (prosemirror-collab authority version). */
     private int otVersion;
+    /**
+     * True when the server persists content from accepted OT steps, so the
+     * editor's REST content save is only a safety net.
+     */
+    private boolean serverPersisted;
     private Map<String, UserInfo> activeUsers;
     private Map<String, UserInfo> collaborators;
 
@@ -60,6 +65,14 @@ public class NoteStateMessage extends BaseWebSocketMessage {
         this.otVersion = otVersion;
     }
 
+    public boolean isServerPersisted() {
+        return serverPersisted;
+    }
+
+    public void setServerPersisted(boolean serverPersisted) {
+        this.serverPersisted = serverPersisted;
+    }
+
     public Map<String, UserInfo> getActiveUsers() {
         return activeUsers;
     }
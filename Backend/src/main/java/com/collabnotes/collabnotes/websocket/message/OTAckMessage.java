@@ -0,0 +1,14 @@
+package com.collabnotes.collabnotes.websocket.message;
+
+/**
+ * Client → Server: acknowledge the OT version the client has applied, so the
+ * server can drop history no connected session still needs.
+ */
+public class OTAckMessage {
+
+    /** The OT version the client's document is currently at. */
+    private int version;
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+}
@@ -1,7 +1,9 @@
 package com.collabnotes.collabnotes.websocket.message;
 
 import java.util.List;
-import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 
 /**
  * Server → Client: catch-up payload sent when the client is behind.
@@ -12,6 +14,11 @@ import java.util.Map;
  *
  * If {@code steps} is empty, the client is so far behind that it must
  * re-bootstrap from the REST snapshot at {@code version}.
+ *
+ * A step with a {@code span} is a compacted run of typing that stands for
+ * that many versions; the client advances its version by the span rather
+ * than by one. Only connections that listed {@code span} in their
+ * {@code ot-capabilities} CONNECT header are sent such steps.
  */
 public class OTCatchUpMessage {
 
@@ -31,20 +38,32 @@ public class OTCatchUpMessage {
     public List<StepWithClient> getSteps() { return steps; }
     public void setSteps(List<StepWithClient> steps) { this.steps = steps; }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class StepWithClient {
-        private Map<String, Object> step;
+        /** The step serialized to JSON text; written into the frame verbatim. */
+        private String step;
         private String clientId;
+        /** Versions covered by a compacted step; absent for an ordinary step. */
+        private Integer span;
 
         public StepWithClient() {}
-        public StepWithClient(Map<String, Object> step, String clientId) {
+        public StepWithClient(String step, String clientId) {
             this.step = step;
             this.clientId = clientId;
         }
+        public StepWithClient(String step, String clientId, int span) {
+            this(step, clientId);
+            this.span = span > 1 ? span : null;
+        }
 
-        public Map<String, Object> getStep() { return step; }
-        public void setStep(Map<String, Object> step) { this.step = step; }
+        @JsonRawValue
+        public String getStep() { return step; }
+        public void setStep(String step) { this.step = step; }
 
         public String getClientId() { return clientId; }
         public void setClientId(String clientId) { this.clientId = clientId; }
+
+        public Integer getSpan() { return span; }
+        public void setSpan(Integer span) { this.span = span; }
     }
 }
@@ -0,0 +1,30 @@
+package com.collabnotes.collabnotes.websocket.message;
+
+/**
+ * Server → Client: catch-up by snapshot, sent instead of an
+ * {@link OTCatchUpMessage} when the current document is smaller than the
+ * steps the client is missing (or those steps are no longer held).
+ *
+ * Only sent to connections that listed {@code snapshot} in their
+ * {@code ot-capabilities} CONNECT header; everyone else gets the steps.
+ *
+ * Sent to {@code /user/queue/notes/{noteId}/ot-snapshot}. The client replaces
+ * its document with {@code content} and resets its collab version to
+ * {@code version}. Unconfirmed local steps cannot be rebased over a snapshot;
+ * the client re-applies those that still fit the new document and drops the
+ * rest.
+ */
+public class OTSnapshotMessage {
+
+    /** Server version the content corresponds to. */
+    private int version;
+
+    /** The document as HTML, in the form the editor's {@code getHTML()} produces. */
+    private String content;
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+}
@@ -1,7 +1,9 @@
 package com.collabnotes.collabnotes.websocket.message;
 
 import java.util.List;
-import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 
 /**
  * Server → All subscribers: broadcast of accepted steps.
@@ -12,24 +14,80 @@ import java.util.Map;
  *
  * The submitting client uses {@code clientId} to detect its own ack and
  * release any inflight steps from the pending queue.
+ *
+ * When broadcast coalescing is enabled and the connection listed
+ * {@code groups} in its {@code ot-capabilities} CONNECT header, batches from
+ * several submitters accepted within one window arrive as a single message:
+ * {@code steps} and {@code clientId} are absent and {@code groups} lists each
+ * submitter's steps in order, ending at {@code version}. Other connections
+ * get one plain message per submitter. A client that already holds some
+ * of those versions (e.g. from a catch-up) skips the steps it has.
+ *
+ * Steps are held as the JSON text the authority serialized on acceptance and
+ * are written into the frame verbatim.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class OTStepsBroadcastMessage {
 
     /** New server version after applying these steps. */
     private int version;
 
-    /** The accepted step JSON objects. */
-    private List<Map<String, Object>> steps;
+    /** The accepted steps, each serialized to JSON text. */
+    private List<String> steps;
 
     /** ID of the user who submitted these steps. */
     private String clientId;
 
+    /** Per-submitter step groups of a coalesced broadcast, oldest first. */
+    private List<StepGroup> groups;
+
     public int getVersion() { return version; }
     public void setVersion(int version) { this.version = version; }
 
-    public List<Map<String, Object>> getSteps() { return steps; }
-    public void setSteps(List<Map<String, Object>> steps) { this.steps = steps; }
+    /** The steps as a JSON array, spliced in without re-serializing them. */
+    @JsonRawValue
+    public String getSteps() { return steps == null ? null : toJsonArray(steps); }
+    public void setSteps(List<String> steps) { this.steps = steps; }
+
+    /** Number of steps carried, across all groups. */
+    public int stepCount() {
+        if (groups == null) {
+            return steps.size();
+        }
+        return groups.stream().mapToInt(group -> group.steps.size()).sum();
+    }
 
     public String getClientId() { return clientId; }
     public void setClientId(String clientId) { this.clientId = clientId; }
+
+    public List<StepGroup> getGroups() { return groups; }
+    public void setGroups(List<StepGroup> groups) { this.groups = groups; }
+
+    /** The accepted step JSON, without the array wrapping. */
+    public List<String> stepList() { return steps; }
+
+    private static String toJsonArray(List<String> steps) {
+        return "[" + String.join(",", steps) + "]";
+    }
+
+    public static class StepGroup {
+        private String clientId;
+        private List<String> steps;
+
+        public StepGroup() {}
+        public StepGroup(String clientId, List<String> steps) {
+            this.clientId = clientId;
+            this.steps = steps;
+        }
+
+        public String getClientId() { return clientId; }
+        public void setClientId(String clientId) { this.clientId = clientId; }
+
+        @JsonRawValue
+        public String getSteps() { return toJsonArray(steps); }
+        public void setSteps(List<String> steps) { this.steps = steps; }
+
+        /** The step JSON, without the array wrapping. */
+        public List<String> stepList() { return steps; }
+    }
 }
@@ -7,6 +7,11 @@ public class UserPresenceMessage extends BaseWebSocketMessage {
     private boolean isJoining;
     private String userName;
     private String userColor;
+    /**
+     * OT version the sender's editor has applied, if it reports one. Lets the
+     * server drop step history every connected client already has.
+     */
+    private Integer otVersion;
 
     public UserPresenceMessage() {
         super();
@@ -36,4 +41,12 @@ public class UserPresenceMessage extends BaseWebSocketMessage {
     public void setUserColor(String userColor) {
         this.userColor = userColor;
     }
+
+    public Integer getOtVersion() {
+        return otVersion;
+    }
+
+    public void setOtVersion(Integer otVersion) {
+        this.otVersion = otVersion;
+    }
 }
\ No newline at end of file
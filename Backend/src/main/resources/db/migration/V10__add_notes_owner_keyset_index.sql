@@ -0,0 +1,9 @@
+-- Keyset pagination for owned note summaries.
+-- V10__add_notes_owner_keyset_index.sql
+-- Owned and shared summaries are paged by separate queries; with owner_id
+-- leading, a page of one user's own notes is an index range scan in
+-- (updated_at, id) order. It also serves every lookup by owner_id alone, so
+-- idx_notes_owner_id is dropped.
+
+CREATE INDEX IF NOT EXISTS idx_notes_owner_updated_at_id ON notes(owner_id, updated_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_notes_owner_id;
@@ -0,0 +1,7 @@
+-- Drop the covering index added in V8.
+-- V11__drop_notes_owner_covering_index.sql
+-- notes_pkey already serves the hasNoteAccess probe by id, and large content
+-- is TOASTed, so the heap row it visits for owner_id is small. The extra
+-- index on the same key only added write cost to every note insert.
+
+DROP INDEX IF EXISTS idx_notes_id_owner;
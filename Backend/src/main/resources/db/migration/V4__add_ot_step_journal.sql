@@ -0,0 +1,14 @@
+-- Durable journal of accepted OT steps (app.ot.journal.type=jdbc).
+-- V4__add_ot_step_journal.sql
+-- One row per step; the authority reloads the newest rows for a note on first
+-- access after a restart so catch-up keeps working across deploys.
+
+CREATE TABLE IF NOT EXISTS ot_steps (
+    note_id VARCHAR(255) NOT NULL,
+    version INTEGER NOT NULL,
+    client_id VARCHAR(255),
+    step JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_ot_steps PRIMARY KEY (note_id, version),
+    CONSTRAINT fk_ot_steps_note FOREIGN KEY (note_id) REFERENCES notes(id) ON DELETE CASCADE
+);
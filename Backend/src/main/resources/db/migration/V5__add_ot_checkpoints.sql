@@ -0,0 +1,13 @@
+-- Newest OT checkpoint per note (app.ot.journal.type=jdbc).
+-- V5__add_ot_checkpoints.sql
+-- The document as HTML at a known OT version; a restore starts from it and
+-- replays only the ot_steps rows after it, and older rows can be deleted.
+
+CREATE TABLE IF NOT EXISTS ot_checkpoints (
+    note_id VARCHAR(255) NOT NULL,
+    version INTEGER NOT NULL,
+    content TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_ot_checkpoints PRIMARY KEY (note_id),
+    CONSTRAINT fk_ot_checkpoints_note FOREIGN KEY (note_id) REFERENCES notes(id) ON DELETE CASCADE
+);
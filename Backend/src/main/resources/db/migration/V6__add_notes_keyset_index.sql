@@ -0,0 +1,14 @@
+-- Keyset pagination for note summaries.
+-- V6__add_notes_keyset_index.sql
+-- Summaries are listed newest first by (updated_at, id); the composite index
+-- replaces idx_notes_updated_at so each page is an index range scan. Rows
+-- without updated_at would fall outside every keyset page, so it becomes
+-- mandatory (the application always sets it).
+
+UPDATE notes SET updated_at = created_at WHERE updated_at IS NULL;
+
+ALTER TABLE notes ALTER COLUMN updated_at SET DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE notes ALTER COLUMN updated_at SET NOT NULL;
+
+DROP INDEX IF EXISTS idx_notes_updated_at;
+CREATE INDEX IF NOT EXISTS idx_notes_updated_at_id ON notes(updated_at DESC, id DESC);
@@ -0,0 +1,17 @@
+-- Tombstones for the note changes feed.
+-- V7__add_note_tombstones.sql
+-- One row per user who lost a note, through deletion or revoked access, so
+-- GET /api/notes/changes can tell a reconnecting client what to drop. No
+-- foreign key to notes: the note is usually gone. Rows older than
+-- app.notes.changes.tombstone-retention-days are purged; a client holding an
+-- older cursor gets a full listing instead.
+
+CREATE TABLE IF NOT EXISTS note_tombstones (
+    id BIGSERIAL PRIMARY KEY,
+    note_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    removed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_note_tombstones_user_removed_at ON note_tombstones(user_id, removed_at);
+CREATE INDEX IF NOT EXISTS idx_note_tombstones_removed_at ON note_tombstones(removed_at);
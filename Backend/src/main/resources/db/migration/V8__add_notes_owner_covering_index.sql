@@ -0,0 +1,7 @@
+-- Covering index for note access checks.
+-- V8__add_notes_owner_covering_index.sql
+-- hasNoteAccess reads only notes.owner_id by id; with owner_id in the index
+-- the probe is index-only and never touches the heap row with its TEXT columns.
+-- Collaborator checks already use uk_note_user (note_id, user_id).
+
+CREATE INDEX IF NOT EXISTS idx_notes_id_owner ON notes(id) INCLUDE (owner_id);
@@ -0,0 +1,8 @@
+-- OT lease fencing.
+-- V9__add_note_ot_epoch.sql
+-- The newest OT lease epoch that claimed each note. A node that takes over a
+-- note's lease raises it; content write-behind and journal rows are only
+-- accepted from a holder whose epoch is at least this value, so a paused
+-- former owner cannot overwrite the new owner's work.
+
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS ot_epoch BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,69 @@
+package com.collabnotes.collabnotes.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.collabnotes.collabnotes.metrics.MetricsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheManagerTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+
+    private ConcurrentMapCacheManager shared;
+    private TwoTierCacheManager manager;
+
+    @BeforeEach
+    void setUp() {
+        shared = new ConcurrentMapCacheManager("noteAccessCache");
+        manager = new TwoTierCacheManager(shared, redis, new MetricsService(new SimpleMeterRegistry()),
+                100, Duration.ofMinutes(1));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void getCache_wrapsEachSharedCacheOnce() {
+        Cache cache = manager.getCache("noteAccessCache");
+
+        assertSame(cache, manager.getCache("noteAccessCache"));
+        assertEquals("noteAccessCache", cache.getName());
+    }
+
+    @Test
+    void invalidationFromAnotherNode_dropsL1ButOwnIsIgnored() {
+        Cache cache = manager.getCache("noteAccessCache");
+        cache.put("note-1-user-1", true);
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redis).convertAndSend(eq(TwoTierCacheManager.INVALIDATION_CHANNEL), published.capture());
+        shared.getCache("noteAccessCache").put("note-1-user-1", false);
+
+        manager.onMessage(message(published.getValue()), null);
+        assertEquals(true, cache.get("note-1-user-1").get());
+
+        manager.onMessage(message("other-node\tnoteAccessCache\tnote-1-user-1"), null);
+        assertEquals(false, cache.get("note-1-user-1").get());
+    }
+}
@@ -0,0 +1,122 @@
+package com.collabnotes.collabnotes.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import com.collabnotes.collabnotes.metrics.MetricsService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TwoTierCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private ConcurrentMapCache shared;
+    private final List<String> published = new ArrayList<>();
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        shared = new ConcurrentMapCache("userCache");
+        cache = new TwoTierCache(Caffeine.newBuilder().maximumSize(100).build(), shared,
+                published::add, new MetricsService(meterRegistry));
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.counter("app.counter.cache.gets",
+                "cache", "userCache", "tier", tier, "result", result).count();
+    }
+
+    @Test
+    void sharedHit_isCopiedIntoL1AndServedLocallyAfterwards() {
+        shared.put("user-1", "Alice");
+
+        assertEquals("Alice", cache.get("user-1").get());
+        shared.evict("user-1");
+        assertEquals("Alice", cache.get("user-1").get());
+
+        assertEquals(1, gets("l1", "hit"));
+        assertEquals(1, gets("l1", "miss"));
+        assertEquals(1, gets("l2", "hit"));
+        assertEquals(0.5, meterRegistry.get("app.gauge.cache.hit_ratio")
+                .tag("cache", "userCache").tag("tier", "l1").gauge().value());
+    }
+
+    @Test
+    void cachedNull_isAHitInBothTiers() {
+        shared.put("missing", null);
+
+        assertNull(cache.get("missing").get());
+        assertNull(cache.get("missing").get());
+
+        assertEquals(1, gets("l1", "hit"));
+    }
+
+    @Test
+    void writesAndEvictions_goThroughAndAreAnnounced() {
+        cache.put("user-1", "Alice");
+        assertEquals("Alice", shared.get("user-1").get());
+
+        cache.evict("user-1");
+        assertNull(shared.get("user-1"));
+        assertNull(cache.get("user-1"));
+
+        cache.clear();
+        assertEquals(List.of("user-1", "user-1"), published.subList(0, 2));
+        assertNull(published.get(2));
+    }
+
+    @Test
+    void fills_populateBothTiersWithoutAnnouncing() {
+        cache.putIfAbsent("user-1", "Alice");
+        assertEquals("Bob", cache.get("user-2", () -> "Bob"));
+        shared.evict("user-1");
+
+        assertEquals("Alice", cache.get("user-1").get());
+        assertEquals("Bob", shared.get("user-2").get());
+        assertEquals(List.of(), published);
+    }
+
+    @Test
+    void fill_keepsAValueAlreadyInL2() {
+        shared.put("user-1", "Alice");
+
+        assertEquals("Alice", cache.get("user-1", () -> "stale"));
+        assertEquals("Alice", cache.putIfAbsent("user-1", "stale").get());
+        assertEquals("Alice", shared.get("user-1").get());
+    }
+
+    @Test
+    void invalidateLocal_dropsOnlyTheL1Copy() {
+        cache.put("user-1", "Alice");
+        shared.put("user-1", "Alice B.");
+
+        assertEquals("Alice", cache.get("user-1").get());
+        cache.invalidateLocal("user-1");
+        assertEquals("Alice B.", cache.get("user-1").get());
+    }
+
+    @Test
+    void getAll_servesL1HitsAndReadsTheRestFromL2() {
+        cache.put("user-1", "Alice");
+        shared.put("user-2", "Bob");
+
+        var found = cache.getAll(List.of("user-1", "user-2", "user-3"));
+
+        assertEquals(List.of("user-1", "user-2"), List.copyOf(found.keySet()));
+        assertEquals("Bob", found.get("user-2").get());
+        assertEquals(1, gets("l1", "hit"));
+        assertEquals(1, gets("l2", "miss"));
+        shared.evict("user-2");
+        assertEquals("Bob", cache.get("user-2").get());
+    }
+}
@@ -27,7 +27,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.collabnotes.collabnotes.dto.NoteChangesDTO;
 import com.collabnotes.collabnotes.dto.NoteDTO;
+import com.collabnotes.collabnotes.dto.NoteSummaryDTO;
+import com.collabnotes.collabnotes.dto.NoteSummaryPage;
 import com.collabnotes.collabnotes.exception.GlobalExceptionHandler;
 import com.collabnotes.collabnotes.service.NoteService;
 
@@ -156,6 +159,40 @@ class NoteControllerTest {
         }
     }
 
+    @Nested
+    class GetNoteChanges {
+
+        @Test
+        void returnsUpsertsRemovalsAndNextCursor() throws Exception {
+            when(noteService.getNoteChanges("test-user", "abc")).thenReturn(new NoteChangesDTO(
+                    List.of(createSampleNote("note-1", "test-user")), List.of("note-2"), "next", false));
+
+            mockMvc.perform(withAuth(get("/api/notes/changes").param("since", "abc")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.upserted[0].id").value("note-1"))
+                    .andExpect(jsonPath("$.removed[0]").value("note-2"))
+                    .andExpect(jsonPath("$.cursor").value("next"))
+                    .andExpect(jsonPath("$.fullResync").value(false));
+        }
+    }
+
+    @Nested
+    class GetNoteSummaries {
+
+        @Test
+        void returnsPageWithoutContent() throws Exception {
+            NoteSummaryDTO summary = new NoteSummaryDTO("note-1", "Title", "test-user", new Date(), new Date(), 1L);
+            when(noteService.getNoteSummaries("test-user", "abc", 20))
+                    .thenReturn(new NoteSummaryPage(List.of(summary), "next"));
+
+            mockMvc.perform(withAuth(get("/api/notes/summaries").param("cursor", "abc").param("limit", "20")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].id").value("note-1"))
+                    .andExpect(jsonPath("$.items[0].content").doesNotExist())
+                    .andExpect(jsonPath("$.nextCursor").value("next"));
+        }
+    }
+
     @Nested
     class UpdateNote {
 
@@ -8,6 +8,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -199,6 +202,33 @@ class UserControllerTest {
         }
     }
 
+    @Nested
+    class LookupUsersById {
+
+        @Test
+        void whenAuthenticated_returnsFoundUsersInOneLookup() throws Exception {
+            when(userService.getUserInfos(List.of("user-1", "missing")))
+                    .thenReturn(Map.of("user-1", new UserResponse("user-1", "u@e.com", "User", null)));
+
+            mockMvc.perform(withAuth(post("/api/users/lookup/batch"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"userIds\":[\"user-1\",\"missing\"]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].userId").value("user-1"));
+        }
+
+        @Test
+        void whenTooManyIds_returns400() throws Exception {
+            String ids = String.join(",", Collections.nCopies(201, "\"u\""));
+
+            mockMvc.perform(withAuth(post("/api/users/lookup/batch"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"userIds\":[" + ids + "]}"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @Nested
     class GetCurrentUser {
 
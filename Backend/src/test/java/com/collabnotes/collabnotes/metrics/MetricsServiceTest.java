@@ -53,6 +53,16 @@ class MetricsServiceTest {
         assertEquals(2.0, meterRegistry.counter("app.counter.test.counter").count());
     }
 
+    @Test
+    void recordDistribution_recordsSummaryWithTags() {
+        metricsService.recordDistribution("test.size", 100, "destination", "ot");
+        metricsService.recordDistribution("test.size", 300, "destination", "ot");
+
+        var summary = meterRegistry.summary("app.distribution.test.size", "destination", "ot");
+        assertEquals(2, summary.count());
+        assertEquals(400.0, summary.totalAmount());
+    }
+
     @Test
     void recordGauge_registersGaugeWithValue() {
         metricsService.recordGauge("test.gauge", 42.0);
@@ -60,6 +70,15 @@ class MetricsServiceTest {
         assertEquals(42.0, meterRegistry.get("app.gauge.test.gauge").gauge().value());
     }
 
+    @Test
+    void registerGauge_samplesTheCurrentValue() {
+        java.util.concurrent.atomic.AtomicLong value = new java.util.concurrent.atomic.AtomicLong(3);
+        metricsService.registerGauge("test.live", value::get);
+        value.set(7);
+
+        assertEquals(7.0, meterRegistry.get("app.gauge.test.live").gauge().value());
+    }
+
     @Test
     void recordUserActivity_registersGaugeWithNoteIdTag() {
         metricsService.recordUserActivity("note-1", 5);
@@ -32,6 +32,7 @@ import com.collabnotes.collabnotes.entity.User;
 import com.collabnotes.collabnotes.exception.ConflictException;
 import com.collabnotes.collabnotes.repository.CollaboratorRepository;
 import com.collabnotes.collabnotes.repository.NoteRepository;
+import com.collabnotes.collabnotes.repository.NoteTombstoneRepository;
 import com.collabnotes.collabnotes.repository.UserRepository;
 
 /**
@@ -50,6 +51,9 @@ class NoteServiceImplEdgeCaseTest {
     @Mock
     private CollaboratorRepository collaboratorRepository;
 
+    @Mock
+    private NoteTombstoneRepository noteTombstoneRepository;
+
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
@@ -70,7 +74,7 @@ class NoteServiceImplEdgeCaseTest {
     @BeforeEach
     void setUp() {
         noteService = new NoteServiceImpl(
-                noteRepository, userRepository, collaboratorRepository,
+                noteRepository, userRepository, collaboratorRepository, noteTombstoneRepository,
                 messagingTemplate, noteEventPublisher, cacheManager, selfProxy);
     }
 
@@ -424,7 +428,7 @@ class NoteServiceImplEdgeCaseTest {
 
         @Test
         void whenNoteNotFound_returnsFalse() {
-            when(noteRepository.findById("missing")).thenReturn(Optional.empty());
+            when(noteRepository.existsAccessibleBy("missing", "user-1")).thenReturn(false);
 
             assertFalse(noteService.hasNoteAccess("missing", "user-1"));
         }
@@ -4,32 +4,47 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
+import com.collabnotes.collabnotes.dto.NoteChangesDTO;
 import com.collabnotes.collabnotes.dto.NoteDTO;
+import com.collabnotes.collabnotes.dto.NoteSummaryDTO;
+import com.collabnotes.collabnotes.dto.NoteSummaryPage;
 import com.collabnotes.collabnotes.entity.Collaborator;
 import com.collabnotes.collabnotes.entity.Note;
+import com.collabnotes.collabnotes.entity.NoteTombstone;
 import com.collabnotes.collabnotes.entity.User;
 import com.collabnotes.collabnotes.repository.CollaboratorRepository;
+import com.collabnotes.collabnotes.repository.NoteCollaboratorId;
+import com.collabnotes.collabnotes.repository.NoteListing;
 import com.collabnotes.collabnotes.repository.NoteRepository;
+import com.collabnotes.collabnotes.repository.NoteTombstoneRepository;
+import com.collabnotes.collabnotes.repository.NoteSummary;
 import com.collabnotes.collabnotes.repository.UserRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +59,9 @@ class NoteServiceImplTest {
     @Mock
     private CollaboratorRepository collaboratorRepository;
 
+    @Mock
+    private NoteTombstoneRepository noteTombstoneRepository;
+
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
@@ -64,6 +82,7 @@ class NoteServiceImplTest {
                 noteRepository,
                 userRepository,
                 collaboratorRepository,
+                noteTombstoneRepository,
                 messagingTemplate,
                 noteEventPublisher,
             cacheManager,
@@ -116,17 +135,123 @@ class NoteServiceImplTest {
 
     @Test
     void getAllNotesByUser_mergesOwnerAndCollaboratorNotes() {
-        Note ownerNote = createNote("note-owner", "user-1");
-        Note sharedNote = createNote("note-shared", "other");
+        NoteListing sharedNote = listing("note-shared", "other");
+        NoteListing ownerNote = listing("note-owner", "user-1");
+
+        when(noteRepository.findListingsAccessibleBy("user-1")).thenReturn(List.of(sharedNote, ownerNote));
+        when(collaboratorRepository.findCollaboratorIdsByNoteIds(List.of("note-shared", "note-owner")))
+                .thenReturn(List.of(new NoteCollaboratorId("note-shared", "user-1"),
+                        new NoteCollaboratorId("note-owner", "c-1"), new NoteCollaboratorId("note-owner", "c-2")));
+
+        List<NoteDTO> results = noteService.getAllNotesByUser("user-1");
+
+        assertEquals(List.of("note-owner", "note-shared"), results.stream().map(NoteDTO::getId).toList());
+        assertEquals(List.of("c-1", "c-2"), results.get(0).getCollaboratorIds());
+        assertEquals(List.of("user-1"), results.get(1).getCollaboratorIds());
+    }
 
-        when(noteRepository.findByOwnerId("user-1")).thenReturn(List.of(ownerNote));
-        when(noteRepository.findByCollaboratorUserId("user-1")).thenReturn(List.of(sharedNote));
-        when(collaboratorRepository.findByNoteId("note-owner")).thenReturn(List.of());
-        when(collaboratorRepository.findByNoteId("note-shared")).thenReturn(List.of());
+    @Test
+    void getAllNotesByUser_callsEachBulkLookupOnceRegardlessOfNoteCount() {
+        List<NoteListing> listings = IntStream.range(0, 500)
+                .mapToObj(i -> listing("note-" + i, i % 2 == 0 ? "user-1" : "other"))
+                .toList();
+        when(noteRepository.findListingsAccessibleBy("user-1")).thenReturn(listings);
+        when(collaboratorRepository.findCollaboratorIdsByNoteIds(any())).thenReturn(List.of());
 
         List<NoteDTO> results = noteService.getAllNotesByUser("user-1");
 
-        assertEquals(2, results.size());
+        assertEquals(500, results.size());
+        verify(noteRepository).findListingsAccessibleBy("user-1");
+        verify(collaboratorRepository).findCollaboratorIdsByNoteIds(any());
+        verifyNoMoreInteractions(noteRepository, collaboratorRepository, userRepository);
+    }
+
+    @Test
+    void getAllNotesByUser_whenNoNotes_skipsCollaboratorQuery() {
+        when(noteRepository.findListingsAccessibleBy("user-1")).thenReturn(List.of());
+
+        assertTrue(noteService.getAllNotesByUser("user-1").isEmpty());
+        verifyNoMoreInteractions(collaboratorRepository);
+    }
+
+    @Test
+    void getNoteChanges_withoutCursor_returnsFullListAndCursor() {
+        when(noteRepository.findListingsAccessibleBy("user-1")).thenReturn(List.of(listing("note-1", "user-1")));
+        when(collaboratorRepository.findCollaboratorIdsByNoteIds(List.of("note-1"))).thenReturn(List.of());
+
+        NoteChangesDTO changes = noteService.getNoteChanges("user-1", null);
+
+        assertTrue(changes.isFullResync());
+        assertEquals(List.of("note-1"), changes.getUpserted().stream().map(NoteDTO::getId).toList());
+        assertNotNull(changes.getCursor());
+    }
+
+    @Test
+    void getNoteChanges_withCursor_returnsUpsertsAndTombstonesSinceThen() {
+        when(noteRepository.findListingsAccessibleBy("user-1")).thenReturn(List.of());
+        String cursor = noteService.getNoteChanges("user-1", null).getCursor();
+
+        when(noteRepository.findListingsAccessibleByUpdatedSince(eq("user-1"), any(LocalDateTime.class)))
+                .thenReturn(List.of(listing("note-2", "owner-2")));
+        when(collaboratorRepository.findCollaboratorIdsByNoteIds(List.of("note-2")))
+                .thenReturn(List.of(new NoteCollaboratorId("note-2", "user-1")));
+        // note-2 was unshared and shared again; note-3 was deleted.
+        when(noteTombstoneRepository.findNoteIdsRemovedSince(eq("user-1"), any(LocalDateTime.class)))
+                .thenReturn(List.of("note-2", "note-3"));
+
+        NoteChangesDTO changes = noteService.getNoteChanges("user-1", cursor);
+
+        assertFalse(changes.isFullResync());
+        assertEquals(List.of("note-2"), changes.getUpserted().stream().map(NoteDTO::getId).toList());
+        assertEquals(List.of("user-1"), changes.getUpserted().get(0).getCollaboratorIds());
+        assertEquals(List.of("note-3"), changes.getRemoved());
+    }
+
+    @Test
+    void getNoteChanges_whenCursorOlderThanTombstones_fallsBackToFullList() {
+        String stale = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                LocalDateTime.now().minusDays(31).toString().getBytes(StandardCharsets.UTF_8));
+        when(noteRepository.findListingsAccessibleBy("user-1")).thenReturn(List.of());
+
+        NoteChangesDTO changes = noteService.getNoteChanges("user-1", stale);
+
+        assertTrue(changes.isFullResync());
+        verify(noteTombstoneRepository, never()).findNoteIdsRemovedSince(any(), any());
+    }
+
+    @Test
+    void getNoteChanges_whenCursorIsGarbage_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> noteService.getNoteChanges("user-1", "%%%"));
+    }
+
+    @Test
+    void getNoteSummaries_pagesByUpdatedAtAndIdCursor() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 2, 3, 4, 5, 678_000);
+        when(noteRepository.findOwnedSummaries("user-1", Limit.of(3)))
+                .thenReturn(List.of(summary("note-3", now), summary("note-1", now.minusMinutes(2))));
+        when(noteRepository.findSharedSummaries("user-1", Limit.of(3)))
+                .thenReturn(List.of(summary("note-2", now.minusMinutes(1))));
+
+        NoteSummaryPage first = noteService.getNoteSummaries("user-1", null, 2);
+
+        assertEquals(List.of("note-3", "note-2"), first.getItems().stream().map(NoteSummaryDTO::getId).toList());
+        assertNotNull(first.getNextCursor());
+
+        when(noteRepository.findOwnedSummariesAfter("user-1", now.minusMinutes(1), "note-2", Limit.of(3)))
+                .thenReturn(List.of(summary("note-1", now.minusMinutes(2))));
+        when(noteRepository.findSharedSummariesAfter("user-1", now.minusMinutes(1), "note-2", Limit.of(3)))
+                .thenReturn(List.of());
+
+        NoteSummaryPage second = noteService.getNoteSummaries("user-1", first.getNextCursor(), 2);
+
+        assertEquals(List.of("note-1"), second.getItems().stream().map(NoteSummaryDTO::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getNoteSummaries_whenCursorIsGarbage_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> noteService.getNoteSummaries("user-1", "not-a-cursor", 10));
     }
 
     @Test
@@ -175,6 +300,22 @@ class NoteServiceImplTest {
 
         assertTrue(deleted);
         verify(noteRepository).delete(existing);
+        verify(noteEventPublisher).publishNoteUpdate("note-1", "owner-1", "delete");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteNote_leavesTombstonesForOwnerAndCollaborators() {
+        Note existing = createNote("note-1", "owner-1");
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(existing));
+        when(collaboratorRepository.findCollaboratorIdsByNoteIds(List.of("note-1")))
+                .thenReturn(List.of(new NoteCollaboratorId("note-1", "user-2")));
+
+        noteService.deleteNote("note-1", "owner-1");
+
+        ArgumentCaptor<List<NoteTombstone>> saved = ArgumentCaptor.forClass(List.class);
+        verify(noteTombstoneRepository).saveAll(saved.capture());
+        assertEquals(List.of("owner-1", "user-2"), saved.getValue().stream().map(NoteTombstone::getUserId).toList());
     }
 
     @Test
@@ -205,6 +346,7 @@ class NoteServiceImplTest {
 
         assertTrue(removed);
         verify(collaboratorRepository).deleteByNoteIdAndUserId("note-1", "user-2");
+        verify(noteTombstoneRepository).save(any(NoteTombstone.class));
         verify(noteEventPublisher).publishNoteUpdate("note-1", "owner-1", "collaborator_removed");
     }
 
@@ -220,14 +362,15 @@ class NoteServiceImplTest {
     }
 
     @Test
-    void hasNoteAccess_whenOwnerOrCollaborator_returnsTrue() {
-        Note note = createNote("note-1", "owner-1");
-        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
-        when(collaboratorRepository.existsByNoteIdAndUserId("note-1", "collab-1")).thenReturn(true);
+    void hasNoteAccess_usesOneExistsQueryWithoutLoadingTheNote() {
+        when(noteRepository.existsAccessibleBy("note-1", "owner-1")).thenReturn(true);
+        when(noteRepository.existsAccessibleBy("note-1", "collab-1")).thenReturn(true);
 
         assertTrue(noteService.hasNoteAccess("note-1", "owner-1"));
         assertTrue(noteService.hasNoteAccess("note-1", "collab-1"));
         assertFalse(noteService.hasNoteAccess("note-1", "other"));
+        verify(noteRepository, never()).findById(any(String.class));
+        verifyNoMoreInteractions(collaboratorRepository);
     }
 
     @Test
@@ -266,4 +409,13 @@ class NoteServiceImplTest {
         note.setUpdatedAt(LocalDateTime.now());
         return note;
     }
+
+    private static NoteListing listing(String id, String ownerId) {
+        return new NoteListing(id, "Title", "Content", ownerId, LocalDateTime.now().minusDays(1),
+                LocalDateTime.now(), 0L);
+    }
+
+    private static NoteSummary summary(String id, LocalDateTime updatedAt) {
+        return new NoteSummary(id, "Title", "user-1", updatedAt.minusDays(1), updatedAt, 0L);
+    }
 }
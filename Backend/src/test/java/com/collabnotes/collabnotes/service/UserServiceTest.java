@@ -6,9 +6,12 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +20,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.collabnotes.collabnotes.dto.AuthResponse;
@@ -37,11 +41,14 @@ class UserServiceTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    private ConcurrentMapCacheManager cacheManager;
+
     private UserService userService;
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userRepository, passwordEncoder, jwtUtil);
+        cacheManager = new ConcurrentMapCacheManager("userCache");
+        userService = new UserService(userRepository, passwordEncoder, jwtUtil, cacheManager);
     }
 
     @Test
@@ -159,4 +166,29 @@ class UserServiceTest {
         assertEquals("User Name", response.getDisplayName());
         assertEquals("https://example.com/avatar.png", response.getPhotoUrl());
     }
+
+    @Test
+    void getUserInfos_readsCachedUsersAndLoadsTheRestInOneQuery() {
+        UserResponse cached = new UserResponse("u-1", "one@example.com", "One", null);
+        cacheManager.getCache("userCache").put("u-1", cached);
+        when(userRepository.findAllById(List.of("u-3", "u-2")))
+                .thenReturn(List.of(new User("u-2", "two@example.com", "Two")));
+
+        Map<String, UserResponse> users = userService.getUserInfos(List.of("u-3", "u-1", "u-2", "u-1"));
+
+        assertEquals(List.of("u-1", "u-2"), List.copyOf(users.keySet()));
+        assertEquals("two@example.com", users.get("u-2").getEmail());
+        assertEquals("two@example.com",
+                cacheManager.getCache("userCache").get("u-2", UserResponse.class).getEmail());
+        assertNotNull(cacheManager.getCache("userCache").get("u-3"));
+    }
+
+    @Test
+    void getUserInfos_whenAllCached_skipsTheRepository() {
+        cacheManager.getCache("userCache").put("u-1", new UserResponse("u-1", "one@example.com", "One", null));
+
+        assertEquals(1, userService.getUserInfos(List.of("u-1")).size());
+
+        verify(userRepository, never()).findAllById(any());
+    }
 }
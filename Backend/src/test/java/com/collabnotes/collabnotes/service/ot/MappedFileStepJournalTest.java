@@ -0,0 +1,136 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+import com.collabnotes.collabnotes.service.ot.StepJournal.Checkpoint;
+
+
+class MappedFileStepJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private MappedFileStepJournal open(int maxSegments) {
+        return new MappedFileStepJournal(directory, SEGMENT_SIZE, maxSegments, 100);
+    }
+
+    private static List<StepEntry> batch(int from, int count, String clientId) {
+        List<StepEntry> entries = new ArrayList<>();
+        for (int v = from; v < from + count; v++) {
+            entries.add(new StepEntry(v, "{\"stepType\":\"replace\",\"from\":" + v + ",\"to\":" + v + "}", clientId));
+        }
+        return entries;
+    }
+
+    @Test
+    void readTail_afterReopen_returnsAppendedStepsInOrder() {
+        MappedFileStepJournal journal = open(4);
+        journal.append("note-1", batch(0, 3, "user-1"));
+        journal.append("note-2", batch(0, 2, "user-2"));
+        journal.append("note-1", batch(3, 2, "user-3"));
+        journal.close();
+
+        MappedFileStepJournal reopened = open(4);
+        List<StepEntry> tail = reopened.readTail("note-1", 10);
+
+        assertEquals(5, tail.size());
+        assertEquals(0, tail.get(0).stepVersion());
+        assertEquals(4, tail.get(4).stepVersion());
+        assertEquals("user-3", tail.get(4).clientId());
+        assertEquals("{\"stepType\":\"replace\",\"from\":4,\"to\":4}", tail.get(4).stepJson());
+        assertEquals(2, reopened.readTail("note-2", 10).size());
+    }
+
+    @Test
+    void readTail_respectsLimitAndReturnsNewestSteps() {
+        MappedFileStepJournal journal = open(4);
+        journal.append("note-1", batch(0, 10, "user-1"));
+
+        List<StepEntry> tail = journal.readTail("note-1", 3);
+
+        assertEquals(3, tail.size());
+        assertEquals(7, tail.get(0).stepVersion());
+    }
+
+    @Test
+    void append_afterReopen_continuesAtEndOfLastSegment() {
+        MappedFileStepJournal journal = open(4);
+        journal.append("note-1", batch(0, 2, "user-1"));
+        journal.close();
+
+        MappedFileStepJournal reopened = open(4);
+        reopened.append("note-1", batch(2, 2, "user-1"));
+        reopened.close();
+
+        List<StepEntry> tail = open(4).readTail("note-1", 10);
+        assertEquals(4, tail.size());
+        assertEquals(3, tail.get(3).stepVersion());
+    }
+
+    @Test
+    void rollingPastMaxSegments_dropsOldestStepsOnly() {
+        MappedFileStepJournal journal = open(2);
+        for (int v = 0; v < 200; v += 10) {
+            journal.append("note-1", batch(v, 10, "user-1"));
+        }
+
+        List<StepEntry> tail = journal.readTail("note-1", 100);
+
+        assertTrue(tail.size() < 100);
+        assertEquals(199, tail.get(tail.size() - 1).stepVersion());
+        for (int i = 1; i < tail.size(); i++) {
+            assertEquals(tail.get(i - 1).stepVersion() + 1, tail.get(i).stepVersion());
+        }
+    }
+
+    @Test
+    void deletingASegment_forgetsIndexEntriesThatPointedIntoIt() {
+        MappedFileStepJournal journal = open(2);
+        journal.append("note-old", batch(0, 3, "user-1"));
+        for (int v = 0; v < 200; v += 10) {
+            journal.append("note-1", batch(v, 10, "user-1"));
+        }
+
+        assertTrue(journal.readTail("note-old", 10).isEmpty());
+        assertEquals(1, journal.indexedNoteCount());
+    }
+
+    @Test
+    void segmentSizeOf2GiBOrMore_isRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MappedFileStepJournal(directory, 2048L * 1024 * 1024, 2, 100));
+    }
+
+    @Test
+    void readTail_unknownNote_returnsEmpty() {
+        assertTrue(open(2).readTail("missing", 10).isEmpty());
+    }
+
+    @Test
+    void latestCheckpoint_survivesReopenAndIgnoresOlderOnes() {
+        MappedFileStepJournal journal = open(4);
+        assertFalse(journal.latestCheckpoint("note-1").isPresent());
+        journal.saveCheckpoint("note-1", new Checkpoint(40, "<p>Caf\u00e9</p>"));
+        journal.saveCheckpoint("note-1", new Checkpoint(20, "<p>Older</p>"));
+        journal.close();
+
+        Checkpoint checkpoint = open(4).latestCheckpoint("note-1").orElseThrow();
+
+        assertEquals(40, checkpoint.version());
+        assertEquals("<p>Caf\u00e9</p>", checkpoint.html());
+        assertFalse(open(4).latestCheckpoint("note-2").isPresent());
+    }
+}
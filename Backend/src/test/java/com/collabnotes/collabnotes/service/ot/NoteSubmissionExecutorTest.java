@@ -0,0 +1,163 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Accepted;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.CatchUp;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.OTSubmitResult;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Submission;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class NoteSubmissionExecutorTest {
+
+    private OTAuthorityService authority;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final List<List<OTSubmitResult>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        authority = new OTAuthorityService(StepJournal.none(), NoteContentLoader.none(),
+                DocumentChangeListener.none(), JsonMapper.builder().build());
+    }
+
+    private static Submission submission(int version, String clientId) {
+        return new Submission(version,
+                List.of(Map.<String, Object>of("stepType", "replace", "from", 1, "to", 1)), clientId);
+    }
+
+    private NoteSubmissionExecutor mailboxExecutor(int maxBatch) {
+        NoteSubmissionExecutor executor = new NoteSubmissionExecutor(authority, true, maxBatch, tasks::add);
+        executor.setResultHandler((noteId, submissions, results) -> batches.add(results));
+        return executor;
+    }
+
+    @Test
+    void inline_handsResultsBackBeforeReturning() {
+        NoteSubmissionExecutor executor = NoteSubmissionExecutor.inline(authority);
+        executor.setResultHandler((noteId, submissions, results) -> batches.add(results));
+
+        executor.submit("note-1", submission(0, "user-1"));
+
+        assertEquals(1, batches.size());
+        assertInstanceOf(Accepted.class, batches.get(0).get(0));
+    }
+
+    @Test
+    void mailbox_queuedSubmissionsAreSequencedAsOneBatch() {
+        NoteSubmissionExecutor executor = mailboxExecutor(64);
+
+        executor.submit("note-1", submission(0, "user-1"));
+        executor.submit("note-1", submission(1, "user-1"));
+        executor.submit("note-1", submission(0, "user-2"));
+
+        assertEquals(1, tasks.size(), "one drainer per note");
+        assertTrue(batches.isEmpty(), "callers never sequence themselves");
+        tasks.poll().run();
+
+        assertEquals(1, batches.size());
+        List<OTSubmitResult> results = batches.get(0);
+        assertInstanceOf(Accepted.class, results.get(0));
+        assertEquals(2, ((Accepted) results.get(1)).newVersion());
+        assertEquals(2, ((CatchUp) results.get(2)).serverVersion());
+    }
+
+    @Test
+    void mailbox_splitsLargeBacklogsByMaxBatch() {
+        NoteSubmissionExecutor executor = mailboxExecutor(2);
+        for (int v = 0; v < 5; v++) {
+            executor.submit("note-1", submission(v, "user-1"));
+        }
+
+        tasks.poll().run();
+
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList());
+        assertEquals(5, authority.getVersion("note-1"));
+    }
+
+    @Test
+    void mailbox_notesDrainIndependently() {
+        NoteSubmissionExecutor executor = mailboxExecutor(64);
+
+        executor.submit("note-1", submission(0, "user-1"));
+        executor.submit("note-2", submission(0, "user-1"));
+
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    void mailbox_afterDrainingTheNextSubmissionStartsANewDrainer() {
+        NoteSubmissionExecutor executor = mailboxExecutor(64);
+        executor.submit("note-1", submission(0, "user-1"));
+        tasks.poll().run();
+
+        executor.submit("note-1", submission(1, "user-1"));
+
+        assertEquals(1, tasks.size());
+        tasks.poll().run();
+        assertEquals(2, authority.getVersion("note-1"));
+    }
+
+    @Test
+    void mailbox_isRemovedOnceItDrainsEmpty() {
+        NoteSubmissionExecutor executor = mailboxExecutor(64);
+        executor.submit("note-1", submission(0, "user-1"));
+        executor.submit("note-2", submission(0, "user-1"));
+        assertEquals(2, executor.mailboxCount());
+
+        tasks.poll().run();
+        tasks.poll().run();
+
+        assertEquals(0, executor.mailboxCount());
+    }
+
+    @Test
+    void mailbox_onVirtualThreads_answersEverySubmissionExactlyOnce() throws InterruptedException {
+        int writers = 8;
+        int perWriter = 50;
+        CountDownLatch done = new CountDownLatch(writers * perWriter);
+        AtomicInteger accepted = new AtomicInteger();
+        NoteSubmissionExecutor executor = new NoteSubmissionExecutor(authority, true, 64,
+                Executors.newVirtualThreadPerTaskExecutor());
+        executor.setResultHandler((noteId, submissions, results) -> {
+            for (OTSubmitResult result : results) {
+                if (result instanceof Accepted) {
+                    accepted.incrementAndGet();
+                }
+                done.countDown();
+            }
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            String clientId = "user-" + w;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    executor.submit("note-1", submission(0, clientId));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS), "every submission gets a result");
+        assertEquals(1, accepted.get(), "only the first submission at version 0 wins");
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,603 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Accepted;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.CatchUp;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.DocumentSnapshot;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.OTSubmitResult;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.SnapshotCatchUp;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Resubmitted;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Submission;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.SubmitError;
+import com.collabnotes.collabnotes.service.ot.StepJournal.Checkpoint;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class OTAuthorityServiceTest {
+
+    private OTAuthorityService authority;
+
+    @BeforeEach
+    void setUp() {
+        authority = create(StepJournal.none(), NoteContentLoader.none());
+    }
+
+    private static OTAuthorityService create(StepJournal journal, NoteContentLoader loader) {
+        return new OTAuthorityService(journal, loader, DocumentChangeListener.none(), JsonMapper.builder().build());
+    }
+
+    private static List<Map<String, Object>> steps(int count) {
+        return java.util.stream.IntStream.range(0, count)
+                .mapToObj(i -> Map.<String, Object>of("stepType", "replace", "from", i, "to", i))
+                .toList();
+    }
+
+    @Test
+    void submitSteps_atCurrentVersion_isAcceptedAndAdvancesVersion() {
+        var result = authority.submitSteps("note-1", 0, steps(3), "user-1");
+
+        Accepted accepted = assertInstanceOf(Accepted.class, result);
+        assertEquals(3, accepted.newVersion());
+        assertEquals(3, authority.getVersion("note-1"));
+    }
+
+    @Test
+    void submitSteps_atStaleVersion_returnsMissingSteps() {
+        authority.submitSteps("note-1", 0, steps(2), "user-1");
+        authority.submitSteps("note-1", 2, steps(3), "user-2");
+
+        var result = authority.submitSteps("note-1", 2, steps(1), "user-1");
+
+        CatchUp catchUp = assertInstanceOf(CatchUp.class, result);
+        assertEquals(5, catchUp.serverVersion());
+        assertEquals(3, catchUp.missing().size());
+        assertEquals(2, catchUp.missing().get(0).stepVersion());
+        assertEquals("user-2", catchUp.missing().get(0).clientId());
+    }
+
+    @Test
+    void submitSteps_aheadOfServer_returnsError() {
+        var result = authority.submitSteps("note-1", 7, steps(1), "user-1");
+
+        assertInstanceOf(SubmitError.class, result);
+    }
+
+    @Test
+    void submitSteps_empty_returnsError() {
+        assertInstanceOf(SubmitError.class, authority.submitSteps("note-1", 0, List.of(), "user-1"));
+    }
+
+    @Test
+    void stepsSince_unknownNote_returnsEmpty() {
+        assertTrue(authority.stepsSince("missing", 0).isEmpty());
+    }
+
+    @Test
+    void stepsSince_versionTrimmedFromHistory_returnsEmpty() {
+        for (int v = 0; v < 2100; v += 100) {
+            authority.submitSteps("note-1", v, steps(100), "user-1");
+        }
+
+        assertTrue(authority.stepsSince("note-1", 0).isEmpty());
+        List<StepEntry> tail = authority.stepsSince("note-1", 2050);
+        assertEquals(50, tail.size());
+        assertEquals(2050, tail.get(0).stepVersion());
+    }
+
+    @Test
+    void firstAccessAfterRestart_restoresVersionAndHistoryFromJournal() {
+        InMemoryJournal journal = new InMemoryJournal();
+        OTAuthorityService before = create(journal, NoteContentLoader.none());
+        before.submitSteps("note-1", 0, steps(4), "user-1");
+        before.submitSteps("note-1", 4, steps(2), "user-2");
+
+        OTAuthorityService after = create(journal, NoteContentLoader.none());
+
+        assertEquals(6, after.getVersion("note-1"));
+        List<StepEntry> missing = after.stepsSince("note-1", 4);
+        assertEquals(2, missing.size());
+        assertEquals("user-2", missing.get(0).clientId());
+        assertInstanceOf(Accepted.class, after.submitSteps("note-1", 6, steps(1), "user-1"));
+    }
+
+    @Test
+    void restore_ignoresStepsBeforeAGapInTheJournal() {
+        InMemoryJournal journal = new InMemoryJournal();
+        journal.append("note-1", List.of(
+                new StepEntry(0, "{}", "user-1"),
+                new StepEntry(1, "{}", "user-1"),
+                new StepEntry(5, "{}", "user-1"),
+                new StepEntry(6, "{}", "user-1")));
+
+        OTAuthorityService restored = create(journal, NoteContentLoader.none());
+
+        assertEquals(7, restored.getVersion("note-1"));
+        assertTrue(restored.stepsSince("note-1", 0).isEmpty());
+        assertEquals(2, restored.stepsSince("note-1", 5).size());
+    }
+
+    @Test
+    void snapshot_tracksAcceptedStepsFromStoredContent() {
+        OTAuthorityService seeded = create(StepJournal.none(), noteId -> Optional.of("<p>Hello</p>"));
+        Map<String, Object> insert = Map.of("stepType", "replace", "from", 6, "to", 6,
+                "slice", Map.of("content", List.of(Map.of("type", "text", "text", " world"))));
+
+        seeded.submitSteps("note-1", 0, List.of(insert), "user-1");
+
+        var snapshot = seeded.snapshot("note-1").orElseThrow();
+        assertEquals(1, snapshot.version());
+        assertEquals("<p>Hello world</p>", snapshot.html());
+    }
+
+    @Test
+    void snapshot_isDroppedWhenAStepDoesNotApply() {
+        OTAuthorityService seeded = create(StepJournal.none(), noteId -> Optional.of("<p>Hi</p>"));
+
+        var result = seeded.submitSteps("note-1", 0, steps(1).stream()
+                .map(s -> Map.<String, Object>of("stepType", "replace", "from", 40, "to", 40))
+                .toList(), "user-1");
+
+        assertInstanceOf(Accepted.class, result);
+        assertFalse(seeded.snapshot("note-1").isPresent());
+    }
+
+    @Test
+    void submitSteps_staleWithRebaseEnabled_isMappedOverNewerSteps() {
+        OTAuthorityService rebasing = new OTAuthorityService(StepJournal.none(),
+                noteId -> Optional.of("<p>abc</p>"), DocumentChangeListener.none(), JsonMapper.builder().build(), true);
+        rebasing.submitSteps("note-1", 0, List.of(Map.of("stepType", "replace", "from", 1, "to", 1,
+                "slice", Map.of("content", List.of(Map.of("type", "text", "text", "12"))))), "user-2");
+
+        var result = rebasing.submitSteps("note-1", 0, List.of(Map.of("stepType", "replace", "from", 3, "to", 3,
+                "slice", Map.of("content", List.of(Map.of("type", "text", "text", "X"))))), "user-1");
+
+        Accepted accepted = assertInstanceOf(Accepted.class, result);
+        assertEquals(2, accepted.newVersion());
+        assertTrue(accepted.steps().get(0).contains("\"from\":5"));
+        assertEquals("<p>12abXc</p>", rebasing.snapshot("note-1").orElseThrow().html());
+        assertEquals("user-1", rebasing.stepsSince("note-1", 1).get(0).clientId());
+    }
+
+    @Test
+    void rebasedSubmission_resentAfterAnInterveningBroadcast_isNotAcceptedTwice() {
+        OTAuthorityService rebasing = new OTAuthorityService(StepJournal.none(),
+                noteId -> Optional.of("<p>abc</p>"), DocumentChangeListener.none(), JsonMapper.builder().build(), true);
+        rebasing.submitSteps("note-1", 0, List.of(insert(1, "12")), "user-2");
+        // Stale: built on version 0, rebased over user-2's step and accepted at version 1.
+        assertInstanceOf(Accepted.class, rebasing.submitAll("note-1",
+                List.of(new Submission(0, List.of(insert(3, "X")), "user-1", "tab-1"))).get(0));
+        rebasing.submitSteps("note-1", 2, List.of(insert(1, "!")), "user-2");
+
+        // The client applies user-2's broadcast, rebases its unconfirmed step onto
+        // version 1 and resends it before its own broadcast arrives.
+        var resent = rebasing.submitAll("note-1",
+                List.of(new Submission(1, List.of(insert(5, "X")), "user-1", "tab-1"))).get(0);
+
+        assertInstanceOf(Resubmitted.class, resent);
+        assertEquals(3, rebasing.getVersion("note-1"));
+        assertEquals("<p>!12abXc</p>", rebasing.snapshot("note-1").orElseThrow().html());
+
+        // Resent together with a newer step: the catch-up includes its own accepted copy.
+        CatchUp catchUp = assertInstanceOf(CatchUp.class, rebasing.submitAll("note-1",
+                List.of(new Submission(1, List.of(insert(5, "X"), insert(6, "Y")), "user-1", "tab-1"))).get(0));
+        assertEquals("user-1", catchUp.missing().get(0).clientId());
+        assertEquals(3, rebasing.getVersion("note-1"));
+
+        // Once built on the accepted steps, submissions are sequenced normally again.
+        assertInstanceOf(Accepted.class, rebasing.submitAll("note-1",
+                List.of(new Submission(3, List.of(insert(7, "Y")), "user-1", "tab-1"))).get(0));
+        assertEquals("<p>!12abXYc</p>", rebasing.snapshot("note-1").orElseThrow().html());
+    }
+
+    private static Map<String, Object> insert(int at, String text) {
+        return Map.of("stepType", "replace", "from", at, "to", at,
+                "slice", Map.of("content", List.of(Map.of("type", "text", "text", text))));
+    }
+
+    @Test
+    void submitSteps_staleConflictWithRebaseEnabled_fallsBackToCatchUp() {
+        OTAuthorityService rebasing = new OTAuthorityService(StepJournal.none(),
+                noteId -> Optional.of("<p>abc</p>"), DocumentChangeListener.none(), JsonMapper.builder().build(), true);
+        rebasing.submitSteps("note-1", 0, List.of(Map.of("stepType", "replace", "from", 1, "to", 4)), "user-2");
+
+        var result = rebasing.submitSteps("note-1", 0,
+                List.of(Map.of("stepType", "replace", "from", 2, "to", 3)), "user-1");
+
+        assertEquals(1, assertInstanceOf(CatchUp.class, result).missing().size());
+        assertEquals(1, rebasing.getVersion("note-1"));
+        assertEquals("<p></p>", rebasing.snapshot("note-1").orElseThrow().html());
+    }
+
+    private static List<Map<String, Object>> docAttrSteps(int count) {
+        return java.util.stream.IntStream.range(0, count)
+                .mapToObj(i -> Map.<String, Object>of("stepType", "docAttr", "attr", "revision", "value", i))
+                .toList();
+    }
+
+    @Test
+    void catchUp_smallGap_sendsTheMissingSteps() {
+        OTAuthorityService seeded = create(StepJournal.none(), noteId -> Optional.of("<p>abc</p>"));
+        seeded.submitSteps("note-1", 0, docAttrSteps(3), "user-2");
+
+        CatchUp catchUp = assertInstanceOf(CatchUp.class, seeded.catchUp("note-1", 1));
+
+        assertEquals(3, catchUp.serverVersion());
+        assertEquals(2, catchUp.missing().size());
+    }
+
+    @Test
+    void catchUp_whenTheDocumentIsSmallerThanTheSteps_sendsASnapshot() {
+        OTAuthorityService seeded = create(StepJournal.none(), noteId -> Optional.of("<p>abc</p>"));
+        seeded.submitSteps("note-1", 0, docAttrSteps(400), "user-2");
+
+        SnapshotCatchUp snapshot = assertInstanceOf(SnapshotCatchUp.class,
+                seeded.catchUp("note-1", 0, OTCapabilities.ALL));
+        assertEquals(400, snapshot.serverVersion());
+        assertEquals("<p>abc</p>", snapshot.html());
+
+        assertInstanceOf(SnapshotCatchUp.class, seeded.submitAll("note-1",
+                List.of(new Submission(0, docAttrSteps(1), "user-1", null, OTCapabilities.ALL))).get(0));
+    }
+
+    @Test
+    void catchUp_withoutTheSnapshotCapability_sendsTheMissingSteps() {
+        OTAuthorityService seeded = create(StepJournal.none(), noteId -> Optional.of("<p>abc</p>"));
+        seeded.submitSteps("note-1", 0, docAttrSteps(400), "user-2");
+
+        assertEquals(400, assertInstanceOf(CatchUp.class, seeded.catchUp("note-1", 0)).missing().size());
+        assertEquals(400, assertInstanceOf(CatchUp.class,
+                seeded.submitSteps("note-1", 0, docAttrSteps(1), "user-1")).missing().size());
+    }
+
+    @Test
+    void catchUp_pastTrimmedHistory_sendsASnapshotWhenTheDocumentIsKnown() {
+        OTAuthorityService seeded = create(StepJournal.none(), noteId -> Optional.of("<p>abc</p>"));
+        seeded.submitSteps("note-1", 0, docAttrSteps(OTAuthorityService.MAX_STEP_HISTORY + 10), "user-2");
+
+        assertInstanceOf(SnapshotCatchUp.class, seeded.catchUp("note-1", 2, OTCapabilities.ALL));
+        assertTrue(assertInstanceOf(CatchUp.class, seeded.catchUp("note-1", 2)).missing().isEmpty());
+        assertTrue(assertInstanceOf(CatchUp.class, authority.catchUp("note-1", 0)).missing().isEmpty());
+    }
+
+    @Test
+    void acknowledge_dropsHistoryBelowTheLowestConnectedSession() {
+        authority.submitSteps("note-1", 0, steps(300), "user-1");
+        long before = authority.residentBytes();
+
+        authority.acknowledge("note-1", "user-2", 250);
+        authority.acknowledge("note-1", "user-1", 300);
+
+        int floor = 250 - OTAuthorityService.MIN_RETAINED_STEPS;
+        assertEquals(300 - floor, authority.stepsSince("note-1", floor).size());
+        assertTrue(authority.stepsSince("note-1", floor - 1).isEmpty());
+        assertTrue(authority.residentBytes() < before);
+    }
+
+    @Test
+    void submissions_acknowledgeTheVersionTheyWereBuiltOn() {
+        authority.submitSteps("note-1", 0, steps(300), "user-1");
+        authority.submitSteps("note-1", 300, steps(1), "user-1");
+
+        assertEquals(OTAuthorityService.MIN_RETAINED_STEPS + 1,
+                authority.stepsSince("note-1", 300 - OTAuthorityService.MIN_RETAINED_STEPS).size());
+        assertTrue(authority.stepsSince("note-1", 0).isEmpty());
+    }
+
+    @Test
+    void submissions_acknowledgePerSession_soAnotherTabOfTheSameUserKeepsItsHistory() {
+        authority.submitAll("note-1", List.of(new Submission(0, steps(300), "user-1", "tab-b")));
+        authority.acknowledge("note-1", "tab-a", 100);
+
+        authority.submitAll("note-1", List.of(new Submission(300, steps(1), "user-1", "tab-b")));
+
+        int floor = 100 - OTAuthorityService.MIN_RETAINED_STEPS;
+        assertEquals(301 - floor, authority.stepsSince("note-1", floor).size());
+        assertTrue(authority.stepsSince("note-1", floor - 1).isEmpty());
+    }
+
+    @Test
+    void releaseSession_lastSessionLeaving_keepsOnlyTheReconnectSlack() {
+        authority.submitSteps("note-1", 0, steps(300), "user-1");
+        assertEquals(300, authority.stepsSince("note-1", 0).size());
+
+        authority.releaseSession("note-1", "user-1");
+
+        assertEquals(OTAuthorityService.MIN_RETAINED_STEPS,
+                authority.stepsSince("note-1", 300 - OTAuthorityService.MIN_RETAINED_STEPS).size());
+        assertTrue(authority.stepsSince("note-1", 0).isEmpty());
+    }
+
+    @Test
+    void acknowledge_forANoteThatIsNotResident_doesNotLoadIt() {
+        authority.acknowledge("note-1", "user-1", 0);
+
+        assertEquals(0, authority.residentNoteCount());
+    }
+
+    private static List<Map<String, Object>> typing(int pos, String text) {
+        return java.util.stream.IntStream.range(0, text.length())
+                .mapToObj(i -> Map.<String, Object>of("stepType", "replace", "from", pos + i, "to", pos + i,
+                        "slice", Map.of("content", List.of(Map.of("type", "text", "text", text.substring(i, i + 1))))))
+                .toList();
+    }
+
+    @Test
+    void compactHistory_mergesTypingEveryClientHasPassed() {
+        OTAuthorityService seeded = create(StepJournal.none(), noteId -> Optional.of("<p></p>"));
+        seeded.submitSteps("note-1", 0, typing(1, "hello"), "user-1");
+        seeded.submitSteps("note-1", 5, typing(6, " world"), "user-2");
+        seeded.acknowledge("note-1", "user-1", 11);
+        seeded.acknowledge("note-1", "user-2", 11);
+        long before = seeded.residentBytes();
+
+        assertEquals(9, seeded.compactHistory("note-1"));
+
+        List<StepEntry> history = seeded.stepsSince("note-1", 0);
+        assertEquals(2, history.size());
+        assertEquals(5, history.get(0).span());
+        assertEquals(5, history.get(1).stepVersion());
+        assertEquals(6, history.get(1).span());
+        assertTrue(seeded.residentBytes() < before);
+        assertTrue(seeded.stepsSince("note-1", 3).isEmpty());
+        assertEquals("<p>hello world</p>", seeded.snapshot("note-1").orElseThrow().html());
+    }
+
+    @Test
+    void compactHistory_keepsStepsAConnectedClientHasNotPassed() {
+        authority.submitSteps("note-1", 0, typing(1, "abc"), "user-1");
+        authority.acknowledge("note-1", "user-2", 1);
+
+        authority.compactHistory("note-1");
+        authority.submitSteps("note-1", 3, typing(4, "d"), "user-1");
+
+        assertEquals(3, authority.stepsSince("note-1", 1).size());
+        assertEquals(4, authority.stepsSince("note-1", 0).size());
+    }
+
+    @Test
+    void compactHistory_withNoConnectedSession_keepsTheSlackAsIs() {
+        authority.submitSteps("note-1", 0, typing(1, "abc"), "user-1");
+        authority.releaseSession("note-1", "user-1");
+
+        assertEquals(0, authority.compactHistory("note-1"));
+        assertEquals(3, authority.stepsSince("note-1", 0).size());
+    }
+
+    @Test
+    void catchUp_overCompactedHistory_onlyServesSpansToClientsThatNegotiatedThem() {
+        authority.submitSteps("note-1", 0, typing(1, "hello"), "user-1");
+        authority.acknowledge("note-1", "user-1", 5);
+        authority.compactHistory("note-1");
+
+        CatchUp withSpans = assertInstanceOf(CatchUp.class,
+                authority.catchUp("note-1", 0, new OTCapabilities(false, true, false)));
+        assertEquals(5, withSpans.missing().get(0).span());
+        assertTrue(assertInstanceOf(CatchUp.class, authority.catchUp("note-1", 0)).missing().isEmpty());
+    }
+
+    @Test
+    void snapshot_isUnknownAfterJournalRestore() {
+        InMemoryJournal journal = new InMemoryJournal();
+        journal.append("note-1", List.of(new StepEntry(0, "{}", "user-1")));
+
+        OTAuthorityService restored = create(journal, noteId -> Optional.of("<p>Hi</p>"));
+
+        assertFalse(restored.snapshot("note-1").isPresent());
+    }
+
+    @Test
+    void stepsSince_readsVersionsTrimmedFromMemoryFromTheJournal() {
+        InMemoryJournal journal = new InMemoryJournal();
+        OTAuthorityService withJournal = create(journal, NoteContentLoader.none());
+        withJournal.submitSteps("note-1", 0, steps(OTAuthorityService.MAX_STEP_HISTORY + 50), "user-1");
+
+        List<StepEntry> missing = withJournal.stepsSince("note-1", 10);
+
+        assertEquals(OTAuthorityService.MAX_STEP_HISTORY + 40, missing.size());
+        assertEquals(10, missing.get(0).stepVersion());
+    }
+
+    @Test
+    void journaledStepsSince_servesNotesThisNodeNeverSequenced() {
+        InMemoryJournal journal = new InMemoryJournal();
+        create(journal, NoteContentLoader.none()).submitSteps("note-1", 0, steps(5), "user-1");
+        OTAuthorityService otherNode = create(journal, NoteContentLoader.none());
+
+        assertEquals(3, otherNode.journaledStepsSince("note-1", 2).orElseThrow().size());
+        assertTrue(otherNode.journaledStepsSince("note-1", 5).orElseThrow().isEmpty());
+        assertFalse(otherNode.journaledStepsSince("note-1", 9).isPresent());
+    }
+
+    @Test
+    void submitAll_sequencesInOrderWithOneJournalAppendAndOneChange() {
+        InMemoryJournal journal = new InMemoryJournal();
+        List<Integer> changes = new java.util.ArrayList<>();
+        OTAuthorityService batched = new OTAuthorityService(journal, noteId -> Optional.of("<p>Hi</p>"),
+                (noteId, snapshot, stepCount) -> changes.add(stepCount), JsonMapper.builder().build());
+        Map<String, Object> insert = Map.of("stepType", "replace", "from", 1, "to", 1,
+                "slice", Map.of("content", List.of(Map.of("type", "text", "text", "x"))));
+
+        List<OTSubmitResult> results = batched.submitAll("note-1", List.of(
+                new Submission(0, List.of(insert), "user-1"),
+                new Submission(1, List.of(insert, insert), "user-1"),
+                new Submission(0, List.of(insert), "user-2")));
+
+        assertEquals(1, ((Accepted) results.get(0)).newVersion());
+        assertEquals(3, ((Accepted) results.get(1)).newVersion());
+        assertEquals(3, ((CatchUp) results.get(2)).missing().size());
+        assertEquals(1, journal.appends);
+        assertEquals(List.of(3), changes);
+        assertEquals("<p>xxxHi</p>", batched.snapshot("note-1").orElseThrow().html());
+    }
+
+    @Test
+    void journalAppends_runOutsideTheNoteLockAndStayInVersionOrder() throws Exception {
+        java.util.concurrent.CountDownLatch appending = new java.util.concurrent.CountDownLatch(1);
+        java.util.concurrent.CountDownLatch release = new java.util.concurrent.CountDownLatch(1);
+        InMemoryJournal journal = new InMemoryJournal() {
+            @Override
+            public void append(String noteId, List<StepEntry> batch) {
+                appending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.append(noteId, batch);
+            }
+        };
+        OTAuthorityService slowJournal = create(journal, NoteContentLoader.none());
+        Thread first = new Thread(() -> slowJournal.submitSteps("note-1", 0, steps(2), "user-1"));
+        first.start();
+        appending.await();
+
+        // The first submitter is stuck in the journal; the note itself is not.
+        assertInstanceOf(Accepted.class, slowJournal.submitSteps("note-1", 2, steps(1), "user-2"));
+        assertInstanceOf(Accepted.class, slowJournal.submitSteps("note-1", 3, steps(1), "user-2"));
+        release.countDown();
+        first.join();
+
+        assertEquals(List.of(0, 1, 2, 3),
+                journal.readTail("note-1", 10).stream().map(StepEntry::stepVersion).toList());
+    }
+
+    @Test
+    void evict_flushesPendingContentAndResumesFromIt() {
+        List<String> flushed = new java.util.ArrayList<>();
+        DocumentChangeListener listener = new DocumentChangeListener() {
+            @Override
+            public void documentChanged(String noteId, DocumentSnapshot snapshot, int stepCount) {
+            }
+
+            @Override
+            public boolean noteEvicted(String noteId) {
+                flushed.add(noteId);
+                return true;
+            }
+        };
+        OTAuthorityService evicting = new OTAuthorityService(StepJournal.none(),
+                noteId -> Optional.of("<p>Stored</p>"), listener, JsonMapper.builder().build());
+        evicting.submitSteps("note-1", 0, steps(1), "user-1");
+
+        assertTrue(evicting.evict("note-1"));
+        assertFalse(evicting.evict("note-1"));
+
+        assertEquals(List.of("note-1"), flushed);
+        var snapshot = evicting.snapshot("note-1").orElseThrow();
+        assertEquals(1, snapshot.version());
+        assertEquals("<p>Stored</p>", snapshot.html());
+    }
+
+    @Test
+    void checkpoint_restoresTheDocumentAndReplaysOnlyTheStepsAfterIt() {
+        InMemoryJournal journal = new InMemoryJournal();
+        OTAuthorityService before = create(journal, noteId -> Optional.of("<p>abc</p>"));
+        before.submitSteps("note-1", 0, typing(4, "de"), "user-1");
+        assertTrue(before.checkpoint("note-1", 1, Long.MAX_VALUE));
+        before.submitSteps("note-1", 2, typing(6, "f"), "user-2");
+
+        OTAuthorityService after = create(journal, noteId -> Optional.of("<p>stale</p>"));
+
+        DocumentSnapshot snapshot = after.snapshot("note-1").orElseThrow();
+        assertEquals(3, snapshot.version());
+        assertEquals("<p>abcdef</p>", snapshot.html());
+        assertEquals(3, after.stepsSince("note-1", 0).size());
+        assertEquals(2 - OTAuthorityService.MIN_RETAINED_STEPS, journal.truncatedBefore);
+    }
+
+    @Test
+    void checkpoint_waitsForEnoughStepsOrTheInterval() {
+        long[] now = { 1_000 };
+        InMemoryJournal journal = new InMemoryJournal();
+        OTAuthorityService timed = new OTAuthorityService(journal, noteId -> Optional.of("<p>abc</p>"),
+                DocumentChangeListener.none(), JsonMapper.builder().build(), false, () -> now[0]);
+        timed.submitSteps("note-1", 0, docAttrSteps(3), "user-1");
+
+        assertFalse(timed.checkpoint("note-1", 10, 60_000));
+        now[0] += 60_000;
+        assertTrue(timed.checkpoint("note-1", 10, 60_000));
+        now[0] += 60_000;
+        assertFalse(timed.checkpoint("note-1", 10, 60_000));
+        timed.submitSteps("note-1", 3, docAttrSteps(10), "user-1");
+        assertTrue(timed.checkpoint("note-1", 10, 60_000));
+
+        assertEquals(13, journal.checkpoints.get("note-1").version());
+        assertFalse(authority.checkpoint("note-1", 0, 0));
+    }
+
+    @Test
+    void evict_writesACheckpointSoTheDocumentSurvives() {
+        InMemoryJournal journal = new InMemoryJournal();
+        OTAuthorityService evicting = create(journal, noteId -> Optional.of("<p>abc</p>"));
+        evicting.submitSteps("note-1", 0, typing(4, "d"), "user-1");
+
+        assertTrue(evicting.evict("note-1"));
+
+        DocumentSnapshot snapshot = evicting.snapshot("note-1").orElseThrow();
+        assertEquals(1, snapshot.version());
+        assertEquals("<p>abcd</p>", snapshot.html());
+    }
+
+    private static class InMemoryJournal implements StepJournal {
+        private final Map<String, List<StepEntry>> entries = new java.util.HashMap<>();
+        private final Map<String, Checkpoint> checkpoints = new java.util.HashMap<>();
+        private int appends;
+        private int truncatedBefore = Integer.MIN_VALUE;
+
+        @Override
+        public void append(String noteId, List<StepEntry> batch) {
+            appends++;
+            entries.computeIfAbsent(noteId, k -> new java.util.ArrayList<>()).addAll(batch);
+        }
+
+        @Override
+        public List<StepEntry> readTail(String noteId, int limit) {
+            List<StepEntry> all = entries.getOrDefault(noteId, List.of());
+            return all.subList(Math.max(0, all.size() - limit), all.size());
+        }
+
+        @Override
+        public Optional<List<StepEntry>> readSince(String noteId, int sinceVersion, int limit) {
+            List<StepEntry> all = entries.getOrDefault(noteId, List.of());
+            int next = all.isEmpty() ? 0 : all.get(all.size() - 1).stepVersion() + 1;
+            List<StepEntry> since = all.stream().filter(e -> e.stepVersion() >= sinceVersion).toList();
+            if (since.size() != next - sinceVersion || since.size() > limit) {
+                return Optional.empty();
+            }
+            return Optional.of(since);
+        }
+
+        @Override
+        public boolean storesCheckpoints() {
+            return true;
+        }
+
+        @Override
+        public void saveCheckpoint(String noteId, Checkpoint checkpoint) {
+            checkpoints.merge(noteId, checkpoint, (old, next) -> next.version() > old.version() ? next : old);
+        }
+
+        @Override
+        public Optional<Checkpoint> latestCheckpoint(String noteId) {
+            return Optional.ofNullable(checkpoints.get(noteId));
+        }
+
+        @Override
+        public void truncateBefore(String noteId, int version) {
+            truncatedBefore = version;
+            entries.getOrDefault(noteId, new java.util.ArrayList<>()).removeIf(e -> e.stepVersion() < version);
+        }
+    }
+}
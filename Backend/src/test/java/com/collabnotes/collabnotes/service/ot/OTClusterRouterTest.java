@@ -0,0 +1,189 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.collabnotes.collabnotes.service.ot.OTClusterRouter.OTCommand;
+import com.collabnotes.collabnotes.websocket.message.OTStepsBroadcastMessage;
+
+import tools.jackson.databind.json.JsonMapper;
+
+@ExtendWith(MockitoExtension.class)
+class OTClusterRouterTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private OTAuthorityService authority;
+    private OTLeaseFence leaseFence;
+    private OTClusterRouter router;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        authority = new OTAuthorityService(StepJournal.none(), NoteContentLoader.none(),
+                DocumentChangeListener.none(), JsonMapper.builder().build());
+        leaseFence = OTLeaseFence.local();
+        router = new OTClusterRouter(redis, JsonMapper.builder().build(), messagingTemplate, authority,
+                leaseFence, true, 9000, 60000, "node-a", () -> now);
+    }
+
+    private static OTCommand submit() {
+        return OTCommand.of("submit", "note-1", "user-1", "session-1", 0,
+                List.of(Map.<String, Object>of("stepType", "replace", "from", 1, "to", 1)));
+    }
+
+    private void leaseResult(String result) {
+        doReturn(result).when(redis).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void localRouter_neverForwardsAndSendsDirectly() {
+        OTClusterRouter local = OTClusterRouter.local(messagingTemplate);
+
+        assertFalse(local.forwardIfRemote(submit()));
+        local.convertAndSend("/topic/notes/note-1/ot", "payload");
+
+        verify(messagingTemplate).convertAndSend("/topic/notes/note-1/ot", (Object) "payload");
+    }
+
+    @Test
+    void forwardsToTheNodeHoldingTheLease() {
+        leaseResult("@node-b");
+
+        assertTrue(router.forwardIfRemote(submit()));
+
+        verify(redis).convertAndSend(eq("ot:node:node-b"), contains("\"hops\":1"));
+    }
+
+    @Test
+    void remoteOwner_isCachedForAFifthOfTheLease() {
+        leaseResult("@node-b");
+
+        assertTrue(router.forwardIfRemote(submit()));
+        now = 1799;
+        assertTrue(router.forwardIfRemote(submit()));
+        verify(redis, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+
+        now = 1800;
+        assertTrue(router.forwardIfRemote(submit()));
+        verify(redis, times(2)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void commandForwardedHere_dropsTheCachedRemoteOwner() {
+        leaseResult("@node-b");
+        assertTrue(router.forwardIfRemote(submit()));
+
+        leaseResult("=9");
+        router.onForwardedCommand(submit());
+
+        verify(redis, times(2)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        assertFalse(router.forwardIfRemote(submit()));
+    }
+
+    @Test
+    void ownedLease_isReusedWithoutRedisUntilItNeedsRenewal() {
+        leaseResult("=7");
+
+        assertFalse(router.forwardIfRemote(submit()));
+        now = 5000;
+        assertFalse(router.forwardIfRemote(submit()));
+        now = 6000;
+        assertFalse(router.forwardIfRemote(submit()));
+
+        verify(redis, times(2)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void takingOverFromAnotherNode_dropsLocalState() {
+        authority.submitSteps("note-1", 0, submit().steps(), "user-1");
+        leaseResult("+8");
+
+        assertFalse(router.forwardIfRemote(submit()));
+
+        assertEquals(0, authority.getVersion("note-1"));
+    }
+
+    @Test
+    void takingTheLease_claimsItsEpochAndKeepsItAfterLosingTheLease() {
+        leaseResult("+8");
+        assertFalse(router.forwardIfRemote(submit()));
+        assertEquals(8, leaseFence.epochOf("note-1"));
+
+        now = 7000;
+        leaseResult("@node-b");
+        assertTrue(router.forwardIfRemote(submit()));
+
+        // Late write-behind from this node must still present the old epoch so storage refuses it.
+        assertEquals(8, leaseFence.epochOf("note-1"));
+    }
+
+    @Test
+    void idleRelease_keepsTheEpochSoLateWritesStayFenced() {
+        leaseResult("+8");
+        assertFalse(router.forwardIfRemote(submit()));
+
+        now = 60000;
+        router.renewLeases();
+
+        assertEquals(8, leaseFence.epochOf("note-1"));
+    }
+
+    @Test
+    void relayedMessages_areDeliveredToTheLocalBroker() {
+        router.convertAndSendToUser("user-1", "/queue/notes/note-1/state", Map.of("otVersion", 4));
+
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+        verify(redis).convertAndSend(OTClusterRouter.RELAY_CHANNEL,
+                "/queue/notes/note-1/state\nuser-1\n{\"otVersion\":4}");
+
+        doReturn("/user/").when(messagingTemplate).getUserDestinationPrefix();
+        router.onRelayedMessage("/queue/notes/note-1/state\nuser-1\n{\"otVersion\":4}");
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.captor();
+        verify(messagingTemplate).send(eq("/user/user-1/queue/notes/note-1/state"), sent.capture());
+        assertEquals("{\"otVersion\":4}", new String((byte[]) sent.getValue().getPayload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void relayedBroadcasts_keepPreSerializedStepsVerbatim() {
+        OTStepsBroadcastMessage message = new OTStepsBroadcastMessage();
+        message.setVersion(3);
+        message.setClientId("user-1");
+        message.setSteps(List.of("{\"stepType\":\"replace\",\"from\":1.50}"));
+
+        router.convertAndSend("/topic/notes/note-1/ot", message);
+
+        verify(redis).convertAndSend(eq(OTClusterRouter.RELAY_CHANNEL),
+                contains("\"steps\":[{\"stepType\":\"replace\",\"from\":1.50}]"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.collabnotes.collabnotes.metrics.MetricsService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+class OTMemoryManagerTest {
+
+    private static final long IDLE_MS = 60_000;
+    private static final long GRACE_MS = 5_000;
+
+    private long now = 1_000_000;
+    private MeterRegistry meterRegistry;
+    private OTAuthorityService authority;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        authority = new OTAuthorityService(StepJournal.none(), NoteContentLoader.none(),
+                DocumentChangeListener.none(), JsonMapper.builder().build(), false,
+                () -> now);
+    }
+
+    private OTMemoryManager manager(long maxBytes) {
+        return new OTMemoryManager(authority, new MetricsService(meterRegistry), maxBytes, IDLE_MS, GRACE_MS,
+                false, () -> now);
+    }
+
+    private void edit(String noteId, int steps) {
+        int version = authority.getVersion(noteId);
+        authority.submitSteps(noteId, version, java.util.stream.IntStream.range(0, steps)
+                .mapToObj(i -> Map.<String, Object>of("stepType", "replace", "from", i, "to", i))
+                .toList(), "user-1");
+    }
+
+    private Set<String> resident() {
+        return authority.residentNotes().stream()
+                .map(OTAuthorityService.ResidentNote::noteId)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void sweep_evictsNotesIdleLongerThanTheLimit() {
+        OTMemoryManager manager = manager(Long.MAX_VALUE);
+        edit("old", 3);
+        now += IDLE_MS;
+        edit("fresh", 3);
+
+        manager.sweep();
+
+        assertEquals(Set.of("fresh"), resident());
+    }
+
+    @Test
+    void sweep_evictsReleasedNotesAfterTheGracePeriod() {
+        OTMemoryManager manager = manager(Long.MAX_VALUE);
+        edit("note-1", 2);
+        manager.noteReleased("note-1");
+
+        now += GRACE_MS - 1;
+        manager.sweep();
+        assertEquals(Set.of("note-1"), resident());
+
+        now += 1;
+        manager.sweep();
+        assertTrue(resident().isEmpty());
+    }
+
+    @Test
+    void sweep_keepsReleasedNotesThatWereEditedAgain() {
+        OTMemoryManager manager = manager(Long.MAX_VALUE);
+        edit("note-1", 2);
+        manager.noteReleased("note-1");
+        now += 10;
+        edit("note-1", 1);
+
+        now += GRACE_MS;
+        manager.sweep();
+
+        assertEquals(Set.of("note-1"), resident());
+    }
+
+    @Test
+    void sweep_overBudget_evictsLeastRecentlyUsedFirst() {
+        edit("a", 50);
+        now += 1;
+        edit("b", 50);
+        now += 1;
+        edit("c", 50);
+        long perNote = authority.residentBytes() / 3;
+        OTMemoryManager manager = manager(perNote * 2);
+
+        now += 1;
+        authority.stepsSince("a", 0);
+        manager.sweep();
+
+        assertEquals(Set.of("a", "c"), resident());
+        assertTrue(authority.residentBytes() <= perNote * 2);
+    }
+
+    @Test
+    void evictedNote_resumesAtItsVersionWithoutAJournal() {
+        OTMemoryManager manager = manager(0);
+        edit("note-1", 4);
+
+        manager.sweep();
+
+        assertEquals(0, authority.residentNoteCount());
+        assertEquals(4, authority.getVersion("note-1"));
+    }
+
+    @Test
+    void gauges_reportResidentNotesAndBytes() {
+        manager(Long.MAX_VALUE);
+        edit("note-1", 2);
+        edit("note-2", 1);
+
+        assertEquals(2.0, meterRegistry.get("app.gauge.ot.resident_notes").gauge().value());
+        assertEquals((double) authority.residentBytes(),
+                meterRegistry.get("app.gauge.ot.resident_bytes").gauge().value());
+        assertTrue(authority.residentBytes() > 3 * OTAuthorityService.STEP_OVERHEAD_BYTES);
+    }
+
+    @Test
+    void residentBytes_dropToZeroOnceEverythingIsEvicted() {
+        edit("note-1", 5);
+        edit("note-2", 5);
+
+        for (String noteId : List.of("note-1", "note-2")) {
+            authority.evict(noteId);
+        }
+
+        assertEquals(0, authority.residentBytes());
+    }
+}
@@ -0,0 +1,133 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+
+@ExtendWith(MockitoExtension.class)
+class RedisStreamStepJournalTest {
+
+    private static final String STEP = "{\"stepType\":\"replace\",\"from\":1,\"to\":1}";
+
+    @Mock
+    private StringRedisTemplate redis;
+
+    private OTLeaseFence leaseFence;
+    private RedisStreamStepJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        leaseFence = OTLeaseFence.local();
+        journal = new RedisStreamStepJournal(redis, 2000, Duration.ofHours(1), leaseFence);
+    }
+
+    private void scriptResult(List<String> result) {
+        doReturn(result).when(redis).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void append_sendsVersionClientAndStepTriples() {
+        journal.append("note-1", List.of(
+                new StepEntry(7, "{\"stepType\":\"replace\"}", "user-1"),
+                new StepEntry(8, "{\"stepType\":\"replace\"}", null)));
+
+        verify(redis).execute(any(RedisScript.class), eq(List.of("ot:steps:note-1", "ot:epoch:note-1")),
+                eq("2000"), eq("3600000"), eq("0"),
+                eq("7"), eq("user-1"), eq("{\"stepType\":\"replace\"}"),
+                eq("8"), eq(""), eq("{\"stepType\":\"replace\"}"));
+    }
+
+    @Test
+    void append_carriesTheLeaseEpochThisNodeHolds() {
+        leaseFence.claim("note-1", 42);
+
+        journal.append("note-1", List.of(new StepEntry(3, STEP, "user-1")));
+
+        verify(redis).execute(any(RedisScript.class), eq(List.of("ot:steps:note-1", "ot:epoch:note-1")),
+                eq("2000"), eq("3600000"), eq("42"), eq("3"), eq("user-1"), eq(STEP));
+    }
+
+    @Test
+    void readTail_returnsEntriesOldestFirst() {
+        scriptResult(List.of("5-1", "user-2", STEP, "4-1", "", STEP));
+
+        List<StepEntry> tail = journal.readTail("note-1", 10);
+
+        assertEquals(2, tail.size());
+        assertEquals(4, tail.get(0).stepVersion());
+        assertNull(tail.get(0).clientId());
+        assertEquals("user-2", tail.get(1).clientId());
+        assertEquals(STEP, tail.get(1).stepJson());
+    }
+
+    @Test
+    void readSince_returnsTheRangeUpToTheHead() {
+        scriptResult(List.of("5-1", "4-1", "user-1", STEP, "5-1", "user-2", STEP));
+
+        List<StepEntry> since = journal.readSince("note-1", 4, 100).orElseThrow();
+
+        assertEquals(2, since.size());
+        assertEquals(4, since.get(0).stepVersion());
+        assertEquals(5, since.get(1).stepVersion());
+    }
+
+    @Test
+    void readSince_atTheHead_isAnEmptyRange() {
+        scriptResult(List.of("5-1"));
+
+        assertTrue(journal.readSince("note-1", 6, 100).orElseThrow().isEmpty());
+    }
+
+    @Test
+    void readSince_trimmedOrAheadVersions_areNotServed() {
+        scriptResult(List.of("5-1", "4-1", "user-1", STEP, "5-1", "user-2", STEP));
+        assertFalse(journal.readSince("note-1", 2, 100).isPresent());
+
+        scriptResult(List.of("5-1"));
+        assertFalse(journal.readSince("note-1", 9, 100).isPresent());
+    }
+
+    @Test
+    void readSince_emptyStream_onlyServesVersionZero() {
+        scriptResult(List.of(""));
+
+        assertTrue(journal.readSince("note-1", 0, 100).orElseThrow().isEmpty());
+        assertFalse(journal.readSince("note-1", 3, 100).isPresent());
+    }
+
+    @Test
+    void latestCheckpoint_decodesVersionAndContent() {
+        scriptResult(List.of("42", "<p>Hi</p>"));
+
+        StepJournal.Checkpoint checkpoint = journal.latestCheckpoint("note-1").orElseThrow();
+
+        assertEquals(42, checkpoint.version());
+        assertEquals("<p>Hi</p>", checkpoint.html());
+    }
+
+    @Test
+    void latestCheckpoint_missing_isEmpty() {
+        scriptResult(List.of());
+
+        assertFalse(journal.latestCheckpoint("note-1").isPresent());
+    }
+}
@@ -0,0 +1,79 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class StepCompactorTest {
+
+    private final StepCompactor compactor = new StepCompactor(JsonMapper.builder().build());
+
+    private static StepEntry typed(int version, int pos, String text, String clientId) {
+        return new StepEntry(version, "{\"stepType\":\"replace\",\"from\":" + pos + ",\"to\":" + pos
+                + ",\"slice\":{\"content\":[{\"type\":\"text\",\"text\":\"" + text + "\"}]}}", clientId);
+    }
+
+    private static List<StepEntry> typing(int fromVersion, int pos, String text, String clientId) {
+        List<StepEntry> steps = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            steps.add(typed(fromVersion + i, pos + i, text.substring(i, i + 1), clientId));
+        }
+        return steps;
+    }
+
+    @Test
+    void compact_mergesATypingRunIntoOneInsertion() {
+        List<StepEntry> compacted = compactor.compact(typing(10, 1, "hello", "user-1"));
+
+        assertEquals(1, compacted.size());
+        StepEntry merged = compacted.get(0);
+        assertEquals(10, merged.stepVersion());
+        assertEquals(5, merged.span());
+        assertEquals("user-1", merged.clientId());
+        assertEquals("{\"stepType\":\"replace\",\"from\":1,\"to\":1,"
+                + "\"slice\":{\"content\":[{\"type\":\"text\",\"text\":\"hello\"}]}}", merged.stepJson());
+    }
+
+    @Test
+    void compact_splitsRunsAtOtherClientsAndNonAdjacentPositions() {
+        List<StepEntry> steps = new ArrayList<>(typing(0, 1, "ab", "user-1"));
+        steps.addAll(typing(2, 3, "cd", "user-2"));
+        steps.add(typed(4, 9, "x", "user-2"));
+
+        List<StepEntry> compacted = compactor.compact(steps);
+
+        assertEquals(List.of(2, 2, 1), compacted.stream().map(StepEntry::span).toList());
+        assertEquals(List.of(0, 2, 4), compacted.stream().map(StepEntry::stepVersion).toList());
+    }
+
+    @Test
+    void compact_leavesOtherStepsUntouched() {
+        StepEntry delete = new StepEntry(3, "{\"stepType\":\"replace\",\"from\":1,\"to\":4}", "user-1");
+        StepEntry bold = new StepEntry(4, "{\"stepType\":\"addMark\",\"from\":1,\"to\":2,"
+                + "\"mark\":{\"type\":\"bold\"}}", "user-1");
+        List<StepEntry> steps = new ArrayList<>(typing(0, 1, "abc", "user-1"));
+        steps.add(delete);
+        steps.add(bold);
+
+        List<StepEntry> compacted = compactor.compact(steps);
+
+        assertEquals(3, compacted.size());
+        assertSame(delete, compacted.get(1));
+        assertSame(bold, compacted.get(2));
+    }
+
+    @Test
+    void compact_singleInsertion_isKeptAsIs() {
+        StepEntry single = typed(0, 1, "a", "user-1");
+
+        assertSame(single, compactor.compact(List.of(single)).get(0));
+    }
+}
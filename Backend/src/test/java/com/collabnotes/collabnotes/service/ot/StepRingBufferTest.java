@@ -0,0 +1,123 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.StepEntry;
+
+class StepRingBufferTest {
+
+    private static StepEntry entry(int version) {
+        return new StepEntry(version, "{\"stepType\":\"replace\",\"v\":" + version + "}", "user-1");
+    }
+
+    private static void appendRange(StepRingBuffer buffer, int from, int to) {
+        for (int v = from; v < to; v++) {
+            buffer.append(entry(v));
+        }
+    }
+
+    @Test
+    void since_returnsStepsFromRequestedVersion() {
+        StepRingBuffer buffer = new StepRingBuffer(100);
+        appendRange(buffer, 0, 10);
+
+        List<StepEntry> slice = buffer.since(4);
+
+        assertEquals(6, slice.size());
+        assertEquals(4, slice.get(0).stepVersion());
+        assertEquals(9, slice.get(5).stepVersion());
+    }
+
+    @Test
+    void since_atOrPastEnd_returnsEmpty() {
+        StepRingBuffer buffer = new StepRingBuffer(100);
+        appendRange(buffer, 0, 5);
+
+        assertTrue(buffer.since(5).isEmpty());
+        assertTrue(buffer.since(42).isEmpty());
+    }
+
+    @Test
+    void append_pastCapacity_overwritesOldestAndKeepsOrder() {
+        StepRingBuffer buffer = new StepRingBuffer(8);
+        appendRange(buffer, 0, 21);
+
+        assertEquals(8, buffer.size());
+        assertEquals(13, buffer.firstVersion());
+        assertEquals(21, buffer.endVersion());
+
+        List<StepEntry> slice = buffer.since(13);
+        for (int i = 0; i < slice.size(); i++) {
+            assertEquals(13 + i, slice.get(i).stepVersion());
+        }
+    }
+
+    @Test
+    void since_trimmedVersion_returnsEmptyRatherThanPartialHistory() {
+        StepRingBuffer buffer = new StepRingBuffer(8);
+        appendRange(buffer, 0, 20);
+
+        assertTrue(buffer.since(3).isEmpty());
+    }
+
+    @Test
+    void append_growsBackingArrayWithoutLosingWrappedEntries() {
+        StepRingBuffer buffer = new StepRingBuffer(1000);
+        appendRange(buffer, 0, 300);
+
+        List<StepEntry> slice = buffer.since(0);
+        assertEquals(300, slice.size());
+        assertEquals(299, slice.get(299).stepVersion());
+    }
+
+    @Test
+    void append_nonContiguousVersion_throws() {
+        StepRingBuffer buffer = new StepRingBuffer(10);
+        buffer.append(entry(0));
+
+        assertThrows(IllegalStateException.class, () -> buffer.append(entry(5)));
+    }
+
+    @Test
+    void append_onEmptyBuffer_acceptsAnyStartingVersion() {
+        StepRingBuffer buffer = new StepRingBuffer(10);
+        appendRange(buffer, 50, 53);
+
+        assertEquals(50, buffer.firstVersion());
+        assertEquals(3, buffer.since(50).size());
+    }
+
+    @Test
+    void trimBefore_dropsOlderStepsAndKeepsAppending() {
+        StepRingBuffer buffer = new StepRingBuffer(100);
+        appendRange(buffer, 0, 40);
+
+        List<StepEntry> dropped = buffer.trimBefore(35);
+        appendRange(buffer, 40, 42);
+
+        assertEquals(35, dropped.size());
+        assertEquals(34, dropped.get(34).stepVersion());
+        assertEquals(35, buffer.firstVersion());
+        assertEquals(7, buffer.since(35).size());
+        assertTrue(buffer.since(10).isEmpty());
+        assertTrue(buffer.trimBefore(20).isEmpty());
+    }
+
+    @Test
+    void trimBefore_everything_leavesAnEmptyBufferThatRestartsAtTheNextStep() {
+        StepRingBuffer buffer = new StepRingBuffer(100);
+        appendRange(buffer, 0, 5);
+
+        buffer.trimBefore(9);
+        buffer.append(entry(5));
+
+        assertEquals(1, buffer.size());
+        assertEquals(5, buffer.firstVersion());
+    }
+}
@@ -0,0 +1,157 @@
+package com.collabnotes.collabnotes.service.ot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.DocumentSnapshot;
+import com.collabnotes.collabnotes.service.ot.model.PmHtml;
+
+class WriteBehindFlusherTest {
+
+    private final List<String> writes = new ArrayList<>();
+    private long now;
+    private boolean failWrites;
+    private WriteBehindFlusher flusher;
+
+    @BeforeEach
+    void setUp() {
+        NoteContentWriter writer = (noteId, content) -> {
+            if (failWrites) {
+                throw new IllegalStateException("database down");
+            }
+            writes.add(noteId + ":" + content);
+            return true;
+        };
+        flusher = new WriteBehindFlusher(writer, true, 5000, 10, 1000, () -> now);
+    }
+
+    private static DocumentSnapshot snapshot(int version, String text) {
+        return new DocumentSnapshot(version, PmHtml.parse("<p>" + text + "</p>"));
+    }
+
+    @Test
+    void coalescesChangesUntilIdle() {
+        flusher.documentChanged("n", snapshot(1, "a"), 1);
+        now = 500;
+        flusher.documentChanged("n", snapshot(2, "ab"), 1);
+        flusher.flushDue();
+        assertTrue(writes.isEmpty());
+
+        now = 1500;
+        flusher.flushDue();
+
+        assertEquals(List.of("n:<p>ab</p>"), writes);
+        assertEquals(0, flusher.pendingCount());
+    }
+
+    @Test
+    void slowWriteForOneNote_doesNotHoldUpAnother() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindFlusher concurrent = new WriteBehindFlusher((noteId, content) -> {
+            if (noteId.equals("slow")) {
+                slowStarted.countDown();
+                try {
+                    releaseSlow.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            written.add(noteId);
+            return true;
+        }, true, 5000, 10, 1000, () -> now);
+        concurrent.documentChanged("slow", snapshot(1, "a"), 1);
+        concurrent.documentChanged("fast", snapshot(1, "b"), 1);
+
+        Thread slow = Thread.ofVirtual().start(() -> concurrent.flush("slow"));
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+        concurrent.flush("fast");
+
+        assertEquals(List.of("fast"), written);
+        releaseSlow.countDown();
+        slow.join();
+        assertEquals(List.of("fast", "slow"), written);
+    }
+
+    @Test
+    void noteEvicted_writesPendingContentImmediately() {
+        flusher.documentChanged("n", snapshot(1, "a"), 1);
+
+        assertTrue(flusher.noteEvicted("n"));
+
+        assertEquals(List.of("n:<p>a</p>"), writes);
+    }
+
+    @Test
+    void noteEvicted_reportsContentNotDurableWhenTheWriteFails() {
+        flusher.documentChanged("n", snapshot(1, "a"), 1);
+        failWrites = true;
+
+        assertFalse(flusher.noteEvicted("n"));
+        assertEquals(1, flusher.pendingCount());
+    }
+
+    @Test
+    void flushesAfterIntervalEvenWhileBusy() {
+        for (int v = 1; v <= 9; v++) {
+            now = v * 700L;
+            flusher.documentChanged("n", snapshot(v, "v" + v), 1);
+            flusher.flushDue();
+        }
+
+        assertEquals(List.of("n:<p>v9</p>"), writes);
+    }
+
+    @Test
+    void flushesOnceStepThresholdIsReached() {
+        flusher.documentChanged("n", snapshot(10, "big"), 10);
+        flusher.flushDue();
+
+        assertEquals(List.of("n:<p>big</p>"), writes);
+    }
+
+    @Test
+    void keepsNewestSnapshotWhenChangesArriveOutOfOrder() {
+        flusher.documentChanged("n", snapshot(3, "new"), 1);
+        flusher.documentChanged("n", snapshot(2, "old"), 1);
+        flusher.flushAll();
+
+        assertEquals(List.of("n:<p>new</p>"), writes);
+    }
+
+    @Test
+    void failedWriteIsRetriedAfterIdle() {
+        flusher.documentChanged("n", snapshot(1, "a"), 1);
+        failWrites = true;
+        flusher.flush("n");
+        assertEquals(1, flusher.pendingCount());
+
+        failWrites = false;
+        now = 999;
+        flusher.flushDue();
+        assertTrue(writes.isEmpty());
+        now = 1000;
+        flusher.flushDue();
+
+        assertEquals(List.of("n:<p>a</p>"), writes);
+    }
+
+    @Test
+    void disabledFlusherIgnoresChanges() {
+        WriteBehindFlusher disabled = new WriteBehindFlusher((id, c) -> true, false, 0, 1, 0, () -> 0L);
+        disabled.documentChanged("n", snapshot(1, "a"), 1);
+
+        assertEquals(0, disabled.pendingCount());
+    }
+}
@@ -0,0 +1,39 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class PmHtmlTest {
+
+    @Test
+    void roundTripsStarterKitMarkup() {
+        String html = "<h2>Plan</h2><p>Some <strong>bold <em>both</em></strong> and <code>x &lt; y</code></p>"
+                + "<ul><li><p>one</p></li><li><p>two<br>lines</p></li></ul>"
+                + "<ol start=\"3\"><li><p>three</p></li></ol>"
+                + "<blockquote><p>quoted</p></blockquote><hr>"
+                + "<pre><code class=\"language-js\">let a = 1;\n  a++;</code></pre><p></p>";
+
+        assertEquals(html, PmHtml.serialize(PmHtml.parse(html)));
+    }
+
+    @Test
+    void emptyContent_parsesToSingleEmptyParagraph() {
+        PmNode doc = PmHtml.parse("");
+
+        assertEquals(4, doc.nodeSize());
+        assertEquals("<p></p>", PmHtml.serialize(doc));
+    }
+
+    @Test
+    void collapsesWhitespaceLikeTheEditor() {
+        PmNode doc = PmHtml.parse("\n<p>  a \n  b  </p>\n  <p> <em>c</em> </p>");
+
+        assertEquals("<p>a b</p><p><em>c</em></p>", PmHtml.serialize(doc));
+    }
+
+    @Test
+    void wrapsStrayInlineContentInParagraphs() {
+        assertEquals("<p>plain <strong>text</strong></p>", PmHtml.serialize(PmHtml.parse("plain <b>text</b>")));
+    }
+}
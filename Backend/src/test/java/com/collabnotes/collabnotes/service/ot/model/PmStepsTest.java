@@ -0,0 +1,147 @@
+package com.collabnotes.collabnotes.service.ot.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class PmStepsTest {
+
+    private static Map<String, Object> text(String text) {
+        return Map.of("type", "text", "text", text);
+    }
+
+    private static Map<String, Object> replace(int from, int to, Map<String, Object> slice) {
+        return slice == null
+                ? Map.of("stepType", "replace", "from", from, "to", to)
+                : Map.of("stepType", "replace", "from", from, "to", to, "slice", slice);
+    }
+
+    private static String apply(String html, Map<String, Object> step) {
+        return PmHtml.serialize(PmSteps.apply(PmHtml.parse(html), step));
+    }
+
+    @Test
+    void replace_insertsText() {
+        var step = replace(3, 3, Map.of("content", List.of(text("XY"))));
+
+        assertEquals("<p>abXYc</p>", apply("<p>abc</p>", step));
+    }
+
+    @Test
+    void replace_deletesAcrossParagraphsAndJoinsThem() {
+        assertEquals("<p>aef</p>", apply("<p>abc</p><p>def</p>", replace(2, 7, null)));
+    }
+
+    @Test
+    void replace_splitsParagraphWithOpenSlice() {
+        var split = Map.<String, Object>of(
+                "content", List.of(Map.of("type", "paragraph"), Map.of("type", "paragraph")),
+                "openStart", 1, "openEnd", 1);
+
+        assertEquals("<p>ab</p><p>c</p>", apply("<p>abc</p>", replace(3, 3, split)));
+    }
+
+    @Test
+    void replace_splitsListItem() {
+        var item = Map.<String, Object>of("type", "listItem", "content", List.of(Map.of("type", "paragraph")));
+        var split = Map.<String, Object>of("content", List.of(item, item), "openStart", 2, "openEnd", 2);
+
+        assertEquals("<ul><li><p>a</p></li><li><p>b</p></li></ul>",
+                apply("<ul><li><p>ab</p></li></ul>", replace(4, 4, split)));
+    }
+
+    @Test
+    void replaceAround_wrapsParagraphInBlockquote() {
+        var step = Map.<String, Object>of("stepType", "replaceAround", "from", 0, "to", 5,
+                "gapFrom", 0, "gapTo", 5, "insert", 1, "structure", true,
+                "slice", Map.of("content", List.of(Map.of("type", "blockquote"))));
+
+        assertEquals("<blockquote><p>abc</p></blockquote>", apply("<p>abc</p>", step));
+    }
+
+    @Test
+    void addMark_and_removeMark_splitText() {
+        var bold = Map.<String, Object>of("type", "bold");
+        String marked = apply("<p>abcd</p>",
+                Map.of("stepType", "addMark", "from", 2, "to", 4, "mark", bold));
+
+        assertEquals("<p>a<strong>bc</strong>d</p>", marked);
+        assertEquals("<p>abcd</p>", apply(marked,
+                Map.of("stepType", "removeMark", "from", 1, "to", 5, "mark", bold)));
+    }
+
+    @Test
+    void addMark_skipsCodeBlocks() {
+        var step = Map.<String, Object>of("stepType", "addMark", "from", 1, "to", 3,
+                "mark", Map.of("type", "bold"));
+
+        assertEquals("<pre><code>ab</code></pre>", apply("<pre><code>ab</code></pre>", step));
+    }
+
+    @Test
+    void attr_changesHeadingLevel() {
+        var step = Map.<String, Object>of("stepType", "attr", "pos", 0, "attr", "level", "value", 3);
+
+        assertEquals("<h3>Title</h3>", apply("<h1>Title</h1>", step));
+    }
+
+    @Test
+    void outOfRangeOrUnknownSteps_throw() {
+        PmNode doc = PmHtml.parse("<p>a</p>");
+
+        assertThrows(StepApplyException.class, () -> PmSteps.apply(doc, replace(9, 9, null)));
+        assertThrows(StepApplyException.class, () -> PmSteps.apply(doc, Map.of("stepType", "bogus")));
+    }
+
+    @Test
+    void rebase_shiftsStepsPastConcurrentInsertions() {
+        var concurrent = replace(1, 1, Map.of("content", List.of(text("12"))));
+        var stale = replace(3, 3, Map.of("content", List.of(text("X"))));
+
+        var rebased = PmSteps.rebase(List.of(stale), List.of(concurrent));
+
+        assertEquals(5, rebased.get(0).get("from"));
+        assertEquals("<p>12abXc</p>", apply(apply("<p>abc</p>", concurrent), rebased.get(0)));
+    }
+
+    @Test
+    void rebase_keepsPositionsInsideTheClientsOwnEarlierInsertions() {
+        var concurrent = replace(1, 1, Map.of("content", List.of(text("12"))));
+        var first = replace(2, 2, Map.of("content", List.of(text("XY"))));
+        var second = replace(3, 3, Map.of("content", List.of(text("Z"))));
+
+        var rebased = PmSteps.rebase(List.of(first, second), List.of(concurrent));
+
+        var doc = PmSteps.apply(PmHtml.parse("<p>abc</p>"), concurrent);
+        for (var step : rebased) {
+            doc = PmSteps.apply(doc, step);
+        }
+        assertEquals("<p>12aXZYbc</p>", PmHtml.serialize(doc));
+    }
+
+    @Test
+    void rebase_whenTheTargetWasDeleted_returnsNull() {
+        var deleteAll = replace(1, 4, null);
+        var bold = Map.<String, Object>of("type", "bold");
+
+        assertNull(PmSteps.rebase(List.of(replace(2, 3, null)), List.of(deleteAll)));
+        assertNull(PmSteps.rebase(List.of(Map.of("stepType", "addMark", "from", 2, "to", 3, "mark", bold)),
+                List.of(deleteAll)));
+    }
+
+    @Test
+    void getMap_mapsPositionsAroundAReplace() {
+        PmStepMap map = PmSteps.getMap(replace(2, 4, Map.of("content", List.of(text("XYZ")))));
+
+        assertEquals(1, map.mapResult(1, 1).pos());
+        assertEquals(2, map.mapResult(2, -1).pos());
+        assertEquals(5, map.mapResult(4, 1).pos());
+        assertEquals(7, map.mapResult(6, 1).pos());
+        assertEquals(6, map.invert().mapResult(7, 1).pos());
+    }
+}
@@ -227,6 +227,40 @@ class JwtUtilTest {
         }
     }
 
+    @Nested
+    class VerifiedCache {
+
+        @Test
+        void repeatedTokenReturnsSameClaims() {
+            String token = jwtUtil.generateToken("user-1", "u@e.com");
+
+            assertEquals(jwtUtil.extractClaims(token), jwtUtil.extractClaims("Bearer " + token));
+            assertEquals("user-1", jwtUtil.extractUserId(token));
+        }
+
+        @Test
+        void tamperedSignatureIsRejectedAfterGenuineTokenIsCached() {
+            String token = jwtUtil.generateToken("user-1", "u@e.com");
+            assertTrue(jwtUtil.validateToken(token));
+
+            int signature = token.lastIndexOf('.') + 1;
+            char first = token.charAt(signature);
+            String tampered = token.substring(0, signature) + (first == 'A' ? 'B' : 'A')
+                    + token.substring(signature + 1);
+
+            assertFalse(jwtUtil.validateToken(tampered));
+        }
+
+        @Test
+        void worksWithCacheDisabled() {
+            ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 0);
+            String token = jwtUtil.generateToken("user-1", "u@e.com");
+
+            assertEquals("user-1", jwtUtil.extractUserId(token));
+            assertEquals("user-1", jwtUtil.extractUserId(token));
+        }
+    }
+
     @Nested
     class ValidateToken {
 
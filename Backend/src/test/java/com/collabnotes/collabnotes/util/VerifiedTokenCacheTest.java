@@ -0,0 +1,55 @@
+package com.collabnotes.collabnotes.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class VerifiedTokenCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void servesEntryUntilTokenExpires() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(10, now::get);
+        cache.put("token", "claims", 2_000);
+
+        assertEquals("claims", cache.get("token"));
+        now.set(2_000);
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void staysWithinCapacity() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(2, now::get);
+        cache.put("h.p.a", "A", 10_000);
+        cache.put("h.p.b", "B", 10_000);
+        cache.put("h.p.c", "C", 10_000);
+
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void isKeyedOnTheSignatureSegment() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(10, now::get);
+        cache.put("header.payload.sig", "claims", 10_000);
+
+        assertEquals("claims", cache.get("header.payload.sig"));
+        assertEquals("claims", cache.get("other.claims.sig"));
+        assertNull(cache.get("header.payload.other"));
+    }
+
+    @Test
+    void ignoresExpiredTokensAndZeroCapacity() {
+        VerifiedTokenCache<String> cache = new VerifiedTokenCache<>(10, now::get);
+        cache.put("old", "claims", 1_000);
+        assertNull(cache.get("old"));
+
+        VerifiedTokenCache<String> disabled = new VerifiedTokenCache<>(0, now::get);
+        disabled.put("token", "claims", 10_000);
+        assertNull(disabled.get("token"));
+    }
+}
@@ -14,6 +14,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -30,11 +31,22 @@ import com.collabnotes.collabnotes.metrics.MetricsService;
 import com.collabnotes.collabnotes.service.NoteService;
 import com.collabnotes.collabnotes.service.NoteSessionService;
 import com.collabnotes.collabnotes.service.UserService;
+import com.collabnotes.collabnotes.service.ot.DocumentChangeListener;
+import com.collabnotes.collabnotes.service.ot.NoteContentLoader;
+import com.collabnotes.collabnotes.service.ot.NoteSubmissionExecutor;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService;
+import com.collabnotes.collabnotes.service.ot.OTAuthorityService.Submission;
+import com.collabnotes.collabnotes.service.ot.OTClusterRouter;
+import com.collabnotes.collabnotes.service.ot.OTMemoryManager;
+import com.collabnotes.collabnotes.service.ot.StepJournal;
+import com.collabnotes.collabnotes.service.ot.WriteBehindFlusher;
 import com.collabnotes.collabnotes.util.JwtUtil;
 import com.collabnotes.collabnotes.websocket.message.ErrorMessage;
 import com.collabnotes.collabnotes.websocket.message.TypingIndicatorMessage;
 import com.collabnotes.collabnotes.websocket.message.UserPresenceMessage;
 
+import tools.jackson.databind.json.JsonMapper;
+
 @ExtendWith(MockitoExtension.class)
 class NoteWebSocketControllerTest {
 
@@ -59,13 +71,31 @@ class NoteWebSocketControllerTest {
     @Mock
     private SimpMessageHeaderAccessor headerAccessor;
 
+    @Mock
+    private WriteBehindFlusher writeBehindFlusher;
+
+    @Mock
+    private OTMemoryManager otMemoryManager;
+
+    private OTAuthorityService otAuthorityService;
     private NoteWebSocketController controller;
 
     @BeforeEach
     void setUp() {
+        otAuthorityService = new OTAuthorityService(
+                StepJournal.none(),
+                NoteContentLoader.none(),
+                DocumentChangeListener.none(),
+                JsonMapper.builder().build());
         controller = new NoteWebSocketController(noteService, userService,
-                sessionService, messagingTemplate, metricsService, jwtUtil,
-                new com.collabnotes.collabnotes.service.ot.OTAuthorityService());
+                sessionService, metricsService,
+                new SessionAuthCache(jwtUtil, noteService, JsonMapper.builder().build(),
+                        60_000, System::currentTimeMillis),
+                otAuthorityService,
+                writeBehindFlusher,
+                OTClusterRouter.local(messagingTemplate),
+                NoteSubmissionExecutor.inline(otAuthorityService),
+                otMemoryManager, OTBroadcastCoalescer.immediate());
     }
 
     @Nested
@@ -106,6 +136,32 @@ class NoteWebSocketControllerTest {
             verify(sessionService, never()).addUserToNote(anyString(), anyString());
         }
 
+        @Test
+        void whenLastUserLeaves_releasesOtState() {
+            when(jwtUtil.extractUserId("token")).thenReturn("user-1");
+            when(noteService.hasNoteAccess("note-1", "user-1")).thenReturn(true);
+            when(sessionService.getActiveUserCount("note-1")).thenReturn(0);
+
+            UserPresenceMessage message = new UserPresenceMessage();
+            message.setJoining(false);
+            controller.updatePresence("note-1", message, "token", headerAccessor);
+
+            verify(otMemoryManager).noteReleased("note-1");
+        }
+
+        @Test
+        void whenOthersRemain_keepsOtState() {
+            when(jwtUtil.extractUserId("token")).thenReturn("user-1");
+            when(noteService.hasNoteAccess("note-1", "user-1")).thenReturn(true);
+            when(sessionService.getActiveUserCount("note-1")).thenReturn(2);
+
+            UserPresenceMessage message = new UserPresenceMessage();
+            message.setJoining(false);
+            controller.updatePresence("note-1", message, "token", headerAccessor);
+
+            verify(otMemoryManager, never()).noteReleased(anyString());
+        }
+
         @Test
         void whenJoining_andUserInfoNull_setsUnknownUserName() {
             when(jwtUtil.extractUserId("token")).thenReturn("user-1");
@@ -178,12 +234,13 @@ class NoteWebSocketControllerTest {
             when(noteService.getNoteById("note-1", "user-1")).thenReturn(note);
             when(sessionService.isUserViewingNote("note-1", "user-1")).thenReturn(false);
             when(sessionService.getUsersViewingNote("note-1")).thenReturn(Set.of("user-1"));
-            when(userService.getUserInfo("user-1"))
-                    .thenReturn(new UserResponse("user-1", "u@e.com", "User", null));
+            when(userService.getUserInfos(any()))
+                    .thenReturn(Map.of("user-1", new UserResponse("user-1", "u@e.com", "User", null)));
             when(noteService.getNoteCollaborators("note-1", "user-1")).thenReturn(List.of());
 
             controller.requestNoteState("note-1", "token", headerAccessor);
 
+            verify(userService).getUserInfos(Set.of("user-1", "owner-1"));
             verify(sessionService).addUserToNote("note-1", "user-1");
             verify(messagingTemplate).convertAndSendToUser(eq("user-1"),
                     eq("/queue/notes/note-1/state"), any());
@@ -224,14 +281,35 @@ class NoteWebSocketControllerTest {
             when(noteService.getNoteById("note-1", "user-1")).thenReturn(note);
             when(sessionService.isUserViewingNote("note-1", "user-1")).thenReturn(true);
             when(sessionService.getUsersViewingNote("note-1")).thenReturn(Set.of("user-1"));
-            when(userService.getUserInfo("user-1"))
-                    .thenReturn(new UserResponse("user-1", "u@e.com", "User", null));
+            when(userService.getUserInfos(any()))
+                    .thenReturn(Map.of("user-1", new UserResponse("user-1", "u@e.com", "User", null)));
             when(noteService.getNoteCollaborators("note-1", "user-1")).thenReturn(List.of());
 
             controller.requestNoteState("note-1", "token", headerAccessor);
 
             verify(sessionService, never()).addUserToNote(anyString(), anyString());
         }
+
+        @Test
+        void registersTheSessionAtTheStateVersion_soAWritersAckDoesNotTrimItsHistory() {
+            when(jwtUtil.extractUserId("token")).thenReturn("user-1");
+            when(headerAccessor.getSessionId()).thenReturn("reader");
+            NoteDTO note = new NoteDTO();
+            note.setId("note-1");
+            note.setOwnerId("owner-1");
+            when(noteService.getNoteById("note-1", "user-1")).thenReturn(note);
+            when(sessionService.getUsersViewingNote("note-1")).thenReturn(Set.of("user-1"));
+            when(noteService.getNoteCollaborators("note-1", "user-1")).thenReturn(List.of());
+
+            controller.requestNoteState("note-1", "token", headerAccessor);
+            List<Map<String, Object>> steps = IntStream.range(0, 300)
+                    .mapToObj(i -> Map.<String, Object>of("stepType", "replace", "from", i, "to", i))
+                    .toList();
+            otAuthorityService.submitAll("note-1", List.of(new Submission(0, steps, "user-2", "writer")));
+            otAuthorityService.acknowledge("note-1", "writer", 300);
+
+            assertEquals(300, otAuthorityService.stepsSince("note-1", 0).size());
+        }
     }
 
     @Nested
@@ -0,0 +1,111 @@
+package com.collabnotes.collabnotes.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import com.collabnotes.collabnotes.websocket.message.OTSubmitStepsMessage;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+class OTBinaryFramingTest {
+
+    private static final byte[] BROADCAST = ("{\"version\":3,"
+            + "\"steps\":[{\"stepType\":\"replace\",\"from\":1,\"to\":1}],\"clientId\":\"user-1\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final CBORMapper cborMapper = CBORMapper.builder().build();
+    private OTBinaryFraming framing;
+
+    @BeforeEach
+    void setUp() {
+        framing = new OTBinaryFraming(objectMapper);
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String sessionId, String destination,
+            byte[] payload, String format) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        if (format != null) {
+            accessor.setNativeHeader(OTBinaryFraming.FORMAT_HEADER, format);
+        }
+        if (type == SimpMessageType.MESSAGE) {
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        }
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private void connect(String sessionId, String format) {
+        framing.preSend(frame(SimpMessageType.CONNECT, sessionId, null, new byte[0], format), null);
+    }
+
+    private Message<?> deliver(String sessionId, String destination) {
+        return framing.preSend(frame(SimpMessageType.MESSAGE, sessionId, destination, BROADCAST, null), null);
+    }
+
+    @Test
+    void optedInSession_receivesOTFramesAsCbor() {
+        connect("s1", "cbor");
+
+        Message<?> sent = deliver("s1", "/topic/notes/note-1/ot");
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(sent);
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, accessor.getContentType());
+        assertEquals("cbor", accessor.getFirstNativeHeader(OTBinaryFraming.FORMAT_HEADER));
+        assertEquals(objectMapper.readTree(BROADCAST), cborMapper.readTree((byte[]) sent.getPayload()));
+    }
+
+    @Test
+    void jsonSessionsAndOtherDestinations_stayJson() {
+        connect("s1", "cbor");
+        connect("s2", null);
+
+        Message<?> presence = frame(SimpMessageType.MESSAGE, "s1", "/topic/notes/note-1/presence",
+                BROADCAST, null);
+        assertSame(presence, framing.preSend(presence, null));
+        Message<?> plain = frame(SimpMessageType.MESSAGE, "s2", "/topic/notes/note-1/ot", BROADCAST, null);
+        assertSame(plain, framing.preSend(plain, null));
+    }
+
+    @Test
+    void fanOut_reusesTheEncodingAndDisconnectForgetsTheSession() {
+        connect("s1", "cbor");
+        connect("s2", "cbor");
+
+        Object first = deliver("s1", "/topic/notes/note-1/ot").getPayload();
+        assertSame(first, deliver("s2", "/topic/notes/note-1/ot").getPayload());
+
+        framing.preSend(frame(SimpMessageType.DISCONNECT, "s1", null, new byte[0], null), null);
+        assertSame(BROADCAST, deliver("s1", "/topic/notes/note-1/ot").getPayload());
+    }
+
+    @Test
+    void cborConverter_decodesSubmissions() {
+        OTSubmitStepsMessage submit = new OTSubmitStepsMessage();
+        submit.setVersion(7);
+        submit.setSteps(java.util.List.of(java.util.Map.of("stepType", "replace", "from", 2, "to", 2)));
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(CborMessageConverter.APPLICATION_CBOR);
+        Message<byte[]> message = MessageBuilder.createMessage(cborMapper.writeValueAsBytes(submit),
+                accessor.getMessageHeaders());
+
+        OTSubmitStepsMessage decoded = (OTSubmitStepsMessage) new CborMessageConverter()
+                .fromMessage(message, OTSubmitStepsMessage.class);
+
+        assertEquals(7, decoded.getVersion());
+        assertEquals("replace", decoded.getSteps().get(0).get("stepType"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.collabnotes.collabnotes.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.collabnotes.collabnotes.websocket.message.OTStepsBroadcastMessage;
+
+class OTBroadcastCoalescerTest {
+
+    private final List<Runnable> timers = new ArrayList<>();
+    private final List<OTStepsBroadcastMessage> sent = new ArrayList<>();
+    private final List<OTStepsBroadcastMessage> grouped = new ArrayList<>();
+    private OTBroadcastCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new OTBroadcastCoalescer(5, timers::add);
+        coalescer.setPublisher((noteId, message, isGrouped) -> (isGrouped ? grouped : sent).add(message));
+    }
+
+    private static OTStepsBroadcastMessage accepted(String clientId, int version, String... steps) {
+        OTStepsBroadcastMessage message = new OTStepsBroadcastMessage();
+        message.setClientId(clientId);
+        message.setVersion(version);
+        message.setSteps(new ArrayList<>(List.of(steps)));
+        return message;
+    }
+
+    private void closeWindows() {
+        List<Runnable> due = List.copyOf(timers);
+        timers.clear();
+        due.forEach(Runnable::run);
+    }
+
+    @Test
+    void immediate_publishesEachBroadcastAsIs() {
+        OTBroadcastCoalescer immediate = OTBroadcastCoalescer.immediate();
+        immediate.setPublisher((noteId, message, isGrouped) -> (isGrouped ? grouped : sent).add(message));
+        OTStepsBroadcastMessage first = accepted("user-1", 1, "{}");
+
+        immediate.publish("note-1", first);
+        immediate.publish("note-1", accepted("user-2", 2, "{}"));
+
+        assertEquals(2, sent.size());
+        assertTrue(sent.get(0) == first);
+        assertTrue(grouped.isEmpty());
+    }
+
+    @Test
+    void nothingIsSentUntilTheWindowCloses() {
+        coalescer.publish("note-1", accepted("user-1", 1, "{\"a\":1}"));
+        coalescer.publish("note-1", accepted("user-2", 2, "{\"b\":2}"));
+
+        assertTrue(sent.isEmpty());
+        assertEquals(1, timers.size());
+    }
+
+    @Test
+    void severalSubmitters_goOutAsGroupsWithTheFinalVersion() {
+        coalescer.publish("note-1", accepted("user-1", 2, "{\"a\":1}", "{\"a\":2}"));
+        coalescer.publish("note-1", accepted("user-2", 3, "{\"b\":1}"));
+        coalescer.publish("note-1", accepted("user-1", 4, "{\"a\":3}"));
+        closeWindows();
+
+        assertEquals(1, grouped.size());
+        OTStepsBroadcastMessage frame = grouped.get(0);
+        assertEquals(4, frame.getVersion());
+        assertNull(frame.getClientId());
+        assertNull(frame.getSteps());
+        assertEquals(3, frame.getGroups().size());
+        assertEquals("user-1", frame.getGroups().get(0).getClientId());
+        assertEquals("[{\"a\":1},{\"a\":2}]", frame.getGroups().get(0).getSteps());
+        assertEquals("user-2", frame.getGroups().get(1).getClientId());
+        assertEquals("[{\"a\":3}]", frame.getGroups().get(2).getSteps());
+        assertEquals(4, frame.stepCount());
+    }
+
+    @Test
+    void severalSubmitters_goOutAsOnePlainFramePerSubmitterToo() {
+        coalescer.publish("note-1", accepted("user-1", 2, "{\"a\":1}", "{\"a\":2}"));
+        coalescer.publish("note-1", accepted("user-2", 3, "{\"b\":1}"));
+        coalescer.publish("note-1", accepted("user-1", 4, "{\"a\":3}"));
+        closeWindows();
+
+        assertEquals(List.of(2, 3, 4), sent.stream().map(OTStepsBroadcastMessage::getVersion).toList());
+        assertEquals(List.of("user-1", "user-2", "user-1"),
+                sent.stream().map(OTStepsBroadcastMessage::getClientId).toList());
+        assertEquals("[{\"a\":1},{\"a\":2}]", sent.get(0).getSteps());
+        assertTrue(sent.stream().allMatch(frame -> frame.getGroups() == null));
+    }
+
+    @Test
+    void flush_publishesTheOpenWindowBeforeItsTimer() {
+        coalescer.publish("note-1", accepted("user-1", 1, "{}"));
+
+        coalescer.flush("note-1");
+        assertEquals(1, sent.size());
+
+        closeWindows();
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void singleSubmitterWindow_keepsTheFlatShape() {
+        coalescer.publish("note-1", accepted("user-1", 1, "{\"a\":1}"));
+        coalescer.publish("note-1", accepted("user-1", 2, "{\"a\":2}"));
+        closeWindows();
+
+        for (OTStepsBroadcastMessage frame : List.of(sent.get(0), grouped.get(0))) {
+            assertEquals("user-1", frame.getClientId());
+            assertEquals(2, frame.getVersion());
+            assertEquals("[{\"a\":1},{\"a\":2}]", frame.getSteps());
+            assertNull(frame.getGroups());
+        }
+    }
+
+    @Test
+    void notesAreCoalescedIndependently() {
+        coalescer.publish("note-1", accepted("user-1", 1, "{}"));
+        coalescer.publish("note-2", accepted("user-1", 7, "{}"));
+        closeWindows();
+
+        assertEquals(2, sent.size());
+        assertEquals(List.of(1, 7), sent.stream().map(OTStepsBroadcastMessage::getVersion).toList());
+    }
+
+    @Test
+    void broadcastAfterAWindowCloses_opensANewOne() {
+        coalescer.publish("note-1", accepted("user-1", 1, "{}"));
+        closeWindows();
+        coalescer.publish("note-1", accepted("user-1", 2, "{}"));
+
+        assertEquals(1, sent.size());
+        assertEquals(1, timers.size());
+        closeWindows();
+        assertEquals(2, sent.get(1).getVersion());
+    }
+
+    @Test
+    void shutdown_flushesOpenWindows() {
+        coalescer.publish("note-1", accepted("user-1", 1, "{}"));
+
+        coalescer.shutdown();
+
+        assertEquals(1, sent.size());
+    }
+}
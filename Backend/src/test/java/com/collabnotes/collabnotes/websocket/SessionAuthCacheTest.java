@@ -0,0 +1,118 @@
+package com.collabnotes.collabnotes.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import com.collabnotes.collabnotes.service.NoteService;
+import com.collabnotes.collabnotes.util.JwtUtil;
+
+import tools.jackson.databind.json.JsonMapper;
+
+@ExtendWith(MockitoExtension.class)
+class SessionAuthCacheTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private NoteService noteService;
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final Map<String, Object> session = new HashMap<>();
+    private SessionAuthCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SessionAuthCache(jwtUtil, noteService, JsonMapper.builder().build(), 60_000, now::get);
+    }
+
+    @Test
+    void resolveUserId_parsesEachTokenOncePerSession() {
+        when(jwtUtil.extractUserId("token")).thenReturn("user-1");
+
+        assertEquals("user-1", cache.resolveUserId(session, "Bearer token"));
+        assertEquals("user-1", cache.resolveUserId(session, "token"));
+
+        verify(jwtUtil, times(1)).extractUserId("token");
+    }
+
+    @Test
+    void resolveUserId_verifiesTheTokenAgainOnceItExpires() {
+        when(jwtUtil.extractUserId("token")).thenReturn("user-1", (String) null);
+        when(jwtUtil.extractExpiration("token")).thenReturn(2_000L);
+
+        assertEquals("user-1", cache.resolveUserId(session, "token"));
+        now.set(1_999);
+        assertEquals("user-1", cache.resolveUserId(session, "token"));
+        verify(jwtUtil, times(1)).extractUserId("token");
+
+        now.set(2_000);
+        assertNull(cache.resolveUserId(session, "token"));
+        verify(jwtUtil, times(2)).extractUserId("token");
+    }
+
+    @Test
+    void hasNoteAccess_reusesDecisionUntilTtlExpires() {
+        when(noteService.hasNoteAccess("note-1", "user-1")).thenReturn(true);
+
+        assertTrue(cache.hasNoteAccess(session, "note-1", "user-1"));
+        now.addAndGet(59_999);
+        assertTrue(cache.hasNoteAccess(session, "note-1", "user-1"));
+        verify(noteService, times(1)).hasNoteAccess("note-1", "user-1");
+
+        now.addAndGet(1);
+        assertTrue(cache.hasNoteAccess(session, "note-1", "user-1"));
+        verify(noteService, times(2)).hasNoteAccess("note-1", "user-1");
+    }
+
+    @Test
+    void collaboratorEvent_invalidatesCachedDecisions() {
+        when(noteService.hasNoteAccess("note-1", "user-1")).thenReturn(true, false);
+        assertTrue(cache.hasNoteAccess(session, "note-1", "user-1"));
+
+        String event = "{\"noteId\":\"note-1\",\"userId\":\"owner\",\"action\":\"collaborator_removed\"}";
+        cache.onMessage(new DefaultMessage("note-updates".getBytes(StandardCharsets.UTF_8),
+                event.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertFalse(cache.hasNoteAccess(session, "note-1", "user-1"));
+    }
+
+    @Test
+    void deleteEvent_invalidatesCachedDecisions() {
+        when(noteService.hasNoteAccess("note-1", "user-1")).thenReturn(true, false);
+        assertTrue(cache.hasNoteAccess(session, "note-1", "user-1"));
+
+        String event = "{\"noteId\":\"note-1\",\"userId\":\"owner\",\"action\":\"delete\"}";
+        cache.onMessage(new DefaultMessage("note-updates".getBytes(StandardCharsets.UTF_8),
+                event.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertFalse(cache.hasNoteAccess(session, "note-1", "user-1"));
+    }
+
+    @Test
+    void withoutSessionAttributes_delegatesEveryCall() {
+        when(noteService.hasNoteAccess("note-1", "user-1")).thenReturn(true);
+
+        cache.hasNoteAccess(null, "note-1", "user-1");
+        cache.hasNoteAccess(null, "note-1", "user-1");
+
+        verify(noteService, times(2)).hasNoteAccess("note-1", "user-1");
+    }
+}
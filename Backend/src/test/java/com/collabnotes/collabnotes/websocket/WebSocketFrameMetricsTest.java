@@ -0,0 +1,62 @@
+package com.collabnotes.collabnotes.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.collabnotes.collabnotes.metrics.MetricsService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WebSocketFrameMetricsTest {
+
+    private MeterRegistry meterRegistry;
+    private WebSocketFrameMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new WebSocketFrameMetrics(new MetricsService(meterRegistry), 2);
+    }
+
+    private void send(String destination, String originalDestination, String body) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        if (originalDestination != null) {
+            accessor.setHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, originalDestination);
+        }
+        Message<byte[]> message = MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders());
+        metrics.preSend(message, null);
+    }
+
+    @Test
+    void preSend_recordsBodySizesByDestinationKind() {
+        send("/topic/notes/note-1/ot", null, "{\"version\":1}");
+        send("/queue/notes/note-1/state-userabc", "/user/queue/notes/note-1/state", "{}");
+
+        assertEquals(13.0, meterRegistry.summary("app.distribution.ws.frame.bytes", "destination", "ot")
+                .totalAmount());
+        assertEquals(1, meterRegistry.summary("app.distribution.ws.frame.bytes", "destination", "state").count());
+    }
+
+    @Test
+    void preSend_samplesTheCompressionRatio() {
+        String content = "<p>" + "hello world ".repeat(200) + "</p>";
+        send("/topic/notes/note-1/ot", null, content);
+        send("/topic/notes/note-1/ot", null, content);
+
+        var ratio = meterRegistry.summary("app.distribution.ws.frame.compression_ratio", "destination", "ot");
+        assertEquals(1, ratio.count());
+        assertTrue(ratio.totalAmount() > 10);
+    }
+}